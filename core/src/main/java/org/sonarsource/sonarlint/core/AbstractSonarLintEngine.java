@@ -20,22 +20,29 @@
 package org.sonarsource.sonarlint.core;
 
 import com.google.common.collect.Streams;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.analyzer.issue.BatchingIssueListener;
 import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.ClientFileSystem;
 import org.sonarsource.sonarlint.core.client.api.common.ClientModuleFileEvent;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ModuleFileEventNotifier;
 import org.sonarsource.sonarlint.core.client.api.common.ModuleInfo;
 import org.sonarsource.sonarlint.core.client.api.common.SonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.module.ModuleRegistry;
@@ -51,12 +58,12 @@ public abstract class AbstractSonarLintEngine implements SonarLintEngine {
 
   @Override
   public void declareModule(ModuleInfo module) {
-    withRwLock(() -> getModuleRegistry().registerModule(module));
+    withSharedLock(() -> getModuleRegistry().registerModule(module));
   }
 
   @Override
   public void stopModule(Object moduleKey) {
-    withRwLock(() -> {
+    withSharedLock(() -> {
       getModuleRegistry().unregisterModule(moduleKey);
       return null;
     });
@@ -64,7 +71,7 @@ public abstract class AbstractSonarLintEngine implements SonarLintEngine {
 
   @Override
   public void fireModuleFileEvent(Object moduleKey, ClientModuleFileEvent event) {
-    withRwLock(() -> {
+    withSharedLock(() -> {
       ComponentContainer moduleContainer = getModuleRegistry().getContainerFor(moduleKey);
       if (moduleContainer != null) {
         moduleContainer.getComponentByType(ModuleFileEventNotifier.class).fireModuleFileEvent(event);
@@ -74,13 +81,13 @@ public abstract class AbstractSonarLintEngine implements SonarLintEngine {
   }
 
   protected <T> T withModule(AbstractAnalysisConfiguration configuration, Function<ComponentContainer, T> consumer) {
-    boolean deleteModuleAfterAnalysis = false;
-    Object moduleKey = configuration.moduleKey();
-    ComponentContainer moduleContainer = getModuleRegistry().getContainerFor(moduleKey);
+    ModuleRegistry moduleRegistry = getModuleRegistry();
+    boolean pooledContainer = false;
+    ComponentContainer moduleContainer = moduleRegistry.acquireContainerFor(configuration.moduleKey());
     if (moduleContainer == null) {
       // if not found, means we are outside of any module (e.g. single file analysis on VSCode)
-      moduleContainer = getModuleRegistry().createContainer(new ModuleInfo(moduleKey, new AnalysisScopeFileSystem(configuration.inputFiles())));
-      deleteModuleAfterAnalysis = true;
+      moduleContainer = moduleRegistry.acquirePooledContainer(new AnalysisScopeFileSystem(configuration.inputFiles()));
+      pooledContainer = true;
     }
     Throwable originalException = null;
     try {
@@ -90,8 +97,10 @@ public abstract class AbstractSonarLintEngine implements SonarLintEngine {
       throw e;
     } finally {
       try {
-        if (deleteModuleAfterAnalysis) {
-          moduleContainer.stopComponents();
+        if (pooledContainer) {
+          moduleRegistry.releasePooledContainer(moduleContainer);
+        } else {
+          moduleRegistry.releaseContainer(moduleContainer);
         }
       } catch (Exception e) {
         if (originalException != null) {
@@ -114,6 +123,70 @@ public abstract class AbstractSonarLintEngine implements SonarLintEngine {
     }
   }
 
+  /**
+   * In lazy plugin activation mode, activates the plugins needed by an analysis before it starts. Extensions of the newly activated
+   * plugins are added to containers shared by the analyses running concurrently, so this is done under the write lock.
+   */
+  protected void activatePluginsFor(Supplier<Set<Language>> languagesToActivate, Consumer<Set<Language>> pluginActivator) {
+    try {
+      Set<Language> languages;
+      rwl.readLock().lock();
+      try {
+        languages = languagesToActivate.get();
+      } finally {
+        rwl.readLock().unlock();
+      }
+      if (languages.isEmpty()) {
+        return;
+      }
+      rwl.writeLock().lock();
+      try {
+        pluginActivator.accept(languages);
+      } finally {
+        rwl.writeLock().unlock();
+      }
+    } catch (RuntimeException e) {
+      throw SonarLintWrappedException.wrap(e);
+    }
+  }
+
+  /**
+   * For operations that can run concurrently with analyses, but not while the engine is (re)starting or stopping.
+   */
+  protected <T> T withSharedLock(Supplier<T> callable) {
+    setLogging(null);
+    rwl.readLock().lock();
+    try {
+      return callable.get();
+    } catch (RuntimeException e) {
+      throw SonarLintWrappedException.wrap(e);
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
+  /**
+   * Routes the logs of the current thread (and of the threads it spawns) to the given output during the analysis,
+   * without affecting analyses running concurrently on other threads.
+   */
+  protected <T> T withAnalysisLogging(@Nullable LogOutput analysisLogOutput, Supplier<T> callable) {
+    setLogging(analysisLogOutput);
+    try {
+      return callable.get();
+    } finally {
+      setLogging(null);
+    }
+  }
+
+  /**
+   * Runs the analysis with a listener queuing the issues for the batch listener, and waits for all of them to be delivered.
+   */
+  protected static <T> T withBatchedIssues(IssueBatchListener issueBatchListener, IssueBatchConfiguration batchConfiguration, Function<IssueListener, T> analysis) {
+    try (BatchingIssueListener issueListener = new BatchingIssueListener(issueBatchListener, batchConfiguration)) {
+      return analysis.apply(issueListener);
+    }
+  }
+
   protected void setLogging(@Nullable LogOutput logOutput) {
     if (logOutput != null) {
       Loggers.setTarget(logOutput);
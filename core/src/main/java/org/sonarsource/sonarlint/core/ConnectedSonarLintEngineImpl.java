@@ -33,6 +33,8 @@ import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
@@ -152,19 +154,30 @@ public final class ConnectedSonarLintEngineImpl extends AbstractSonarLintEngine
   public AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     requireNonNull(configuration);
     requireNonNull(issueListener);
-    return withReadLock(() -> {
-      setLogging(logOutput);
-      return withModule(configuration, moduleContainer -> {
-        try {
-          return getHandler().analyze(moduleContainer, configuration, issueListener, new ProgressWrapper(monitor));
-        } catch (RuntimeException e) {
-          throw SonarLintWrappedException.wrap(e);
-        }
-      });
-
+    return withAnalysisLogging(logOutput, () -> {
+      if (globalConfig.isLazyPluginActivation()) {
+        activatePluginsFor(() -> getGlobalContainer().getLanguagesToActivate(configuration), languages -> getGlobalContainer().activatePlugins(languages));
+      }
+      rwl.readLock().lock();
+      try {
+        checkUpdateStatus();
+        return withModule(configuration, moduleContainer -> getHandler().analyze(moduleContainer, configuration, issueListener, new ProgressWrapper(monitor)));
+      } catch (RuntimeException e) {
+        throw SonarLintWrappedException.wrap(e);
+      } finally {
+        rwl.readLock().unlock();
+      }
     });
   }
 
+  @Override
+  public AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueBatchListener issueBatchListener, IssueBatchConfiguration batchConfiguration,
+    @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+    requireNonNull(issueBatchListener);
+    requireNonNull(batchConfiguration);
+    return withBatchedIssues(issueBatchListener, batchConfiguration, issueListener -> analyze(configuration, issueListener, logOutput, monitor));
+  }
+
   @Override
   public GlobalStorageStatus getGlobalStorageStatus() {
     return wrapErrors(globalStatusReader::read);
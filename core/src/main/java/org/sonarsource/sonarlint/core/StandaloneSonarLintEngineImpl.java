@@ -26,6 +26,8 @@ import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.SonarLintWrappedException;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
@@ -85,19 +87,33 @@ public final class StandaloneSonarLintEngineImpl extends AbstractSonarLintEngine
   public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
     requireNonNull(configuration);
     requireNonNull(issueListener);
-    setLogging(logOutput);
-    rwl.readLock().lock();
-    return withModule(configuration, moduleContainer -> {
+    return withAnalysisLogging(logOutput, () -> {
+      if (globalConfig.isLazyPluginActivation()) {
+        activatePluginsFor(() -> globalContainer.getLanguagesToActivate(configuration), globalContainer::activatePlugins);
+      }
+      rwl.readLock().lock();
       try {
-        return globalContainer.analyze(moduleContainer, configuration, issueListener, new ProgressWrapper(monitor));
-      } catch (RuntimeException e) {
-        throw SonarLintWrappedException.wrap(e);
+        return withModule(configuration, moduleContainer -> {
+          try {
+            return globalContainer.analyze(moduleContainer, configuration, issueListener, new ProgressWrapper(monitor));
+          } catch (RuntimeException e) {
+            throw SonarLintWrappedException.wrap(e);
+          }
+        });
       } finally {
         rwl.readLock().unlock();
       }
     });
   }
 
+  @Override
+  public AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueBatchListener issueBatchListener, IssueBatchConfiguration batchConfiguration,
+    @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor) {
+    requireNonNull(issueBatchListener);
+    requireNonNull(batchConfiguration);
+    return withBatchedIssues(issueBatchListener, batchConfiguration, issueListener -> analyze(configuration, issueListener, logOutput, monitor));
+  }
+
   @Override
   public void stop() {
     setLogging(null);
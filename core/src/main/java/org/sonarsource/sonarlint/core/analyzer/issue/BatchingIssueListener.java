@@ -0,0 +1,188 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
+
+/**
+ * Queues the issues raised by the analyzers and hands them over in batches to an {@link IssueBatchListener}, from a dispatcher thread
+ * started on the first issue. Raising an issue never waits on the client.
+ * {@link #close()} must be called at the end of the analysis: it delivers the remaining issues and waits for the dispatcher to finish.
+ * If the client fails on a batch, the following issues are dropped and the failure is rethrown by {@link #close()}.
+ */
+public class BatchingIssueListener implements IssueListener, AutoCloseable {
+
+  private final IssueBatchListener batchListener;
+  private final int maxBatchSize;
+  private final long maxLatencyNanos;
+  private final boolean groupByFile;
+
+  // guarded by this
+  private List<Issue> queued = new ArrayList<>();
+  private boolean closed;
+  private Thread dispatcher;
+  private Throwable failure;
+
+  // only accessed by the dispatcher thread
+  private List<Issue> batch = new ArrayList<>();
+  private long batchDeadline;
+
+  public BatchingIssueListener(IssueBatchListener batchListener, IssueBatchConfiguration configuration) {
+    this.batchListener = batchListener;
+    this.maxBatchSize = configuration.maxBatchSize();
+    this.maxLatencyNanos = configuration.maxLatency().toNanos();
+    this.groupByFile = configuration.groupByFile();
+  }
+
+  @Override
+  public synchronized void handle(Issue issue) {
+    if (closed) {
+      throw new IllegalStateException("Issue raised after the end of the analysis");
+    }
+    if (failure != null) {
+      return;
+    }
+    queued.add(issue);
+    if (dispatcher == null) {
+      dispatcher = new Thread(this::dispatch, "sonarlint-issue-dispatcher");
+      dispatcher.setDaemon(true);
+      dispatcher.start();
+    } else if (queued.size() == 1) {
+      notifyAll();
+    }
+  }
+
+  private void dispatch() {
+    while (true) {
+      List<Issue> taken;
+      boolean done;
+      synchronized (this) {
+        awaitIssuesOrDeadline();
+        taken = queued;
+        queued = new ArrayList<>();
+        done = closed && taken.isEmpty();
+      }
+      for (Issue issue : taken) {
+        add(issue);
+      }
+      if (!batch.isEmpty() && (done || System.nanoTime() - batchDeadline >= 0)) {
+        deliver();
+      }
+      if (done) {
+        return;
+      }
+    }
+  }
+
+  private void awaitIssuesOrDeadline() {
+    try {
+      while (queued.isEmpty() && !closed) {
+        if (batch.isEmpty()) {
+          wait();
+        } else {
+          long remaining = batchDeadline - System.nanoTime();
+          if (remaining <= 0) {
+            return;
+          }
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+      }
+    } catch (InterruptedException e) {
+      // deliver what is already there and stop
+      Thread.currentThread().interrupt();
+      closed = true;
+    }
+  }
+
+  private void add(Issue issue) {
+    if (groupByFile && !batch.isEmpty() && !Objects.equals(batch.get(0).getInputFile(), issue.getInputFile())) {
+      deliver();
+    }
+    if (batch.isEmpty()) {
+      batchDeadline = System.nanoTime() + maxLatencyNanos;
+    }
+    batch.add(issue);
+    if (batch.size() >= maxBatchSize) {
+      deliver();
+    }
+  }
+
+  private void deliver() {
+    List<Issue> toDeliver = Collections.unmodifiableList(batch);
+    batch = new ArrayList<>();
+    if (failed()) {
+      return;
+    }
+    try {
+      batchListener.handle(toDeliver);
+    } catch (Throwable e) {
+      synchronized (this) {
+        failure = e;
+        queued.clear();
+      }
+    }
+  }
+
+  private synchronized boolean failed() {
+    return failure != null;
+  }
+
+  @Override
+  public void close() {
+    Thread toJoin;
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+      toJoin = dispatcher;
+    }
+    if (toJoin != null) {
+      try {
+        toJoin.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for issues to be delivered", e);
+      }
+    }
+    Throwable e = getFailure();
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    if (e != null) {
+      throw new IllegalStateException("Failed to deliver issues", e);
+    }
+  }
+
+  @CheckForNull
+  private synchronized Throwable getFailure() {
+    return failure;
+  }
+}
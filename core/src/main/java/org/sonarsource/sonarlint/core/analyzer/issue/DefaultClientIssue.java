@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.Rule;
+import org.sonar.api.rule.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.QuickFix;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 
@@ -72,6 +73,10 @@ public final class DefaultClientIssue implements org.sonarsource.sonarlint.core.
     return activeRule.ruleKey().toString();
   }
 
+  RuleKey getActiveRuleKey() {
+    return activeRule.ruleKey();
+  }
+
   @Override
   public String getMessage() {
     return primaryMessage;
@@ -44,7 +44,7 @@ public class DefaultFilterableIssue implements FilterableIssue {
 
   @Override
   public RuleKey ruleKey() {
-    return RuleKey.parse(rawIssue.getRuleKey());
+    return rawIssue.getActiveRuleKey();
   }
 
   @Override
@@ -25,20 +25,31 @@ import org.sonar.api.batch.sensor.issue.IssueLocation;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
 
+/**
+ * Locations are only converted the first time they are requested, most issues being discarded or displayed without their flows.
+ * The given list of locations is expected to not be modified afterwards.
+ */
 public class DefaultFlow implements Flow {
-  private List<org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation> locations;
+  private final List<IssueLocation> issueLocations;
+  private volatile List<org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation> locations;
 
   public DefaultFlow(List<IssueLocation> issueLocations) {
-    this.locations = issueLocations.stream()
-      .map(i -> new DefaultLocation(
-        i.inputComponent().isFile() ? ((SonarLintInputFile) i.inputComponent()).getClientInputFile() : null,
-        i.textRange(),
-        i.message()))
-      .collect(Collectors.toList());
+    this.issueLocations = issueLocations;
   }
 
   @Override
   public List<org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation> locations() {
-    return locations;
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation> result = locations;
+    if (result == null) {
+      // conversion is idempotent, a concurrent first access at worst converts twice
+      result = issueLocations.stream()
+        .map(i -> new DefaultLocation(
+          i.inputComponent().isFile() ? ((SonarLintInputFile) i.inputComponent()).getClientInputFile() : null,
+          i.textRange(),
+          i.message()))
+        .collect(Collectors.toList());
+      locations = result;
+    }
+    return result;
   }
 }
@@ -19,35 +19,45 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.issue;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import javax.annotation.Nullable;
 import org.sonar.api.scan.issue.filter.FilterableIssue;
 import org.sonar.api.scan.issue.filter.IssueFilter;
 import org.sonar.api.scan.issue.filter.IssueFilterChain;
 
+/**
+ * Immutable linked chain of filters. All the links are created once, so the same chain can be reused for all issues
+ * (and by several threads) without allocating anything per issue.
+ */
 public class DefaultIssueFilterChain implements IssueFilterChain {
-  private final List<IssueFilter> filters;
+  @Nullable
+  private final IssueFilter filter;
+  @Nullable
+  private final DefaultIssueFilterChain next;
 
   public DefaultIssueFilterChain(IssueFilter... filters) {
-    this.filters = Arrays.asList(filters);
+    this(filters.length == 0 ? null : filters[0], filters.length == 0 ? null : tail(filters));
   }
 
   public DefaultIssueFilterChain() {
-    this.filters = Collections.emptyList();
+    this(null, null);
   }
 
-  private DefaultIssueFilterChain(List<IssueFilter> filters) {
-    this.filters = filters;
+  private DefaultIssueFilterChain(@Nullable IssueFilter filter, @Nullable DefaultIssueFilterChain next) {
+    this.filter = filter;
+    this.next = next;
+  }
+
+  private static DefaultIssueFilterChain tail(IssueFilter[] filters) {
+    DefaultIssueFilterChain chain = new DefaultIssueFilterChain();
+    for (int i = filters.length - 1; i > 0; i--) {
+      chain = new DefaultIssueFilterChain(filters[i], chain);
+    }
+    return chain;
   }
 
   @Override
   public boolean accept(FilterableIssue issue) {
-    if (filters.isEmpty()) {
-      return true;
-    } else {
-      return filters.get(0).accept(issue, new DefaultIssueFilterChain(filters.subList(1, filters.size())));
-    }
+    return filter == null || filter.accept(issue, next);
   }
 
 }
@@ -27,10 +27,12 @@ import org.sonarsource.api.sonarlint.SonarLintSide;
 
 @SonarLintSide
 public class IssueFilters {
-  private final IssueFilter[] filters;
+  private final boolean noFilter;
+  private final IssueFilterChain filterChain;
 
   public IssueFilters(IssueFilter[] exclusionFilters) {
-    this.filters = exclusionFilters;
+    this.noFilter = exclusionFilters.length == 0;
+    this.filterChain = new DefaultIssueFilterChain(exclusionFilters);
   }
 
   public IssueFilters() {
@@ -38,7 +40,9 @@ public class IssueFilters {
   }
 
   public boolean accept(InputComponent inputComponent, DefaultClientIssue rawIssue) {
-    IssueFilterChain filterChain = new DefaultIssueFilterChain(filters);
+    if (noFilter) {
+      return true;
+    }
     FilterableIssue fIssue = new DefaultFilterableIssue(rawIssue, inputComponent);
     return filterChain.accept(fIssue);
   }
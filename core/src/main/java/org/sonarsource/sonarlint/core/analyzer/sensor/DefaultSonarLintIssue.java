@@ -114,6 +114,13 @@ public class DefaultSonarLintIssue extends DefaultStorable implements Issue, New
       .collect(toList());
   }
 
+  /**
+   * Locations of the flows, without the defensive copies made by {@link #flows()}.
+   */
+  List<List<IssueLocation>> flowLocations() {
+    return unmodifiableList(flows);
+  }
+
   @Override
   public DefaultSonarLintIssue at(NewIssueLocation primaryLocation) {
     Preconditions.checkArgument(primaryLocation != null, "Cannot use a location that is null");
@@ -19,7 +19,12 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.TextRange;
@@ -35,7 +40,7 @@ import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.batch.sensor.issue.ExternalIssue;
 import org.sonar.api.batch.sensor.issue.Issue;
-import org.sonar.api.batch.sensor.issue.Issue.Flow;
+import org.sonar.api.batch.sensor.issue.IssueLocation;
 import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.batch.sensor.rule.AdHocRule;
 import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
@@ -51,7 +56,6 @@ import org.sonarsource.sonarlint.core.container.analysis.SonarLintRule;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 
-import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang.StringUtils.defaultIfEmpty;
 import static org.apache.commons.lang.StringUtils.isEmpty;
 
@@ -62,6 +66,7 @@ public class SonarLintSensorStorage implements SensorStorage {
   private final IssueFilters filters;
   private final IssueListener issueListener;
   private final DefaultAnalysisResult analysisResult;
+  private final Map<RuleKey, ResolvedRule> resolvedRules = new ConcurrentHashMap<>();
 
   public SonarLintSensorStorage(ActiveRules activeRules, Rules rules, IssueFilters filters, IssueListener issueListener, DefaultAnalysisResult analysisResult) {
     this.activeRules = activeRules;
@@ -82,61 +87,99 @@ public class SonarLintSensorStorage implements SensorStorage {
       throw new IllegalArgumentException("Trying to store a non-SonarLint issue?");
     }
     DefaultSonarLintIssue sonarLintIssue = (DefaultSonarLintIssue) issue;
-    InputComponent inputComponent = sonarLintIssue.primaryLocation().inputComponent();
+    IssueLocation primaryLocation = sonarLintIssue.primaryLocation();
+    InputComponent inputComponent = primaryLocation.inputComponent();
 
-    SonarLintRule rule = validateRule(sonarLintIssue);
-    ActiveRule activeRule = activeRules.find(sonarLintIssue.ruleKey());
+    ResolvedRule resolvedRule = resolvedRules.computeIfAbsent(sonarLintIssue.ruleKey(), this::resolve);
+    validateRule(resolvedRule, sonarLintIssue);
+    ActiveRule activeRule = resolvedRule.activeRule;
     if (activeRule == null) {
       // rule does not exist or is not enabled -> ignore the issue
       return;
     }
 
-    if (noSonar(inputComponent, sonarLintIssue)) {
+    if (noSonar(inputComponent, primaryLocation, resolvedRule)) {
       return;
     }
 
-    String primaryMessage = defaultIfEmpty(sonarLintIssue.primaryLocation().message(), rule.name());
+    String primaryMessage = defaultIfEmpty(primaryLocation.message(), resolvedRule.rule.name());
     org.sonar.api.batch.rule.Severity overriddenSeverity = sonarLintIssue.overriddenSeverity();
-    String severity = overriddenSeverity != null ? overriddenSeverity.name() : activeRule.severity();
-    String type = rule.type().name();
+    String severity = overriddenSeverity != null ? overriddenSeverity.name() : resolvedRule.severity;
 
-    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> flows = mapFlows(sonarLintIssue.flows());
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> flows = mapFlows(sonarLintIssue.flowLocations());
     List<QuickFix> quickFixes = sonarLintIssue.quickFixes();
 
-    DefaultClientIssue newIssue = new DefaultClientIssue(severity, type, activeRule, rules.find(activeRule.ruleKey()), primaryMessage, issue.primaryLocation().textRange(),
-      inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, flows, quickFixes);
+    DefaultClientIssue newIssue = new DefaultClientIssue(severity, resolvedRule.type, activeRule, resolvedRule.activeRuleDefinition, primaryMessage,
+      primaryLocation.textRange(), inputComponent.isFile() ? ((SonarLintInputFile) inputComponent).getClientInputFile() : null, flows, quickFixes);
     if (filters.accept(inputComponent, newIssue)) {
       issueListener.handle(newIssue);
     }
   }
 
-  private static boolean noSonar(InputComponent inputComponent, Issue issue) {
-    TextRange textRange = issue.primaryLocation().textRange();
+  private ResolvedRule resolve(RuleKey ruleKey) {
+    Rule rule = rules.find(ruleKey);
+    ActiveRule activeRule = activeRules.find(ruleKey);
+    return new ResolvedRule(ruleKey, (SonarLintRule) rule, activeRule, activeRule != null ? rules.find(activeRule.ruleKey()) : null);
+  }
+
+  private static boolean noSonar(InputComponent inputComponent, IssueLocation primaryLocation, ResolvedRule resolvedRule) {
+    TextRange textRange = primaryLocation.textRange();
     return inputComponent.isFile()
       && textRange != null
       && ((SonarLintInputFile) inputComponent).hasNoSonarAt(textRange.start().line())
-      && !StringUtils.containsIgnoreCase(issue.ruleKey().rule(), "nosonar");
+      && !resolvedRule.noSonarRule;
   }
 
-  private static List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> mapFlows(List<Flow> flows) {
-    return flows.stream()
-      .map(f -> new DefaultFlow(f.locations()
-        .stream()
-        .collect(toList())))
-      .filter(f -> !f.locations().isEmpty())
-      .collect(toList());
+  private static List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> mapFlows(List<List<IssueLocation>> flows) {
+    if (flows.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow> result = new ArrayList<>(flows.size());
+    for (List<IssueLocation> locations : flows) {
+      if (!locations.isEmpty()) {
+        result.add(new DefaultFlow(locations));
+      }
+    }
+    return result;
   }
 
-  private SonarLintRule validateRule(Issue issue) {
-    RuleKey ruleKey = issue.ruleKey();
-    Rule rule = rules.find(ruleKey);
-    if (rule == null) {
-      throw MessageException.of(String.format("The rule '%s' does not exist.", ruleKey));
+  private static void validateRule(ResolvedRule resolvedRule, Issue issue) {
+    if (resolvedRule.rule == null) {
+      throw MessageException.of(String.format("The rule '%s' does not exist.", resolvedRule.ruleKey));
+    }
+    if (!resolvedRule.hasName && isEmpty(issue.primaryLocation().message())) {
+      throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", resolvedRule.ruleKey));
     }
-    if (isEmpty(rule.name()) && isEmpty(issue.primaryLocation().message())) {
-      throw MessageException.of(String.format("The rule '%s' has no name and the related issue has no message.", ruleKey));
+  }
+
+  /**
+   * Everything needed to report the issues of a rule, resolved once per analysis.
+   */
+  private static class ResolvedRule {
+    private final RuleKey ruleKey;
+    @Nullable
+    private final SonarLintRule rule;
+    @Nullable
+    private final ActiveRule activeRule;
+    @Nullable
+    private final Rule activeRuleDefinition;
+    private final boolean hasName;
+    private final boolean noSonarRule;
+    @Nullable
+    private final String severity;
+    @Nullable
+    private final String type;
+
+    private ResolvedRule(RuleKey ruleKey, @Nullable SonarLintRule rule, @Nullable ActiveRule activeRule, @Nullable Rule activeRuleDefinition) {
+      this.ruleKey = ruleKey;
+      this.rule = rule;
+      this.activeRule = activeRule;
+      this.activeRuleDefinition = activeRuleDefinition;
+      this.hasName = rule != null && !isEmpty(rule.name());
+      this.noSonarRule = StringUtils.containsIgnoreCase(ruleKey.rule(), "nosonar");
+      this.severity = activeRule != null ? activeRule.severity() : null;
+      this.type = rule != null && activeRule != null ? rule.type().name() : null;
     }
-    return (SonarLintRule) rule;
   }
 
   @Override
@@ -49,6 +49,7 @@ public abstract class AbstractGlobalConfiguration {
   private final Version nodeJsVersion;
   private final ModulesProvider modulesProvider;
   private final long clientPid;
+  private final boolean lazyPluginActivation;
 
   protected AbstractGlobalConfiguration(AbstractBuilder<?> builder) {
     this.sonarLintUserHome = builder.sonarlintUserHome != null ? builder.sonarlintUserHome : SonarLintPathManager.home();
@@ -60,6 +61,7 @@ public abstract class AbstractGlobalConfiguration {
     this.nodeJsVersion = builder.nodeJsVersion;
     this.modulesProvider = builder.modulesProvider;
     this.clientPid = builder.clientPid;
+    this.lazyPluginActivation = builder.lazyPluginActivation;
   }
 
   public Map<String, String> extraProperties() {
@@ -101,6 +103,10 @@ public abstract class AbstractGlobalConfiguration {
     return clientPid;
   }
 
+  public boolean isLazyPluginActivation() {
+    return lazyPluginActivation;
+  }
+
   public abstract static class AbstractBuilder<G extends AbstractBuilder<G>> {
     private LogOutput logOutput;
     private Path sonarlintUserHome;
@@ -111,6 +117,7 @@ public abstract class AbstractGlobalConfiguration {
     private Version nodeJsVersion;
     private ModulesProvider modulesProvider;
     private long clientPid;
+    private boolean lazyPluginActivation;
 
     public G setLogOutput(@Nullable LogOutput logOutput) {
       this.logOutput = logOutput;
@@ -175,6 +182,16 @@ public abstract class AbstractGlobalConfiguration {
       this.clientPid = clientPid;
       return (G) this;
     }
+
+    /**
+     * Only load the classloaders and extensions of a language's plugin the first time a file of this language is analyzed,
+     * instead of loading all plugins at startup. Plugins that are not associated to a {@link Language}, and plugins needed to
+     * load rules at startup, are still loaded eagerly.
+     */
+    public G setLazyPluginActivation(boolean lazyPluginActivation) {
+      this.lazyPluginActivation = lazyPluginActivation;
+      return (G) this;
+    }
   }
 
 }
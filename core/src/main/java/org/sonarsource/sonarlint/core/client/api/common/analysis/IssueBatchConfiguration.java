@@ -0,0 +1,104 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * How issues are grouped before being delivered to an {@link IssueBatchListener}.
+ * A batch is delivered as soon as it reaches the maximum size, when the next issue belongs to another file (if grouped by file),
+ * when its oldest issue has waited for the maximum latency, or at the end of the analysis.
+ */
+public class IssueBatchConfiguration {
+
+  public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+  public static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(200);
+
+  private final int maxBatchSize;
+  private final Duration maxLatency;
+  private final boolean groupByFile;
+
+  private IssueBatchConfiguration(Builder builder) {
+    this.maxBatchSize = builder.maxBatchSize;
+    this.maxLatency = builder.maxLatency;
+    this.groupByFile = builder.groupByFile;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  public Duration maxLatency() {
+    return maxLatency;
+  }
+
+  public boolean groupByFile() {
+    return groupByFile;
+  }
+
+  @Override
+  public String toString() {
+    return "[maxBatchSize=" + maxBatchSize + ", maxLatency=" + maxLatency + ", groupByFile=" + groupByFile + "]";
+  }
+
+  public static final class Builder {
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private Duration maxLatency = DEFAULT_MAX_LATENCY;
+    private boolean groupByFile = true;
+
+    private Builder() {
+    }
+
+    public Builder setMaxBatchSize(int maxBatchSize) {
+      if (maxBatchSize < 1) {
+        throw new IllegalArgumentException("Batch size should be at least 1: " + maxBatchSize);
+      }
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    public Builder setMaxLatency(Duration maxLatency) {
+      requireNonNull(maxLatency);
+      if (maxLatency.isNegative()) {
+        throw new IllegalArgumentException("Latency should not be negative: " + maxLatency);
+      }
+      this.maxLatency = maxLatency;
+      return this;
+    }
+
+    /**
+     * When enabled (default), a batch only contains issues of a single file.
+     */
+    public Builder setGroupByFile(boolean groupByFile) {
+      this.groupByFile = groupByFile;
+      return this;
+    }
+
+    public IssueBatchConfiguration build() {
+      return new IssueBatchConfiguration(this);
+    }
+  }
+}
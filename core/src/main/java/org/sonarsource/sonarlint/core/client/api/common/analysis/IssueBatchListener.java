@@ -0,0 +1,32 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.client.api.common.analysis;
+
+import java.util.List;
+
+/**
+ * Receives the issues of an analysis in batches, see {@link IssueBatchConfiguration}.
+ * Batches are delivered from a dedicated thread, one at a time and in the order the issues were raised, so analyzers
+ * never wait on the client. All batches have been delivered when the analysis returns.
+ */
+@FunctionalInterface
+public interface IssueBatchListener {
+  void handle(List<Issue> issues);
+}
@@ -30,6 +30,8 @@ import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.SonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
@@ -77,6 +79,13 @@ public interface ConnectedSonarLintEngine extends SonarLintEngine {
    */
   AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Trigger an analysis, delivering issues in batches to the listener from a dedicated thread instead of one by one from the analyzers.
+   * All batches have been delivered when this method returns.
+   */
+  AnalysisResults analyze(ConnectedAnalysisConfiguration configuration, IssueBatchListener issueBatchListener, IssueBatchConfiguration batchConfiguration,
+    @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
+
   /**
    * Gets locally stored server issues for a given file.
    *
@@ -27,6 +27,8 @@ import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.common.SonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchListener;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueListener;
 
 /**
@@ -55,4 +57,11 @@ public interface StandaloneSonarLintEngine extends SonarLintEngine {
    */
   AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueListener issueListener, @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
 
+  /**
+   * Trigger an analysis, delivering issues in batches to the listener from a dedicated thread instead of one by one from the analyzers.
+   * All batches have been delivered when this method returns.
+   */
+  AnalysisResults analyze(StandaloneAnalysisConfiguration configuration, IssueBatchListener issueBatchListener, IssueBatchConfiguration batchConfiguration,
+    @Nullable LogOutput logOutput, @Nullable ProgressMonitor monitor);
+
 }
@@ -23,6 +23,7 @@ import org.apache.commons.lang.ArrayUtils;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.scan.filesystem.FileExclusions;
+import org.sonar.api.utils.PathUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
@@ -36,6 +37,10 @@ public class ExclusionFilters {
   private SonarLintPathPattern[] mainExclusions;
   private SonarLintPathPattern[] testInclusions;
   private SonarLintPathPattern[] testExclusions;
+  private PathPatternIndex mainInclusionIndex;
+  private PathPatternIndex mainExclusionIndex;
+  private PathPatternIndex testInclusionIndex;
+  private PathPatternIndex testExclusionIndex;
 
   public ExclusionFilters(Configuration configuration) {
     this.exclusionSettings = new FileExclusions(configuration);
@@ -46,6 +51,10 @@ public class ExclusionFilters {
     mainExclusions = prepareMainExclusions();
     testInclusions = prepareTestInclusions();
     testExclusions = prepareTestExclusions();
+    mainInclusionIndex = new PathPatternIndex(mainInclusions);
+    mainExclusionIndex = new PathPatternIndex(mainExclusions);
+    testInclusionIndex = new PathPatternIndex(testInclusions);
+    testExclusionIndex = new PathPatternIndex(testExclusions);
     log("Server included sources: ", mainInclusions);
     log("Server excluded sources: ", mainExclusions);
     log("Server included tests: ", testInclusions);
@@ -61,36 +70,30 @@ public class ExclusionFilters {
     }
   }
 
+  /**
+   * Thread safe once prepared.
+   */
   public boolean accept(String relativePath, InputFile.Type type) {
-    SonarLintPathPattern[] inclusionPatterns;
-    SonarLintPathPattern[] exclusionPatterns;
+    PathPatternIndex inclusionPatterns;
+    PathPatternIndex exclusionPatterns;
     if (InputFile.Type.MAIN == type) {
-      inclusionPatterns = mainInclusions;
-      exclusionPatterns = mainExclusions;
+      inclusionPatterns = mainInclusionIndex;
+      exclusionPatterns = mainExclusionIndex;
     } else if (InputFile.Type.TEST == type) {
-      inclusionPatterns = testInclusions;
-      exclusionPatterns = testExclusions;
+      inclusionPatterns = testInclusionIndex;
+      exclusionPatterns = testExclusionIndex;
     } else {
       throw new IllegalArgumentException("Unknown file type: " + type);
     }
 
-    if (inclusionPatterns.length > 0) {
-      boolean matchInclusion = false;
-      for (SonarLintPathPattern pattern : inclusionPatterns) {
-        matchInclusion |= pattern.match(relativePath);
-      }
-      if (!matchInclusion) {
-        return false;
-      }
+    if (inclusionPatterns.isEmpty() && exclusionPatterns.isEmpty()) {
+      return true;
     }
-    if (exclusionPatterns.length > 0) {
-      for (SonarLintPathPattern pattern : exclusionPatterns) {
-        if (pattern.match(relativePath)) {
-          return false;
-        }
-      }
+    String path = PathUtils.sanitize(relativePath);
+    if (!inclusionPatterns.isEmpty() && !inclusionPatterns.matchAny(path)) {
+      return false;
     }
-    return true;
+    return !exclusionPatterns.matchAny(path);
   }
 
   SonarLintPathPattern[] prepareMainInclusions() {
@@ -0,0 +1,96 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Patterns indexed by their literal suffix, in a trie of reversed suffixes. A path is only matched against the patterns whose
+ * literal suffix ends the path, and the ones ending with a wildcard.
+ */
+class PathPatternIndex {
+
+  private final SonarLintPathPattern[] unindexed;
+  private final Node root = new Node();
+  private final int size;
+
+  PathPatternIndex(SonarLintPathPattern[] patterns) {
+    List<SonarLintPathPattern> withoutSuffix = new ArrayList<>();
+    for (SonarLintPathPattern pattern : patterns) {
+      String suffix = pattern.literalSuffix;
+      if (suffix.isEmpty()) {
+        withoutSuffix.add(pattern);
+      } else {
+        Node node = root;
+        for (int i = suffix.length() - 1; i >= 0; i--) {
+          node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+        }
+        node.patterns.add(pattern);
+      }
+    }
+    this.unindexed = withoutSuffix.toArray(new SonarLintPathPattern[0]);
+    this.size = patterns.length;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @param path a path already sanitized with {@link org.sonar.api.utils.PathUtils#sanitize(String)}
+   */
+  boolean matchAny(@Nullable String path) {
+    if (path == null) {
+      return false;
+    }
+    for (SonarLintPathPattern pattern : unindexed) {
+      if (pattern.matchSanitized(path)) {
+        return true;
+      }
+    }
+    // same as the wildcard pattern, ignore trailing slashes
+    int end = path.length();
+    while (end > 0 && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    Node node = root;
+    for (int i = end - 1; i >= 0; i--) {
+      node = node.children.get(path.charAt(i));
+      if (node == null) {
+        return false;
+      }
+      for (SonarLintPathPattern pattern : node.patterns) {
+        if (pattern.matchSanitized(path)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final List<SonarLintPathPattern> patterns = new ArrayList<>(1);
+  }
+}
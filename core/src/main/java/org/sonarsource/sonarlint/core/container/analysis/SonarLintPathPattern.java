@@ -19,6 +19,7 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis;
 
+import javax.annotation.Nullable;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -36,6 +37,11 @@ public class SonarLintPathPattern {
 
   final WildcardPattern pattern;
 
+  /**
+   * Literal end of the pattern, that any matching path ends with. Empty if the pattern ends with a wildcard.
+   */
+  final String literalSuffix;
+
   public SonarLintPathPattern(String pattern) {
     if (pattern.startsWith("file:")) {
       LOG.warn("Unsupported path pattern: " + pattern);
@@ -45,6 +51,21 @@ public class SonarLintPathPattern {
       pattern = "**/" + pattern;
     }
     this.pattern = WildcardPattern.create(pattern);
+    this.literalSuffix = literalSuffix(pattern);
+  }
+
+  private static String literalSuffix(String pattern) {
+    int lastWildcard = StringUtils.lastIndexOfAny(pattern, new String[] {"*", "?", "\\"});
+    String suffix = pattern.substring(lastWildcard + 1);
+    if (suffix.endsWith("/")) {
+      // trailing slashes are not significant
+      return "";
+    }
+    if (suffix.startsWith("/") && lastWildcard > 0 && pattern.charAt(lastWildcard - 1) == '*') {
+      // "**/" also matches zero directory
+      return suffix.substring(1);
+    }
+    return suffix;
   }
 
   public static SonarLintPathPattern[] create(String[] s) {
@@ -76,6 +97,13 @@ public class SonarLintPathPattern {
         path = path + extension;
       }
     }
+    return matchSanitized(path);
+  }
+
+  /**
+   * @param path a path already sanitized with {@link PathUtils#sanitize(String)}
+   */
+  boolean matchSanitized(@Nullable String path) {
     return path != null && pattern.match(path);
   }
 
@@ -20,9 +20,15 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFileFilter;
 import org.sonar.api.utils.MessageException;
@@ -43,6 +49,17 @@ public class FileIndexer {
 
   private static final Logger LOG = Loggers.get(FileIndexer.class);
 
+  /**
+   * Analysis property to index files with the given number of threads. Files are then read eagerly, to compute their metadata and
+   * issue exclusions, so the {@link ClientInputFile} implementation must support being read concurrently. Defaults to 1, ie
+   * sequential indexing with lazy metadata.
+   */
+  public static final String PARALLELISM_PROPERTY = "sonarlint.indexing.parallelism";
+  /**
+   * Below this number of files per thread, parallel indexing is not worth it.
+   */
+  private static final int MIN_FILES_PER_THREAD = 16;
+
   private final InputFileBuilder inputFileBuilder;
   private final AbstractAnalysisConfiguration analysisConfiguration;
   private final DefaultAnalysisResult analysisResult;
@@ -75,7 +92,12 @@ public class FileIndexer {
     Progress progress = new Progress();
 
     try {
-      indexFiles(inputFileCache, progress, analysisConfiguration.inputFiles());
+      int parallelism = parallelism();
+      if (parallelism > 1) {
+        indexFilesInParallel(inputFileCache, progress, analysisConfiguration.inputFiles(), parallelism);
+      } else {
+        indexFiles(inputFileCache, progress, analysisConfiguration.inputFiles());
+      }
     } catch (Exception e) {
       progressReport.stop(null);
       throw e;
@@ -85,6 +107,18 @@ public class FileIndexer {
     analysisResult.setIndexedFileCount(totalIndexed);
   }
 
+  private int parallelism() {
+    String value = analysisConfiguration.extraProperties().get(PARALLELISM_PROPERTY);
+    if (value == null) {
+      return 1;
+    }
+    try {
+      return Math.max(1, Integer.parseInt(value.trim()));
+    } catch (NumberFormatException e) {
+      throw MessageException.of("Property '" + PARALLELISM_PROPERTY + "' must be an integer: " + value);
+    }
+  }
+
   private static String pluralizeFiles(int count) {
     return count == 1 ? "file" : "files";
   }
@@ -95,15 +129,69 @@ public class FileIndexer {
     }
   }
 
+  /**
+   * Builds the input files and applies the filters sequentially, then computes the metadata of the accepted files in parallel, and
+   * finally adds them to the cache sequentially, in the original order.
+   */
+  private void indexFilesInParallel(InputFileCache inputFileCache, Progress progress, Iterable<ClientInputFile> inputFiles, int parallelism) {
+    List<SonarLintInputFile> acceptedFiles = new ArrayList<>();
+    for (ClientInputFile file : inputFiles) {
+      SonarLintInputFile inputFile = inputFileBuilder.create(file);
+      if (accept(inputFile)) {
+        acceptedFiles.add(inputFile);
+      }
+    }
+    int threads = Math.min(parallelism, acceptedFiles.size() / MIN_FILES_PER_THREAD);
+    if (threads >= 2) {
+      checkMetadataInParallel(acceptedFiles, threads);
+    }
+    for (SonarLintInputFile inputFile : acceptedFiles) {
+      addAccepted(inputFileCache, progress, inputFile);
+    }
+  }
+
+  private void checkMetadataInParallel(List<SonarLintInputFile> inputFiles, int threads) {
+    AtomicInteger prepared = new AtomicInteger();
+    AtomicReference<URI> lastPrepared = new AtomicReference<>();
+    progressReport.message(() -> prepared.get() + " files read...  (last one was " + lastPrepared.get() + ")");
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.submit(() -> inputFiles.parallelStream()
+        .forEach(inputFile -> {
+          inputFile.checkMetadata();
+          prepared.incrementAndGet();
+          lastPrepared.set(inputFile.uri());
+        }))
+        .get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing files", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to index files", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   private void indexFile(InputFileCache inputFileCache, Progress progress, ClientInputFile file) {
-    SonarLintInputFile inputFile = inputFileBuilder.create(file);
+    indexIfAccepted(inputFileCache, progress, inputFileBuilder.create(file));
+  }
+
+  private void indexIfAccepted(InputFileCache inputFileCache, Progress progress, SonarLintInputFile inputFile) {
     if (accept(inputFile)) {
-      analysisResult.setLanguageForFile(file, inputFile.getLanguage());
-      indexFile(inputFileCache, progress, inputFile);
-      issueExclusionsLoader.addMulticriteriaPatterns(inputFile);
+      addAccepted(inputFileCache, progress, inputFile);
     }
   }
 
+  private void addAccepted(InputFileCache inputFileCache, Progress progress, SonarLintInputFile inputFile) {
+    analysisResult.setLanguageForFile(inputFile.getClientInputFile(), inputFile.getLanguage());
+    indexFile(inputFileCache, progress, inputFile);
+    issueExclusionsLoader.addMulticriteriaPatterns(inputFile);
+  }
+
   private void indexFile(final InputFileCache inputFileCache, final Progress status, final SonarLintInputFile inputFile) {
     inputFileCache.doAdd(inputFile);
     status.markAsIndexed(inputFile);
@@ -19,7 +19,6 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,8 +28,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URI;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import javax.annotation.Nullable;
 import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.input.BOMInputStream;
@@ -50,6 +48,12 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int BUFFER_SIZE = 8192;
+  private static final int INITIAL_LINE_CAPACITY = 64;
+  /**
+   * Decoded characters are read in bulk into a buffer reused by all files read by a thread.
+   */
+  private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[BUFFER_SIZE]);
 
   public abstract static class CharHandler {
 
@@ -66,70 +70,119 @@ public class FileMetadata {
     }
   }
 
-  private static class LineCounter extends CharHandler {
-    private int lines = 1;
-    boolean alreadyLoggedInvalidCharacter = false;
+  /**
+   * Counts lines and records their offsets, without any per-character dispatch. The optional other handler is only called
+   * when there is one, typically when issue exclusion patterns are configured.
+   */
+  private static class LineScanner {
     private final URI fileUri;
     private final Charset encoding;
+    @Nullable
+    private final CharHandler otherHandler;
+    private int lines = 1;
+    private int[] originalLineOffsets = new int[INITIAL_LINE_CAPACITY];
+    private int currentOriginalOffset = 0;
+    private boolean afterCR = false;
+    private boolean alreadyLoggedInvalidCharacter = false;
 
-    LineCounter(URI fileUri, Charset encoding) {
+    LineScanner(URI fileUri, Charset encoding, @Nullable CharHandler otherHandler) {
       this.fileUri = fileUri;
       this.encoding = encoding;
+      this.otherHandler = otherHandler;
     }
 
-    @Override
-    protected void handleAll(char c) {
-      if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
-          fileUri,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
-        alreadyLoggedInvalidCharacter = true;
+    void scan(char[] chars, int length) {
+      if (otherHandler != null) {
+        dispatch(otherHandler, chars, length, afterCR);
       }
+      int offset = currentOriginalOffset;
+      boolean previousIsCR = afterCR;
+      for (int i = 0; i < length; i++) {
+        char c = chars[i];
+        if (c == LINE_FEED) {
+          offset++;
+          newLine(offset);
+          previousIsCR = false;
+        } else if (c == CARRIAGE_RETURN) {
+          if (previousIsCR) {
+            newLine(offset);
+          }
+          offset++;
+          previousIsCR = true;
+        } else {
+          if (previousIsCR) {
+            newLine(offset);
+            previousIsCR = false;
+          }
+          if (c == '\ufffd') {
+            logInvalidCharacter();
+          }
+          offset++;
+        }
+      }
+      currentOriginalOffset = offset;
+      afterCR = previousIsCR;
     }
 
-    @Override
-    protected void newLine() {
+    private void newLine(int offset) {
+      if (lines == originalLineOffsets.length) {
+        originalLineOffsets = Arrays.copyOf(originalLineOffsets, lines * 2);
+      }
+      originalLineOffsets[lines] = offset;
       lines++;
     }
 
-    public int lines() {
-      return lines;
-    }
-
-  }
-
-  private static class LineOffsetCounter extends CharHandler {
-    private int currentOriginalOffset = 0;
-    private List<Integer> originalLineOffsets = new ArrayList<>();
-    private int lastValidOffset = 0;
-
-    public LineOffsetCounter() {
-      originalLineOffsets.add(0);
-    }
-
-    @Override
-    protected void handleAll(char c) {
-      currentOriginalOffset++;
-    }
-
-    @Override
-    protected void newLine() {
-      originalLineOffsets.add(currentOriginalOffset);
-    }
-
-    @Override
-    protected void eof() {
-      lastValidOffset = currentOriginalOffset;
+    private void logInvalidCharacter() {
+      if (!alreadyLoggedInvalidCharacter) {
+        LOG.warn("Invalid character encountered in file '{}' at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.",
+          fileUri,
+          lines, encoding, CoreProperties.ENCODING_PROPERTY);
+        alreadyLoggedInvalidCharacter = true;
+      }
     }
 
-    public List<Integer> getOriginalLineOffsets() {
-      return originalLineOffsets;
+    Metadata eof() {
+      if (afterCR) {
+        newLine(currentOriginalOffset);
+      }
+      if (otherHandler != null) {
+        if (afterCR) {
+          otherHandler.newLine();
+        }
+        otherHandler.eof();
+      }
+      return new Metadata(lines, Arrays.copyOf(originalLineOffsets, lines), currentOriginalOffset);
     }
 
-    public int getLastValidOffset() {
-      return lastValidOffset;
+    private static void dispatch(CharHandler handler, char[] chars, int length, boolean afterCRAtStart) {
+      boolean previousIsCR = afterCRAtStart;
+      for (int i = 0; i < length; i++) {
+        char c = chars[i];
+        if (previousIsCR) {
+          if (c == CARRIAGE_RETURN) {
+            handler.newLine();
+            handler.handleAll(c);
+          } else if (c == LINE_FEED) {
+            handler.handleAll(c);
+            handler.newLine();
+          } else {
+            handler.newLine();
+            handler.handleIgnoreEoL(c);
+            handler.handleAll(c);
+          }
+          previousIsCR = c == CARRIAGE_RETURN;
+        } else if (c == LINE_FEED) {
+          handler.handleAll(c);
+          handler.newLine();
+        } else if (c == CARRIAGE_RETURN) {
+          previousIsCR = true;
+          handler.handleAll(c);
+        } else {
+          handler.handleIgnoreEoL(c);
+          handler.handleAll(c);
+        }
+      }
     }
-
   }
 
   /**
@@ -145,20 +198,17 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(InputStream stream, Charset encoding, URI fileUri, @Nullable CharHandler otherHandler) {
-    LineCounter lineCounter = new LineCounter(fileUri, encoding);
-    LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    try (Reader reader = new BufferedReader(new InputStreamReader(stream, encoding))) {
-      CharHandler[] handlers;
-      if (otherHandler != null) {
-        handlers = new CharHandler[] {lineCounter, lineOffsetCounter, otherHandler};
-      } else {
-        handlers = new CharHandler[] {lineCounter, lineOffsetCounter};
+    LineScanner scanner = new LineScanner(fileUri, encoding, otherHandler);
+    char[] buffer = BUFFER.get();
+    try (Reader reader = new InputStreamReader(stream, encoding)) {
+      int read;
+      while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+        scanner.scan(buffer, read);
       }
-      read(reader, handlers);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", fileUri, encoding), e);
     }
-    return new Metadata(lineCounter.lines(), lineOffsetCounter.getOriginalLineOffsets().stream().mapToInt(i -> i).toArray(), lineOffsetCounter.getLastValidOffset());
+    return scanner.eof();
   }
 
   private static InputStream streamFile(File file) {
@@ -170,53 +220,6 @@ public class FileMetadata {
     }
   }
 
-  private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
-    boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
-      if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
-            handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
-          }
-        }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-          handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
-          handler.handleIgnoreEoL(c);
-          handler.handleAll(c);
-        }
-      }
-      i = reader.read();
-    }
-    for (CharHandler handler : handlers) {
-      if (afterCR) {
-        handler.newLine();
-      }
-      handler.eof();
-    }
-  }
-
   public static class Metadata {
     private final int lines;
     private final int[] originalLineOffsets;
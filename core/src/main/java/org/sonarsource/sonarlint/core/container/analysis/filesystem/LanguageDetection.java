@@ -20,11 +20,16 @@
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
 import java.text.MessageFormat;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.CheckForNull;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -44,59 +49,150 @@ public class LanguageDetection {
   private static final Logger LOG = Loggers.get(LanguageDetection.class);
 
   /**
-   * Lower-case extension -> languages
+   * Tables are shared by all the containers having the same file suffixes, typically the analysis and module containers.
    */
-  private final Map<Language, String[]> extensionsByLanguage = new LinkedHashMap<>();
+  private static final int MAX_CACHED_TABLES = 16;
+  private static final Map<Map<Language, List<String>>, SuffixTable> TABLES_BY_EXTENSIONS = new ConcurrentHashMap<>();
+
+  /**
+   * Language -> lower-case extensions
+   */
+  private final Map<Language, List<String>> extensionsByLanguage = new EnumMap<>(Language.class);
+  private final SuffixTable suffixTable;
 
   public LanguageDetection(Configuration config) {
     for (Language language : Language.values()) {
       String[] extensions = config.get(language.getFileSuffixesPropKey()).isPresent() ? config.getStringArray(language.getFileSuffixesPropKey())
         : language.getDefaultFileSuffixes();
-      for (int i = 0; i < extensions.length; i++) {
-        String suffix = extensions[i];
-        extensions[i] = sanitizeExtension(suffix);
+      List<String> sanitized = new ArrayList<>(extensions.length);
+      for (String suffix : extensions) {
+        sanitized.add(sanitizeExtension(suffix));
       }
-      extensionsByLanguage.put(language, extensions);
+      extensionsByLanguage.put(language, sanitized);
     }
+    this.suffixTable = getOrCreateTable(extensionsByLanguage);
+  }
+
+  private static SuffixTable getOrCreateTable(Map<Language, List<String>> extensionsByLanguage) {
+    SuffixTable table = TABLES_BY_EXTENSIONS.get(extensionsByLanguage);
+    if (table == null) {
+      table = new SuffixTable(extensionsByLanguage);
+      if (TABLES_BY_EXTENSIONS.size() >= MAX_CACHED_TABLES) {
+        TABLES_BY_EXTENSIONS.clear();
+      }
+      TABLES_BY_EXTENSIONS.put(new EnumMap<>(extensionsByLanguage), table);
+    }
+    return table;
   }
 
   @CheckForNull
   public Language language(InputFile inputFile) {
-    Language detectedLanguage = null;
-    for (Entry<Language, String[]> languagePatterns : extensionsByLanguage.entrySet()) {
-      if (isCandidateForLanguage(inputFile, languagePatterns.getValue())) {
-        if (detectedLanguage == null) {
-          detectedLanguage = languagePatterns.getKey();
-        } else {
-          // Language was already forced by another pattern
-          throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file extension matches both {1} and {2}",
-            inputFile.uri(), getDetails(detectedLanguage), getDetails(languagePatterns.getKey())));
-        }
-      }
+    Set<Language> languages = suffixTable.languages(inputFile.filename());
+    if (languages.isEmpty()) {
+      return null;
     }
-    if (detectedLanguage != null) {
-      LOG.debug("Language of file '{}' is detected to be '{}'", inputFile.uri(), detectedLanguage);
-      return detectedLanguage;
+    Iterator<Language> it = languages.iterator();
+    Language detectedLanguage = it.next();
+    if (it.hasNext()) {
+      throw MessageException.of(MessageFormat.format("Language of file ''{0}'' can not be decided as the file extension matches both {1} and {2}",
+        inputFile.uri(), getDetails(detectedLanguage), getDetails(it.next())));
     }
-    return null;
+    LOG.debug("Language of file '{}' is detected to be '{}'", inputFile.uri(), detectedLanguage);
+    return detectedLanguage;
   }
 
-  private static boolean isCandidateForLanguage(InputFile inputFile, String[] extensions) {
-    for (String extension : extensions) {
-      if (inputFile.filename().toLowerCase(Locale.ENGLISH).endsWith("." + extension)) {
-        return true;
-      }
-    }
-    return false;
+  /**
+   * Languages whose file suffixes match the given file name. Unlike {@link #language(InputFile)}, does not fail when there are several.
+   */
+  public Set<Language> candidateLanguages(String filename) {
+    return EnumSet.copyOf(suffixTable.languages(filename));
   }
 
   private String getDetails(Language detectedLanguage) {
     return detectedLanguage + ": "
-      + Arrays.stream(extensionsByLanguage.get(detectedLanguage))
-        .collect(joining(","));
+      + String.join(",", extensionsByLanguage.get(detectedLanguage));
   }
 
   static String sanitizeExtension(String suffix) {
     return StringUtils.lowerCase(StringUtils.removeStart(suffix, "."));
   }
+
+  /**
+   * Trie of the reversed file suffixes. A file name is read once from its end, and each node reached right after a dot gives the languages of
+   * this suffix. Same results as checking <code>filename.toLowerCase(Locale.ENGLISH).endsWith("." + extension)</code> for all extensions.
+   */
+  private static class SuffixTable {
+    private static final Set<Language> NO_LANGUAGE = EnumSet.noneOf(Language.class);
+
+    private final Node root = new Node();
+
+    SuffixTable(Map<Language, List<String>> extensionsByLanguage) {
+      for (Map.Entry<Language, List<String>> entry : extensionsByLanguage.entrySet()) {
+        for (String extension : entry.getValue()) {
+          Node node = root;
+          for (int i = extension.length() - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(extension.charAt(i), c -> new Node());
+          }
+          node.languages.add(entry.getKey());
+        }
+      }
+      logConflicts(extensionsByLanguage);
+    }
+
+    private void logConflicts(Map<Language, List<String>> extensionsByLanguage) {
+      for (Map.Entry<Language, List<String>> entry : extensionsByLanguage.entrySet()) {
+        for (String extension : entry.getValue()) {
+          // any file ending with this extension matches all these languages
+          Set<Language> languages = languages("." + extension);
+          if (languages.size() > 1) {
+            LOG.warn("File suffix '{}' of language {} also matches {}, language of such files can not be decided", extension, entry.getKey(),
+              languages.stream().filter(l -> l != entry.getKey()).map(Language::toString).collect(joining(", ")));
+          }
+        }
+      }
+    }
+
+    Set<Language> languages(String filename) {
+      String name = isAscii(filename) ? filename : filename.toLowerCase(Locale.ENGLISH);
+      Set<Language> result = NO_LANGUAGE;
+      Node node = root;
+      for (int i = name.length(); i > 0; i--) {
+        if (name.charAt(i - 1) == '.' && !node.languages.isEmpty()) {
+          result = add(result, node.languages);
+        }
+        node = node.children.get(toLowerCase(name.charAt(i - 1)));
+        if (node == null) {
+          return result;
+        }
+      }
+      return result;
+    }
+
+    private static Set<Language> add(Set<Language> result, Set<Language> languages) {
+      if (result.isEmpty()) {
+        return languages;
+      }
+      Set<Language> union = EnumSet.copyOf(result);
+      union.addAll(languages);
+      return union;
+    }
+
+    private static boolean isAscii(String s) {
+      for (int i = 0; i < s.length(); i++) {
+        if (s.charAt(i) >= 0x80) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static char toLowerCase(char c) {
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final Set<Language> languages = EnumSet.noneOf(Language.class);
+  }
 }
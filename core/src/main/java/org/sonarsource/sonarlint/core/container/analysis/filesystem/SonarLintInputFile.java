@@ -45,6 +45,7 @@ public class SonarLintInputFile implements InputFile {
 
   private final ClientInputFile clientInputFile;
   private final String relativePath;
+  private String filename;
   private Language language;
   private Type type;
   private Metadata metadata;
@@ -192,7 +193,13 @@ public class SonarLintInputFile implements InputFile {
 
   @Override
   public String filename() {
-    return Paths.get(relativePath).getFileName().toString();
+    // immutable, so a concurrent computation is harmless
+    String name = filename;
+    if (name == null) {
+      name = Paths.get(relativePath).getFileName().toString();
+      filename = name;
+    }
+    return name;
   }
 
   @Override
@@ -21,6 +21,8 @@ package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.CharHandler;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputFile;
@@ -34,6 +36,8 @@ public class IssueExclusionsLoader {
 
   private final List<java.util.regex.Pattern> allFilePatterns;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final PatternUnion allFilePatternsUnion;
+  private final PatternUnion blockStartPatternsUnion;
   private final IgnoreIssuesFilter ignoreIssuesFilter;
   private final IssueExclusionPatternInitializer patternsInitializer;
   private final boolean enableCharHandler;
@@ -52,9 +56,15 @@ public class IssueExclusionsLoader {
         java.util.regex.Pattern.compile(pattern.getBeginBlockRegexp()),
         java.util.regex.Pattern.compile(pattern.getEndBlockRegexp())));
     }
+    allFilePatternsUnion = new PatternUnion(allFilePatterns);
+    blockStartPatternsUnion = blockStartPatternsUnion(blockMatchers);
     enableCharHandler = !allFilePatterns.isEmpty() || !blockMatchers.isEmpty();
   }
 
+  static PatternUnion blockStartPatternsUnion(List<DoubleRegexpMatcher> blockMatchers) {
+    return new PatternUnion(blockMatchers.stream().map(m -> m.firstPattern).collect(Collectors.toList()));
+  }
+
   public void addMulticriteriaPatterns(SonarLintInputFile inputFile) {
     for (IssuePattern pattern : patternsInitializer.getMulticriteriaPatterns()) {
       if (pattern.matchFile(inputFile.relativePath())) {
@@ -66,7 +76,7 @@ public class IssueExclusionsLoader {
   @CheckForNull
   public CharHandler createCharHandlerFor(SonarLintInputFile inputFile) {
     if (enableCharHandler) {
-      return new IssueExclusionsRegexpScanner(inputFile, allFilePatterns, blockMatchers);
+      return new IssueExclusionsRegexpScanner(inputFile, allFilePatterns, allFilePatternsUnion, blockMatchers, blockStartPatternsUnion);
     }
     return null;
   }
@@ -81,12 +91,15 @@ public class IssueExclusionsLoader {
       this.secondPattern = secondPattern;
     }
 
-    boolean matchesFirstPattern(String line) {
+    boolean matchesFirstPattern(CharSequence line) {
       return firstPattern.matcher(line).find();
     }
 
-    boolean matchesSecondPattern(String line) {
-      return hasSecondPattern() && secondPattern.matcher(line).find();
+    /**
+     * To be reset on each line, instead of creating a matcher per line
+     */
+    Matcher newSecondPatternMatcher() {
+      return secondPattern.matcher("");
     }
 
     boolean hasSecondPattern() {
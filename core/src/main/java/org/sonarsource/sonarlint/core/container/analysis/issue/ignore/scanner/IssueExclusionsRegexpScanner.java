@@ -23,8 +23,10 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.container.analysis.filesystem.FileMetadata.CharHandler;
@@ -36,7 +38,9 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
 
   private final StringBuilder sb = new StringBuilder();
   private final List<Pattern> allFilePatterns;
+  private final PatternUnion.Finder allFilePatternsFinder;
   private final List<DoubleRegexpMatcher> blockMatchers;
+  private final PatternUnion.Finder blockStartPatternsFinder;
   private final SonarLintInputFile inputFile;
 
   private int lineIndex = 1;
@@ -44,11 +48,22 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
   private LineExclusion currentLineExclusion = null;
   private int fileLength = 0;
   private DoubleRegexpMatcher currentMatcher;
+  private Matcher currentEndMatcher;
   private boolean ignoreAllIssues;
 
   IssueExclusionsRegexpScanner(SonarLintInputFile inputFile, List<Pattern> allFilePatterns, List<DoubleRegexpMatcher> blockMatchers) {
+    this(inputFile, allFilePatterns, new PatternUnion(allFilePatterns), blockMatchers, IssueExclusionsLoader.blockStartPatternsUnion(blockMatchers));
+  }
+
+  /**
+   * Unions are computed once by the loader and shared by the scanners of all files.
+   */
+  IssueExclusionsRegexpScanner(SonarLintInputFile inputFile, List<Pattern> allFilePatterns, PatternUnion allFilePatternsUnion, List<DoubleRegexpMatcher> blockMatchers,
+    PatternUnion blockStartPatternsUnion) {
     this.allFilePatterns = allFilePatterns;
+    this.allFilePatternsFinder = allFilePatternsUnion.newFinder();
     this.blockMatchers = blockMatchers;
+    this.blockStartPatternsFinder = blockStartPatternsUnion.newFinder();
     this.inputFile = inputFile;
     LOG.debug("Evaluate issue exclusions for '{}'", inputFile.relativePath());
   }
@@ -68,7 +83,7 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
       // Optimization
       return;
     }
-    processLine(sb.toString());
+    processLine(sb);
     sb.setLength(0);
     lineIndex++;
   }
@@ -79,7 +94,7 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
       // Optimization
       return;
     }
-    processLine(sb.toString());
+    processLine(sb);
 
     if (currentMatcher != null && !currentMatcher.hasSecondPattern()) {
       // this will happen when there is a start block regexp but no end block regexp
@@ -95,26 +110,46 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     }
   }
 
-  private void processLine(String line) {
-    if (line.trim().length() == 0) {
+  private void processLine(CharSequence line) {
+    if (isBlank(line)) {
       return;
     }
 
     // first check the single regexp patterns that can be used to totally exclude a file
-    for (Pattern pattern : allFilePatterns) {
-      if (pattern.matcher(line).find()) {
-        // nothing more to do on this file
-        LOG.debug("  - Exclusion pattern '{}': all issues in this file will be ignored.", pattern);
-        ignoreAllIssues = true;
-        inputFile.setIgnoreAllIssues(true);
-        return;
-      }
+    if (allFilePatternsFinder.find(line)) {
+      // nothing more to do on this file
+      LOG.debug("  - Exclusion pattern '{}': all issues in this file will be ignored.", firstMatchingPattern(line));
+      ignoreAllIssues = true;
+      inputFile.setIgnoreAllIssues(true);
+      return;
     }
 
     // then check the double regexps if we're still here
     checkDoubleRegexps(line, lineIndex);
   }
 
+  /**
+   * Same as <code>line.toString().trim().isEmpty()</code>
+   */
+  private static boolean isBlank(CharSequence line) {
+    for (int i = 0; i < line.length(); i++) {
+      if (line.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @CheckForNull
+  private Pattern firstMatchingPattern(CharSequence line) {
+    for (Pattern pattern : allFilePatterns) {
+      if (pattern.matcher(line).find()) {
+        return pattern;
+      }
+    }
+    return null;
+  }
+
   private Set<LineRange> convertLineExclusionsToLineRanges() {
     Set<LineRange> lineRanges = new HashSet<>(lineExclusions.size());
     for (LineExclusion lineExclusion : lineExclusions) {
@@ -123,19 +158,25 @@ public class IssueExclusionsRegexpScanner extends CharHandler {
     return lineRanges;
   }
 
-  private void checkDoubleRegexps(String line, int lineIndex) {
+  private void checkDoubleRegexps(CharSequence line, int lineIndex) {
     if (currentMatcher == null) {
+      // most lines match no block start, the union tells it in one pass. Otherwise, the first block in order wins.
+      if (!blockStartPatternsFinder.find(line)) {
+        return;
+      }
       for (DoubleRegexpMatcher matcher : blockMatchers) {
         if (matcher.matchesFirstPattern(line)) {
           startExclusion(lineIndex);
           currentMatcher = matcher;
+          currentEndMatcher = matcher.hasSecondPattern() ? matcher.newSecondPatternMatcher() : null;
           break;
         }
       }
     } else {
-      if (currentMatcher.matchesSecondPattern(line)) {
+      if (currentEndMatcher != null && currentEndMatcher.reset(line).find()) {
         endExclusion(lineIndex);
         currentMatcher = null;
+        currentEndMatcher = null;
       }
     }
   }
@@ -0,0 +1,98 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Finds if any of several regexps matches a line, in a single pass: regexps are combined in one alternation.
+ * Regexps using constructs that would change meaning once combined (flags, back references, named groups, quoting, comments)
+ * are kept apart and tried one by one.
+ */
+class PatternUnion {
+
+  private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\\\Q|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]*x");
+
+  private final Pattern union;
+  private final List<Pattern> separate;
+
+  PatternUnion(List<Pattern> patterns) {
+    List<Pattern> combinable = new ArrayList<>();
+    List<Pattern> others = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      if (pattern.flags() == 0 && !NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+        combinable.add(pattern);
+      } else {
+        others.add(pattern);
+      }
+    }
+    this.union = combine(combinable, others);
+    this.separate = others;
+  }
+
+  private static Pattern combine(List<Pattern> combinable, List<Pattern> others) {
+    if (combinable.isEmpty()) {
+      return null;
+    }
+    if (combinable.size() == 1) {
+      return combinable.get(0);
+    }
+    try {
+      return Pattern.compile(combinable.stream().map(p -> "(?:" + p.pattern() + ")").collect(Collectors.joining("|")));
+    } catch (PatternSyntaxException e) {
+      // should not happen, but the patterns still work separately
+      others.addAll(0, combinable);
+      return null;
+    }
+  }
+
+  boolean isEmpty() {
+    return union == null && separate.isEmpty();
+  }
+
+  /**
+   * Matchers are reused from one line to another, so a finder must not be shared between threads.
+   */
+  Finder newFinder() {
+    return new Finder();
+  }
+
+  class Finder {
+    private final Matcher unionMatcher = union != null ? union.matcher("") : null;
+    private final Matcher[] separateMatchers = separate.stream().map(p -> p.matcher("")).toArray(Matcher[]::new);
+
+    boolean find(CharSequence line) {
+      if (unionMatcher != null && unionMatcher.reset(line).find()) {
+        return true;
+      }
+      for (Matcher matcher : separateMatchers) {
+        if (matcher.reset(line).find()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
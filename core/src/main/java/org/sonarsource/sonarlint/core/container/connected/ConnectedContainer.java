@@ -121,7 +121,7 @@ public class ConnectedContainer extends ComponentContainer {
       IssueDownloader.class,
       IssueApi.class,
       SourceApi.class,
-      IssueStoreFactory.class,
+      globalStores.getIssueStoreFactory(),
       new PluginCacheProvider(),
       PluginHashes.class,
       ProjectStoragePaths.class,
@@ -19,7 +19,13 @@
  */
 package org.sonarsource.sonarlint.core.container.connected;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
 
 public interface IssueStore {
@@ -33,6 +39,21 @@ public interface IssueStore {
    */
   void save(List<ServerIssue> issues);
 
+  /**
+   * Add issues to the ones already stored for their files. By default the stored issues are loaded and saved again, implementations
+   * should avoid reading them when possible.
+   */
+  default void append(List<ServerIssue> issues) {
+    List<ServerIssue> toSave = new ArrayList<>();
+    issues.stream()
+      .collect(Collectors.groupingBy(issue -> issue.getPrimaryLocation().getPath(), LinkedHashMap::new, Collectors.toList()))
+      .forEach((sqFilePath, newIssues) -> {
+        toSave.addAll(load(sqFilePath));
+        toSave.addAll(newIssues);
+      });
+    save(toSave);
+  }
+
   /**
    * Load issues stored for specified file.
    *
@@ -41,6 +62,15 @@ public interface IssueStore {
    */
   List<ServerIssue> load(String sqFilePath);
 
+  /**
+   * Find the files under which the given issues are stored, for instance to remove an issue that moved to another file.
+   *
+   * @return the file of each issue found, or empty if the store can't search issues by key
+   */
+  default Optional<Map<String, String>> findFiles(Set<String> issueKeys) {
+    return Optional.empty();
+  }
+
   /**
    * Deletes issues stored for specified file, if they exist.
    *
@@ -19,16 +19,181 @@
  */
 package org.sonarsource.sonarlint.core.container.connected;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
 /**
  * Create a filesystem-backed issue store at specified base directory.
+ * <p>
+ * New stores keep issues in append-only segments (see {@link LogServerIssueStore}). Directories created by previous versions,
+ * with one file per source file, are still read and updated with {@link ServerIssueStore} until they are replaced by the next
+ * project update.
+ * <p>
+ * Opening a segmented store requires scanning its segments, so opened stores are kept by the factory, which lives as long as the
+ * engine (see {@link org.sonarsource.sonarlint.core.container.storage.GlobalStores}). The layout of a directory and the staleness
+ * of its store are checked when it is opened, and then at most every {@link #REVALIDATION_INTERVAL_MS} to notice the updates made
+ * by other processes. Directories replaced with {@link #replaceDir(Consumer, Path, Path)} are opened again on next access.
  */
 public class IssueStoreFactory implements Function<Path, IssueStore> {
 
+  private static final int MAX_OPEN_STORES = 8;
+  static final long REVALIDATION_INTERVAL_MS = 10_000;
+
+  private final Map<Path, OpenStore> openStores = new LinkedHashMap<Path, OpenStore>(MAX_OPEN_STORES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Path, OpenStore> eldest) {
+      if (size() > MAX_OPEN_STORES) {
+        eldest.getValue().close();
+        return true;
+      }
+      return false;
+    }
+  };
+
+  /**
+   * Held while a compaction touches the files of a store, and while a directory of stores is replaced.
+   */
+  private final ReentrantLock storageLock = new ReentrantLock();
+  private final Executor compactionExecutor;
+  private final long revalidationIntervalNanos;
+
+  public IssueStoreFactory() {
+    this(REVALIDATION_INTERVAL_MS);
+  }
+
+  IssueStoreFactory(long revalidationIntervalMs) {
+    this.revalidationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(revalidationIntervalMs);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), r -> {
+      Thread thread = new Thread(r, "sonarlint-issue-store-compaction");
+      thread.setDaemon(true);
+      return thread;
+    });
+    // no thread is left behind when the engine is stopped
+    executor.allowCoreThreadTimeOut(true);
+    this.compactionExecutor = compaction -> executor.execute(() -> {
+      storageLock.lock();
+      try {
+        compaction.run();
+      } finally {
+        storageLock.unlock();
+      }
+    });
+  }
+
   @Override
   public IssueStore apply(Path path) {
-    return new ServerIssueStore(path);
+    Path key = path.toAbsolutePath().normalize();
+    synchronized (openStores) {
+      OpenStore openStore = openStores.get(key);
+      long now = System.nanoTime();
+      if (openStore != null && now - openStore.validatedAt >= revalidationIntervalNanos) {
+        if (openStore.isStale(key)) {
+          openStore.close();
+          openStore = null;
+        } else {
+          openStore.validatedAt = now;
+        }
+      }
+      if (openStore == null) {
+        openStore = new OpenStore(hasOneFilePerSourceFileLayout(key) ? new ServerIssueStore(key) : new LogServerIssueStore(key, compactionExecutor), now);
+        openStores.put(key, openStore);
+      }
+      return openStore.store;
+    }
+  }
+
+  /**
+   * Populates the work directory and when done, replaces the target directory with it, like
+   * {@link FileUtils#replaceDir(Consumer, Path, Path)}. No compaction runs while the directory is replaced, and the stores opened
+   * in the target directory are discarded.
+   */
+  public void replaceDir(Consumer<Path> dirContentUpdater, Path target, Path work) {
+    dirContentUpdater.accept(work);
+    storageLock.lock();
+    try {
+      FileUtils.replaceDir(populated -> {
+        // already populated, outside of the lock
+      }, target, work);
+    } finally {
+      storageLock.unlock();
+      invalidate(target);
+    }
+  }
+
+  /**
+   * Discard the stores opened in the given directory, for instance when it was deleted.
+   */
+  public void invalidate(Path dir) {
+    Path prefix = dir.toAbsolutePath().normalize();
+    synchronized (openStores) {
+      Iterator<Map.Entry<Path, OpenStore>> it = openStores.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Path, OpenStore> entry = it.next();
+        if (entry.getKey().startsWith(prefix)) {
+          entry.getValue().close();
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Discard all the opened stores, for instance when the engine is stopped.
+   */
+  public void invalidateAll() {
+    synchronized (openStores) {
+      openStores.values().forEach(OpenStore::close);
+      openStores.clear();
+    }
+  }
+
+  /**
+   * {@link ServerIssueStore} hashes file keys into sub-directories, while segments are stored directly in the base directory.
+   */
+  private static boolean hasOneFilePerSourceFileLayout(Path path) {
+    if (!Files.isDirectory(path)) {
+      return false;
+    }
+    try (Stream<Path> children = Files.list(path)) {
+      return children.anyMatch(Files::isDirectory);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to list " + path, e);
+    }
+  }
+
+  private static class OpenStore {
+    private final IssueStore store;
+    private long validatedAt;
+
+    OpenStore(IssueStore store, long validatedAt) {
+      this.store = store;
+      this.validatedAt = validatedAt;
+    }
+
+    boolean isStale(Path path) {
+      if (store instanceof LogServerIssueStore) {
+        return ((LogServerIssueStore) store).isStale() || hasOneFilePerSourceFileLayout(path);
+      }
+      return !hasOneFilePerSourceFileLayout(path);
+    }
+
+    void close() {
+      if (store instanceof LogServerIssueStore) {
+        ((LogServerIssueStore) store).close();
+      }
+    }
   }
 }
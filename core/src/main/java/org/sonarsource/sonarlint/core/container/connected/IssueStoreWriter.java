@@ -0,0 +1,91 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Saves issues in an {@link IssueStore} while they are received, so that the issues of a whole project are never in memory at the same time.
+ * <p>
+ * Issues are buffered per file and saved when the buffer is full. The issues of a file that was already saved by this writer are
+ * appended to the stored ones with {@link IssueStore#append(List)}, so the input doesn't need to be grouped by file. Issues of other
+ * files stored previously are left untouched.
+ * Not thread safe.
+ */
+public class IssueStoreWriter implements Consumer<ServerIssue> {
+  static final int DEFAULT_MAX_BUFFERED_ISSUES = 10_000;
+
+  private final IssueStore store;
+  private final int maxBufferedIssues;
+  private final Map<String, List<ServerIssue>> bufferedIssuesPerFile = new LinkedHashMap<>();
+  private final Set<String> savedFiles = new HashSet<>();
+  private int bufferedIssues;
+
+  public IssueStoreWriter(IssueStore store) {
+    this(store, DEFAULT_MAX_BUFFERED_ISSUES);
+  }
+
+  IssueStoreWriter(IssueStore store, int maxBufferedIssues) {
+    this.store = store;
+    this.maxBufferedIssues = maxBufferedIssues;
+  }
+
+  @Override
+  public void accept(ServerIssue issue) {
+    bufferedIssuesPerFile.computeIfAbsent(issue.getPrimaryLocation().getPath(), k -> new ArrayList<>()).add(issue);
+    bufferedIssues++;
+    if (bufferedIssues >= maxBufferedIssues) {
+      flush();
+    }
+  }
+
+  /**
+   * Save the buffered issues. Must be called once all issues have been passed to the writer.
+   */
+  public void flush() {
+    if (bufferedIssuesPerFile.isEmpty()) {
+      return;
+    }
+    List<ServerIssue> toSave = new ArrayList<>();
+    List<ServerIssue> toAppend = new ArrayList<>();
+    for (Map.Entry<String, List<ServerIssue>> entry : bufferedIssuesPerFile.entrySet()) {
+      if (savedFiles.add(entry.getKey())) {
+        toSave.addAll(entry.getValue());
+      } else {
+        toAppend.addAll(entry.getValue());
+      }
+    }
+    if (!toSave.isEmpty()) {
+      store.save(toSave);
+    }
+    if (!toAppend.isEmpty()) {
+      store.append(toAppend);
+    }
+    bufferedIssuesPerFile.clear();
+    bufferedIssues = 0;
+  }
+}
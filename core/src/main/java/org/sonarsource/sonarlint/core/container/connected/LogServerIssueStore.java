@@ -0,0 +1,174 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
+import org.sonarsource.sonarlint.core.container.connected.objectstore.LogObjectStore;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Store the server issues of all files in a few append-only segments, instead of one file per source file like {@link ServerIssueStore}.
+ */
+public class LogServerIssueStore implements IssueStore {
+  private final LogObjectStore<List<ServerIssue>> store;
+  /**
+   * Built from the stored issues on the first search by key, then kept up to date by the writes of this store.
+   */
+  @Nullable
+  private Map<String, String> fileByIssueKey;
+  @Nullable
+  private Map<String, Set<String>> issueKeysByFile;
+
+  /**
+   * @param compactionExecutor runs the compactions of the segments in the background
+   */
+  public LogServerIssueStore(Path base, Executor compactionExecutor) {
+    Reader<List<ServerIssue>> reader = input -> ProtobufUtil.readMessages(input, ServerIssue.parser());
+
+    Writer<List<ServerIssue>> writer = ProtobufUtil::writeMessages;
+
+    store = new LogObjectStore<>(base, reader, writer, compactionExecutor);
+  }
+
+  /**
+   * See {@link LogObjectStore#isStale()}
+   */
+  boolean isStale() {
+    return store.isStale();
+  }
+
+  /**
+   * See {@link LogObjectStore#close()}
+   */
+  void close() {
+    store.close();
+  }
+
+  @Override
+  public void save(List<ServerIssue> issues) {
+    Map<String, List<ServerIssue>> issuesByFile = groupByFile(issues);
+    try {
+      store.write(issuesByFile);
+    } catch (IOException e) {
+      throw new StorageException("failed to save issues", e);
+    }
+    updateIssueIndex(issuesByFile, false);
+  }
+
+  /**
+   * Issues are stored as delimited messages, so new issues are appended to the stored ones without reading them.
+   */
+  @Override
+  public void append(List<ServerIssue> issues) {
+    Map<String, List<ServerIssue>> issuesByFile = groupByFile(issues);
+    try {
+      store.append(issuesByFile);
+    } catch (IOException e) {
+      throw new StorageException("failed to append issues", e);
+    }
+    updateIssueIndex(issuesByFile, true);
+  }
+
+  @Override
+  public synchronized Optional<Map<String, String>> findFiles(Set<String> issueKeys) {
+    if (fileByIssueKey == null) {
+      fileByIssueKey = new HashMap<>();
+      issueKeysByFile = new HashMap<>();
+      for (String fileKey : store.keys()) {
+        indexIssues(fileKey, load(fileKey), false);
+      }
+    }
+    Map<String, String> files = new HashMap<>();
+    for (String issueKey : issueKeys) {
+      String fileKey = fileByIssueKey.get(issueKey);
+      if (fileKey != null) {
+        files.put(issueKey, fileKey);
+      }
+    }
+    return Optional.of(files);
+  }
+
+  private synchronized void updateIssueIndex(Map<String, List<ServerIssue>> issuesByFile, boolean append) {
+    if (fileByIssueKey != null) {
+      issuesByFile.forEach((fileKey, issues) -> indexIssues(fileKey, issues, append));
+    }
+  }
+
+  private void indexIssues(String fileKey, List<ServerIssue> issues, boolean append) {
+    if (!append) {
+      unindexIssues(fileKey);
+    }
+    Set<String> issueKeys = issueKeysByFile.computeIfAbsent(fileKey, k -> new HashSet<>());
+    for (ServerIssue issue : issues) {
+      issueKeys.add(issue.getKey());
+      fileByIssueKey.put(issue.getKey(), fileKey);
+    }
+  }
+
+  private synchronized void unindexIssues(String fileKey) {
+    if (issueKeysByFile != null) {
+      Set<String> issueKeys = issueKeysByFile.remove(fileKey);
+      if (issueKeys != null) {
+        issueKeys.forEach(issueKey -> fileByIssueKey.remove(issueKey, fileKey));
+      }
+    }
+  }
+
+  private static Map<String, List<ServerIssue>> groupByFile(List<ServerIssue> issues) {
+    return issues.stream()
+      .collect(Collectors.groupingBy(issue -> issue.getPrimaryLocation().getPath(), LinkedHashMap::new, Collectors.toList()));
+  }
+
+  @Override
+  public void delete(String fileKey) {
+    try {
+      store.delete(fileKey);
+    } catch (IOException e) {
+      throw new StorageException("failed to delete issues for fileKey = " + fileKey, e);
+    }
+    unindexIssues(fileKey);
+  }
+
+  @Override
+  public List<ServerIssue> load(String fileKey) {
+    try {
+      Optional<List<ServerIssue>> issues = store.read(fileKey);
+      return issues.orElse(Collections.emptyList());
+    } catch (IOException e) {
+      throw new StorageException("failed to load issues for fileKey = " + fileKey, e);
+    }
+  }
+}
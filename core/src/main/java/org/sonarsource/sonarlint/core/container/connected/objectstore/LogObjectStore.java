@@ -0,0 +1,819 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.objectstore;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * An ObjectStore that appends all values to a few segment files, instead of using one file per key.
+ * <p>
+ * A write appends the record {@code [key length][key][value length][value]} to the active segment, a delete appends a record
+ * without value. {@link #append(Map)} writes a record flagged in its key length, whose value is the continuation of the previous
+ * value of the key. The location of the latest value of each key is kept in memory, and rebuilt by scanning the segments when the
+ * store is opened. Values are read through memory-mapped regions of the segments, except on Windows where mapped files can't be
+ * deleted.
+ * <p>
+ * When most of the stored bytes are superseded records, the sealed segments are rewritten in the background, into segments of
+ * the same maximum size. Writes and compactions hold a lock on a file of the base directory, so that several processes can share
+ * the store. A store whose segments were written by another process is loaded again before writing.
+ * All methods are thread safe.
+ *
+ * @param <V> type of the value to store
+ */
+public class LogObjectStore<V> implements ObjectStore<String, V> {
+
+  private static final Logger LOG = Loggers.get(LogObjectStore.class);
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String TMP_SUFFIX = ".tmp";
+  private static final String COMPACTION_COMMIT = "compaction.commit";
+  private static final String LOCK_FILE = "store.lock";
+  private static final Pattern SEGMENT_PATTERN = Pattern.compile(Pattern.quote(SEGMENT_PREFIX) + "(\\d+)(\\.log|\\.tmp)");
+
+  private static final int NO_VALUE = -1;
+  private static final int APPEND_FLAG = 0x80000000;
+  private static final int RECORD_HEADER_SIZE = 8;
+
+  static final int DEFAULT_MAX_SEGMENT_SIZE = 32 * 1024 * 1024;
+  static final long DEFAULT_MIN_COMPACTION_SIZE = 4L * 1024 * 1024;
+
+  private static final boolean MEMORY_MAPPING = !System.getProperty("os.name", "").startsWith("Windows");
+
+  private final Path base;
+  private final Reader<V> reader;
+  private final Writer<V> writer;
+  private final int maxSegmentSize;
+  private final long minCompactionSize;
+  private final Executor compactionExecutor;
+
+  private final Map<String, Location> index = new HashMap<>();
+  private final TreeMap<Integer, Long> segmentSizes = new TreeMap<>();
+  private final Map<Integer, MappedByteBuffer> mappedSegments = new HashMap<>();
+  private int activeSegment;
+  private long totalBytes;
+  private long liveBytes;
+  private boolean compacting;
+  @Nullable
+  private FileChannel lockChannel;
+  private int lockHolders;
+  @Nullable
+  private Object directoryKey;
+
+  /**
+   * @param compactionExecutor runs the compactions in the background
+   */
+  public LogObjectStore(Path base, Reader<V> reader, Writer<V> writer, Executor compactionExecutor) {
+    this(base, reader, writer, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_MIN_COMPACTION_SIZE, compactionExecutor);
+  }
+
+  LogObjectStore(Path base, Reader<V> reader, Writer<V> writer, int maxSegmentSize, long minCompactionSize, Executor compactionExecutor) {
+    this.base = base;
+    this.reader = reader;
+    this.writer = writer;
+    this.maxSegmentSize = maxSegmentSize;
+    this.minCompactionSize = minCompactionSize;
+    this.compactionExecutor = compactionExecutor;
+    try {
+      load();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open store " + base, e);
+    }
+  }
+
+  /**
+   * Returns true if the base directory was deleted or replaced since the store was opened, or if its segments were modified by
+   * someone else, like another process. A stale store should be discarded.
+   */
+  public synchronized boolean isStale() {
+    if (!Objects.equals(directoryKey, directoryKey(base))) {
+      return true;
+    }
+    try {
+      Map<Integer, Long> onDisk = new TreeMap<>();
+      if (directoryKey != null) {
+        for (int segment : listSegments(SEGMENT_SUFFIX)) {
+          onDisk.put(segment, Files.size(segmentPath(segment, SEGMENT_SUFFIX)));
+        }
+      }
+      Map<Integer, Long> expected = new TreeMap<>(segmentSizes);
+      expected.values().removeIf(size -> size == 0);
+      onDisk.values().removeIf(size -> size == 0);
+      return !expected.equals(onDisk);
+    } catch (IOException e) {
+      // a segment was deleted meanwhile
+      return true;
+    }
+  }
+
+  /**
+   * Drop the memory-mapped regions of the segments, so that they can be unmapped by the garbage collector. Segments are mapped again
+   * if the store is still read.
+   */
+  public synchronized void close() {
+    mappedSegments.clear();
+  }
+
+  public synchronized List<String> keys() {
+    return new ArrayList<>(index.keySet());
+  }
+
+  public synchronized boolean contains(String key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  public Optional<V> read(String key) throws IOException {
+    ByteBuffer value;
+    synchronized (this) {
+      Location location = index.get(key);
+      if (location == null) {
+        return Optional.empty();
+      }
+      value = readValue(location);
+    }
+    // parsing is done outside of the lock, the buffer is not shared
+    return Optional.of(reader.apply(new ByteBufferInputStream(value)));
+  }
+
+  @Override
+  public void write(String key, V value) throws IOException {
+    write(Collections.singletonMap(key, value));
+  }
+
+  /**
+   * Write several values at once, with a single access to the active segment.
+   */
+  public void write(Map<String, V> values) throws IOException {
+    write(values, false);
+  }
+
+  /**
+   * Append several values to the ones already stored for their keys, without reading the stored ones. Only valid if the reader
+   * can read the concatenation of values written separately, like delimited messages. Keys that are not stored yet are written
+   * as with {@link #write(Map)}. Compaction merges the appended values.
+   */
+  public void append(Map<String, V> values) throws IOException {
+    write(values, true);
+  }
+
+  private void write(Map<String, V> values, boolean append) throws IOException {
+    List<Record> records = new ArrayList<>(values.size());
+    for (Map.Entry<String, V> entry : values.entrySet()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      writer.accept(out, entry.getValue());
+      records.add(new Record(entry.getKey(), out.toByteArray(), append));
+    }
+    synchronized (this) {
+      writeRecords(records);
+    }
+  }
+
+  @Override
+  public synchronized void delete(String key) throws IOException {
+    if (index.containsKey(key)) {
+      writeRecords(Collections.singletonList(new Record(key, null, false)));
+    }
+  }
+
+  private void load() throws IOException {
+    index.clear();
+    segmentSizes.clear();
+    mappedSegments.clear();
+    totalBytes = 0;
+    liveBytes = 0;
+    activeSegment = 0;
+    directoryKey = directoryKey(base);
+    if (directoryKey == null) {
+      return;
+    }
+    lockFiles(true);
+    try {
+      recoverCompaction();
+      for (int segment : listSegments(SEGMENT_SUFFIX)) {
+        scan(segment);
+        activeSegment = segment;
+      }
+    } finally {
+      unlockFiles();
+    }
+  }
+
+  /**
+   * A compaction that was interrupted before it was committed is dropped. A committed one is completed.
+   */
+  private void recoverCompaction() throws IOException {
+    Path commit = base.resolve(COMPACTION_COMMIT);
+    if (Files.exists(commit)) {
+      List<String> lines = Files.readAllLines(commit, UTF_8);
+      int lastCompacted = Integer.parseInt(lines.get(0));
+      List<Integer> outputs = new ArrayList<>();
+      for (String line : lines.subList(1, lines.size())) {
+        outputs.add(Integer.parseInt(line));
+      }
+      completeCompaction(lastCompacted, outputs);
+    }
+    Files.deleteIfExists(base.resolve(COMPACTION_COMMIT + TMP_SUFFIX));
+    for (int segment : listSegments(TMP_SUFFIX)) {
+      Files.deleteIfExists(segmentPath(segment, TMP_SUFFIX));
+    }
+  }
+
+  /**
+   * Replace all the segments up to the last compacted one with the outputs of the compaction. Can be run again if interrupted.
+   */
+  private void completeCompaction(int lastCompacted, List<Integer> outputs) throws IOException {
+    for (int segment : listSegments(SEGMENT_SUFFIX)) {
+      if (segment <= lastCompacted && !outputs.contains(segment)) {
+        Files.delete(segmentPath(segment, SEGMENT_SUFFIX));
+      }
+    }
+    for (int output : outputs) {
+      Path tmp = segmentPath(output, TMP_SUFFIX);
+      if (Files.exists(tmp)) {
+        move(tmp, segmentPath(output, SEGMENT_SUFFIX));
+      }
+    }
+    Files.delete(base.resolve(COMPACTION_COMMIT));
+  }
+
+  private void scan(int segment) throws IOException {
+    Path path = segmentPath(segment, SEGMENT_SUFFIX);
+    long size = Files.size(path);
+    long position = 0;
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+      while (position < size) {
+        int keyHeader = input.readInt();
+        boolean appended = (keyHeader & APPEND_FLAG) != 0;
+        int keyLength = keyHeader & ~APPEND_FLAG;
+        byte[] keyBytes = new byte[keyLength];
+        input.readFully(keyBytes);
+        int valueLength = input.readInt();
+        if (valueLength > 0 && input.skipBytes(valueLength) < valueLength) {
+          throw new EOFException();
+        }
+        int recordLength = RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0);
+        String key = new String(keyBytes, UTF_8);
+        if (valueLength == NO_VALUE) {
+          removeFromIndex(key);
+        } else {
+          Location previous = appended ? index.get(key) : null;
+          putInIndex(key, new Location(segment, position + RECORD_HEADER_SIZE + keyLength, valueLength, recordLength, previous));
+        }
+        position += recordLength;
+        totalBytes += recordLength;
+      }
+    } catch (EOFException e) {
+      // the last record was not completely written, probably because of a crash
+      LOG.warn("Truncating incomplete record at offset " + position + " of " + path);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.truncate(position);
+      }
+    }
+    segmentSizes.put(segment, position);
+  }
+
+  private void writeRecords(List<Record> records) throws IOException {
+    Files.createDirectories(base);
+    if (directoryKey == null) {
+      directoryKey = directoryKey(base);
+    }
+    lockFiles(true);
+    FileChannel channel = null;
+    try {
+      if (isStale()) {
+        // written by another process since loaded, appending at the wrong offsets would corrupt the segments
+        load();
+      }
+      for (Record record : records) {
+        long segmentSize = segmentSizes.getOrDefault(activeSegment, 0L);
+        if (segmentSize > 0 && segmentSize + record.length() > maxSegmentSize) {
+          if (channel != null) {
+            channel.close();
+            channel = null;
+          }
+          activeSegment++;
+          segmentSize = 0;
+        }
+        if (channel == null) {
+          channel = FileChannel.open(segmentPath(activeSegment, SEGMENT_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        Location previous = record.append ? index.get(record.key) : null;
+        writeFully(channel, record.toBuffer(previous != null));
+        if (record.value == null) {
+          removeFromIndex(record.key);
+        } else {
+          putInIndex(record.key, new Location(activeSegment, segmentSize + RECORD_HEADER_SIZE + record.keyBytes.length, record.value.length, record.length(),
+            previous));
+        }
+        segmentSizes.put(activeSegment, segmentSize + record.length());
+        totalBytes += record.length();
+      }
+    } finally {
+      try {
+        if (channel != null) {
+          channel.close();
+        }
+      } finally {
+        unlockFiles();
+      }
+    }
+    scheduleCompactionIfNeeded();
+  }
+
+  /**
+   * Lock the files of the store against other processes. The lock is shared by the writes and the compaction of this store.
+   *
+   * @return false if the lock is held by someone else and {@code wait} is false
+   */
+  private boolean lockFiles(boolean wait) throws IOException {
+    if (lockHolders == 0) {
+      FileChannel channel = FileChannel.open(base.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      FileLock lock;
+      try {
+        lock = acquire(channel, wait);
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+      if (lock == null) {
+        channel.close();
+        return false;
+      }
+      lockChannel = channel;
+    }
+    lockHolders++;
+    return true;
+  }
+
+  @CheckForNull
+  private static FileLock acquire(FileChannel channel, boolean wait) throws IOException {
+    while (true) {
+      try {
+        return wait ? channel.lock() : channel.tryLock();
+      } catch (OverlappingFileLockException e) {
+        // held by another store of this process on the same directory
+        if (!wait) {
+          return null;
+        }
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the lock of the store");
+        }
+      }
+    }
+  }
+
+  private void unlockFiles() throws IOException {
+    lockHolders--;
+    if (lockHolders == 0 && lockChannel != null) {
+      // releases the lock
+      lockChannel.close();
+      lockChannel = null;
+    }
+  }
+
+  private void putInIndex(String key, Location location) {
+    removeFromIndex(key);
+    index.put(key, location);
+    liveBytes += location.chainLength;
+  }
+
+  private void removeFromIndex(String key) {
+    Location previous = index.remove(key);
+    if (previous != null) {
+      liveBytes -= previous.chainLength;
+    }
+  }
+
+  private ByteBuffer readValue(Location location) throws IOException {
+    if (location.previous == null) {
+      return readFragment(location);
+    }
+    if (location.chainValueLength > Integer.MAX_VALUE) {
+      throw new IOException("Value too large: " + location.chainValueLength + " bytes");
+    }
+    List<Location> fragments = new ArrayList<>();
+    for (Location fragment = location; fragment != null; fragment = fragment.previous) {
+      fragments.add(fragment);
+    }
+    Collections.reverse(fragments);
+    ByteBuffer value = ByteBuffer.allocate((int) location.chainValueLength);
+    for (Location fragment : fragments) {
+      value.put(readFragment(fragment));
+    }
+    value.flip();
+    return value;
+  }
+
+  private ByteBuffer readFragment(Location location) throws IOException {
+    long end = location.valueOffset + location.valueLength;
+    if (!MEMORY_MAPPING || end > Integer.MAX_VALUE) {
+      // a mapped buffer is indexed with an int
+      ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+      try (FileChannel channel = FileChannel.open(segmentPath(location.segment, SEGMENT_SUFFIX), StandardOpenOption.READ)) {
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, location.valueOffset + buffer.position()) < 0) {
+            throw new EOFException("Unexpected end of segment " + location.segment);
+          }
+        }
+      }
+      buffer.flip();
+      return buffer;
+    }
+    MappedByteBuffer mapped = mappedSegments.get(location.segment);
+    if (mapped == null || mapped.capacity() < end) {
+      // the active segment grows, map it again when needed
+      try (FileChannel channel = FileChannel.open(segmentPath(location.segment, SEGMENT_SUFFIX), StandardOpenOption.READ)) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+      }
+      if (mapped.capacity() < end) {
+        throw new EOFException("Unexpected end of segment " + location.segment);
+      }
+      mappedSegments.put(location.segment, mapped);
+    }
+    ByteBuffer value = mapped.duplicate();
+    value.position((int) location.valueOffset);
+    value.limit((int) end);
+    return value.slice();
+  }
+
+  private void scheduleCompactionIfNeeded() {
+    if (compacting || totalBytes < minCompactionSize || liveBytes * 2 > totalBytes) {
+      return;
+    }
+    compacting = true;
+    // seal the active segment so that everything can be compacted
+    if (segmentSizes.getOrDefault(activeSegment, 0L) > 0) {
+      activeSegment++;
+    }
+    compactionExecutor.execute(this::compact);
+  }
+
+  /**
+   * Rewrite the live records of all the sealed segments into as few segments as possible, reusing the ids of the sealed ones.
+   * Writes can go on in the active segment meanwhile.
+   */
+  void compact() {
+    List<Integer> outputs = Collections.emptyList();
+    boolean locked = false;
+    try {
+      Map<String, Location> snapshot;
+      List<Integer> sealed;
+      synchronized (this) {
+        locked = lockFiles(false);
+        if (!locked) {
+          // another process is writing in the store, compaction will be attempted again on next write
+          return;
+        }
+        sealed = new ArrayList<>(segmentSizes.headMap(activeSegment).keySet());
+        if (sealed.isEmpty() || isStale()) {
+          return;
+        }
+        Map<String, Location> sealedLocations = new HashMap<>();
+        index.forEach((key, location) -> {
+          // values appended in the active segment are compacted up to their last sealed fragment
+          Location sealedLocation = location;
+          while (sealedLocation != null && sealedLocation.segment >= activeSegment) {
+            sealedLocation = sealedLocation.previous;
+          }
+          if (sealedLocation != null) {
+            sealedLocations.put(key, sealedLocation);
+          }
+        });
+        snapshot = new LinkedHashMap<>();
+        sealedLocations.entrySet().stream()
+          .sorted(Comparator.comparing((Map.Entry<String, Location> e) -> e.getValue().segment).thenComparing(e -> e.getValue().valueOffset))
+          .forEach(e -> snapshot.put(e.getKey(), e.getValue()));
+      }
+      Map<String, Location> compacted = new HashMap<>();
+      Map<Integer, Long> outputSizes = new LinkedHashMap<>();
+      outputs = new ArrayList<>();
+      writeCompacted(sealed, snapshot, compacted, outputSizes, outputs);
+      synchronized (this) {
+        replaceSegments(sealed, outputSizes, snapshot, compacted);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to compact store " + base, e);
+      deleteQuietly(outputs);
+    } finally {
+      synchronized (this) {
+        compacting = false;
+        if (locked) {
+          unlockQuietly();
+        }
+      }
+    }
+  }
+
+  private void unlockQuietly() {
+    try {
+      unlockFiles();
+    } catch (IOException e) {
+      LOG.debug("Unable to unlock store " + base, e);
+    }
+  }
+
+  /**
+   * Write the values of the snapshot in temporary segments, each one of them being at most as large as a segment can be. Outputs
+   * reuse the ids of the sealed segments, if they run out because appended values were merged, the last output takes the rest.
+   */
+  private void writeCompacted(List<Integer> sealed, Map<String, Location> snapshot, Map<String, Location> compacted, Map<Integer, Long> outputSizes,
+    List<Integer> outputs) throws IOException {
+    FileChannel channel = null;
+    long size = 0;
+    try {
+      for (Map.Entry<String, Location> entry : snapshot.entrySet()) {
+        byte[] value;
+        synchronized (this) {
+          ByteBuffer buffer = readValue(entry.getValue());
+          value = new byte[buffer.remaining()];
+          buffer.get(value);
+        }
+        Record record = new Record(entry.getKey(), value, false);
+        if (channel != null && size > 0 && size + record.length() > maxSegmentSize && outputs.size() < sealed.size()) {
+          channel.force(true);
+          channel.close();
+          channel = null;
+          size = 0;
+        }
+        if (channel == null) {
+          int output = sealed.get(outputs.size());
+          outputs.add(output);
+          channel = FileChannel.open(segmentPath(output, TMP_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        int target = outputs.get(outputs.size() - 1);
+        writeFully(channel, record.toBuffer(false));
+        compacted.put(entry.getKey(), new Location(target, size + RECORD_HEADER_SIZE + record.keyBytes.length, value.length, record.length(), null));
+        size += record.length();
+        outputSizes.put(target, size);
+      }
+      if (channel != null) {
+        channel.force(true);
+      }
+    } finally {
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
+  private void replaceSegments(List<Integer> sealed, Map<Integer, Long> outputSizes, Map<String, Location> snapshot, Map<String, Location> compacted)
+    throws IOException {
+    List<Integer> outputs = new ArrayList<>(outputSizes.keySet());
+    if (isStale()) {
+      // the segments were modified by someone else meanwhile, the result of the compaction is useless
+      deleteQuietly(outputs);
+      return;
+    }
+    int lastCompacted = sealed.get(sealed.size() - 1);
+    StringBuilder commit = new StringBuilder().append(lastCompacted).append('\n');
+    outputs.forEach(output -> commit.append(output).append('\n'));
+    Path commitTmp = base.resolve(COMPACTION_COMMIT + TMP_SUFFIX);
+    try (FileChannel channel = FileChannel.open(commitTmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(channel, ByteBuffer.wrap(commit.toString().getBytes(UTF_8)));
+      channel.force(true);
+    }
+    // from now on, the compaction is complete and will be recovered if the process stops
+    move(commitTmp, base.resolve(COMPACTION_COMMIT));
+    completeCompaction(lastCompacted, outputs);
+    for (int segment : sealed) {
+      mappedSegments.remove(segment);
+      segmentSizes.remove(segment);
+    }
+    segmentSizes.putAll(outputSizes);
+
+    for (Map.Entry<String, Location> entry : compacted.entrySet()) {
+      // values written during the compaction are more recent, values appended meanwhile are kept on top of the compacted one
+      Location current = index.get(entry.getKey());
+      Location rebased = current != null ? rebase(current, snapshot.get(entry.getKey()), entry.getValue()) : null;
+      if (rebased != null) {
+        index.put(entry.getKey(), rebased);
+      }
+    }
+    totalBytes = segmentSizes.values().stream().mapToLong(Long::longValue).sum();
+    liveBytes = index.values().stream().mapToLong(l -> l.chainLength).sum();
+    LOG.debug("Compacted store " + base + " to " + totalBytes + " bytes in " + outputs.size() + " segments");
+  }
+
+  /**
+   * Replace the compacted location in the chain of fragments of a value, if the value is still made of it.
+   */
+  @CheckForNull
+  private static Location rebase(Location location, Location compacted, Location replacement) {
+    if (location == compacted) {
+      return replacement;
+    }
+    if (location.previous == null) {
+      return null;
+    }
+    Location previous = rebase(location.previous, compacted, replacement);
+    return previous != null ? new Location(location.segment, location.valueOffset, location.valueLength, location.recordLength, previous) : null;
+  }
+
+  private void deleteQuietly(List<Integer> outputs) {
+    if (Files.exists(base.resolve(COMPACTION_COMMIT))) {
+      // committed outputs are needed to recover the compaction
+      return;
+    }
+    for (int output : outputs) {
+      try {
+        Files.deleteIfExists(segmentPath(output, TMP_SUFFIX));
+      } catch (IOException e) {
+        LOG.debug("Unable to delete " + segmentPath(output, TMP_SUFFIX), e);
+      }
+    }
+  }
+
+  private List<Integer> listSegments(String suffix) throws IOException {
+    List<Integer> segments = new ArrayList<>();
+    try (Stream<Path> files = Files.list(base)) {
+      files.forEach(file -> {
+        Matcher matcher = SEGMENT_PATTERN.matcher(file.getFileName().toString());
+        if (matcher.matches() && matcher.group(2).equals(suffix)) {
+          segments.add(Integer.parseInt(matcher.group(1)));
+        }
+      });
+    }
+    Collections.sort(segments);
+    return segments;
+  }
+
+  private Path segmentPath(int segment, String suffix) {
+    return base.resolve(SEGMENT_PREFIX + segment + suffix);
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  @CheckForNull
+  private static Object directoryKey(Path dir) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(dir, BasicFileAttributes.class);
+      return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read attributes of " + dir, e);
+    }
+  }
+
+  private static class Location {
+    private final int segment;
+    private final long valueOffset;
+    private final int valueLength;
+    private final int recordLength;
+    /**
+     * Location of the value this one was appended to.
+     */
+    @Nullable
+    private final Location previous;
+    private final long chainValueLength;
+    private final long chainLength;
+
+    Location(int segment, long valueOffset, int valueLength, int recordLength, @Nullable Location previous) {
+      this.segment = segment;
+      this.valueOffset = valueOffset;
+      this.valueLength = valueLength;
+      this.recordLength = recordLength;
+      this.previous = previous;
+      this.chainValueLength = valueLength + (previous != null ? previous.chainValueLength : 0);
+      this.chainLength = recordLength + (previous != null ? previous.chainLength : 0);
+    }
+  }
+
+  private static class Record {
+    private final String key;
+    private final byte[] keyBytes;
+    @Nullable
+    private final byte[] value;
+    private final boolean append;
+
+    Record(String key, @Nullable byte[] value, boolean append) {
+      this.key = key;
+      this.keyBytes = key.getBytes(UTF_8);
+      this.value = value;
+      this.append = append;
+    }
+
+    int length() {
+      return RECORD_HEADER_SIZE + keyBytes.length + (value != null ? value.length : 0);
+    }
+
+    ByteBuffer toBuffer(boolean appended) {
+      ByteBuffer buffer = ByteBuffer.allocate(length());
+      buffer.putInt(appended ? (keyBytes.length | APPEND_FLAG) : keyBytes.length);
+      buffer.put(keyBytes);
+      if (value != null) {
+        buffer.putInt(value.length);
+        buffer.put(value);
+      } else {
+        buffer.putInt(NO_VALUE);
+      }
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(length, buffer.remaining());
+      buffer.get(bytes, offset, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
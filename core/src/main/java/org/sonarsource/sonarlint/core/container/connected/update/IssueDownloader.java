@@ -23,9 +23,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -41,14 +47,16 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
 import org.sonarsource.sonarlint.core.serverapi.issue.IssueApi;
 import org.sonarsource.sonarlint.core.serverapi.issue.IssueApi.DownloadIssuesResult;
 import org.sonarsource.sonarlint.core.serverapi.source.SourceApi;
-import org.sonarsource.sonarlint.core.serverapi.util.ServerApiUtils;
+import org.sonarsource.sonarlint.core.serverapi.util.IndexedSourceCode;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
-import org.sonarsource.sonarlint.core.util.StringUtils;
 
 public class IssueDownloader {
 
+  private static final String CLOSED_STATUS = "CLOSED";
   private static final Set<String> NON_CLOSED_STATUSES = new HashSet<>(Arrays.asList("OPEN", "CONFIRMED", "REOPENED"));
 
+  private static final int MAX_CONCURRENT_SOURCE_DOWNLOADS = 8;
+
   private static final Logger LOG = Loggers.get(IssueDownloader.class);
 
   private final IssueStorePaths issueStorePaths;
@@ -69,40 +77,110 @@ public class IssueDownloader {
    * @return Iterator of issues. It can be empty but never null.
    */
   public List<Sonarlint.ServerIssue> download(String key, ProjectConfiguration projectConfiguration, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
+    List<Sonarlint.ServerIssue> result = new ArrayList<>();
+    download(key, projectConfiguration, fetchTaintVulnerabilities, progress, result::add);
+    return result;
+  }
+
+  /**
+   * Same as {@link #download(String, ProjectConfiguration, boolean, ProgressWrapper)}, but each issue is converted and passed to the consumer
+   * as soon as it is parsed from the response, in the order of the response.
+   * Only taint vulnerabilities, that are fetched separately, are held in memory together.
+   *
+   * @param key project key, or file key.
+   */
+  public void download(String key, ProjectConfiguration projectConfiguration, boolean fetchTaintVulnerabilities, ProgressWrapper progress,
+    Consumer<Sonarlint.ServerIssue> consumer) {
     Sonarlint.ServerIssue.Builder issueBuilder = Sonarlint.ServerIssue.newBuilder();
     Location.Builder locationBuilder = Location.newBuilder();
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder = Sonarlint.ServerIssue.TextRange.newBuilder();
     Sonarlint.ServerIssue.Flow.Builder flowBuilder = Sonarlint.ServerIssue.Flow.newBuilder();
 
-    List<Sonarlint.ServerIssue> result = new ArrayList<>();
-
-    List<ScannerInput.ServerIssue> batchIssues = issueApi.downloadAllFromBatchIssues(key);
-
     Set<String> taintRuleKeys = new HashSet<>();
-    for (ScannerInput.ServerIssue batchIssue : batchIssues) {
+    issueApi.downloadAllFromBatchIssues(key, batchIssue -> {
       if (IssueApi.TAINT_REPOS.contains(batchIssue.getRuleRepository())) {
         if (NON_CLOSED_STATUSES.contains(batchIssue.getStatus())) {
           taintRuleKeys.add(new org.sonarsource.sonarlint.core.client.api.common.RuleKey(batchIssue.getRuleRepository(), batchIssue.getRuleKey()).toString());
         }
       } else {
-        result.add(toStorageIssue(batchIssue, projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder));
+        consumer.accept(toStorageIssue(batchIssue, projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder));
       }
-    }
+    });
 
     if (fetchTaintVulnerabilities && !taintRuleKeys.isEmpty()) {
-      Map<String, String> sourceCodeByKey = new HashMap<>();
+      List<Sonarlint.ServerIssue> taintIssues = new ArrayList<>();
       try {
         DownloadIssuesResult downloadVulnerabilitiesForRules = issueApi.downloadVulnerabilitiesForRules(key, taintRuleKeys, progress);
+        Map<String, IndexedSourceCode> sourceCodeByKey = prefetchSourceCode(downloadVulnerabilitiesForRules.getIssues());
         downloadVulnerabilitiesForRules.getIssues()
-          .forEach(i -> result.add(
+          .forEach(i -> taintIssues.add(
             convertTaintIssue(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, i, downloadVulnerabilitiesForRules.getComponentsByKey(),
               sourceCodeByKey)));
       } catch (Exception e) {
         LOG.warn("Unable to fetch taint vulnerabilities", e);
       }
+      taintIssues.forEach(consumer);
     }
+  }
 
-    return result;
+  /**
+   * @param key project key
+   * @return the update date of the most recently updated issue of the project, if any
+   */
+  public Optional<Long> getLatestIssueUpdateDate(String key) {
+    return issueApi.getLatestIssueUpdateDate(key);
+  }
+
+  /**
+   * Fetch the issues of the project that changed since the given date, converted the same way as by
+   * {@link #download(String, ProjectConfiguration, boolean, ProgressWrapper)}.
+   * Closed issues, and taint vulnerabilities that would not be downloaded by a full download, are reported as removed.
+   *
+   * @param key project key
+   * @return empty if the changes can't be fetched completely, in which case all issues should be downloaded instead
+   */
+  public Optional<ServerIssueChanges> downloadChanges(String key, ProjectConfiguration projectConfiguration, long sinceTimestamp, boolean fetchTaintVulnerabilities,
+    ProgressWrapper progress) {
+    Optional<DownloadIssuesResult> changedIssues = issueApi.downloadIssuesUpdatedSince(key, sinceTimestamp, progress);
+    if (!changedIssues.isPresent()) {
+      return Optional.empty();
+    }
+    Sonarlint.ServerIssue.Builder issueBuilder = Sonarlint.ServerIssue.newBuilder();
+    Location.Builder locationBuilder = Location.newBuilder();
+    Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder = Sonarlint.ServerIssue.TextRange.newBuilder();
+    Sonarlint.ServerIssue.Flow.Builder flowBuilder = Sonarlint.ServerIssue.Flow.newBuilder();
+    Map<String, Component> componentsByKey = changedIssues.get().getComponentsByKey();
+    Map<String, IndexedSourceCode> sourceCodeByKey = new HashMap<>();
+    if (fetchTaintVulnerabilities) {
+      sourceCodeByKey = prefetchSourceCode(changedIssues.get().getIssues().stream()
+        .filter(i -> isTaint(i) && NON_CLOSED_STATUSES.contains(i.getStatus()))
+        .collect(Collectors.toList()));
+    }
+
+    ServerIssueChanges changes = new ServerIssueChanges();
+    for (Issue issueFromWs : changedIssues.get().getIssues()) {
+      Component component = componentsByKey.get(issueFromWs.getComponent());
+      if (component == null) {
+        LOG.debug("Unknown component '{}' for issue '{}'", issueFromWs.getComponent(), issueFromWs.getKey());
+        return Optional.empty();
+      }
+      long updateDate = IssueApi.getUpdateDate(issueFromWs);
+      boolean taint = isTaint(issueFromWs);
+      if (CLOSED_STATUS.equals(issueFromWs.getStatus()) || (taint && (!fetchTaintVulnerabilities || !NON_CLOSED_STATUSES.contains(issueFromWs.getStatus())))) {
+        String sqPath = issueStorePaths.fileKeyToSqPath(projectConfiguration, issueFromWs.getSubProject(), component.getPath());
+        changes.addRemoved(sqPath, issueFromWs.getKey(), updateDate);
+      } else if (taint) {
+        changes.addUpdated(convertTaintIssue(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, flowBuilder, issueFromWs, componentsByKey, sourceCodeByKey),
+          updateDate);
+      } else {
+        changes.addUpdated(convertIssue(projectConfiguration, issueBuilder, locationBuilder, textRangeBuilder, issueFromWs, component), updateDate);
+      }
+    }
+    return Optional.of(changes);
+  }
+
+  private static boolean isTaint(Issue issueFromWs) {
+    return IssueApi.TAINT_REPOS.contains(RuleKey.parse(issueFromWs.getRule()).repository());
   }
 
   public Sonarlint.ServerIssue toStorageIssue(ScannerInput.ServerIssue batchIssueFromWs, Sonarlint.ProjectConfiguration projectConfiguration,
@@ -142,9 +220,40 @@ public class IssueDownloader {
     return locationBuilder.build();
   }
 
+  /**
+   * Same content as {@link #toStorageIssue}, for an issue returned by the search web service.
+   */
+  private ServerIssue convertIssue(ProjectConfiguration projectConfiguration, Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
+    Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder, Issue issueFromWs, Component component) {
+    RuleKey ruleKey = RuleKey.parse(issueFromWs.getRule());
+    locationBuilder.clear();
+    locationBuilder.setPath(issueStorePaths.fileKeyToSqPath(projectConfiguration, issueFromWs.getSubProject(), component.getPath()));
+    locationBuilder.setMsg(issueFromWs.getMessage());
+    if (issueFromWs.hasLine()) {
+      textRangeBuilder.clear();
+      textRangeBuilder.setStartLine(issueFromWs.getLine());
+      locationBuilder.setTextRange(textRangeBuilder);
+    }
+
+    issueBuilder.clear();
+    return issueBuilder
+      .setAssigneeLogin(issueFromWs.getAssignee())
+      .setLineHash(issueFromWs.getHash())
+      .setCreationDate(org.sonar.api.utils.DateUtils.parseDateTime(issueFromWs.getCreationDate()).getTime())
+      .setKey(issueFromWs.getKey())
+      .setPrimaryLocation(locationBuilder)
+      .setResolution(issueFromWs.getResolution())
+      .setRuleKey(ruleKey.rule())
+      .setRuleRepository(ruleKey.repository())
+      .setSeverity(issueFromWs.getSeverity().name())
+      .setStatus(issueFromWs.getStatus())
+      .setType(issueFromWs.getType().name())
+      .build();
+  }
+
   private ServerIssue convertTaintIssue(ProjectConfiguration projectConfiguration, Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder, Sonarlint.ServerIssue.Flow.Builder flowBuilder, Issue issueFromWs,
-    Map<String, Component> componentsByKey, Map<String, String> sourceCodeByKey) {
+    Map<String, Component> componentsByKey, Map<String, IndexedSourceCode> sourceCodeByKey) {
     issueBuilder.clear();
     RuleKey ruleKey = RuleKey.parse(issueFromWs.getRule());
     Location primary = buildPrimaryLocation(projectConfiguration, locationBuilder, textRangeBuilder, issueFromWs, componentsByKey, sourceCodeByKey);
@@ -168,7 +277,7 @@ public class IssueDownloader {
 
   private void buildFlows(ProjectConfiguration projectConfiguration, Sonarlint.ServerIssue.Builder issueBuilder, Location.Builder locationBuilder,
     Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder, Sonarlint.ServerIssue.Flow.Builder flowBuilder, Issue issueFromWs, Map<String, Component> componentsByKey,
-    Map<String, String> sourceCodeByKey) {
+    Map<String, IndexedSourceCode> sourceCodeByKey) {
     for (Flow flowFromWs : issueFromWs.getFlowsList()) {
       flowBuilder.clear();
 
@@ -190,7 +299,7 @@ public class IssueDownloader {
   }
 
   private Location buildPrimaryLocation(ProjectConfiguration projectConfiguration, Location.Builder locationBuilder, Sonarlint.ServerIssue.TextRange.Builder textRangeBuilder,
-    Issue issueFromWs, Map<String, Component> componentsByKey, Map<String, String> sourceCodeByKey) {
+    Issue issueFromWs, Map<String, Component> componentsByKey, Map<String, IndexedSourceCode> sourceCodeByKey) {
     locationBuilder.clear();
     locationBuilder.setMsg(issueFromWs.getMessage());
     Component component = componentsByKey.get(issueFromWs.getComponent());
@@ -212,21 +321,54 @@ public class IssueDownloader {
     locationBuilder.setTextRange(textRangeBuilder);
   }
 
-  private void setCodeSnippet(Location.Builder locationBuilder, String fileKey, TextRange textRange, Map<String, String> sourceCodeByKey) {
-    String sourceCode = getOrFetchSourceCode(fileKey, sourceCodeByKey);
-    if (StringUtils.isEmpty(sourceCode)) {
+  private void setCodeSnippet(Location.Builder locationBuilder, String fileKey, TextRange textRange, Map<String, IndexedSourceCode> sourceCodeByKey) {
+    IndexedSourceCode sourceCode = getOrFetchSourceCode(fileKey, sourceCodeByKey);
+    if (sourceCode.isEmpty()) {
       return;
     }
     try {
-      locationBuilder.setCodeSnippet(ServerApiUtils.extractCodeSnippet(sourceCode, textRange));
+      locationBuilder.setCodeSnippet(sourceCode.extractCodeSnippet(textRange));
     } catch (Exception e) {
       LOG.debug("Unable to compute code snippet of '" + fileKey + "' for text range: " + textRange, e);
     }
   }
 
-  private String getOrFetchSourceCode(String fileKey, Map<String, String> sourceCodeByKey) {
+  private IndexedSourceCode getOrFetchSourceCode(String fileKey, Map<String, IndexedSourceCode> sourceCodeByKey) {
     return sourceCodeByKey.computeIfAbsent(fileKey, k -> sourceApi
       .getRawSourceCode(fileKey)
-      .orElse(""));
+      .map(IndexedSourceCode::new)
+      .orElse(IndexedSourceCode.EMPTY));
+  }
+
+  /**
+   * Download once the source code of every file having a location with a text range in the given issues, with at most
+   * {@link #MAX_CONCURRENT_SOURCE_DOWNLOADS} requests at a time. Sources are indexed by line as soon as they are received.
+   */
+  private Map<String, IndexedSourceCode> prefetchSourceCode(List<Issue> issues) {
+    Set<String> fileKeys = new LinkedHashSet<>();
+    for (Issue issue : issues) {
+      if (issue.hasTextRange()) {
+        fileKeys.add(issue.getComponent());
+      }
+      for (Flow flow : issue.getFlowsList()) {
+        for (org.sonarqube.ws.Common.Location location : flow.getLocationsList()) {
+          if (location.hasTextRange()) {
+            fileKeys.add(location.getComponent());
+          }
+        }
+      }
+    }
+    Semaphore downloadSlots = new Semaphore(MAX_CONCURRENT_SOURCE_DOWNLOADS);
+    Map<String, CompletableFuture<IndexedSourceCode>> futureSourceCodeByKey = new HashMap<>();
+    for (String fileKey : fileKeys) {
+      downloadSlots.acquireUninterruptibly();
+      CompletableFuture<IndexedSourceCode> futureSourceCode = sourceApi.getRawSourceCodeAsync(fileKey)
+        .thenApply(sourceCode -> sourceCode.map(IndexedSourceCode::new).orElse(IndexedSourceCode.EMPTY));
+      futureSourceCode.whenComplete((sourceCode, error) -> downloadSlots.release());
+      futureSourceCodeByKey.put(fileKey, futureSourceCode);
+    }
+    Map<String, IndexedSourceCode> sourceCodeByKey = new HashMap<>();
+    futureSourceCodeByKey.forEach((fileKey, futureSourceCode) -> sourceCodeByKey.put(fileKey, futureSourceCode.join()));
+    return sourceCodeByKey;
   }
 }
@@ -0,0 +1,101 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+
+/**
+ * Issues of a project that changed on the server since a given date, grouped by file.
+ */
+public class ServerIssueChanges {
+  private final Map<String, List<ServerIssue>> updatedIssuesByFile = new LinkedHashMap<>();
+  private final Map<String, Set<String>> changedIssueKeysByFile = new LinkedHashMap<>();
+  private final Set<String> changedIssueKeys = new HashSet<>();
+  private long latestUpdateDate;
+
+  /**
+   * Changes are expected most recent first, only the first change of an issue is kept.
+   */
+  void addUpdated(ServerIssue issue, long updateDate) {
+    String path = issue.getPrimaryLocation().getPath();
+    if (addChanged(path, issue.getKey(), updateDate)) {
+      updatedIssuesByFile.computeIfAbsent(path, k -> new ArrayList<>()).add(issue);
+    }
+  }
+
+  /**
+   * For issues that should no longer be stored, e.g. closed ones.
+   */
+  void addRemoved(String path, String issueKey, long updateDate) {
+    addChanged(path, issueKey, updateDate);
+  }
+
+  private boolean addChanged(String path, String issueKey, long updateDate) {
+    if (!changedIssueKeys.add(issueKey)) {
+      return false;
+    }
+    changedIssueKeysByFile.computeIfAbsent(path, k -> new HashSet<>()).add(issueKey);
+    latestUpdateDate = Math.max(latestUpdateDate, updateDate);
+    return true;
+  }
+
+  public Set<String> getChangedFiles() {
+    return changedIssueKeysByFile.keySet();
+  }
+
+  /**
+   * @return keys of all the issues that were updated or removed
+   */
+  public Set<String> getChangedIssueKeys() {
+    return Collections.unmodifiableSet(changedIssueKeys);
+  }
+
+  /**
+   * @return keys of the issues of the file that were updated or removed
+   */
+  public Set<String> getChangedIssueKeys(String path) {
+    return changedIssueKeysByFile.getOrDefault(path, Collections.emptySet());
+  }
+
+  /**
+   * @return new state of the issues of the file that were updated, and should be stored
+   */
+  public List<ServerIssue> getUpdatedIssues(String path) {
+    return updatedIssuesByFile.getOrDefault(path, Collections.emptyList());
+  }
+
+  /**
+   * @return update date of the most recent change, or 0 if there is no change
+   */
+  public long getLatestUpdateDate() {
+    return latestUpdateDate;
+  }
+
+  public boolean isEmpty() {
+    return changedIssueKeys.isEmpty();
+  }
+}
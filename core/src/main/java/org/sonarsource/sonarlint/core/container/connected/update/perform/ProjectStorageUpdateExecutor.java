@@ -20,13 +20,14 @@
 package org.sonarsource.sonarlint.core.container.connected.update.perform;
 
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.utils.TempFolder;
-import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.ProjectConfigurationDownloader;
 import org.sonarsource.sonarlint.core.container.connected.update.ProjectFileListDownloader;
 import org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths;
@@ -35,6 +36,7 @@ import org.sonarsource.sonarlint.core.container.storage.QualityProfileStore;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
+import org.sonarsource.sonarlint.core.util.CompactReversePathTree;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.VersionUtils;
 
@@ -45,19 +47,21 @@ public class ProjectStorageUpdateExecutor {
   private final ServerIssueUpdater serverIssueUpdater;
   private final ProjectStoragePaths projectStoragePaths;
   private final QualityProfileStore qualityProfileStore;
+  private final IssueStoreFactory issueStoreFactory;
 
   public ProjectStorageUpdateExecutor(ProjectStoragePaths projectStoragePaths, TempFolder tempFolder, ProjectConfigurationDownloader projectConfigurationDownloader,
-    ProjectFileListDownloader projectFileListDownloader, ServerIssueUpdater serverIssueUpdater, QualityProfileStore qualityProfileStore) {
+    ProjectFileListDownloader projectFileListDownloader, ServerIssueUpdater serverIssueUpdater, QualityProfileStore qualityProfileStore, IssueStoreFactory issueStoreFactory) {
     this.projectStoragePaths = projectStoragePaths;
     this.tempFolder = tempFolder;
     this.projectConfigurationDownloader = projectConfigurationDownloader;
     this.projectFileListDownloader = projectFileListDownloader;
     this.serverIssueUpdater = serverIssueUpdater;
     this.qualityProfileStore = qualityProfileStore;
+    this.issueStoreFactory = issueStoreFactory;
   }
 
   public void update(String projectKey, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
-    FileUtils.replaceDir(temp -> {
+    issueStoreFactory.replaceDir(temp -> {
       ProjectConfiguration projectConfiguration = updateConfiguration(projectKey, qualityProfileStore, temp, progress);
       updateServerIssues(projectKey, temp, projectConfiguration, fetchTaintVulnerabilities, progress);
       updateComponents(projectKey, temp, projectConfiguration, progress);
@@ -94,7 +98,24 @@ public class ProjectStorageUpdateExecutor {
       }
       componentsBuilder.addComponent(prefix + relativePath);
     }
-    ProtobufUtil.writeToFile(componentsBuilder.build(), temp.resolve(ProjectStoragePaths.COMPONENT_LIST_PB));
+    Sonarlint.ProjectComponents components = componentsBuilder.build();
+    ProtobufUtil.writeToFile(components, temp.resolve(ProjectStoragePaths.COMPONENT_LIST_PB));
+    ProtobufUtil.writeToFile(toProto(CompactReversePathTree.build(components.getComponentList())), temp.resolve(ProjectStoragePaths.COMPONENT_TREE_PB));
+  }
+
+  private static Sonarlint.ProjectComponentTree toProto(CompactReversePathTree tree) {
+    Sonarlint.ProjectComponentTree.Builder builder = Sonarlint.ProjectComponentTree.newBuilder()
+      .addAllSegment(Arrays.asList(tree.segments()));
+    for (int parent : tree.parents()) {
+      builder.addParent(parent);
+    }
+    for (int segment : tree.nodeSegments()) {
+      builder.addNodeSegment(segment);
+    }
+    for (int terminal : tree.terminalNodes()) {
+      builder.addTerminal(terminal);
+    }
+    return builder.build();
   }
 
   private void updateServerIssues(String projectKey, Path temp, ProjectConfiguration projectConfiguration, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
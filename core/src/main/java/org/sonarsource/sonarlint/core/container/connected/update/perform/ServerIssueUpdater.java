@@ -19,17 +19,45 @@
  */
 package org.sonarsource.sonarlint.core.container.connected.update.perform;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.connected.IssueStore;
 import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
+import org.sonarsource.sonarlint.core.container.connected.IssueStoreWriter;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueDownloader;
+import org.sonarsource.sonarlint.core.container.connected.update.ServerIssueChanges;
 import org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssuesSyncStatus;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class ServerIssueUpdater {
+  private static final Logger LOG = Loggers.get(ServerIssueUpdater.class);
+
+  /**
+   * Closed issues are purged from the server after 30 days by default, after which their removal can't be seen by an incremental sync.
+   */
+  static final long MAX_INCREMENTAL_SYNC_AGE_MS = TimeUnit.DAYS.toMillis(20);
+
   private final ProjectStoragePaths projectStoragePaths;
   private final IssueDownloader issueDownloader;
   private final IssueStoreFactory issueStoreFactory;
@@ -42,15 +70,139 @@ public class ServerIssueUpdater {
     this.tempFolder = tempFolder;
   }
 
+  /**
+   * Only fetch and store the issues that changed since the previous sync, when possible. Otherwise download all issues of the project.
+   */
   public void update(String projectKey, Sonarlint.ProjectConfiguration projectConfiguration, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
-    Path work = tempFolder.newDir().toPath();
     Path target = projectStoragePaths.getServerIssuesPath(projectKey);
-    FileUtils.replaceDir(path -> updateServerIssues(projectKey, projectConfiguration, path, fetchTaintVulnerabilities, progress), target, work);
+    Path syncStatusPath = projectStoragePaths.getServerIssuesSyncStatusPath(projectKey);
+    if (updateIncrementally(projectKey, projectConfiguration, target, syncStatusPath, fetchTaintVulnerabilities, progress)) {
+      return;
+    }
+    // if interrupted, the next sync must be a full one
+    FileUtils.deleteRecursively(syncStatusPath);
+    Path work = tempFolder.newDir().toPath();
+    AtomicReference<ServerIssuesSyncStatus> syncStatus = new AtomicReference<>();
+    issueStoreFactory.replaceDir(path -> syncStatus.set(downloadAll(projectKey, projectConfiguration, path, fetchTaintVulnerabilities, progress)), target, work);
+    writeSyncStatus(syncStatus.get(), syncStatusPath);
   }
 
+  /**
+   * Download all issues of the project.
+   *
+   * @param path the server issues directory of the project storage. Sync information is stored next to it.
+   */
   public void updateServerIssues(String projectKey, Sonarlint.ProjectConfiguration projectConfiguration, Path path, boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
-    List<Sonarlint.ServerIssue> issues = issueDownloader.download(projectKey, projectConfiguration, fetchTaintVulnerabilities, progress);
-    issueStoreFactory.apply(path).save(issues);
+    ServerIssuesSyncStatus syncStatus = downloadAll(projectKey, projectConfiguration, path, fetchTaintVulnerabilities, progress);
+    writeSyncStatus(syncStatus, path.resolveSibling(ProjectStoragePaths.SERVER_ISSUES_SYNC_STATUS_PB));
+  }
+
+  @CheckForNull
+  private ServerIssuesSyncStatus downloadAll(String projectKey, Sonarlint.ProjectConfiguration projectConfiguration, Path path, boolean fetchTaintVulnerabilities,
+    ProgressWrapper progress) {
+    // read before downloading, so that issues changed during the download are fetched again by the next incremental sync
+    Optional<Long> latestIssueUpdateDate = getLatestIssueUpdateDate(projectKey);
+    long syncTimestamp = System.currentTimeMillis();
+    IssueStoreWriter writer = new IssueStoreWriter(issueStoreFactory.apply(path));
+    issueDownloader.download(projectKey, projectConfiguration, fetchTaintVulnerabilities, progress, writer);
+    writer.flush();
+    return latestIssueUpdateDate
+      .map(updateDate -> ServerIssuesSyncStatus.newBuilder()
+        .setLastIssueUpdateDate(updateDate)
+        .setSyncTimestamp(syncTimestamp)
+        .setTaintVulnerabilitiesIncluded(fetchTaintVulnerabilities)
+        .build())
+      .orElse(null);
+  }
+
+  private Optional<Long> getLatestIssueUpdateDate(String projectKey) {
+    try {
+      return issueDownloader.getLatestIssueUpdateDate(projectKey);
+    } catch (Exception e) {
+      LOG.debug("Unable to get the latest issue update date, next sync will be a full one", e);
+      return Optional.empty();
+    }
+  }
+
+  private boolean updateIncrementally(String projectKey, Sonarlint.ProjectConfiguration projectConfiguration, Path target, Path syncStatusPath,
+    boolean fetchTaintVulnerabilities, ProgressWrapper progress) {
+    ServerIssuesSyncStatus previousSync = readSyncStatus(syncStatusPath);
+    if (previousSync == null || !Files.isDirectory(target)) {
+      return false;
+    }
+    long syncTimestamp = System.currentTimeMillis();
+    if (syncTimestamp - previousSync.getSyncTimestamp() > MAX_INCREMENTAL_SYNC_AGE_MS) {
+      LOG.debug("Last sync of server issues is too old, downloading all issues");
+      return false;
+    }
+    if (fetchTaintVulnerabilities && !previousSync.getTaintVulnerabilitiesIncluded()) {
+      return false;
+    }
+    Optional<ServerIssueChanges> changes = issueDownloader.downloadChanges(projectKey, projectConfiguration, previousSync.getLastIssueUpdateDate(), fetchTaintVulnerabilities,
+      progress);
+    if (!changes.isPresent() || !applyChanges(issueStoreFactory.apply(target), changes.get())) {
+      return false;
+    }
+    LOG.debug("Updated server issues of {} file(s) incrementally", changes.get().getChangedFiles().size());
+    writeSyncStatus(ServerIssuesSyncStatus.newBuilder()
+      .setLastIssueUpdateDate(Math.max(previousSync.getLastIssueUpdateDate(), changes.get().getLatestUpdateDate()))
+      .setSyncTimestamp(syncTimestamp)
+      .setTaintVulnerabilitiesIncluded(fetchTaintVulnerabilities)
+      .build(), syncStatusPath);
+    return true;
+  }
+
+  /**
+   * Changed issues are removed from the file where they were stored before, which is not the one they are reported on if they moved.
+   *
+   * @return false if the store can't find where the issues were stored, the changes must then be downloaded with all issues
+   */
+  private static boolean applyChanges(IssueStore issueStore, ServerIssueChanges changes) {
+    Optional<Map<String, String>> previousFiles = issueStore.findFiles(changes.getChangedIssueKeys());
+    if (!previousFiles.isPresent()) {
+      return false;
+    }
+    Set<String> changedFiles = new LinkedHashSet<>(previousFiles.get().values());
+    changedFiles.addAll(changes.getChangedFiles());
+    for (String path : changedFiles) {
+      List<ServerIssue> issues = issueStore.load(path).stream()
+        .filter(issue -> !changes.getChangedIssueKeys().contains(issue.getKey()))
+        .collect(Collectors.toList());
+      issues.addAll(changes.getUpdatedIssues(path));
+      if (issues.isEmpty()) {
+        issueStore.delete(path);
+      } else {
+        issueStore.save(issues);
+      }
+    }
+    return true;
+  }
+
+  @CheckForNull
+  private static ServerIssuesSyncStatus readSyncStatus(Path syncStatusPath) {
+    if (!Files.isRegularFile(syncStatusPath)) {
+      return null;
+    }
+    try {
+      return ProtobufUtil.readFile(syncStatusPath, ServerIssuesSyncStatus.parser());
+    } catch (StorageException e) {
+      LOG.debug("Unable to read the status of the last sync of server issues", e);
+      return null;
+    }
+  }
+
+  private static void writeSyncStatus(@Nullable ServerIssuesSyncStatus syncStatus, Path syncStatusPath) {
+    if (syncStatus == null) {
+      return;
+    }
+    FileUtils.mkdirs(syncStatusPath.getParent());
+    Path tmp = syncStatusPath.resolveSibling(syncStatusPath.getFileName() + ".tmp");
+    ProtobufUtil.writeToFile(syncStatus, tmp);
+    try {
+      Files.move(tmp, syncStatusPath, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new StorageException("Unable to write " + syncStatusPath, e);
+    }
   }
 
 }
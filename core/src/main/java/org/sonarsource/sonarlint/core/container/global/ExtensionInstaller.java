@@ -62,7 +62,7 @@ public class ExtensionInstaller {
     return install(container, lifespan, pluginRepository.getActivePluginInfos());
   }
 
-  private ExtensionInstaller install(ComponentContainer container, ContainerLifespan lifespan, Collection<PluginInfo> pluginInfos) {
+  public ExtensionInstaller install(ComponentContainer container, ContainerLifespan lifespan, Collection<PluginInfo> pluginInfos) {
     for (PluginInfo pluginInfo : pluginInfos) {
       Plugin plugin = pluginRepository.getPluginInstance(pluginInfo.getKey());
       Plugin.Context context = new PluginContextImpl.Builder()
@@ -0,0 +1,90 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.global;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.sonar.api.config.Configuration;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.ContainerLifespan;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.LanguageDetection;
+import org.sonarsource.sonarlint.core.container.module.ModuleRegistry;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+
+/**
+ * In lazy plugin activation mode, activates the plugins needed by the languages of the files to analyze, and installs their extensions
+ * in the containers that were started without them.
+ */
+public class LazyPluginActivator {
+
+  private final PluginRepository pluginRepository;
+  private final ExtensionInstaller extensionInstaller;
+
+  public LazyPluginActivator(PluginRepository pluginRepository, ExtensionInstaller extensionInstaller) {
+    this.pluginRepository = pluginRepository;
+    this.extensionInstaller = extensionInstaller;
+  }
+
+  /**
+   * @param analysisSettings only computed if some plugins are not activated yet
+   * @return the languages of the files to analyze whose plugin was not activated yet
+   */
+  public Set<Language> getLanguagesToActivate(AbstractAnalysisConfiguration analysisConfig, Supplier<Configuration> analysisSettings) {
+    if (Arrays.stream(Language.values()).noneMatch(pluginRepository::needsActivation)) {
+      return Collections.emptySet();
+    }
+    LanguageDetection languageDetection = new LanguageDetection(analysisSettings.get());
+    Set<Language> languages = EnumSet.noneOf(Language.class);
+    for (ClientInputFile inputFile : analysisConfig.inputFiles()) {
+      Language forcedLanguage = inputFile.language();
+      if (forcedLanguage != null) {
+        languages.add(forcedLanguage);
+      } else {
+        languages.addAll(languageDetection.candidateLanguages(Paths.get(inputFile.relativePath()).getFileName().toString()));
+      }
+    }
+    languages.removeIf(language -> !pluginRepository.needsActivation(language));
+    return languages;
+  }
+
+  /**
+   * Must not be called while analyses are running, as extensions are added to containers they share.
+   */
+  public void activate(Set<Language> languages, ComponentContainer globalContainer, ComponentContainer globalExtensionContainer, ModuleRegistry moduleRegistry) {
+    Collection<PluginInfo> activatedPlugins = pluginRepository.activatePluginsFor(languages);
+    if (activatedPlugins.isEmpty()) {
+      return;
+    }
+    for (PluginInfo pluginInfo : activatedPlugins) {
+      globalContainer.addExtension(pluginInfo, pluginRepository.getPluginInstance(pluginInfo.getKey()));
+    }
+    extensionInstaller.install(globalExtensionContainer, ContainerLifespan.INSTANCE, activatedPlugins);
+    moduleRegistry.forEachContainer(moduleContainer -> extensionInstaller.install(moduleContainer, ContainerLifespan.MODULE, activatedPlugins));
+  }
+}
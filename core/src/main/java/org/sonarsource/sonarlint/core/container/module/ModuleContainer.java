@@ -28,6 +28,9 @@ import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 
 public class ModuleContainer extends ComponentContainer {
 
+  private int activeAnalyses;
+  private boolean stopRequested;
+
   public ModuleContainer(ComponentContainer parent) {
     super(parent);
   }
@@ -44,4 +47,42 @@ public class ModuleContainer extends ComponentContainer {
     );
     getComponentByType(ExtensionInstaller.class).install(this, ContainerLifespan.MODULE);
   }
+
+  /**
+   * Marks the container as being used by an analysis.
+   * @return false if the container is already being stopped, in which case it must not be used
+   */
+  public synchronized boolean acquire() {
+    if (stopRequested) {
+      return false;
+    }
+    activeAnalyses++;
+    return true;
+  }
+
+  /**
+   * Counterpart of {@link #acquire()}. Stops the container if {@link #stopWhenIdle()} was called while it was in use.
+   */
+  public void release() {
+    synchronized (this) {
+      activeAnalyses--;
+      if (!stopRequested || activeAnalyses > 0) {
+        return;
+      }
+    }
+    stopComponents();
+  }
+
+  /**
+   * Stops the container immediately if no analysis is using it, otherwise when the last one releases it.
+   */
+  public void stopWhenIdle() {
+    synchronized (this) {
+      stopRequested = true;
+      if (activeAnalyses > 0) {
+        return;
+      }
+    }
+    stopComponents();
+  }
 }
@@ -19,9 +19,13 @@
  */
 package org.sonarsource.sonarlint.core.container.module;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.common.ClientFileSystem;
@@ -31,20 +35,37 @@ import org.sonarsource.sonarlint.core.container.ComponentContainer;
 
 public class ModuleRegistry {
   private static final Logger LOG = Loggers.get(ModuleRegistry.class);
+  private static final int DEFAULT_MAX_IDLE_POOLED_CONTAINERS = Math.max(2, Runtime.getRuntime().availableProcessors());
 
-  private final Map<Object, ModuleContainer> modules = new HashMap<>();
+  private final Map<Object, ModuleContainer> modules = new ConcurrentHashMap<>();
+  private final BlockingDeque<PooledModuleContainer> idlePooledContainers;
   private final ComponentContainer parent;
 
   public ModuleRegistry(ComponentContainer parent, ModulesProvider modulesProvider) {
+    this(parent, modulesProvider, DEFAULT_MAX_IDLE_POOLED_CONTAINERS);
+  }
+
+  ModuleRegistry(ComponentContainer parent, ModulesProvider modulesProvider, int maxIdlePooledContainers) {
     this.parent = parent;
+    this.idlePooledContainers = new LinkedBlockingDeque<>(maxIdlePooledContainers);
     if (modulesProvider != null) {
       modulesProvider.getModules().forEach(this::registerModule);
     }
   }
 
   public ModuleContainer registerModule(ModuleInfo module) {
+    ModuleContainer existing = modules.get(module.key());
+    if (existing != null) {
+      return existing;
+    }
+    // the container is started outside of the map, plugin extensions may call back the registry
     ModuleContainer moduleContainer = createContainer(module);
-    modules.put(module.key(), moduleContainer);
+    existing = modules.putIfAbsent(module.key(), moduleContainer);
+    if (existing != null) {
+      // registered concurrently
+      moduleContainer.stopComponents();
+      return existing;
+    }
     return moduleContainer;
   }
 
@@ -65,22 +86,86 @@ public class ModuleRegistry {
     return moduleContainer;
   }
 
-  public void unregisterModule(Object moduleKey) {
-    if (!modules.containsKey(moduleKey)) {
-      // can this happen ?
+  /**
+   * The container is stopped once the analyses currently running on it are finished.
+   */
+  public void unregisterModule(@Nullable Object moduleKey) {
+    if (moduleKey == null) {
       return;
     }
     ModuleContainer moduleContainer = modules.remove(moduleKey);
-    moduleContainer.stopComponents();
+    if (moduleContainer != null) {
+      moduleContainer.stopWhenIdle();
+    }
   }
 
   public void stopAll() {
     modules.values().forEach(ComponentContainer::stopComponents);
     modules.clear();
+    PooledModuleContainer pooledContainer;
+    while ((pooledContainer = idlePooledContainers.pollFirst()) != null) {
+      pooledContainer.stopComponents();
+    }
   }
 
+  /**
+   * Applies the given action to the started containers of declared modules and to the idle pooled containers. Must not be called while
+   * analyses are running.
+   */
+  public void forEachContainer(Consumer<ComponentContainer> action) {
+    modules.values().forEach(action);
+    idlePooledContainers.forEach(action);
+  }
+
+  @CheckForNull
+  public ComponentContainer getContainerFor(@Nullable Object moduleKey) {
+    return moduleKey != null ? modules.get(moduleKey) : null;
+  }
+
+  /**
+   * Same as {@link #getContainerFor(Object)}, but prevents the container from being stopped until {@link #releaseContainer(ComponentContainer)}
+   * is called, even if the module is unregistered in the meantime.
+   */
   @CheckForNull
-  public ComponentContainer getContainerFor(Object moduleKey) {
-    return modules.get(moduleKey);
+  public ComponentContainer acquireContainerFor(@Nullable Object moduleKey) {
+    if (moduleKey == null) {
+      return null;
+    }
+    ModuleContainer moduleContainer = modules.get(moduleKey);
+    if (moduleContainer == null || !moduleContainer.acquire()) {
+      return null;
+    }
+    return moduleContainer;
+  }
+
+  public void releaseContainer(ComponentContainer moduleContainer) {
+    ((ModuleContainer) moduleContainer).release();
+  }
+
+  /**
+   * Provides a started container for an analysis outside of any declared module, reusing an idle one when available.
+   * The caller has exclusive use of it until {@link #releasePooledContainer(ComponentContainer)} is called.
+   */
+  public ComponentContainer acquirePooledContainer(ClientFileSystem analysisScope) {
+    PooledModuleContainer pooledContainer = idlePooledContainers.pollFirst();
+    if (pooledContainer == null) {
+      LOG.debug("Creating pooled module container");
+      pooledContainer = new PooledModuleContainer(parent);
+      pooledContainer.startComponents();
+    }
+    pooledContainer.setAnalysisScope(analysisScope);
+    return pooledContainer;
+  }
+
+  public void releasePooledContainer(ComponentContainer container) {
+    PooledModuleContainer pooledContainer = (PooledModuleContainer) container;
+    pooledContainer.setAnalysisScope(null);
+    if (!pooledContainer.isReusable() || !idlePooledContainers.offerFirst(pooledContainer)) {
+      pooledContainer.stopComponents();
+    }
+  }
+
+  int idlePooledContainerCount() {
+    return idlePooledContainers.size();
   }
 }
@@ -0,0 +1,75 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.module;
+
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.client.api.common.ClientFileSystem;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+
+/**
+ * Module container used for analyses outside of any declared module. Instances are reused across analyses, the file
+ * system being switched to the scope of the analysis that currently owns the container.
+ * Containers holding MODULE lifespan plugin extensions are not reused, as these extensions may keep state of the previous analysis.
+ */
+class PooledModuleContainer extends ModuleContainer {
+
+  private final ScopedFileSystem fileSystem = new ScopedFileSystem();
+  private boolean hasPluginExtensions;
+
+  PooledModuleContainer(ComponentContainer parent) {
+    super(parent);
+    add(fileSystem);
+  }
+
+  @Override
+  public ComponentContainer addExtension(@Nullable PluginInfo pluginInfo, Object extension) {
+    hasPluginExtensions = true;
+    return super.addExtension(pluginInfo, extension);
+  }
+
+  boolean isReusable() {
+    return !hasPluginExtensions;
+  }
+
+  void setAnalysisScope(@Nullable ClientFileSystem analysisScope) {
+    fileSystem.delegate = analysisScope;
+  }
+
+  private static class ScopedFileSystem implements ClientFileSystem {
+
+    private volatile ClientFileSystem delegate;
+
+    @Override
+    public Stream<ClientInputFile> files(String suffix, InputFile.Type type) {
+      ClientFileSystem current = delegate;
+      return current != null ? current.files(suffix, type) : Stream.empty();
+    }
+
+    @Override
+    public Stream<ClientInputFile> files() {
+      ClientFileSystem current = delegate;
+      return current != null ? current.files() : Stream.empty();
+    }
+  }
+}
@@ -29,11 +29,13 @@ import javax.annotation.CheckForNull;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarQubeVersion;
 import org.sonar.api.batch.rule.Rules;
+import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.UriReader;
 import org.sonar.api.utils.Version;
 import org.sonarsource.sonarlint.core.NodeJsHelper;
 import org.sonarsource.sonarlint.core.analyzer.sensor.SensorsExecutor;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.client.api.common.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
@@ -43,18 +45,20 @@ import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConf
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.analysis.AnalysisContainer;
+import org.sonarsource.sonarlint.core.container.analysis.MutableAnalysisSettings;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
 import org.sonarsource.sonarlint.core.container.global.GlobalConfigurationProvider;
 import org.sonarsource.sonarlint.core.container.global.GlobalExtensionContainer;
 import org.sonarsource.sonarlint.core.container.global.GlobalSettings;
 import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
+import org.sonarsource.sonarlint.core.container.global.LazyPluginActivator;
 import org.sonarsource.sonarlint.core.container.global.MetadataLoader;
 import org.sonarsource.sonarlint.core.container.global.SonarLintRuntimeImpl;
 import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
 import org.sonarsource.sonarlint.core.container.module.ModuleRegistry;
 import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneActiveRules;
-import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRuleRepositoryContainer;
+import org.sonarsource.sonarlint.core.container.standalone.rule.SharedPluginRules;
 import org.sonarsource.sonarlint.core.plugin.DefaultPluginJarExploder;
 import org.sonarsource.sonarlint.core.plugin.PluginClassloaderFactory;
 import org.sonarsource.sonarlint.core.plugin.PluginInfo;
@@ -68,6 +72,7 @@ public class StandaloneGlobalContainer extends ComponentContainer {
 
   private Rules rules;
   private StandaloneActiveRules standaloneActiveRules;
+  private SharedPluginRules pluginRules;
   private GlobalExtensionContainer globalExtensionContainer;
   private ModuleRegistry moduleRegistry;
   private final StandaloneGlobalConfiguration globalConfig;
@@ -95,6 +100,7 @@ public class StandaloneGlobalContainer extends ComponentContainer {
       NodeJsHelper.class,
       new GlobalConfigurationProvider(),
       ExtensionInstaller.class,
+      LazyPluginActivator.class,
       new SonarQubeVersion(sonarPluginApiVersion),
       new SonarLintRuntimeImpl(sonarPluginApiVersion, sonarlintPluginApiVersion, globalConfig.getClientPid()),
 
@@ -124,6 +130,10 @@ public class StandaloneGlobalContainer extends ComponentContainer {
       if (globalExtensionContainer != null) {
         globalExtensionContainer.stopComponents(swallowException);
       }
+      if (pluginRules != null) {
+        pluginRules.release();
+        pluginRules = null;
+      }
     } finally {
       super.stopComponents(swallowException);
     }
@@ -138,11 +148,25 @@ public class StandaloneGlobalContainer extends ComponentContainer {
     }
   }
 
+  /**
+   * @return the languages of the files to analyze whose plugin was not activated yet, see {@link #activatePlugins(Set)}
+   */
+  public Set<Language> getLanguagesToActivate(StandaloneAnalysisConfiguration configuration) {
+    return getComponentByType(LazyPluginActivator.class).getLanguagesToActivate(configuration,
+      () -> new MutableAnalysisSettings(getComponentByType(GlobalSettings.class), configuration, getComponentByType(PropertyDefinitions.class)).asConfig());
+  }
+
+  /**
+   * Must not be called while analyses are running
+   */
+  public void activatePlugins(Set<Language> languages) {
+    getComponentByType(LazyPluginActivator.class).activate(languages, this, globalExtensionContainer, moduleRegistry);
+  }
+
   private void loadRulesAndActiveRulesFromPlugins() {
-    StandaloneRuleRepositoryContainer container = new StandaloneRuleRepositoryContainer(this);
-    container.execute();
-    rules = container.getRules();
-    standaloneActiveRules = container.getStandaloneActiveRules();
+    pluginRules = SharedPluginRules.acquire(this);
+    rules = pluginRules.getRules();
+    standaloneActiveRules = pluginRules.getStandaloneActiveRules();
   }
 
   public AnalysisResults analyze(ComponentContainer moduleContainer, StandaloneAnalysisConfiguration configuration, IssueListener issueListener, ProgressWrapper progress) {
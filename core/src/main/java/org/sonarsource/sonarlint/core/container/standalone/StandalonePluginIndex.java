@@ -20,7 +20,6 @@
 package org.sonarsource.sonarlint.core.container.standalone;
 
 import java.util.List;
-import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.plugin.PluginIndex;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 
@@ -39,9 +38,7 @@ public class StandalonePluginIndex implements PluginIndex {
 
   @Override
   public List<PluginReference> references() {
-    return pluginUrls.urls().stream()
-      .map(fileCache::getFromCacheOrCopy)
-      .collect(Collectors.toList());
+    return fileCache.getFromCacheOrCopy(pluginUrls.urls());
   }
 
 }
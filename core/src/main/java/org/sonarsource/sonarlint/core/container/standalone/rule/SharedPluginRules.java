@@ -0,0 +1,91 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.standalone.rule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.SonarLintRules;
+import org.sonarsource.sonarlint.core.container.global.GlobalSettings;
+import org.sonarsource.sonarlint.core.plugin.PluginInfo;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+import org.sonarsource.sonarlint.core.plugin.ReferenceCountedRegistry;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Rules defined by the embedded plugins, loaded once per process for a given set of plugin files and global settings, and shared by the
+ * engines using them. Must be released when the engine stops.
+ */
+public class SharedPluginRules {
+
+  private static final ReferenceCountedRegistry<List<Object>, SonarLintRules> SHARED_RULES = new ReferenceCountedRegistry<>();
+
+  @Nullable
+  private final List<Object> sharingKey;
+  private final SonarLintRules rules;
+
+  private SharedPluginRules(@Nullable List<Object> sharingKey, SonarLintRules rules) {
+    this.sharingKey = sharingKey;
+    this.rules = rules;
+  }
+
+  /**
+   * Loads the rules defined by the embedded plugins of the given global container, unless another engine already did
+   */
+  public static SharedPluginRules acquire(ComponentContainer globalContainer) {
+    Supplier<SonarLintRules> loader = () -> {
+      StandaloneRuleRepositoryContainer container = new StandaloneRuleRepositoryContainer(globalContainer);
+      container.execute();
+      return container.getRules();
+    };
+    Collection<PluginInfo> embeddedPlugins = globalContainer.getComponentByType(PluginRepository.class).getActivePluginInfos().stream()
+      .filter(PluginInfo::isEmbedded)
+      .collect(toList());
+    Optional<Set<String>> pluginFiles = PluginRepository.pluginFiles(embeddedPlugins);
+    if (!pluginFiles.isPresent()) {
+      return new SharedPluginRules(null, loader.get());
+    }
+    List<Object> sharingKey = Arrays.asList(pluginFiles.get(), new HashMap<>(globalContainer.getComponentByType(GlobalSettings.class).getProperties()));
+    return new SharedPluginRules(sharingKey, SHARED_RULES.acquire(sharingKey, loader));
+  }
+
+  public SonarLintRules getRules() {
+    return rules;
+  }
+
+  public StandaloneActiveRules getStandaloneActiveRules() {
+    return new StandaloneActiveRules(rules.findAll().stream().map(StandaloneRule.class::cast).collect(toList()));
+  }
+
+  public void release() {
+    if (sharingKey != null) {
+      SHARED_RULES.release(sharingKey, sharedRules -> {
+        // nothing to close, the rules are simply no longer referenced
+      });
+    }
+  }
+}
@@ -22,6 +22,7 @@ package org.sonarsource.sonarlint.core.container.storage;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
@@ -35,6 +36,7 @@ public class ActiveRulesStore {
 
   private final StorageFolder storageFolder;
   private final RWLock rwLock = new RWLock();
+  private final Map<String, Sonarlint.ActiveRules> activeRulesByQProfile = new ConcurrentHashMap<>();
 
   public ActiveRulesStore(StorageFolder storageFolder) {
     this.storageFolder = storageFolder;
@@ -47,20 +49,33 @@ public class ActiveRulesStore {
       for (Map.Entry<String, Sonarlint.ActiveRules> entry : activeRulesBuildersByQProfile.entrySet()) {
         ProtobufUtil.writeToFile(entry.getValue(), activeRulesDir.resolve(encodeForFs(entry.getKey()) + ".pb"));
       }
+      activeRulesByQProfile.clear();
     }));
   }
 
+  /**
+   * Forget the active rules read so far, to be called when the storage has been replaced.
+   */
+  public void invalidate() {
+    activeRulesByQProfile.clear();
+  }
+
+  /**
+   * Active rules of a quality profile are read once and then kept in memory, until the storage is updated.
+   */
   public Sonarlint.ActiveRules getActiveRules(String qualityProfileKey) {
-    return rwLock.read(() -> storageFolder.readAction(source -> {
-      Path activeRulesPath = getActiveRulesPath(source, qualityProfileKey);
-      if (Files.exists(activeRulesPath)) {
-        return ProtobufUtil.readFile(activeRulesPath, Sonarlint.ActiveRules.parser());
-      } else {
-        LOG.info("Unable to find the quality profile {} in the SonarLint storage. You should update the storage, or ignore this message if the profile is empty.",
-          qualityProfileKey);
-        return Sonarlint.ActiveRules.newBuilder().build();
-      }
-    }));
+    return rwLock.read(() -> storageFolder.readAction(source -> activeRulesByQProfile.computeIfAbsent(qualityProfileKey, k -> readActiveRules(source, k))));
+  }
+
+  private Sonarlint.ActiveRules readActiveRules(Path source, String qualityProfileKey) {
+    Path activeRulesPath = getActiveRulesPath(source, qualityProfileKey);
+    if (Files.exists(activeRulesPath)) {
+      return ProtobufUtil.readFile(activeRulesPath, Sonarlint.ActiveRules.parser());
+    } else {
+      LOG.info("Unable to find the quality profile {} in the SonarLint storage. You should update the storage, or ignore this message if the profile is empty.",
+        qualityProfileKey);
+      return Sonarlint.ActiveRules.newBuilder().build();
+    }
   }
 
   public Path getActiveRulesPath(Path parentPath, String qualityProfileKey) {
@@ -27,8 +27,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.util.CompactReversePathTree;
 import org.sonarsource.sonarlint.core.util.ReversePathTree;
 
 import static java.util.Collections.reverseOrder;
@@ -38,14 +40,25 @@ public class FileMatcher {
   public Result match(List<Path> serverRelativePaths, List<Path> ideRelativePaths) {
     ReversePathTree reversePathTree = new ReversePathTree();
 
-    Map<Result, Double> resultScores = new LinkedHashMap<>();
-
     // No need to index server files if no ide path ends with the same filename
     Set<Path> ideFilenames = ideRelativePaths.stream().map(Path::getFileName).collect(Collectors.toSet());
     serverRelativePaths.stream().filter(sqPath -> ideFilenames.contains(sqPath.getFileName())).forEach(reversePathTree::index);
 
+    return match(reversePathTree::findLongestSuffixMatches, ideRelativePaths);
+  }
+
+  /**
+   * Match against server paths indexed beforehand, so that the work is proportional to the number of IDE paths.
+   */
+  public Result match(CompactReversePathTree serverTree, List<Path> ideRelativePaths) {
+    return match(serverTree::findLongestSuffixMatches, ideRelativePaths);
+  }
+
+  private static Result match(Function<Path, ReversePathTree.Match> suffixMatcher, List<Path> ideRelativePaths) {
+    Map<Result, Double> resultScores = new LinkedHashMap<>();
+
     for (Path ide : ideRelativePaths) {
-      ReversePathTree.Match match = reversePathTree.findLongestSuffixMatches(ide);
+      ReversePathTree.Match match = suffixMatcher.apply(ide);
       if (match.matchLen() > 0) {
         Path idePrefix = getIdePrefix(ide, match);
 
@@ -35,6 +35,10 @@ public class GlobalSettingsStore {
     rwLock.write(() -> storageFolder.writeAction(dest -> ProtobufUtil.writeToFile(globalProperties, dest.resolve(PROPERTIES_PB))));
   }
 
+  StorageFileStamp getStamp() {
+    return rwLock.read(() -> storageFolder.readAction(source -> StorageFileStamp.of(source.resolve(PROPERTIES_PB))));
+  }
+
   public Sonarlint.GlobalProperties getAll() {
     return rwLock.read(() -> storageFolder.readAction(source -> ProtobufUtil.readFile(source.resolve(PROPERTIES_PB), Sonarlint.GlobalProperties.parser())));
   }
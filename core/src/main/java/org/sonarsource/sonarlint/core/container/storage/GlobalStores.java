@@ -22,6 +22,7 @@ package org.sonarsource.sonarlint.core.container.storage;
 import java.nio.file.Path;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 
 import static org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths.encodeForFs;
 
@@ -36,6 +37,7 @@ public class GlobalStores {
   private final StorageStatusStore storageStatusStore;
   private final Path storageRoot;
   private final ServerStorage globalStorage;
+  private final IssueStoreFactory issueStoreFactory = new IssueStoreFactory();
 
   public GlobalStores(ConnectedGlobalConfiguration globalConfiguration) {
     storageRoot = globalConfiguration.getStorageRoot().resolve(encodeForFs(globalConfiguration.getConnectionId()));
@@ -49,6 +51,10 @@ public class GlobalStores {
     this.pluginReferenceStore = new PluginReferenceStore(globalStorage);
     this.serverInfoStore = new ServerInfoStore(globalStorage);
     this.storageStatusStore = new StorageStatusStore(globalStorage);
+    globalStorage.addReplaceListener(() -> {
+      rulesStore.invalidate();
+      activeRulesStore.invalidate();
+    });
   }
 
   public ServerStorage getGlobalStorage() {
@@ -87,7 +93,17 @@ public class GlobalStores {
     return storageStatusStore;
   }
 
+  /**
+   * Shared by the storage and update containers, so that the issue stores opened for analysis are discarded when updated.
+   */
+  public IssueStoreFactory getIssueStoreFactory() {
+    return issueStoreFactory;
+  }
+
   public void deleteAll() {
     FileUtils.deleteRecursively(storageRoot);
+    issueStoreFactory.invalidate(storageRoot);
+    rulesStore.invalidate();
+    activeRulesStore.invalidate();
   }
 }
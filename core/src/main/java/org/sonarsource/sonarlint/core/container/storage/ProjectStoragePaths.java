@@ -37,7 +37,9 @@ public class ProjectStoragePaths {
   public static final String PROJECT_CONFIGURATION_PB = "configuration.pb";
   public static final String STORAGE_STATUS_PB = "storage_status.pb";
   public static final String SERVER_ISSUES_DIR = "server_issues";
+  public static final String SERVER_ISSUES_SYNC_STATUS_PB = "server_issues_sync.pb";
   public static final String COMPONENT_LIST_PB = "component_list.pb";
+  public static final String COMPONENT_TREE_PB = "component_tree.pb";
 
   private final Path projectStorageRoot;
 
@@ -77,7 +79,15 @@ public class ProjectStoragePaths {
     return getProjectStorageRoot(projectKey).resolve(SERVER_ISSUES_DIR);
   }
 
+  public Path getServerIssuesSyncStatusPath(String projectKey) {
+    return getProjectStorageRoot(projectKey).resolve(SERVER_ISSUES_SYNC_STATUS_PB);
+  }
+
   public Path getComponentListPath(String projectKey) {
     return getProjectStorageRoot(projectKey).resolve(COMPONENT_LIST_PB);
   }
+
+  public Path getComponentTreePath(String projectKey) {
+    return getProjectStorageRoot(projectKey).resolve(COMPONENT_TREE_PB);
+  }
 }
@@ -25,6 +25,7 @@ import com.google.protobuf.Parser;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 
@@ -57,6 +58,14 @@ public class ProtobufUtil {
 
   public static <T extends Message> List<T> readMessages(InputStream input, Parser<T> parser) {
     List<T> list = new ArrayList<>();
+    readMessages(input, parser, list::add);
+    return list;
+  }
+
+  /**
+   * Parse delimited messages one at a time, without keeping them in memory.
+   */
+  public static <T extends Message> void readMessages(InputStream input, Parser<T> parser, Consumer<T> consumer) {
     while (true) {
       T message;
       try {
@@ -67,9 +76,8 @@ public class ProtobufUtil {
       if (message == null) {
         break;
       }
-      list.add(message);
+      consumer.accept(message);
     }
-    return list;
   }
 
   public static <T extends Message> void writeMessages(OutputStream output, Iterator<T> messages) {
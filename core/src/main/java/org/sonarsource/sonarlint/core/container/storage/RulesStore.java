@@ -19,11 +19,25 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
 public class RulesStore {
@@ -31,17 +45,41 @@ public class RulesStore {
   private static final Logger LOG = Loggers.get(RulesStore.class);
   public static final String RULES_PB = "rules.pb";
 
+  private static final int RULES_BY_KEY_FIELD = Sonarlint.Rules.RULES_BY_KEY_FIELD_NUMBER;
+  private static final int MAP_ENTRY_KEY_FIELD = 1;
+  private static final int MAP_ENTRY_VALUE_FIELD = 2;
+
   private final StorageFolder storageFolder;
   private final RWLock rwLock = new RWLock();
 
+  /**
+   * Position of each rule in the rules file, loaded on first access. Rules themselves, and their descriptions, are only read when
+   * requested.
+   */
+  @CheckForNull
+  private volatile Map<String, Long> ruleLocationByKey;
+
   public RulesStore(StorageFolder storageFolder) {
     this.storageFolder = storageFolder;
   }
 
   public void store(Sonarlint.Rules rules) {
-    rwLock.write(() -> storageFolder.writeAction(dest -> ProtobufUtil.writeToFile(rules, dest.resolve(RULES_PB))));
+    rwLock.write(() -> storageFolder.writeAction(dest -> {
+      ProtobufUtil.writeToFile(rules, dest.resolve(RULES_PB));
+      ruleLocationByKey = null;
+    }));
   }
 
+  /**
+   * Forget what was loaded from the rules file, to be called when the storage has been replaced.
+   */
+  public void invalidate() {
+    ruleLocationByKey = null;
+  }
+
+  /**
+   * Reads all rules, including descriptions. Prefer {@link #getRuleWithKey(String)} to look up a few rules.
+   */
   public Sonarlint.Rules getAll() {
     return rwLock.read(() -> storageFolder.readAction(source -> {
       Path rulesPath = source.resolve(RULES_PB);
@@ -55,7 +93,93 @@ public class RulesStore {
   }
 
   public Optional<Sonarlint.Rules.Rule> getRuleWithKey(String ruleKey) {
-    return Optional.ofNullable(getAll().getRulesByKeyMap().get(ruleKey));
+    return rwLock.read(() -> storageFolder.readAction(source -> {
+      Path rulesPath = source.resolve(RULES_PB);
+      Long location = getOrLoadRuleLocations(rulesPath).get(ruleKey);
+      if (location == null) {
+        return Optional.empty();
+      }
+      return Optional.of(readRule(rulesPath, location));
+    }));
+  }
+
+  private Map<String, Long> getOrLoadRuleLocations(Path rulesPath) {
+    Map<String, Long> locations = ruleLocationByKey;
+    if (locations == null) {
+      locations = loadRuleLocations(rulesPath);
+      ruleLocationByKey = locations;
+    }
+    return locations;
+  }
+
+  /**
+   * Scans the map entries of the rules file, only decoding their keys. The location of an entry is its offset in the high
+   * 32 bits and its length in the low 32 bits.
+   */
+  private static Map<String, Long> loadRuleLocations(Path rulesPath) {
+    if (!Files.exists(rulesPath)) {
+      LOG.info("Unable to find rules in the SonarLint storage. You should update the storage.");
+      return Collections.emptyMap();
+    }
+    Map<String, Long> locationByKey = new HashMap<>();
+    try (InputStream stream = Files.newInputStream(rulesPath)) {
+      CodedInputStream input = CodedInputStream.newInstance(stream);
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (WireFormat.getTagFieldNumber(tag) != RULES_BY_KEY_FIELD) {
+          input.skipField(tag);
+          continue;
+        }
+        int length = input.readRawVarint32();
+        int offset = input.getTotalBytesRead();
+        int oldLimit = input.pushLimit(length);
+        String key = readEntryKey(input);
+        input.skipRawBytes(input.getBytesUntilLimit());
+        input.popLimit(oldLimit);
+        locationByKey.put(key, ((long) offset << 32) | length);
+      }
+    } catch (IOException e) {
+      throw new StorageException("Failed to read file: " + rulesPath, e);
+    }
+    return Collections.unmodifiableMap(locationByKey);
+  }
+
+  private static String readEntryKey(CodedInputStream input) throws IOException {
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (WireFormat.getTagFieldNumber(tag) == MAP_ENTRY_KEY_FIELD) {
+        return input.readStringRequireUtf8();
+      }
+      input.skipField(tag);
+    }
+    return "";
+  }
+
+  private static Sonarlint.Rules.Rule readRule(Path rulesPath, long location) {
+    int offset = (int) (location >>> 32);
+    int length = (int) location;
+    ByteBuffer entry = ByteBuffer.allocate(length);
+    try (FileChannel channel = FileChannel.open(rulesPath, StandardOpenOption.READ)) {
+      while (entry.hasRemaining()) {
+        if (channel.read(entry, (long) offset + entry.position()) < 0) {
+          throw new EOFException("Unexpected end of file: " + rulesPath);
+        }
+      }
+      entry.flip();
+      CodedInputStream input = CodedInputStream.newInstance(entry);
+      Sonarlint.Rules.Rule rule = Sonarlint.Rules.Rule.getDefaultInstance();
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (WireFormat.getTagFieldNumber(tag) == MAP_ENTRY_VALUE_FIELD) {
+          rule = input.readMessage(Sonarlint.Rules.Rule.parser(), ExtensionRegistryLite.getEmptyRegistry());
+        } else {
+          input.skipField(tag);
+        }
+      }
+      return rule;
+    } catch (IOException e) {
+      throw new StorageException("Failed to read file: " + rulesPath, e);
+    }
   }
 
 }
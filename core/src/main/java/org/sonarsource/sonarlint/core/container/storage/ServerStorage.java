@@ -20,6 +20,8 @@
 package org.sonarsource.sonarlint.core.container.storage;
 
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
@@ -27,6 +29,7 @@ import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 public class ServerStorage implements StorageFolder {
   private final Path folderPath;
   private final RWLock rwLock = new RWLock();
+  private final List<Runnable> replaceListeners = new CopyOnWriteArrayList<>();
 
   public ServerStorage(Path folderPath) {
     this.folderPath = folderPath;
@@ -52,6 +55,14 @@ public class ServerStorage implements StorageFolder {
       FileUtils.deleteRecursively(dest);
       FileUtils.mkdirs(dest.getParent());
       FileUtils.moveDir(temp, dest);
+      replaceListeners.forEach(Runnable::run);
     });
   }
+
+  /**
+   * The listener is called when the whole storage has been replaced, before any reader can access the new content.
+   */
+  public void addReplaceListener(Runnable listener) {
+    replaceListeners.add(listener);
+  }
 }
@@ -23,10 +23,12 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Clock;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.picocontainer.injectors.ProviderAdapter;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarQubeVersion;
+import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.UriReader;
@@ -35,12 +37,13 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.NodeJsHelper;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedRuleDetails;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
 import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.analysis.MutableAnalysisSettings;
 import org.sonarsource.sonarlint.core.container.analysis.SonarLintRules;
-import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
 import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
@@ -48,11 +51,12 @@ import org.sonarsource.sonarlint.core.container.global.GlobalConfigurationProvid
 import org.sonarsource.sonarlint.core.container.global.GlobalExtensionContainer;
 import org.sonarsource.sonarlint.core.container.global.GlobalSettings;
 import org.sonarsource.sonarlint.core.container.global.GlobalTempFolderProvider;
+import org.sonarsource.sonarlint.core.container.global.LazyPluginActivator;
 import org.sonarsource.sonarlint.core.container.global.MetadataLoader;
 import org.sonarsource.sonarlint.core.container.global.SonarLintRuntimeImpl;
 import org.sonarsource.sonarlint.core.container.module.ModuleRegistry;
 import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRule;
-import org.sonarsource.sonarlint.core.container.standalone.rule.StandaloneRuleRepositoryContainer;
+import org.sonarsource.sonarlint.core.container.standalone.rule.SharedPluginRules;
 import org.sonarsource.sonarlint.core.container.storage.partialupdate.PartialUpdaterFactory;
 import org.sonarsource.sonarlint.core.plugin.DefaultPluginJarExploder;
 import org.sonarsource.sonarlint.core.plugin.PluginClassloaderFactory;
@@ -81,6 +85,7 @@ public class StorageContainer extends ComponentContainer {
   private GlobalExtensionContainer globalExtensionContainer;
   private ModuleRegistry moduleRegistry;
   private SonarLintRules rulesFromPlugins;
+  private SharedPluginRules pluginRules;
 
   @Override
   protected void doBeforeStart() {
@@ -121,7 +126,7 @@ public class StorageContainer extends ComponentContainer {
       IssueStoreReader.class,
       globalUpdateStatusReader,
       ProjectStorageStatusReader.class,
-      IssueStoreFactory.class,
+      globalStores.getIssueStoreFactory(),
 
       // analysis
       StorageAnalyzer.class,
@@ -133,6 +138,7 @@ public class StorageContainer extends ComponentContainer {
       NodeJsHelper.class,
       new GlobalConfigurationProvider(),
       ExtensionInstaller.class,
+      LazyPluginActivator.class,
       new StorageRulesProvider(),
       new StorageQProfilesProvider(),
       new SonarLintRulesProvider(),
@@ -174,9 +180,8 @@ public class StorageContainer extends ComponentContainer {
   }
 
   private void loadRulesFromPlugins() {
-    StandaloneRuleRepositoryContainer container = new StandaloneRuleRepositoryContainer(this);
-    container.execute();
-    rulesFromPlugins = container.getRules();
+    pluginRules = SharedPluginRules.acquire(this);
+    rulesFromPlugins = pluginRules.getRules();
   }
 
   @Override
@@ -188,6 +193,11 @@ public class StorageContainer extends ComponentContainer {
       if (globalExtensionContainer != null) {
         globalExtensionContainer.stopComponents(swallowException);
       }
+      if (pluginRules != null) {
+        pluginRules.release();
+        pluginRules = null;
+      }
+      globalStores.getIssueStoreFactory().invalidateAll();
     } finally {
       super.stopComponents(swallowException);
     }
@@ -202,6 +212,22 @@ public class StorageContainer extends ComponentContainer {
     }
   }
 
+  /**
+   * @return the languages of the files to analyze whose plugin was not activated yet, see {@link #activatePlugins(Set)}
+   */
+  public Set<Language> getLanguagesToActivate(ConnectedAnalysisConfiguration configuration) {
+    return getComponentByType(LazyPluginActivator.class).getLanguagesToActivate(configuration,
+      () -> new MutableAnalysisSettings(getComponentByType(StorageReader.class), globalStores.getGlobalSettingsStore(), getComponentByType(GlobalSettings.class),
+        configuration, getComponentByType(PropertyDefinitions.class)).asConfig());
+  }
+
+  /**
+   * Must not be called while analyses are running
+   */
+  public void activatePlugins(Set<Language> languages) {
+    getComponentByType(LazyPluginActivator.class).activate(languages, this, globalExtensionContainer, moduleRegistry);
+  }
+
   public GlobalExtensionContainer getGlobalExtensionContainer() {
     return globalExtensionContainer;
   }
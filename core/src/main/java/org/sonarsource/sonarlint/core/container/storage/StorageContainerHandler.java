@@ -46,6 +46,7 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.ActiveRules.ActiveRule;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.QProfiles;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
+import org.sonarsource.sonarlint.core.util.CompactReversePathTree;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class StorageContainerHandler {
@@ -132,13 +133,10 @@ public class StorageContainerHandler {
     List<Path> idePathList = ideFilePaths.stream()
       .map(Paths::get)
       .collect(Collectors.toList());
-    List<Path> sqPathList = storageReader.readProjectComponents(projectKey)
-      .getComponentList().stream()
-      .map(Paths::get)
-      .collect(Collectors.toList());
+    CompactReversePathTree sqPathTree = storageReader.readProjectComponentTree(projectKey);
 
     FileMatcher fileMatcher = new FileMatcher();
-    FileMatcher.Result match = fileMatcher.match(sqPathList, idePathList);
+    FileMatcher.Result match = fileMatcher.match(sqPathTree, idePathList);
     return new ProjectBinding(projectKey, FilenameUtils.separatorsToUnix(match.sqPrefix().toString()),
       FilenameUtils.separatorsToUnix(match.idePrefix().toString()));
 
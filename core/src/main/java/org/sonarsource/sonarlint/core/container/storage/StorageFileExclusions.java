@@ -20,10 +20,18 @@
 package org.sonarsource.sonarlint.core.container.storage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
@@ -33,41 +41,103 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
 
 public class StorageFileExclusions {
+  private static final int MIN_FILES_PER_THREAD = 5_000;
+
   private final StorageReader storageReader;
+  private final ProjectStoragePaths projectStoragePaths;
   private final IssueStorePaths issueStorePaths;
+  private final Map<String, CachedExclusionFilters> exclusionFiltersByProjectKey = new ConcurrentHashMap<>();
 
-  public StorageFileExclusions(StorageReader storageReader, IssueStorePaths issueStorePaths) {
+  public StorageFileExclusions(StorageReader storageReader, ProjectStoragePaths projectStoragePaths, IssueStorePaths issueStorePaths) {
     this.storageReader = storageReader;
+    this.projectStoragePaths = projectStoragePaths;
     this.issueStorePaths = issueStorePaths;
   }
 
   public <G> List<G> getExcludedFiles(GlobalSettingsStore globalSettingsStore, ProjectBinding projectBinding, Collection<G> files, Function<G, String> fileIdePathExtractor,
     Predicate<G> testFilePredicate) {
+    ExclusionFilters exclusionFilters = getExclusionFilters(globalSettingsStore, projectBinding.projectKey());
+
+    // client callbacks are only called from the calling thread
+    List<G> candidates = new ArrayList<>(files.size());
+    List<String> idePaths = new ArrayList<>(files.size());
+    List<Type> types = new ArrayList<>(files.size());
+    for (G file : files) {
+      String idePath = fileIdePathExtractor.apply(file);
+      if (idePath == null) {
+        continue;
+      }
+      candidates.add(file);
+      idePaths.add(idePath);
+      types.add(testFilePredicate.test(file) ? Type.TEST : Type.MAIN);
+    }
+
+    IntPredicate isExcluded = i -> !exclusionFilters.accept(toSqPath(projectBinding, idePaths.get(i)), types.get(i));
+    int[] excludedIndexes = filterIndexes(candidates.size(), isExcluded);
+    return Arrays.stream(excludedIndexes).mapToObj(candidates::get).collect(Collectors.toList());
+  }
+
+  private String toSqPath(ProjectBinding projectBinding, String idePath) {
+    String sqPath = issueStorePaths.idePathToSqPath(projectBinding, idePath);
+    if (sqPath == null) {
+      // we can't map it to a SonarQube path, so just apply exclusions to the original ide path
+      sqPath = idePath;
+    }
+    return sqPath;
+  }
+
+  /**
+   * Large collections of files are matched in parallel, the order of the files is kept.
+   */
+  static int[] filterIndexes(int size, IntPredicate predicate) {
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_FILES_PER_THREAD);
+    if (threads < 2) {
+      return IntStream.range(0, size).filter(predicate).toArray();
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> IntStream.range(0, size).parallel().filter(predicate).toArray()).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while matching file exclusions", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to match file exclusions", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Compiled filters are kept until the global properties or the project configuration are written again.
+   */
+  private ExclusionFilters getExclusionFilters(GlobalSettingsStore globalSettingsStore, String projectKey) {
+    // read the stamps before the files, so that a concurrent write is detected at the next call at the latest
+    List<StorageFileStamp> stamps = Arrays.asList(globalSettingsStore.getStamp(), StorageFileStamp.of(projectStoragePaths.getProjectConfigurationPath(projectKey)));
+    CachedExclusionFilters cached = exclusionFiltersByProjectKey.get(projectKey);
+    if (cached != null && cached.stamps.equals(stamps)) {
+      return cached.exclusionFilters;
+    }
     GlobalProperties globalProps = globalSettingsStore.getAll();
-    ProjectConfiguration projectConfig = storageReader.readProjectConfig(projectBinding.projectKey());
+    ProjectConfiguration projectConfig = storageReader.readProjectConfig(projectKey);
     MapSettings settings = new MapSettings();
     settings.addProperties(globalProps.getProperties());
     settings.addProperties(projectConfig.getProperties());
     ExclusionFilters exclusionFilters = new ExclusionFilters(settings.asConfig());
     exclusionFilters.prepare();
+    exclusionFiltersByProjectKey.put(projectKey, new CachedExclusionFilters(stamps, exclusionFilters));
+    return exclusionFilters;
+  }
 
-    List<G> excluded = new ArrayList<>();
+  private static class CachedExclusionFilters {
+    private final List<StorageFileStamp> stamps;
+    private final ExclusionFilters exclusionFilters;
 
-    for (G file : files) {
-      String idePath = fileIdePathExtractor.apply(file);
-      if (idePath == null) {
-        continue;
-      }
-      String sqPath = issueStorePaths.idePathToSqPath(projectBinding, idePath);
-      if (sqPath == null) {
-        // we can't map it to a SonarQube path, so just apply exclusions to the original ide path
-        sqPath = idePath;
-      }
-      Type type = testFilePredicate.test(file) ? Type.TEST : Type.MAIN;
-      if (!exclusionFilters.accept(sqPath, type)) {
-        excluded.add(file);
-      }
+    private CachedExclusionFilters(List<StorageFileStamp> stamps, ExclusionFilters exclusionFilters) {
+      this.stamps = stamps;
+      this.exclusionFilters = exclusionFilters;
     }
-    return excluded;
   }
 }
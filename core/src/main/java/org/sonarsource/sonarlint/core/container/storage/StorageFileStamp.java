@@ -0,0 +1,69 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last modification time and size of a storage file, to detect that it changed without reading it.
+ */
+final class StorageFileStamp {
+
+  private static final StorageFileStamp MISSING = new StorageFileStamp(-1, -1);
+
+  private final long lastModified;
+  private final long size;
+
+  private StorageFileStamp(long lastModified, long size) {
+    this.lastModified = lastModified;
+    this.size = size;
+  }
+
+  static StorageFileStamp of(Path file) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      return new StorageFileStamp(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size());
+    } catch (IOException e) {
+      return MISSING;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    StorageFileStamp that = (StorageFileStamp) o;
+    return lastModified == that.lastModified && size == that.size;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(lastModified, size);
+  }
+}
@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.container.storage;
 
 import java.net.URL;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -50,19 +51,25 @@ public class StoragePluginIndexProvider implements PluginIndex {
       return Collections.emptyList();
     }
     Sonarlint.PluginReferences protoReferences = pluginReferenceStore.getAll();
-    Map<String, URL> extraPluginsUrlsByKey = configuration.getExtraPluginsUrlsByKey();
+    Map<String, URL> embeddedPluginUrlsByKey = configuration.getEmbeddedPluginUrlsByKey();
+    List<URL> embeddedOrExtraPluginUrls = protoReferences.getReferenceList().stream()
+      .filter(r -> embeddedPluginUrlsByKey.containsKey(r.getKey()))
+      .map(r -> embeddedPluginUrlsByKey.get(r.getKey()))
+      .collect(Collectors.toList());
+    embeddedOrExtraPluginUrls.addAll(configuration.getExtraPluginsUrlsByKey().values());
+    // embedded and extra plugins are hashed together, so that the ones that changed are processed in parallel
+    Iterator<PluginReference> embeddedOrExtraPluginRefs = fileCache.getFromCacheOrCopy(embeddedOrExtraPluginUrls).iterator();
+
     List<PluginReference> pluginsRefs = protoReferences.getReferenceList().stream()
       .map(r -> {
-        if (configuration.getEmbeddedPluginUrlsByKey().containsKey(r.getKey())) {
-          return fileCache.getFromCacheOrCopy(configuration.getEmbeddedPluginUrlsByKey().get(r.getKey()));
+        if (embeddedPluginUrlsByKey.containsKey(r.getKey())) {
+          return embeddedOrExtraPluginRefs.next();
         } else {
           return new PluginReference(r.getHash(), r.getFilename(), false);
         }
       })
       .collect(Collectors.toList());
-
-    List<PluginReference> extraPluginReferences = extraPluginsUrlsByKey.values().stream().map(fileCache::getFromCacheOrCopy).collect(Collectors.toList());
-    pluginsRefs.addAll(extraPluginReferences);
+    embeddedOrExtraPluginRefs.forEachRemaining(pluginsRefs::add);
     return pluginsRefs;
   }
 }
@@ -19,7 +19,11 @@
  */
 package org.sonarsource.sonarlint.core.container.storage;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.util.CompactReversePathTree;
 
 public class StorageReader {
 
@@ -36,4 +40,21 @@ public class StorageReader {
   public Sonarlint.ProjectComponents readProjectComponents(String projectKey) {
     return ProtobufUtil.readFile(projectStoragePaths.getComponentListPath(projectKey), Sonarlint.ProjectComponents.parser());
   }
+
+  /**
+   * Storages updated by older versions don't have the component tree, in this case it is built from the component list.
+   */
+  public CompactReversePathTree readProjectComponentTree(String projectKey) {
+    Path treePath = projectStoragePaths.getComponentTreePath(projectKey);
+    if (!Files.exists(treePath)) {
+      return CompactReversePathTree.build(readProjectComponents(projectKey).getComponentList());
+    }
+    Sonarlint.ProjectComponentTree tree = ProtobufUtil.readFile(treePath, Sonarlint.ProjectComponentTree.parser());
+    return new CompactReversePathTree(tree.getSegmentList().toArray(new String[0]),
+      toArray(tree.getParentList()), toArray(tree.getNodeSegmentList()), toArray(tree.getTerminalList()));
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
 }
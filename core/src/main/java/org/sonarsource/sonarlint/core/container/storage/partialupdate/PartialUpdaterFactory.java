@@ -34,16 +34,17 @@ public class PartialUpdaterFactory {
   private final ProjectStoragePaths projectStoragePaths;
   private final IssueStorePaths issueStorePaths;
   private final TempFolder tempFolder;
+  private final IssueStoreFactory issueStoreFactory;
 
-  public PartialUpdaterFactory(ProjectStoragePaths projectStoragePaths, IssueStorePaths issueStorePaths, TempFolder tempFolder) {
+  public PartialUpdaterFactory(ProjectStoragePaths projectStoragePaths, IssueStorePaths issueStorePaths, TempFolder tempFolder, IssueStoreFactory issueStoreFactory) {
     this.projectStoragePaths = projectStoragePaths;
     this.issueStorePaths = issueStorePaths;
     this.tempFolder = tempFolder;
+    this.issueStoreFactory = issueStoreFactory;
   }
 
   public PartialUpdater create(EndpointParams endpoint, HttpClient client) {
     ServerApiHelper serverApiHelper = new ServerApiHelper(endpoint, client);
-    IssueStoreFactory issueStoreFactory = new IssueStoreFactory();
     IssueDownloader downloader = new IssueDownloader(new IssueApi(serverApiHelper), new SourceApi(serverApiHelper), issueStorePaths);
     return new PartialUpdater(issueStoreFactory, downloader, projectStoragePaths, issueStorePaths, tempFolder);
   }
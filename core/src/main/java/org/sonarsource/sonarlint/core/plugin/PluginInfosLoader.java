@@ -73,9 +73,10 @@ public class PluginInfosLoader {
 
     Profiler profiler = Profiler.create(LOG).startDebug("Load plugins");
 
-    for (PluginReference ref : pluginReferences) {
-      Path jarFilePath = getFromCache(ref);
-      PluginInfo info = PluginInfo.create(jarFilePath, ref.isEmbedded());
+    List<Path> jarFilePaths = pluginReferences.stream().map(this::getFromCache).collect(Collectors.toList());
+    List<PluginManifest> manifests = pluginCache.getMetadataCache().getOrLoadManifests(jarFilePaths);
+    for (int i = 0; i < pluginReferences.size(); i++) {
+      PluginInfo info = PluginInfo.create(jarFilePaths.get(i), manifests.get(i), pluginReferences.get(i).isEmbedded());
       Boolean sonarLintSupported = info.isSonarLintSupported();
       if (sonarLintSupported == null || !sonarLintSupported.booleanValue()) {
         LOG.debug("Plugin '{}' is not compatible with SonarLint. Skip loading it.", info.getName());
@@ -22,18 +22,18 @@ package org.sonarsource.sonarlint.core.plugin;
 import com.google.common.base.Strings;
 import java.io.Closeable;
 import java.io.File;
-import java.io.InputStream;
+import java.net.URL;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.SystemUtils;
 import org.sonar.api.Plugin;
-import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.plugin.PluginIndex.PluginReference;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 
 import static org.apache.commons.lang.StringUtils.isNotEmpty;
 
@@ -49,7 +49,7 @@ import static org.apache.commons.lang.StringUtils.isNotEmpty;
  * Plugins have their own isolated classloader, inheriting only from API classes.
  * Some plugins can extend a "base" plugin, sharing the same classloader.
  * </p>
- * This class is stateless. It does not keep pointers to classloaders and {@link org.sonar.api.Plugin}.
+ * This class does not keep pointers to classloaders and {@link org.sonar.api.Plugin}.
  */
 public class PluginInstancesLoader {
 
@@ -60,17 +60,20 @@ public class PluginInstancesLoader {
 
   private final PluginJarExploder jarExploder;
   private final PluginClassloaderFactory classloaderFactory;
-  private final TempFolder tempFolder;
+  private final PluginCache pluginCache;
+  private File slf4jAdapter;
 
-  public PluginInstancesLoader(PluginJarExploder jarExploder, PluginClassloaderFactory classloaderFactory, TempFolder tempFolder) {
+  public PluginInstancesLoader(PluginJarExploder jarExploder, PluginClassloaderFactory classloaderFactory, PluginCache pluginCache) {
     this.jarExploder = jarExploder;
     this.classloaderFactory = classloaderFactory;
-    this.tempFolder = tempFolder;
+    this.pluginCache = pluginCache;
   }
 
+  /**
+   * Can be called several times with distinct sets of plugins, as long as plugins sharing a base plugin are loaded together
+   */
   public Map<String, Plugin> load(Map<String, PluginInfo> infoByKeys) {
-    File slf4jAdapter = extractSlf4jAdapterJar();
-    Collection<PluginClassLoaderDef> defs = defineClassloaders(infoByKeys, slf4jAdapter);
+    Collection<PluginClassLoaderDef> defs = defineClassloaders(infoByKeys, getSlf4jAdapterJar());
     Map<PluginClassLoaderDef, ClassLoader> classloaders = classloaderFactory.create(defs);
     return instantiatePluginClasses(classloaders);
   }
@@ -111,12 +114,22 @@ public class PluginInstancesLoader {
     return classloadersByBasePlugin.values();
   }
 
+  private synchronized File getSlf4jAdapterJar() {
+    if (slf4jAdapter == null) {
+      slf4jAdapter = extractSlf4jAdapterJar();
+    }
+    return slf4jAdapter;
+  }
+
+  /**
+   * The jar is stored in the plugin cache rather than in the temp folder of the engine, as the classloaders referencing it can be shared
+   * with other engines, and outlive this one.
+   */
   private File extractSlf4jAdapterJar() {
-    InputStream jarInputStream = PluginInstancesLoader.class.getResourceAsStream("/" + SLF4J_ADAPTER_JAR_NAME + ".jar");
+    URL jarUrl = PluginInstancesLoader.class.getResource("/" + SLF4J_ADAPTER_JAR_NAME + ".jar");
     try {
-      File extractedJar = tempFolder.newFile(SLF4J_ADAPTER_JAR_NAME, ".jar");
-      FileUtils.copyInputStreamToFile(jarInputStream, extractedJar);
-      return extractedJar;
+      PluginReference reference = pluginCache.getFromCacheOrCopy(jarUrl);
+      return pluginCache.get(reference.getFilename(), reference.getHash()).toFile();
     } catch (Exception e) {
       throw new IllegalStateException("Failed to extract the jar '" + SLF4J_ADAPTER_JAR_NAME + ".jar'");
     }
@@ -19,14 +19,23 @@
  */
 package org.sonarsource.sonarlint.core.plugin;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import org.picocontainer.Startable;
 import org.sonar.api.Plugin;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.AbstractGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
 import org.sonarsource.sonarlint.core.container.model.DefaultLoadedAnalyzer;
 
@@ -37,26 +46,138 @@ import static java.util.Objects.requireNonNull;
  */
 public class PluginRepository implements Startable {
   private static final Logger LOG = Loggers.get(PluginRepository.class);
+  /**
+   * Plugins loaded from the same files by several engines of the process share the same classloaders
+   */
+  private static final ReferenceCountedRegistry<Set<String>, Map<String, Plugin>> SHARED_PLUGIN_INSTANCES = new ReferenceCountedRegistry<>();
 
   private final PluginInfosLoader pluginInfosLoader;
   private final PluginInstancesLoader pluginInstancesLoader;
+  private final boolean lazyActivation;
 
-  private Map<String, Plugin> pluginInstancesByKeys;
+  private final Map<String, Plugin> pluginInstancesByKeys = new ConcurrentHashMap<>();
   private Map<String, PluginInfo> infosByKeys;
+  private Map<String, PluginInfo> nonSkippedInfosByKeys;
+  /**
+   * The plugins not loaded yet, grouped by base plugin as they share the same classloader
+   */
+  private final Map<String, Map<String, PluginInfo>> pendingPluginsByBasePluginKey = new HashMap<>();
+  private final Map<String, String> basePluginKeysByPluginKey = new HashMap<>();
+  private final List<Set<String>> acquiredPluginFiles = new ArrayList<>();
+  private final List<Plugin> ownedPluginInstances = new ArrayList<>();
 
   public PluginRepository(PluginInfosLoader pluginInfosLoader, PluginInstancesLoader pluginInstancesLoader) {
+    this(pluginInfosLoader, pluginInstancesLoader, false);
+  }
+
+  public PluginRepository(PluginInfosLoader pluginInfosLoader, PluginInstancesLoader pluginInstancesLoader, AbstractGlobalConfiguration globalConfig) {
+    this(pluginInfosLoader, pluginInstancesLoader, globalConfig.isLazyPluginActivation());
+  }
+
+  PluginRepository(PluginInfosLoader pluginInfosLoader, PluginInstancesLoader pluginInstancesLoader, boolean lazyActivation) {
     this.pluginInfosLoader = pluginInfosLoader;
     this.pluginInstancesLoader = pluginInstancesLoader;
+    this.lazyActivation = lazyActivation;
   }
 
   @Override
   public void start() {
     infosByKeys = new HashMap<>(pluginInfosLoader.load());
-    Map<String, PluginInfo> nonSkippedPlugins = infosByKeys.entrySet().stream().filter(e -> !e.getValue().isSkipped())
+    nonSkippedInfosByKeys = infosByKeys.entrySet().stream().filter(e -> !e.getValue().isSkipped())
       .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-    pluginInstancesByKeys = new HashMap<>(pluginInstancesLoader.load(nonSkippedPlugins));
+    groupByBasePlugin();
+    if (lazyActivation) {
+      activateEagerPlugins();
+    } else {
+      new ArrayList<>(pendingPluginsByBasePluginKey.keySet()).forEach(this::activate);
+    }
+
+    logPlugins(nonSkippedInfosByKeys);
+  }
+
+  private void groupByBasePlugin() {
+    for (PluginInfo info : nonSkippedInfosByKeys.values()) {
+      String baseKey = PluginInstancesLoader.basePluginKey(info, nonSkippedInfosByKeys);
+      if (baseKey != null) {
+        basePluginKeysByPluginKey.put(info.getKey(), baseKey);
+        pendingPluginsByBasePluginKey.computeIfAbsent(baseKey, k -> new HashMap<>()).put(info.getKey(), info);
+      }
+    }
+  }
+
+  /**
+   * Embedded plugins are needed at startup to load rules, and plugins not associated to a {@link Language} would never be activated by an analysis
+   */
+  private void activateEagerPlugins() {
+    List<String> eagerBasePluginKeys = pendingPluginsByBasePluginKey.entrySet().stream()
+      .filter(e -> e.getValue().values().stream().anyMatch(p -> p.isEmbedded() || !Language.containsPlugin(p.getKey())))
+      .map(Map.Entry::getKey)
+      .collect(Collectors.toList());
+    eagerBasePluginKeys.forEach(this::activate);
+  }
 
-    logPlugins(nonSkippedPlugins);
+  /**
+   * Loads the classloader of the given base plugin and instantiates the plugins sharing it. Does nothing if it was already done.
+   *
+   * @return the infos of the plugins that were activated by this call
+   */
+  private synchronized Collection<PluginInfo> activate(String basePluginKey) {
+    Map<String, PluginInfo> pendingPlugins = pendingPluginsByBasePluginKey.get(basePluginKey);
+    if (pendingPlugins == null) {
+      return Collections.emptyList();
+    }
+    LOG.debug("Activating plugins {}", pendingPlugins.keySet());
+    Optional<Set<String>> pluginFiles = pluginFiles(pendingPlugins.values());
+    if (pluginFiles.isPresent()) {
+      pluginInstancesByKeys.putAll(SHARED_PLUGIN_INSTANCES.acquire(pluginFiles.get(), () -> pluginInstancesLoader.load(pendingPlugins)));
+      acquiredPluginFiles.add(pluginFiles.get());
+    } else {
+      Map<String, Plugin> instances = pluginInstancesLoader.load(pendingPlugins);
+      pluginInstancesByKeys.putAll(instances);
+      ownedPluginInstances.addAll(instances.values());
+    }
+    pendingPluginsByBasePluginKey.remove(basePluginKey);
+    return pendingPlugins.values();
+  }
+
+  /**
+   * Identifies the given plugins by their files. As files of the plugin cache are stored by hash, plugins with the same files are identical,
+   * and can be shared by several engines.
+   *
+   * @return empty if some plugins don't have a file
+   */
+  public static Optional<Set<String>> pluginFiles(Collection<PluginInfo> pluginInfos) {
+    Set<String> pluginFiles = new HashSet<>();
+    for (PluginInfo info : pluginInfos) {
+      if (info.getJarFile() == null) {
+        return Optional.empty();
+      }
+      pluginFiles.add(info.getKey() + "@" + info.getJarFile().getAbsolutePath());
+    }
+    return Optional.of(pluginFiles);
+  }
+
+  /**
+   * Activates the plugins analyzing the given languages that were not activated yet. Only relevant in lazy activation mode.
+   *
+   * @return the infos of the plugins that were activated by this call, whose extensions still have to be installed
+   */
+  public Collection<PluginInfo> activatePluginsFor(Set<Language> languages) {
+    List<PluginInfo> activatedPlugins = new ArrayList<>();
+    for (Language language : languages) {
+      if (needsActivation(language)) {
+        activatedPlugins.addAll(activate(basePluginKeysByPluginKey.get(language.getPluginKey())));
+      }
+    }
+    return activatedPlugins;
+  }
+
+  /**
+   * @return true if the plugin analyzing the given language is available but was not activated yet
+   */
+  public boolean needsActivation(Language language) {
+    String pluginKey = language.getPluginKey();
+    return lazyActivation && basePluginKeysByPluginKey.containsKey(pluginKey) && !pluginInstancesByKeys.containsKey(pluginKey);
   }
 
   private static void logPlugins(Map<String, PluginInfo> nonSkippedPlugins) {
@@ -72,10 +193,15 @@ public class PluginRepository implements Startable {
 
   @Override
   public void stop() {
-    // close plugin classloaders
-    pluginInstancesLoader.unload(pluginInstancesByKeys.values());
+    // close plugin classloaders, unless they are still used by other engines
+    pluginInstancesLoader.unload(ownedPluginInstances);
+    acquiredPluginFiles.forEach(pluginFiles -> SHARED_PLUGIN_INSTANCES.release(pluginFiles, instances -> pluginInstancesLoader.unload(instances.values())));
 
+    ownedPluginInstances.clear();
+    acquiredPluginFiles.clear();
     pluginInstancesByKeys.clear();
+    pendingPluginsByBasePluginKey.clear();
+    basePluginKeysByPluginKey.clear();
     infosByKeys.clear();
   }
 
@@ -90,8 +216,12 @@ public class PluginRepository implements Startable {
     return new DefaultLoadedAnalyzer(p.getKey(), p.getName(), version, p.getSkipReason().orElse(null));
   }
 
+  /**
+   * In lazy activation mode, only the plugins activated so far
+   */
   public Collection<PluginInfo> getActivePluginInfos() {
-    return infosByKeys.values().stream().filter(p -> !p.isSkipped()).collect(Collectors.toList());
+    return infosByKeys.values().stream().filter(p -> !p.isSkipped() && (!lazyActivation || pluginInstancesByKeys.containsKey(p.getKey())))
+      .collect(Collectors.toList());
   }
 
   public PluginInfo getPluginInfo(String key) {
@@ -102,6 +232,10 @@ public class PluginRepository implements Startable {
 
   public Plugin getPluginInstance(String key) {
     Plugin instance = pluginInstancesByKeys.get(key);
+    if (instance == null && lazyActivation && basePluginKeysByPluginKey.containsKey(key)) {
+      activate(basePluginKeysByPluginKey.get(key));
+      instance = pluginInstancesByKeys.get(key);
+    }
     requireNonNull(instance, () -> "Plugin [" + key + "] does not exist");
     return instance;
   }
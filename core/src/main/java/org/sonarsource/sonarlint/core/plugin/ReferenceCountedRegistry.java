@@ -0,0 +1,91 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of values shared by engines, such as the classloaders of identical plugin files. A value is loaded by the first
+ * engine acquiring its key, and disposed of when the last engine using it releases it.
+ */
+public class ReferenceCountedRegistry<K, V> {
+
+  private final Map<K, Entry<V>> entriesByKey = new HashMap<>();
+
+  /**
+   * Loading is done outside of the registry lock, so that engines loading distinct values don't wait for each other.
+   */
+  public V acquire(K key, Supplier<V> loader) {
+    Entry<V> entry;
+    synchronized (this) {
+      entry = entriesByKey.computeIfAbsent(key, k -> new Entry<>());
+      entry.referenceCount++;
+    }
+    try {
+      return entry.getOrLoad(loader);
+    } catch (RuntimeException e) {
+      release(key, v -> {
+        // nothing was loaded
+      });
+      throw e;
+    }
+  }
+
+  /**
+   * @param disposer called with the value if this was the last reference to it
+   */
+  public void release(K key, Consumer<V> disposer) {
+    Entry<V> entry;
+    synchronized (this) {
+      entry = entriesByKey.get(key);
+      if (entry == null || --entry.referenceCount > 0) {
+        return;
+      }
+      entriesByKey.remove(key);
+    }
+    V value = entry.getIfLoaded();
+    if (value != null) {
+      disposer.accept(value);
+    }
+  }
+
+  synchronized int size() {
+    return entriesByKey.size();
+  }
+
+  private static class Entry<V> {
+    private int referenceCount;
+    private V value;
+
+    synchronized V getOrLoad(Supplier<V> loader) {
+      if (value == null) {
+        value = loader.get();
+      }
+      return value;
+    }
+
+    synchronized V getIfLoaded() {
+      return value;
+    }
+  }
+}
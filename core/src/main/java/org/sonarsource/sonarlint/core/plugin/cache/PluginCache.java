@@ -25,7 +25,14 @@ import java.net.URL;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -46,9 +53,15 @@ public class PluginCache {
   private final Path cacheDir;
   private final Path tmpDirInCacheDir;
   private final PluginHashes hashes;
+  private final PluginMetadataCache metadataCache;
 
   PluginCache(Path cacheDir, PluginHashes fileHashes) {
+    this(cacheDir, fileHashes, PluginMetadataCache.create(cacheDir.resolve(PluginMetadataCache.FILENAME)));
+  }
+
+  PluginCache(Path cacheDir, PluginHashes fileHashes, PluginMetadataCache metadataCache) {
     this.hashes = fileHashes;
+    this.metadataCache = metadataCache;
     createDirIfNeeded(cacheDir, "user cache");
     this.cacheDir = cacheDir;
     LOG.debug("Plugin cache: {}", cacheDir.toString());
@@ -64,6 +77,10 @@ public class PluginCache {
     return cacheDir;
   }
 
+  public PluginMetadataCache getMetadataCache() {
+    return metadataCache;
+  }
+
   /**
    * Look for a file in the cache by its filename and md5 checksum. If the file is not
    * present then return null.
@@ -159,15 +176,59 @@ public class PluginCache {
   }
 
   public PluginReference getFromCacheOrCopy(final URL pluginUrl) {
-    try (InputStream is = pluginUrl.openStream()) {
-      String hash = org.sonarsource.sonarlint.core.util.StringUtils.md5(is);
-      String filename = StringUtils.substringAfterLast(pluginUrl.getFile(), "/");
-      get(filename, hash, new FileCopier(pluginUrl));
-      return new PluginReference(hash, filename, true);
-    } catch (StorageException e) {
-      throw e;
+    return getFromCacheOrCopy(Collections.singletonList(pluginUrl)).get(0);
+  }
+
+  /**
+   * Hashes of local plugin files are taken from the {@link PluginMetadataCache} when the files didn't change, the other ones are computed in parallel.
+   *
+   * @return references of the given plugins, in the same order
+   */
+  public List<PluginReference> getFromCacheOrCopy(List<URL> pluginUrls) {
+    List<Optional<Path>> localPluginFiles = pluginUrls.stream().map(PluginCache::toLocalFile).collect(Collectors.toList());
+    Iterator<String> localPluginHashes = metadataCache.getOrComputeHashes(
+      localPluginFiles.stream().filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList()),
+      PluginCache::md5).iterator();
+    List<PluginReference> references = new ArrayList<>(pluginUrls.size());
+    for (int i = 0; i < pluginUrls.size(); i++) {
+      URL pluginUrl = pluginUrls.get(i);
+      try {
+        String hash = localPluginFiles.get(i).isPresent() ? localPluginHashes.next() : md5(pluginUrl);
+        String filename = StringUtils.substringAfterLast(pluginUrl.getFile(), "/");
+        get(filename, hash, new FileCopier(pluginUrl));
+        references.add(new PluginReference(hash, filename, true));
+      } catch (StorageException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException("Fail to copy plugin from URL: " + pluginUrl, e);
+      }
+    }
+    return references;
+  }
+
+  private static Optional<Path> toLocalFile(URL pluginUrl) {
+    if (!"file".equals(pluginUrl.getProtocol())) {
+      return Optional.empty();
+    }
+    try {
+      Path path = Paths.get(pluginUrl.toURI());
+      return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
     } catch (Exception e) {
-      throw new IllegalStateException("Fail to copy plugin from URL: " + pluginUrl, e);
+      return Optional.empty();
+    }
+  }
+
+  private static String md5(Path pluginFile) {
+    try {
+      return md5(pluginFile.toUri().toURL());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to compute hash of: " + pluginFile, e);
+    }
+  }
+
+  private static String md5(URL pluginUrl) throws IOException {
+    try (InputStream is = pluginUrl.openStream()) {
+      return org.sonarsource.sonarlint.core.util.StringUtils.md5(is);
     }
   }
 
@@ -0,0 +1,271 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin.cache;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.plugin.PluginManifest;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+/**
+ * Persistent cache of the hash and the manifest of plugin jars, so that unchanged jars are neither read nor hashed when an engine starts.
+ * A jar is considered unchanged as long as its size and last modification date are the same.
+ * When several jars are missing from the cache, they are processed in parallel.
+ */
+public class PluginMetadataCache {
+
+  static final String FILENAME = "plugin_metadata.pb";
+
+  private static final Logger LOG = Loggers.get(PluginMetadataCache.class);
+
+  @CheckForNull
+  private final Path file;
+  private final Map<String, Sonarlint.PluginMetadata.Entry> entriesByUrl = new ConcurrentHashMap<>();
+  private final int parallelism;
+  private volatile boolean dirty;
+
+  PluginMetadataCache(@Nullable Path file, int parallelism) {
+    this.file = file;
+    this.parallelism = parallelism;
+    if (file != null && Files.exists(file)) {
+      try {
+        entriesByUrl.putAll(ProtobufUtil.readFile(file, Sonarlint.PluginMetadata.parser()).getEntriesByUrlMap());
+      } catch (Exception e) {
+        LOG.debug("Unable to read plugin metadata cache, it will be recreated", e);
+      }
+    }
+  }
+
+  public static PluginMetadataCache create(Path file) {
+    return new PluginMetadataCache(file, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * A cache that is never persisted
+   */
+  public static PluginMetadataCache inMemory() {
+    return new PluginMetadataCache(null, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @return hashes of the given files, in the same order
+   */
+  public List<String> getOrComputeHashes(List<Path> files, Function<Path, String> hasher) {
+    return getOrCompute(files,
+      entry -> StringUtils.isEmpty(entry.getHash()) ? null : entry.getHash(),
+      hasher,
+      (entry, hash) -> entry.setHash(hash));
+  }
+
+  /**
+   * @return manifests of the given jars, in the same order
+   */
+  public List<PluginManifest> getOrLoadManifests(List<Path> jars) {
+    return getOrCompute(jars,
+      entry -> entry.hasManifest() ? fromProto(entry.getManifest()) : null,
+      PluginMetadataCache::loadManifest,
+      (entry, manifest) -> entry.setManifest(toProto(manifest)));
+  }
+
+  private static PluginManifest loadManifest(Path jar) {
+    try {
+      return new PluginManifest(jar);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to extract plugin metadata from file: " + jar, e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface EntryUpdater<T> {
+    void update(Sonarlint.PluginMetadata.Entry.Builder entry, T value);
+  }
+
+  private <T> List<T> getOrCompute(List<Path> paths, Function<Sonarlint.PluginMetadata.Entry, T> fromEntry, Function<Path, T> compute, EntryUpdater<T> toEntry) {
+    List<T> results = new ArrayList<>(paths.size());
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      T cached = findValidEntry(paths.get(i)).map(fromEntry).orElse(null);
+      results.add(cached);
+      if (cached == null) {
+        missing.add(i);
+      }
+    }
+    if (missing.isEmpty()) {
+      return results;
+    }
+    List<T> computed = computeInParallel(missing.stream().map(paths::get).collect(Collectors.toList()), path -> {
+      T value = compute.apply(path);
+      updateEntry(path, entry -> toEntry.update(entry, value));
+      return value;
+    });
+    for (int i = 0; i < missing.size(); i++) {
+      results.set(missing.get(i), computed.get(i));
+    }
+    save();
+    return results;
+  }
+
+  private <T> List<T> computeInParallel(List<Path> paths, Function<Path, T> compute) {
+    int threads = Math.min(parallelism, paths.size());
+    if (threads < 2) {
+      return paths.stream().map(compute).collect(Collectors.toList());
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> paths.parallelStream().map(compute).collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading plugins", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to read plugins", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private Optional<Sonarlint.PluginMetadata.Entry> findValidEntry(Path path) {
+    Sonarlint.PluginMetadata.Entry entry = entriesByUrl.get(key(path));
+    if (entry == null) {
+      return Optional.empty();
+    }
+    return stat(path)
+      .filter(attributes -> attributes.getSize() == entry.getSize() && attributes.getLastModified() == entry.getLastModified())
+      .map(attributes -> entry);
+  }
+
+  private void updateEntry(Path path, Consumer<Sonarlint.PluginMetadata.Entry.Builder> updater) {
+    // attributes are read after the content, so a jar modified in the meantime will be read again next time
+    stat(path).ifPresent(attributes -> {
+      entriesByUrl.compute(key(path), (k, previous) -> {
+        Sonarlint.PluginMetadata.Entry.Builder builder = previous != null && previous.getSize() == attributes.getSize()
+          && previous.getLastModified() == attributes.getLastModified() ? previous.toBuilder() : attributes.toBuilder();
+        updater.accept(builder);
+        return builder.build();
+      });
+      dirty = true;
+    });
+  }
+
+  private static String key(Path path) {
+    return path.toAbsolutePath().toUri().toString();
+  }
+
+  private static Optional<Sonarlint.PluginMetadata.Entry> stat(Path path) {
+    try {
+      return Optional.of(Sonarlint.PluginMetadata.Entry.newBuilder()
+        .setSize(Files.size(path))
+        .setLastModified(Files.getLastModifiedTime(path).toMillis())
+        .build());
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+
+  private synchronized void save() {
+    if (file == null || !dirty) {
+      return;
+    }
+    dirty = false;
+    // forget jars that don't exist anymore, like previous versions of plugins
+    entriesByUrl.keySet().removeIf(url -> !Files.exists(Paths.get(URI.create(url))));
+    try {
+      Path tmp = Files.createTempFile(file.getParent(), FILENAME, ".tmp");
+      ProtobufUtil.writeToFile(Sonarlint.PluginMetadata.newBuilder().putAllEntriesByUrl(entriesByUrl).build(), tmp);
+      try {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (Exception e) {
+      // the cache is only an optimization
+      LOG.debug("Unable to write plugin metadata cache", e);
+    }
+  }
+
+  private static Sonarlint.PluginMetadata.Manifest toProto(PluginManifest manifest) {
+    Sonarlint.PluginMetadata.Manifest.Builder builder = Sonarlint.PluginMetadata.Manifest.newBuilder()
+      .setKey(StringUtils.defaultString(manifest.getKey()))
+      .setName(StringUtils.defaultString(manifest.getName()))
+      .setMainClass(StringUtils.defaultString(manifest.getMainClass()))
+      .setVersion(StringUtils.defaultString(manifest.getVersion()))
+      .setSonarVersion(StringUtils.defaultString(manifest.getSonarVersion()))
+      .setUseChildFirstClassLoader(manifest.isUseChildFirstClassLoader())
+      .setBasePlugin(StringUtils.defaultString(manifest.getBasePlugin()))
+      .setImplementationBuild(StringUtils.defaultString(manifest.getImplementationBuild()))
+      .setSonarlintSupported(manifest.isSonarLintSupported() != null ? manifest.isSonarLintSupported().toString() : "")
+      .setJreMinVersion(StringUtils.defaultString(manifest.getJreMinVersion()))
+      .setNodejsMinVersion(StringUtils.defaultString(manifest.getNodeJsMinVersion()));
+    if (manifest.getDependencies() != null) {
+      builder.addAllDependencies(Arrays.asList(manifest.getDependencies()));
+    }
+    if (manifest.getRequirePlugins() != null) {
+      builder.addAllRequirePlugins(Arrays.asList(manifest.getRequirePlugins()));
+    }
+    return builder.build();
+  }
+
+  private static PluginManifest fromProto(Sonarlint.PluginMetadata.Manifest manifest) {
+    String sonarLintSupported = manifest.getSonarlintSupported();
+    return new PluginManifest()
+      .setKey(nullIfEmpty(manifest.getKey()))
+      .setName(nullIfEmpty(manifest.getName()))
+      .setMainClass(nullIfEmpty(manifest.getMainClass()))
+      .setVersion(nullIfEmpty(manifest.getVersion()))
+      .setSonarVersion(nullIfEmpty(manifest.getSonarVersion()))
+      .setDependencies(manifest.getDependenciesList().toArray(new String[0]))
+      .setUseChildFirstClassLoader(manifest.getUseChildFirstClassLoader())
+      .setBasePlugin(nullIfEmpty(manifest.getBasePlugin()))
+      .setImplementationBuild(nullIfEmpty(manifest.getImplementationBuild()))
+      .setRequirePlugins(manifest.getRequirePluginsList().toArray(new String[0]))
+      .setSonarLintSupported(sonarLintSupported.isEmpty() ? null : Boolean.valueOf(sonarLintSupported))
+      .setJreMinVersion(nullIfEmpty(manifest.getJreMinVersion()))
+      .setNodeJsMinVersion(nullIfEmpty(manifest.getNodejsMinVersion()));
+  }
+
+  @CheckForNull
+  private static String nullIfEmpty(String value) {
+    return value.isEmpty() ? null : value;
+  }
+}
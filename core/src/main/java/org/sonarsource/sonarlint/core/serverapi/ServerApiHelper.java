@@ -26,10 +26,13 @@ import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -57,6 +60,10 @@ public class ServerApiHelper {
 
   public static final int PAGE_SIZE = 500;
   public static final int MAX_PAGES = 20;
+  /**
+   * Default number of pages fetched ahead of the one being consumed, for callers opting in to pipelined pagination
+   */
+  public static final int PREFETCHED_PAGES = 4;
 
   private final HttpClient client;
   private final EndpointParams endpointParams;
@@ -163,34 +170,86 @@ public class ServerApiHelper {
 
   public <G, F> void getPaginated(String relativeUrlWithoutPaginationParams, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
     Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, boolean limitToTwentyPages, ProgressWrapper progress) {
+    getPaginated(relativeUrlWithoutPaginationParams, responseParser, getPaging, itemExtractor, itemConsumer, limitToTwentyPages, progress, 1);
+  }
+
+  /**
+   * Same as {@link #getPaginated(String, CheckedFunction, Function, Function, Consumer, boolean, ProgressWrapper)}, but once the total is known,
+   * up to {@code maxInFlightPages} next pages are requested and parsed concurrently. Items are still passed to {@code itemConsumer} in order,
+   * from the calling thread, and progress/cancellation are checked after each page as usual.
+   * The response parser can be called from HTTP client threads, so it must not have side effects.
+   */
+  public <G, F> void getPaginated(String relativeUrlWithoutPaginationParams, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging,
+    Function<G, List<F>> itemExtractor, Consumer<F> itemConsumer, boolean limitToTwentyPages, ProgressWrapper progress, int maxInFlightPages) {
     AtomicInteger page = new AtomicInteger(0);
     AtomicBoolean stop = new AtomicBoolean(false);
     AtomicInteger loaded = new AtomicInteger(0);
+    Deque<CompletableFuture<G>> prefetchedPages = new ArrayDeque<>();
+    int nextPageToPrefetch = 2;
     do {
       page.incrementAndGet();
-      StringBuilder fullUrl = new StringBuilder(buildEndpointUrl(relativeUrlWithoutPaginationParams));
-      fullUrl.append(relativeUrlWithoutPaginationParams.contains("?") ? "&" : "?");
-      fullUrl.append("ps=" + PAGE_SIZE + "&p=" + page);
-      ServerApiHelper.consumeTimed(
-        () -> client.get(fullUrl.toString()),
-        response -> processPage(relativeUrlWithoutPaginationParams, responseParser, getPaging, itemExtractor, itemConsumer, limitToTwentyPages, progress, page, stop, loaded,
-          response),
-        duration -> LOG.debug("Page downloaded in {}ms", duration));
+      CompletableFuture<G> prefetchedPage = prefetchedPages.poll();
+      G protoBufResponse;
+      if (prefetchedPage != null) {
+        protoBufResponse = join(prefetchedPage);
+      } else {
+        String fullUrl = buildPageUrl(relativeUrlWithoutPaginationParams, page.get());
+        protoBufResponse = ServerApiHelper.processTimed(
+          () -> client.get(fullUrl),
+          response -> parsePage(responseParser, response),
+          duration -> LOG.debug("Page downloaded in {}ms", duration));
+      }
+      processPage(relativeUrlWithoutPaginationParams, protoBufResponse, getPaging, itemExtractor, itemConsumer, limitToTwentyPages, progress, page, stop, loaded);
+
+      int total = getPaging.apply(protoBufResponse).getTotal();
+      if (!stop.get() && maxInFlightPages > 1 && total > 0) {
+        // pages that are still in flight when stopping are ignored, their response is closed once parsed
+        int lastPage = (total + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (limitToTwentyPages) {
+          lastPage = Math.min(lastPage, MAX_PAGES);
+        }
+        nextPageToPrefetch = Math.max(nextPageToPrefetch, page.get() + 1);
+        while (prefetchedPages.size() < maxInFlightPages && nextPageToPrefetch <= lastPage) {
+          String fullUrl = buildPageUrl(relativeUrlWithoutPaginationParams, nextPageToPrefetch);
+          prefetchedPages.add(ServerApiHelper.processTimed(
+            client.getAsync(fullUrl),
+            response -> parsePage(responseParser, response),
+            duration -> LOG.debug("Page downloaded in {}ms", duration)));
+          nextPageToPrefetch++;
+        }
+      }
     } while (!stop.get());
   }
 
-  private static <F, G> void processPage(String baseUrl, CheckedFunction<InputStream, G> responseParser, Function<G, Paging> getPaging, Function<G, List<F>> itemExtractor,
-    Consumer<F> itemConsumer, boolean limitToTwentyPages, ProgressWrapper progress, AtomicInteger page, AtomicBoolean stop, AtomicInteger loaded,
-    HttpClient.Response response)
-    throws IOException {
+  private String buildPageUrl(String relativeUrlWithoutPaginationParams, int page) {
+    StringBuilder fullUrl = new StringBuilder(buildEndpointUrl(relativeUrlWithoutPaginationParams));
+    fullUrl.append(relativeUrlWithoutPaginationParams.contains("?") ? "&" : "?");
+    fullUrl.append("ps=" + PAGE_SIZE + "&p=" + page);
+    return fullUrl.toString();
+  }
+
+  private static <G> G parsePage(CheckedFunction<InputStream, G> responseParser, HttpClient.Response response) throws IOException {
     if (!response.isSuccessful()) {
       throw handleError(response);
     }
-    G protoBufResponse;
     try (InputStream body = response.bodyAsStream()) {
-      protoBufResponse = responseParser.apply(body);
+      return responseParser.apply(body);
     }
+  }
+
+  private static <G> G join(CompletableFuture<G> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
 
+  private static <F, G> void processPage(String baseUrl, G protoBufResponse, Function<G, Paging> getPaging, Function<G, List<F>> itemExtractor,
+    Consumer<F> itemConsumer, boolean limitToTwentyPages, ProgressWrapper progress, AtomicInteger page, AtomicBoolean stop, AtomicInteger loaded) {
     List<F> items = itemExtractor.apply(protoBufResponse);
     for (F item : items) {
       itemConsumer.accept(item);
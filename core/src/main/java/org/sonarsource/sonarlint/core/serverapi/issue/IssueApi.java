@@ -23,13 +23,15 @@ import com.google.protobuf.Parser;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.protocol.input.ScannerInput;
@@ -80,11 +82,67 @@ public class IssueApi {
       },
       result::add,
       true,
-      progress);
+      progress,
+      ServerApiHelper.PREFETCHED_PAGES);
 
     return new DownloadIssuesResult(result, componentsByKey);
   }
 
+  /**
+   * Fetch the issues of the component with specified key that were updated at or after the given date, closed ones included.
+   * Issues are requested most recently updated first, so that fetching can stop at the first issue updated before that date.
+   *
+   * @param key project key
+   * @return empty if there are more changed issues than the search web service can return
+   */
+  public Optional<DownloadIssuesResult> downloadIssuesUpdatedSince(String key, long sinceTimestamp, ProgressWrapper progress) {
+    List<Issue> result = new ArrayList<>();
+    Map<String, Component> componentsByKey = new HashMap<>();
+    for (int page = 1; page <= ServerApiHelper.MAX_PAGES; page++) {
+      progress.checkCancel();
+      Issues.SearchWsResponse response = searchByUpdateDate(key, ServerApiHelper.PAGE_SIZE, page);
+      response.getComponentsList().forEach(c -> componentsByKey.put(c.getKey(), c));
+      for (Issue issue : response.getIssuesList()) {
+        if (getUpdateDate(issue) < sinceTimestamp) {
+          return Optional.of(new DownloadIssuesResult(result, componentsByKey));
+        }
+        result.add(issue);
+      }
+      if (response.getIssuesCount() < ServerApiHelper.PAGE_SIZE || page * ServerApiHelper.PAGE_SIZE >= response.getPaging().getTotal()) {
+        return Optional.of(new DownloadIssuesResult(result, componentsByKey));
+      }
+    }
+    LOG.debug("More than {} issues changed on '{}'", ServerApiHelper.MAX_PAGES * ServerApiHelper.PAGE_SIZE, key);
+    return Optional.empty();
+  }
+
+  /**
+   * @param key project key
+   * @return the update date of the most recently updated issue of the project, if any
+   */
+  public Optional<Long> getLatestIssueUpdateDate(String key) {
+    return searchByUpdateDate(key, 1, 1).getIssuesList().stream()
+      .findFirst()
+      .map(IssueApi::getUpdateDate);
+  }
+
+  public static long getUpdateDate(Issue issue) {
+    return DateUtils.parseDateTime(issue.getUpdateDate()).getTime();
+  }
+
+  private Issues.SearchWsResponse searchByUpdateDate(String key, int pageSize, int page) {
+    StringBuilder searchUrl = new StringBuilder();
+    searchUrl.append("/api/issues/search.protobuf?statuses=OPEN,CONFIRMED,REOPENED,RESOLVED,CLOSED&s=UPDATE_DATE&asc=false&componentKeys=")
+      .append(urlEncode(key));
+    serverApiHelper.getOrganizationKey()
+      .ifPresent(org -> searchUrl.append("&organization=").append(StringUtils.urlEncode(org)));
+    searchUrl.append("&ps=").append(pageSize).append("&p=").append(page);
+    return ServerApiHelper.processTimed(
+      () -> serverApiHelper.get(searchUrl.toString()),
+      response -> Issues.SearchWsResponse.parseFrom(response.bodyAsStream()),
+      duration -> LOG.debug("Page downloaded in {}ms", duration));
+  }
+
   public static class DownloadIssuesResult {
     private final List<Issue> issues;
     private final Map<String, Component> componentsByKey;
@@ -110,17 +168,27 @@ public class IssueApi {
   }
 
   public List<ScannerInput.ServerIssue> downloadAllFromBatchIssues(String key) {
-    return ServerApiHelper.processTimed(
+    List<ScannerInput.ServerIssue> result = new ArrayList<>();
+    downloadAllFromBatchIssues(key, result::add);
+    return result;
+  }
+
+  /**
+   * Same as {@link #downloadAllFromBatchIssues(String)}, but issues are passed to the consumer while the response is parsed,
+   * so that they don't all need to be in memory at the same time.
+   */
+  public void downloadAllFromBatchIssues(String key, Consumer<ScannerInput.ServerIssue> consumer) {
+    ServerApiHelper.consumeTimed(
       () -> serverApiHelper.rawGet(getBatchIssuesUrl(key)),
       response -> {
         if (response.code() == 403 || response.code() == 404) {
-          return Collections.emptyList();
+          return;
         } else if (response.code() != 200) {
           throw ServerApiHelper.handleError(response);
         }
         InputStream input = response.bodyAsStream();
         Parser<ScannerInput.ServerIssue> parser = ScannerInput.ServerIssue.parser();
-        return ProtobufUtil.readMessages(input, parser);
+        ProtobufUtil.readMessages(input, parser, consumer);
       },
       duration -> LOG.debug("Downloaded issues in {}ms", duration));
   }
@@ -21,10 +21,20 @@ package org.sonarsource.sonarlint.core.serverapi.rules;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.sonar.api.batch.rule.Severity;
@@ -44,52 +54,121 @@ public class RulesApi {
   public static final String RULES_SEARCH_URL = "/api/rules/search.protobuf?f=repo,name,severity,lang,htmlDesc,htmlNote,internalKey,isTemplate,templateKey,"
     + "actives&statuses=BETA,DEPRECATED,READY&types=CODE_SMELL,BUG,VULNERABILITY";
 
+  private static final int PAGE_SIZE = 500;
+  private static final long PROGRESS_POLL_INTERVAL_MS = 100;
+
   private final ServerApiHelper helper;
 
   public RulesApi(ServerApiHelper helper) {
     this.helper = helper;
   }
 
+  /**
+   * Rules are loaded by severity, so that each search stays below the 10k results limit of Elasticsearch.
+   * All severities are loaded concurrently, while progress and cancellation are handled on the calling thread. The reported fraction
+   * is the average of the fractions of each severity, as of the last page of that severity handed over to the calling thread, and the
+   * message tells the last page loaded.
+   */
   public ServerRules getAll(Set<Language> enabledLanguages, ProgressWrapper progress) {
+    List<SeverityRules> slices = new ArrayList<>();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    BlockingQueue<LoadedPage> loadedPages = new LinkedBlockingQueue<>();
+    AtomicBoolean stopped = new AtomicBoolean(false);
+    String severities = Arrays.stream(Severity.values()).map(severity -> severityLabel(severity.name())).collect(joining(", "));
+    progress.setProgressAndCheckCancel("Loading severities " + severities, 0.0f);
+    try {
+      for (Severity severity : Severity.values()) {
+        SeverityRules slice = new SeverityRules(severity.name());
+        slices.add(slice);
+        futures.add(fetchRulesAndActiveRules(slice, enabledLanguages, 1, loadedPages, stopped));
+      }
+      waitForAll(futures, slices, loadedPages, progress);
+    } finally {
+      // let the slices still in progress stop after their current page when failing or being canceled
+      stopped.set(true);
+    }
+
     Sonarlint.Rules.Builder rulesBuilder = Sonarlint.Rules.newBuilder();
     Map<String, Sonarlint.ActiveRules.Builder> activeRulesBuildersByQProfile = new HashMap<>();
-
-    for (int i = 0; i < Severity.values().length; i++) {
-      Severity severity = Severity.values()[i];
-      progress.setProgressAndCheckCancel("Loading severity '" + severity.name().toLowerCase(Locale.US) + "'",
-        i / (float) Severity.values().length);
-      ProgressWrapper severityProgress = progress.subProgress(i / (float) Severity.values().length,
-        (i + 1) / (float) Severity.values().length, severity.name().toLowerCase(Locale.US));
-      fetchRulesAndActiveRules(rulesBuilder, severity.name(), activeRulesBuildersByQProfile, enabledLanguages, severityProgress);
+    for (SeverityRules slice : slices) {
+      rulesBuilder.putAllRulesByKey(slice.rulesBuilder.getRulesByKeyMap());
+      slice.activeRulesBuildersByQProfile.forEach((qProfileKey, activeRules) -> activeRulesBuildersByQProfile
+        .computeIfAbsent(qProfileKey, k -> Sonarlint.ActiveRules.newBuilder())
+        .putAllActiveRulesByKey(activeRules.getActiveRulesByKeyMap()));
     }
     Map<String, Sonarlint.ActiveRules> activeRulesByQualityProfileKey = activeRulesBuildersByQProfile.entrySet().stream()
       .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().build()));
     return new ServerRules(rulesBuilder.build(), activeRulesByQualityProfileKey);
   }
 
-  private void fetchRulesAndActiveRules(Sonarlint.Rules.Builder rulesBuilder, String severity, Map<String, Sonarlint.ActiveRules.Builder> activeRulesBuildersByQProfile,
-    Set<Language> enabledLanguages, ProgressWrapper progress) {
-    int page = 0;
-    int pageSize = 500;
-    int loaded = 0;
-
-    while (true) {
-      page++;
-      Rules.SearchResponse response = loadFromStream(helper.get(getUrl(severity, enabledLanguages, page, pageSize)));
-      if (response.getTotal() > 10_000) {
-        throw new IllegalStateException(
-          String.format("Found more than 10000 rules for severity '%s' in the SonarQube server, which is not supported by SonarLint.", severity));
+  private static void waitForAll(List<CompletableFuture<Void>> futures, List<SeverityRules> slices, BlockingQueue<LoadedPage> loadedPages, ProgressWrapper progress) {
+    CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    while (!all.isDone() && futures.stream().noneMatch(CompletableFuture::isCompletedExceptionally)) {
+      LoadedPage loadedPage;
+      try {
+        loadedPage = loadedPages.poll(PROGRESS_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while loading rules", e);
+      }
+      if (loadedPage == null) {
+        progress.checkCancel();
+      } else {
+        reportProgress(loadedPage, slices, progress);
+      }
+    }
+    for (CompletableFuture<Void> future : futures) {
+      if (future.isCompletedExceptionally()) {
+        join(future);
       }
-      readPage(rulesBuilder, activeRulesBuildersByQProfile, response);
-      loaded += response.getPs();
+    }
+    LoadedPage loadedPage;
+    while ((loadedPage = loadedPages.poll()) != null) {
+      reportProgress(loadedPage, slices, progress);
+    }
+  }
+
+  private static void reportProgress(LoadedPage loadedPage, List<SeverityRules> slices, ProgressWrapper progress) {
+    loadedPage.slice.fraction = loadedPage.fraction;
+    float fraction = (float) slices.stream().mapToDouble(s -> s.fraction).sum() / slices.size();
+    progress.setProgressAndCheckCancel("Loading severity " + severityLabel(loadedPage.slice.severity) + ", page " + loadedPage.page, fraction);
+  }
+
+  private static String severityLabel(String severity) {
+    return "'" + severity.toLowerCase(Locale.US) + "'";
+  }
 
-      if (response.getTotal() <= loaded) {
-        break;
+  private static void join(CompletableFuture<Void> future) {
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
       }
-      progress.setProgressAndCheckCancel("Loading page " + page, loaded / (float) response.getTotal());
+      throw e;
     }
   }
 
+  private CompletableFuture<Void> fetchRulesAndActiveRules(SeverityRules slice, Set<Language> enabledLanguages, int page, Queue<LoadedPage> loadedPages,
+    AtomicBoolean stopped) {
+    return helper.getAsync(getUrl(slice.severity, enabledLanguages, page, PAGE_SIZE))
+      .thenApply(RulesApi::loadFromStream)
+      .thenCompose(response -> {
+        if (response.getTotal() > 10_000) {
+          throw new IllegalStateException(
+            String.format("Found more than 10000 rules for severity '%s' in the SonarQube server, which is not supported by SonarLint.", slice.severity));
+        }
+        readPage(slice.rulesBuilder, slice.activeRulesBuildersByQProfile, response);
+        slice.loaded += response.getPs();
+
+        if (response.getTotal() <= slice.loaded || stopped.get()) {
+          return CompletableFuture.completedFuture(null);
+        }
+        loadedPages.add(new LoadedPage(slice, page, slice.loaded / (float) response.getTotal()));
+        return fetchRulesAndActiveRules(slice, enabledLanguages, page + 1, loadedPages, stopped);
+      });
+  }
+
   private String getUrl(String severity, Set<Language> enabledLanguages, int page, int pageSize) {
     StringBuilder builder = new StringBuilder(1024);
     builder.append(RULES_SEARCH_URL);
@@ -161,6 +240,35 @@ public class RulesApi {
     }
   }
 
+  /**
+   * Rules and active rules of a single severity. Pages of a severity are read one after the other, so no synchronization is needed
+   * until the slice is complete.
+   */
+  private static class SeverityRules {
+    private final String severity;
+    private final Sonarlint.Rules.Builder rulesBuilder = Sonarlint.Rules.newBuilder();
+    private final Map<String, Sonarlint.ActiveRules.Builder> activeRulesBuildersByQProfile = new HashMap<>();
+    private int loaded;
+    // only accessed by the calling thread
+    private float fraction;
+
+    private SeverityRules(String severity) {
+      this.severity = severity;
+    }
+  }
+
+  private static class LoadedPage {
+    private final SeverityRules slice;
+    private final int page;
+    private final float fraction;
+
+    private LoadedPage(SeverityRules slice, int page, float fraction) {
+      this.slice = slice;
+      this.page = page;
+      this.fraction = fraction;
+    }
+  }
+
   @CheckForNull
   private static String typeToString(Common.RuleType type) {
     switch (type) {
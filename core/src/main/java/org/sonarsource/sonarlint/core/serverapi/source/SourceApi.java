@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.serverapi.source;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient.Response;
@@ -43,7 +44,7 @@ public class SourceApi {
    * @param key project key, or file key.
    */
   public Optional<String> getRawSourceCode(String fileKey) {
-    try (Response r = serverApiHelper.get("/api/sources/raw?key=" + StringUtils.urlEncode(fileKey))) {
+    try (Response r = serverApiHelper.get(getRawSourceCodeUrl(fileKey))) {
       return Optional.of(r.bodyAsString());
     } catch (Exception e) {
       LOG.debug("Unable to fetch source code of '" + fileKey + "'", e);
@@ -51,4 +52,24 @@ public class SourceApi {
     }
   }
 
+  /**
+   * Same as {@link #getRawSourceCode(String)}, without blocking the calling thread.
+   */
+  public CompletableFuture<Optional<String>> getRawSourceCodeAsync(String fileKey) {
+    return serverApiHelper.getAsync(getRawSourceCodeUrl(fileKey))
+      .thenApply(response -> {
+        try (Response r = response) {
+          return Optional.of(r.bodyAsString());
+        }
+      })
+      .exceptionally(e -> {
+        LOG.debug("Unable to fetch source code of '" + fileKey + "'", e);
+        return Optional.empty();
+      });
+  }
+
+  private static String getRawSourceCodeUrl(String fileKey) {
+    return "/api/sources/raw?key=" + StringUtils.urlEncode(fileKey);
+  }
+
 }
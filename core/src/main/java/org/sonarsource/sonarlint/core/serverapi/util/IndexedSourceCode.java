@@ -0,0 +1,108 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi.util;
+
+import java.util.Arrays;
+import org.sonarqube.ws.Common.TextRange;
+
+/**
+ * Source code with the offsets of its lines computed once, so that many code snippets can be extracted
+ * without splitting the whole source each time. Lines are terminated by '\n' or "\r\n".
+ */
+public class IndexedSourceCode {
+
+  public static final IndexedSourceCode EMPTY = new IndexedSourceCode("");
+
+  private final String sourceCode;
+  private int[] lineStarts = new int[64];
+  private int[] lineEnds = new int[64];
+  private int lineCount;
+
+  public IndexedSourceCode(String sourceCode) {
+    this.sourceCode = sourceCode;
+    int lineStart = 0;
+    for (int i = 0; i < sourceCode.length(); i++) {
+      if (sourceCode.charAt(i) == '\n') {
+        int lineEnd = i > lineStart && sourceCode.charAt(i - 1) == '\r' ? (i - 1) : i;
+        addLine(lineStart, lineEnd);
+        lineStart = i + 1;
+      }
+    }
+    addLine(lineStart, sourceCode.length());
+  }
+
+  private void addLine(int start, int end) {
+    if (lineCount == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+    }
+    lineStarts[lineCount] = start;
+    lineEnds[lineCount] = end;
+    lineCount++;
+  }
+
+  public boolean isEmpty() {
+    return sourceCode.isEmpty();
+  }
+
+  public int getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * Lines of the snippet are always separated by '\n', whatever the line terminators of the source code.
+   *
+   * @throws IndexOutOfBoundsException if the text range does not fit in the source code
+   */
+  public String extractCodeSnippet(TextRange textRange) {
+    int startLineIndex = checkLine(textRange.getStartLine());
+    int endLineIndex = checkLine(textRange.getEndLine());
+    int start = offsetInLine(startLineIndex, textRange.getStartOffset());
+    int end = offsetInLine(endLineIndex, textRange.getEndOffset());
+    if (startLineIndex > endLineIndex || (startLineIndex == endLineIndex && start > end)) {
+      throw new IndexOutOfBoundsException("Invalid text range: " + textRange);
+    }
+    if (startLineIndex == endLineIndex) {
+      return sourceCode.substring(start, end);
+    }
+    StringBuilder snippet = new StringBuilder(end - start);
+    snippet.append(sourceCode, start, lineEnds[startLineIndex]);
+    for (int i = startLineIndex + 1; i < endLineIndex; i++) {
+      snippet.append('\n').append(sourceCode, lineStarts[i], lineEnds[i]);
+    }
+    snippet.append('\n').append(sourceCode, lineStarts[endLineIndex], end);
+    return snippet.toString();
+  }
+
+  private int checkLine(int line) {
+    if (line < 1 || line > lineCount) {
+      throw new IndexOutOfBoundsException("Line " + line + " is out of range, source code has " + lineCount + " lines");
+    }
+    return line - 1;
+  }
+
+  private int offsetInLine(int lineIndex, int lineOffset) {
+    if (lineOffset < 0 || lineStarts[lineIndex] + lineOffset > lineEnds[lineIndex]) {
+      throw new IndexOutOfBoundsException("Offset " + lineOffset + " is out of range of line " + (lineIndex + 1));
+    }
+    return lineStarts[lineIndex] + lineOffset;
+  }
+
+}
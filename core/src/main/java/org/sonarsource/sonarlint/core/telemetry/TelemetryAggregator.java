@@ -0,0 +1,131 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Records the frequent telemetry events in memory without locking, until they are merged into the telemetry storage with
+ * {@link #drainTo(TelemetryLocalStorage)}. Events recorded while draining are kept for the next merge, and drained events that
+ * could not be saved are recorded again with {@link #restore(TelemetryAggregator)}.
+ */
+class TelemetryAggregator {
+
+  private final Map<String, AtomicIntegerArray> analysisCountsByLanguage = new ConcurrentHashMap<>();
+  private final Set<LocalDate> useDays = ConcurrentHashMap.newKeySet();
+  private final Set<String> reportedRules = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean pending = new AtomicBoolean();
+
+  /**
+   * @return true if this is the first event recorded since the last merge
+   */
+  boolean analysisDone(String language, int analysisTimeMs) {
+    int intervalIndex = TelemetryAnalyzerPerformance.intervalIndex(analysisTimeMs);
+    if (intervalIndex >= 0) {
+      analysisCountsByLanguage.computeIfAbsent(language, k -> new AtomicIntegerArray(TelemetryAnalyzerPerformance.INTERVAL_NAMES.size()))
+        .incrementAndGet(intervalIndex);
+    }
+    return analysisDone();
+  }
+
+  /**
+   * @return true if this is the first event recorded since the last merge
+   */
+  boolean analysisDone() {
+    useDays.add(LocalDate.now());
+    return markPending();
+  }
+
+  /**
+   * @return true if this is the first event recorded since the last merge
+   */
+  boolean addReportedRules(Set<String> ruleKeys) {
+    reportedRules.addAll(ruleKeys);
+    return markPending();
+  }
+
+  private boolean markPending() {
+    return pending.compareAndSet(false, true);
+  }
+
+  boolean hasPendingEvents() {
+    return pending.get();
+  }
+
+  /**
+   * Adds the events recorded so far to the given data, read from the storage while holding its lock, and forgets them.
+   *
+   * @return the drained events
+   */
+  TelemetryAggregator drainTo(TelemetryLocalStorage data) {
+    TelemetryAggregator drained = new TelemetryAggregator();
+    pending.set(false);
+    for (LocalDate day : new TreeSet<>(useDays)) {
+      if (useDays.remove(day)) {
+        data.markSonarLintAsUsed(day);
+        drained.useDays.add(day);
+      }
+    }
+    analysisCountsByLanguage.forEach((language, counts) -> {
+      int[] drainedCounts = new int[counts.length()];
+      boolean any = false;
+      for (int i = 0; i < drainedCounts.length; i++) {
+        drainedCounts[i] = counts.getAndSet(i, 0);
+        any |= drainedCounts[i] > 0;
+      }
+      if (any) {
+        data.addAnalyses(language, drainedCounts);
+        drained.analysisCountsByLanguage.put(language, new AtomicIntegerArray(drainedCounts));
+      }
+    });
+    Set<String> drainedRules = new TreeSet<>();
+    for (String ruleKey : reportedRules) {
+      if (reportedRules.remove(ruleKey)) {
+        drainedRules.add(ruleKey);
+      }
+    }
+    data.addReportedRules(drainedRules);
+    drained.reportedRules.addAll(drainedRules);
+    return drained;
+  }
+
+  /**
+   * Records again events that were drained, but not saved.
+   *
+   * @return true if this is the first event recorded since the last merge
+   */
+  boolean restore(TelemetryAggregator drained) {
+    useDays.addAll(drained.useDays);
+    drained.analysisCountsByLanguage.forEach((language, counts) -> {
+      AtomicIntegerArray restoredCounts = analysisCountsByLanguage.computeIfAbsent(language, k -> new AtomicIntegerArray(counts.length()));
+      for (int i = 0; i < counts.length(); i++) {
+        restoredCounts.addAndGet(i, counts.get(i));
+      }
+    });
+    reportedRules.addAll(drained.reportedRules);
+    return markPending();
+  }
+}
@@ -19,13 +19,16 @@
  */
 package org.sonarsource.sonarlint.core.telemetry;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
 public class TelemetryAnalyzerPerformance {
   private static final TreeMap<Integer, String> INTERVALS;
+  static final List<String> INTERVAL_NAMES;
   private int analysisCount;
 
   static {
@@ -36,6 +39,7 @@ public class TelemetryAnalyzerPerformance {
     INTERVALS.put(2000, "1000-2000");
     INTERVALS.put(4000, "2000-4000");
     INTERVALS.put(Integer.MAX_VALUE, "4000+");
+    INTERVAL_NAMES = new ArrayList<>(INTERVALS.values());
   }
 
   private Map<String, Integer> frequencies;
@@ -53,6 +57,27 @@ public class TelemetryAnalyzerPerformance {
     }
   }
 
+  /**
+   * @return the index in {@link #INTERVAL_NAMES} of the interval of the given analysis time, or -1 if there is none
+   */
+  static int intervalIndex(int analysisTimeMs) {
+    Entry<Integer, String> entry = INTERVALS.higherEntry(analysisTimeMs);
+    return entry != null ? INTERVAL_NAMES.indexOf(entry.getValue()) : -1;
+  }
+
+  /**
+   * Registers analyses already grouped by interval, indexed like {@link #INTERVAL_NAMES}
+   */
+  void registerAnalyses(int[] analysisCountsByInterval) {
+    for (int i = 0; i < analysisCountsByInterval.length; i++) {
+      int count = analysisCountsByInterval[i];
+      if (count > 0) {
+        frequencies.compute(INTERVAL_NAMES.get(i), (k, v) -> v != null ? (v + count) : count);
+        analysisCount += count;
+      }
+    }
+  }
+
   public Map<String, Integer> frequencies() {
     return frequencies;
   }
@@ -165,6 +165,24 @@ class TelemetryLocalStorage {
     lastUseDate = now;
   }
 
+  /**
+   * Register a use of SonarLint on a day that may be in the past, when events are recorded in memory before being saved.
+   * Days older than the last use date were already counted, possibly by another process.
+   */
+  void markSonarLintAsUsed(LocalDate day) {
+    if (lastUseDate == null || lastUseDate.isBefore(day)) {
+      numUseDays++;
+      lastUseDate = day;
+    }
+  }
+
+  /**
+   * Register analyses of a language already grouped by interval of duration, see {@link TelemetryAnalyzerPerformance#registerAnalyses(int[])}
+   */
+  void addAnalyses(String language, int[] analysisCountsByInterval) {
+    analyzers.computeIfAbsent(language, x -> new TelemetryAnalyzerPerformance()).registerAnalyses(analysisCountsByInterval);
+  }
+
   /**
    * Register the analysis of a single file, with information regarding language and duration of the analysis.
    */
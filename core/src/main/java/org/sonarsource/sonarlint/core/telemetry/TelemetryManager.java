@@ -21,6 +21,12 @@ package org.sonarsource.sonarlint.core.telemetry;
 
 import java.nio.file.Path;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.Language;
 
@@ -33,10 +39,21 @@ import static org.sonarsource.sonarlint.core.telemetry.TelemetryUtils.dayChanged
 public class TelemetryManager {
 
   static final int MIN_HOURS_BETWEEN_UPLOAD = 5;
+  static final long FLUSH_DELAY_SECONDS = 60;
+
+  private static final ScheduledThreadPoolExecutor FLUSH_EXECUTOR = newFlushExecutor();
 
   private final TelemetryLocalStorageManager storage;
+  /**
+   * Frequent events, such as analyses, are saved at most once per {@link #FLUSH_DELAY_SECONDS}, so that the analyses don't wait for
+   * the storage to be locked, read, and synchronously written
+   */
+  private final TelemetryAggregator aggregator = new TelemetryAggregator();
   private final TelemetryHttpClient client;
   private final TelemetryClientAttributesProvider attributesProvider;
+  @CheckForNull
+  private ScheduledFuture<?> scheduledFlush;
+  private boolean stopped;
 
   public TelemetryManager(Path path, TelemetryHttpClient client, TelemetryClientAttributesProvider attributesProvider) {
     this.storage = newTelemetryStorage(path);
@@ -48,6 +65,19 @@ public class TelemetryManager {
     return new TelemetryLocalStorageManager(path);
   }
 
+  /**
+   * Canceled flushes are removed from the queue, so that they don't retain stopped managers.
+   */
+  private static ScheduledThreadPoolExecutor newFlushExecutor() {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "sonarlint-telemetry-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setRemoveOnCancelPolicy(true);
+    return executor;
+  }
+
   public boolean isEnabled() {
     return storage.tryRead().enabled();
   }
@@ -79,7 +109,7 @@ public class TelemetryManager {
       return;
     }
 
-    storage.tryUpdateAtomically(data -> {
+    updateWithRecordedEvents(data -> {
       client.upload(data, attributesProvider);
       data.setLastUploadTime();
       data.clearAfterPing();
@@ -87,17 +117,11 @@ public class TelemetryManager {
   }
 
   public void analysisDoneOnSingleLanguage(@Nullable Language language, int analysisTimeMs) {
-    storage.tryUpdateAtomically(data -> {
-      if (language == null) {
-        data.setUsedAnalysis("others", analysisTimeMs);
-      } else {
-        data.setUsedAnalysis(language.getLanguageKey(), analysisTimeMs);
-      }
-    });
+    scheduleFlushIf(aggregator.analysisDone(language == null ? "others" : language.getLanguageKey(), analysisTimeMs));
   }
 
   public void analysisDoneOnMultipleFiles() {
-    storage.tryUpdateAtomically(TelemetryLocalStorage::setUsedAnalysis);
+    scheduleFlushIf(aggregator.analysisDone());
   }
 
   public void devNotificationsReceived(String eventType) {
@@ -121,17 +145,61 @@ public class TelemetryManager {
   }
 
   public void addReportedRules(Set<String> ruleKeys) {
-    storage.tryUpdateAtomically(s -> s.addReportedRules(ruleKeys));
+    scheduleFlushIf(aggregator.addReportedRules(ruleKeys));
   }
 
   public void addQuickFixAppliedForRule(String ruleKey) {
     storage.tryUpdateAtomically(s -> s.addQuickFixAppliedForRule(ruleKey));
   }
 
+  private synchronized void scheduleFlushIf(boolean firstPendingEvent) {
+    if (firstPendingEvent && !stopped) {
+      scheduledFlush = FLUSH_EXECUTOR.schedule(this::flush, FLUSH_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Save the events recorded in memory. The storage is locked while they are merged, so that events saved by other processes are kept.
+   */
+  public void flush() {
+    if (aggregator.hasPendingEvents()) {
+      updateWithRecordedEvents(data -> {
+        // only the recorded events are saved
+      });
+    }
+  }
+
+  /**
+   * Merges the events recorded in memory into the storage before applying the update. If the storage can't be written, the events
+   * are recorded again, to be saved by the next flush.
+   */
+  private void updateWithRecordedEvents(Consumer<TelemetryLocalStorage> updater) {
+    AtomicReference<TelemetryAggregator> drained = new AtomicReference<>();
+    boolean saved = false;
+    try {
+      saved = storage.tryUpdateAtomically(data -> {
+        drained.set(aggregator.drainTo(data));
+        updater.accept(data);
+      });
+    } finally {
+      if (!saved && drained.get() != null) {
+        scheduleFlushIf(aggregator.restore(drained.get()));
+      }
+    }
+  }
+
   /**
-   * Save and upload lazily telemetry data.
+   * Save and upload lazily telemetry data. The scheduled flush is canceled, the manager doesn't save events by itself anymore.
    */
   public void stop() {
+    synchronized (this) {
+      stopped = true;
+      if (scheduledFlush != null) {
+        scheduledFlush.cancel(false);
+        scheduledFlush = null;
+      }
+    }
+    flush();
     uploadLazily();
   }
 }
@@ -22,12 +22,24 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.util.Collection;
 import java.util.Collections;
 
+/**
+ * Tracking of a given file is serialized, but different files can be tracked concurrently. The cache has to be thread safe.
+ */
 public class CachingIssueTrackerImpl extends IssueTrackerImpl implements CachingIssueTracker {
 
+  private static final int LOCK_STRIPES = 64;
+
   private final IssueTrackerCache cache;
+  /**
+   * A fixed number of locks shared by files with the same hash, so that memory doesn't grow with the number of files tracked.
+   */
+  private final Object[] fileLocks = new Object[LOCK_STRIPES];
 
   public CachingIssueTrackerImpl(IssueTrackerCache cache) {
     this.cache = cache;
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      fileLocks[i] = new Object();
+    }
   }
 
   /**
@@ -36,32 +48,40 @@ public class CachingIssueTrackerImpl extends IssueTrackerImpl implements Caching
    * If this is the first analysis, leave creation date as null.
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
-    Collection<Trackable> tracked;
-    if (cache.isFirstAnalysis(file)) {
-      tracked = trackables;
-    } else {
-      tracked = apply(cache.getCurrentTrackables(file), trackables, false);
+  public Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> trackables) {
+    synchronized (lockFor(file)) {
+      Collection<Trackable> tracked;
+      if (cache.isFirstAnalysis(file)) {
+        tracked = trackables;
+      } else {
+        tracked = apply(cache.getCurrentTrackables(file), trackables, false);
+      }
+      cache.put(file, tracked);
+      return tracked;
     }
-    cache.put(file, tracked);
-    return tracked;
   }
 
   /**
    * {@inheritDoc}
    */
   @Override
-  public synchronized Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
-    // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
-    // an analysis before that set the live issues for the file (even if it is empty)
-    Collection<Trackable> current = cache.getLiveOrFail(file);
-    if (current.isEmpty()) {
-      // whatever is the base, if current is empty, then nothing to do
-      return Collections.emptyList();
+  public Collection<Trackable> matchAndTrackAsBase(String file, Collection<Trackable> trackables) {
+    synchronized (lockFor(file)) {
+      // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
+      // an analysis before that set the live issues for the file (even if it is empty)
+      Collection<Trackable> current = cache.getLiveOrFail(file);
+      if (current.isEmpty()) {
+        // whatever is the base, if current is empty, then nothing to do
+        return Collections.emptyList();
+      }
+      Collection<Trackable> tracked = apply(trackables, current, true);
+      cache.put(file, tracked);
+      return tracked;
     }
-    Collection<Trackable> tracked = apply(trackables, current, true);
-    cache.put(file, tracked);
-    return tracked;
+  }
+
+  private Object lockFor(String file) {
+    return fileLocks[Math.floorMod(file.hashCode(), LOCK_STRIPES)];
   }
 
   public void clear() {
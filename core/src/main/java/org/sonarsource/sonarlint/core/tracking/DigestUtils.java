@@ -19,23 +19,55 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
+/**
+ * MD5 based hashes of code snippets, ignoring whitespaces. Used to match issues on content rather than on line numbers.
+ * Hashes are compatible with the ones computed by SonarQube and stored in the issue storage.
+ * All methods are thread safe: each thread reuses its own digest and buffers.
+ */
 public class DigestUtils {
 
   private static final char[] DIGITS = "0123456789abcdef".toCharArray();
 
-  private static final MessageDigest MD5_DIGEST = DigestUtils.getMd5Digest();
+  private static final int MD5_LENGTH = 16;
+
+  /**
+   * Above this size, the buffer used to encode content is not kept for the next hash.
+   */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+  private static final ThreadLocal<Md5Hasher> HASHERS = ThreadLocal.withInitial(Md5Hasher::new);
 
   private DigestUtils() {
     // utility class, forbidden constructor
   }
 
   public static String digest(String content) {
-    return encodeHexString(MD5_DIGEST.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+    return encodeHexString(HASHERS.get().hash(content, 0, content.length()));
+  }
+
+  /**
+   * Same as <code>digest(content).hashCode()</code>, without building intermediate strings.
+   */
+  public static int digestHashCode(CharSequence content) {
+    return digestHashCode(content, 0, content.length());
+  }
+
+  /**
+   * Same as <code>digest(content.subSequence(start, end).toString()).hashCode()</code>, without building intermediate strings.
+   */
+  public static int digestHashCode(CharSequence content, int start, int end) {
+    byte[] data = HASHERS.get().hash(content, start, end);
+    // String.hashCode() of the hex representation
+    int h = 0;
+    for (byte b : data) {
+      h = 31 * h + DIGITS[(240 & b) >>> 4];
+      h = 31 * h + DIGITS[15 & b];
+    }
+    return h;
   }
 
   private static MessageDigest getMd5Digest() {
@@ -61,4 +93,71 @@ public class DigestUtils {
 
     return new String(out);
   }
+
+  /**
+   * Same characters as the <code>\s</code> regexp class.
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+  }
+
+  private static class Md5Hasher {
+    private final MessageDigest md5 = getMd5Digest();
+    private final byte[] result = new byte[MD5_LENGTH];
+    private byte[] buffer = new byte[1024];
+
+    /**
+     * Strips whitespaces and encodes the content in UTF-8 in a single pass, the same way as <code>String#getBytes(UTF_8)</code> would do.
+     * The returned array is reused by the next call on the same thread.
+     */
+    byte[] hash(CharSequence content, int start, int end) {
+      // at most 3 bytes per char, a surrogate pair is 4 bytes for 2 chars
+      int maxLength = 3 * (end - start);
+      byte[] buf = maxLength <= buffer.length ? buffer : new byte[maxLength];
+      int pos = 0;
+      for (int i = start; i < end; i++) {
+        char c = content.charAt(i);
+        if (c < 0x80) {
+          if (!isWhitespace(c)) {
+            buf[pos++] = (byte) c;
+          }
+        } else if (c < 0x800) {
+          buf[pos++] = (byte) (0xC0 | (c >> 6));
+          buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          // whitespaces are stripped before encoding, so they don't break a surrogate pair
+          int next = i + 1;
+          while (next < end && isWhitespace(content.charAt(next))) {
+            next++;
+          }
+          if (Character.isHighSurrogate(c) && next < end && Character.isLowSurrogate(content.charAt(next))) {
+            int cp = Character.toCodePoint(c, content.charAt(next));
+            i = next;
+            buf[pos++] = (byte) (0xF0 | (cp >> 18));
+            buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+          } else {
+            // malformed input is replaced, as done by the UTF-8 encoder
+            buf[pos++] = (byte) '?';
+          }
+        } else {
+          buf[pos++] = (byte) (0xE0 | (c >> 12));
+          buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+      }
+      if (buf != buffer && buf.length <= MAX_RETAINED_BUFFER_SIZE) {
+        buffer = buf;
+      }
+      md5.update(buf, 0, pos);
+      try {
+        md5.digest(result, 0, MD5_LENGTH);
+      } catch (DigestException e) {
+        md5.reset();
+        throw new IllegalStateException(e);
+      }
+      return result;
+    }
+  }
 }
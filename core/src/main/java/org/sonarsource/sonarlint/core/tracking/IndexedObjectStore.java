@@ -24,7 +24,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -78,18 +82,21 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
   public void deleteInvalid() {
     int counter = 0;
     Collection<K> keys = index.keys();
+    List<K> deleted = new ArrayList<>();
 
     for (K k : keys) {
       if (!validator.apply(k)) {
+        Path path = pathMapper.apply(k);
         try {
           counter++;
-          delete(k);
+          Files.deleteIfExists(path);
+          deleted.add(k);
         } catch (IOException e) {
-          Path path = pathMapper.apply(k);
           LOGGER.error(String.format("failed to delete file '%s' for invalidated key '%s'", path, k), e);
         }
       }
     }
+    index.delete(deleted);
     LOGGER.debug(String.format("%d entries removed from the store", counter));
   }
 
@@ -112,4 +119,23 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
       writer.accept(out, value);
     }
   }
+
+  /**
+   * Writes all the given entries, updating the index once for the whole batch.
+   */
+  public void write(Map<K, V> values) throws IOException {
+    Map<K, Path> pathByKey = new LinkedHashMap<>();
+    for (Map.Entry<K, V> entry : values.entrySet()) {
+      Path path = pathMapper.apply(entry.getKey());
+      Path parent = path.getParent();
+      if (!parent.toFile().exists()) {
+        Files.createDirectories(parent);
+      }
+      try (OutputStream out = Files.newOutputStream(path)) {
+        writer.accept(out, entry.getValue());
+      }
+      pathByKey.put(entry.getKey(), path);
+    }
+    index.save(pathByKey);
+  }
 }
@@ -22,6 +22,8 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -36,12 +38,13 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint;
 public class IssueStore {
 
   private Path basePath;
+  private StringStoreIndex index;
   private IndexedObjectStore<String, Sonarlint.Issues> store;
 
   public IssueStore(Path storeBasePath, Path projectBasePath) {
     this.basePath = storeBasePath;
     FileUtils.mkdirs(storeBasePath);
-    StoreIndex<String> index = new StringStoreIndex(storeBasePath);
+    index = new StringStoreIndex(storeBasePath);
     PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
     StoreKeyValidator<String> validator = new PathStoreKeyValidator(projectBasePath);
     Reader<Sonarlint.Issues> reader = is -> {
@@ -70,6 +73,12 @@ public class IssueStore {
     store.write(key, transform(issues));
   }
 
+  public void saveAll(Map<String, Collection<Trackable>> issuesByKey) throws IOException {
+    Map<String, Sonarlint.Issues> protoIssuesByKey = new LinkedHashMap<>();
+    issuesByKey.forEach((key, issues) -> protoIssuesByKey.put(key, transform(issues)));
+    store.write(protoIssuesByKey);
+  }
+
   @CheckForNull
   public Collection<Trackable> read(String key) throws IOException {
     Optional<Sonarlint.Issues> issues = store.read(key);
@@ -83,6 +92,7 @@ public class IssueStore {
   public void clear() {
     FileUtils.deleteRecursively(basePath);
     FileUtils.mkdirs(basePath);
+    index.reset();
   }
 
   private static Collection<Trackable> transform(Sonarlint.Issues protoIssues) {
@@ -24,7 +24,7 @@ import javax.annotation.Nullable;
 import org.sonarsource.sonarlint.core.client.api.common.TextRange;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 
-import static org.sonarsource.sonarlint.core.tracking.DigestUtils.digest;
+import static org.sonarsource.sonarlint.core.tracking.DigestUtils.digestHashCode;
 
 public class IssueTrackable implements Trackable {
 
@@ -34,18 +34,34 @@ public class IssueTrackable implements Trackable {
   private final Integer lineHash;
 
   public IssueTrackable(Issue issue) {
-    this(issue, null, null, null);
+    this(issue, null, (Integer) null, null);
   }
 
   public IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, @Nullable String lineContent) {
+    this(issue, textRange, hashOrNull(textRangeContent), hashOrNull(lineContent));
+  }
+
+  /**
+   * Reuse the line hashes of the file, to avoid hashing the same line for every issue.
+   */
+  public static IssueTrackable withLineHashes(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, LineHashes lineHashes) {
+    return new IssueTrackable(issue, textRange, hashOrNull(textRangeContent), lineHashOrNull(issue, lineHashes));
+  }
+
+  private IssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable Integer textRangeHash, @Nullable Integer lineHash) {
     this.issue = issue;
     this.textRange = textRange;
-    this.textRangeHash = hashOrNull(textRangeContent);
-    this.lineHash = hashOrNull(lineContent);
+    this.textRangeHash = textRangeHash;
+    this.lineHash = lineHash;
   }
 
   private static Integer hashOrNull(@Nullable String content) {
-    return content != null ? digest(content).hashCode() : null;
+    return content != null ? digestHashCode(content) : null;
+  }
+
+  private static Integer lineHashOrNull(Issue issue, LineHashes lineHashes) {
+    Integer line = issue.getStartLine();
+    return line != null ? lineHashes.getLineHash(line) : null;
   }
 
   @Override
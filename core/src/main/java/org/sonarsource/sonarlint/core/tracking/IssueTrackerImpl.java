@@ -34,7 +34,7 @@ public class IssueTrackerImpl implements IssueTracker {
   @Override
   public Collection<Trackable> apply(Collection<Trackable> baseIssues, Collection<Trackable> nextIssues, boolean inheritSeverity) {
     Collection<Trackable> trackedIssues = new ArrayList<>();
-    Tracking<Trackable, Trackable> tracking = new Tracker<>().track(() -> nextIssues, () -> baseIssues);
+    Tracking<Trackable, Trackable> tracking = new PackedKeyTracker<>().track(() -> nextIssues, () -> baseIssues);
 
     tracking.getMatchedRaws().entrySet().stream()
       .map(e -> new CombinedTrackable(e.getValue(), e.getKey(), inheritSeverity))
@@ -0,0 +1,73 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+
+/**
+ * Hashes of all the lines of a file, computed once and shared by all the {@link IssueTrackable} of this file.
+ * Lines are separated by <code>\n</code>, <code>\r\n</code> or <code>\r</code>, and numbered from 1.
+ */
+public class LineHashes {
+
+  private final int[] hashes;
+
+  public LineHashes(CharSequence fileContent) {
+    int[] result = new int[16];
+    int lineCount = 0;
+    int lineStart = 0;
+    int length = fileContent.length();
+    for (int i = 0; i < length; i++) {
+      char c = fileContent.charAt(i);
+      if (c == '\n' || c == '\r') {
+        if (lineCount == result.length) {
+          result = Arrays.copyOf(result, lineCount * 2);
+        }
+        result[lineCount++] = DigestUtils.digestHashCode(fileContent, lineStart, i);
+        if (c == '\r' && i + 1 < length && fileContent.charAt(i + 1) == '\n') {
+          i++;
+        }
+        lineStart = i + 1;
+      }
+    }
+    if (lineCount == result.length) {
+      result = Arrays.copyOf(result, lineCount + 1);
+    }
+    result[lineCount++] = DigestUtils.digestHashCode(fileContent, lineStart, length);
+    this.hashes = lineCount == result.length ? result : Arrays.copyOf(result, lineCount);
+  }
+
+  public int lineCount() {
+    return hashes.length;
+  }
+
+  /**
+   * @return the hash of the given line, same as <code>DigestUtils.digest(lineContent).hashCode()</code>,
+   * or null if the line is not in the file
+   */
+  @CheckForNull
+  public Integer getLineHash(int line) {
+    if (line < 1 || line > hashes.length) {
+      return null;
+    }
+    return hashes[line - 1];
+  }
+}
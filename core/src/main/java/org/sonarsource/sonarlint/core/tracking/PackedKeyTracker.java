@@ -0,0 +1,383 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Match and track a collection of issues, following the same matching passes as {@link Tracker}.
+ * <p>
+ * Instead of building a new map of boxed search keys for each pass, the fields used by the search keys are read once from each
+ * trackable and stored in primitive arrays. Each pass then packs them into long keys, indexes the unmatched bases in a single
+ * reusable hash table, and unlinks matched bases from it in place.
+ *
+ * @param <R> type of the "raw" trackables that are in the incoming collection
+ * @param <B> type of the base trackables that are in the current collection
+ */
+public class PackedKeyTracker<R extends Trackable, B extends Trackable> {
+
+  private static final Pass[] PASSES = Pass.values();
+
+  public Tracking<R, B> track(TrackableSupplier<R> rawTrackableSupplier, TrackableSupplier<B> baseTrackableSupplier) {
+    Tracking<R, B> tracking = new Tracking<>(rawTrackableSupplier, baseTrackableSupplier);
+    List<R> raws = new ArrayList<>(tracking.getRaws());
+    List<B> bases = new ArrayList<>(tracking.getBases());
+    if (raws.isEmpty() || bases.isEmpty()) {
+      return tracking;
+    }
+
+    Dictionary ruleKeys = new Dictionary();
+    Dictionary messages = new Dictionary();
+    Dictionary serverIssueKeys = new Dictionary();
+    Keys baseKeys = Keys.ofBases(bases, ruleKeys, messages, serverIssueKeys);
+    Keys rawKeys = Keys.ofRaws(raws, ruleKeys, messages, serverIssueKeys);
+
+    boolean[] matchedRaws = new boolean[raws.size()];
+    boolean[] matchedBases = new boolean[bases.size()];
+    int maxMatches = Math.min(raws.size(), bases.size());
+    int matches = 0;
+    SearchIndex index = new SearchIndex(bases.size());
+    for (Pass pass : PASSES) {
+      if (matches == maxMatches) {
+        break;
+      }
+      index.clear();
+      for (int base = bases.size() - 1; base >= 0; base--) {
+        if (!matchedBases[base] && pass.isEligible(baseKeys, base)) {
+          index.addFirst(pass.key(baseKeys, base), base);
+        }
+      }
+      for (int raw = 0; raw < raws.size() && matches < maxMatches; raw++) {
+        if (matchedRaws[raw] || !pass.isEligible(rawKeys, raw)) {
+          continue;
+        }
+        int base = index.pollFirst(pass.key(rawKeys, raw), pass, rawKeys, raw, baseKeys);
+        if (base >= 0) {
+          matchedRaws[raw] = true;
+          matchedBases[base] = true;
+          matches++;
+          tracking.match(raws.get(raw), bases.get(base));
+        }
+      }
+    }
+
+    return tracking;
+  }
+
+  /**
+   * The matching passes, in the order they are applied. See {@link Tracker#track(TrackableSupplier, TrackableSupplier)}.
+   */
+  private enum Pass {
+    SERVER_ISSUE_KEY {
+      @Override
+      boolean isEligible(Keys keys, int i) {
+        return keys.serverIssueKeyIds[i] != Dictionary.ABSENT;
+      }
+
+      @Override
+      long key(Keys keys, int i) {
+        return keys.serverIssueKeyIds[i];
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.serverIssueKeyIds[raw] == bases.serverIssueKeyIds[base];
+      }
+    },
+    LINE_AND_TEXT_RANGE_HASH {
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.lines[i], keys.textRangeHashes[i]);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.lines[raw] == bases.lines[base]
+          && raws.textRangeHashes[raw] == bases.textRangeHashes[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    },
+    TEXT_RANGE_HASH_AND_MESSAGE {
+      @Override
+      boolean isEligible(Keys keys, int i) {
+        return super.isEligible(keys, i) && keys.messageIds[i] != Dictionary.ABSENT;
+      }
+
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.messageIds[i], keys.textRangeHashes[i]);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.textRangeHashes[raw] == bases.textRangeHashes[base]
+          && raws.messageIds[raw] == bases.messageIds[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    },
+    LINE_AND_MESSAGE {
+      @Override
+      boolean isEligible(Keys keys, int i) {
+        return super.isEligible(keys, i) && keys.messageIds[i] != Dictionary.ABSENT;
+      }
+
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.messageIds[i], keys.lines[i]);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.lines[raw] == bases.lines[base]
+          && raws.messageIds[raw] == bases.messageIds[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    },
+    TEXT_RANGE_HASH {
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.textRangeHashes[i], 0);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.textRangeHashes[raw] == bases.textRangeHashes[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    },
+    LINE_AND_LINE_HASH {
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.lines[i], keys.lineHashes[i]);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.lines[raw] == bases.lines[base]
+          && raws.lineHashes[raw] == bases.lineHashes[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    },
+    LINE_HASH {
+      @Override
+      long key(Keys keys, int i) {
+        return pack(keys.ruleKeyIds[i], keys.lineHashes[i], 0);
+      }
+
+      @Override
+      boolean sameKey(Keys raws, int raw, Keys bases, int base) {
+        return raws.lineHashes[raw] == bases.lineHashes[base]
+          && raws.ruleKeyIds[raw] == bases.ruleKeyIds[base];
+      }
+    };
+
+    /**
+     * A trackable without rule key (or without message, for passes comparing messages) never matches.
+     */
+    boolean isEligible(Keys keys, int i) {
+      return keys.ruleKeyIds[i] != Dictionary.ABSENT;
+    }
+
+    /**
+     * Packed search key. Different search keys can be packed into the same long, so candidates are always verified with
+     * {@link #sameKey(Keys, int, Keys, int)}.
+     */
+    abstract long key(Keys keys, int i);
+
+    abstract boolean sameKey(Keys raws, int raw, Keys bases, int base);
+
+    private static long pack(int id, long first, long second) {
+      long h = id * 0x9E3779B97F4A7C15L;
+      h = Long.rotateLeft(h ^ (first * 0xC2B2AE3D27D4EB4FL), 31);
+      return h ^ (second * 0x165667B19E3779F9L);
+    }
+  }
+
+  /**
+   * Assign an int id to each distinct string of the base trackables. Strings of raw trackables that are unknown to the bases
+   * can't match anything, so they are not added.
+   */
+  private static class Dictionary {
+    static final int ABSENT = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    int add(@Nullable String value) {
+      if (value == null) {
+        return ABSENT;
+      }
+      return ids.computeIfAbsent(value, v -> ids.size());
+    }
+
+    int find(@Nullable String value) {
+      if (value == null) {
+        return ABSENT;
+      }
+      return ids.getOrDefault(value, ABSENT);
+    }
+  }
+
+  /**
+   * Search key fields of a list of trackables, stored column-wise. Nullable integers are widened to longs, with null mapped to a
+   * value that no integer can take.
+   */
+  private static class Keys {
+    private static final long NULL_VALUE = Long.MIN_VALUE;
+
+    final int[] ruleKeyIds;
+    final int[] messageIds;
+    final int[] serverIssueKeyIds;
+    final long[] lines;
+    final long[] lineHashes;
+    final long[] textRangeHashes;
+
+    private Keys(int size) {
+      ruleKeyIds = new int[size];
+      messageIds = new int[size];
+      serverIssueKeyIds = new int[size];
+      lines = new long[size];
+      lineHashes = new long[size];
+      textRangeHashes = new long[size];
+    }
+
+    static Keys ofBases(List<? extends Trackable> bases, Dictionary ruleKeys, Dictionary messages, Dictionary serverIssueKeys) {
+      Keys keys = new Keys(bases.size());
+      for (int i = 0; i < bases.size(); i++) {
+        Trackable base = bases.get(i);
+        keys.ruleKeyIds[i] = ruleKeys.add(base.getRuleKey());
+        keys.messageIds[i] = messages.add(base.getMessage());
+        keys.serverIssueKeyIds[i] = serverIssueKeys.add(nullIfBlank(base.getServerIssueKey()));
+        keys.setNumbers(i, base);
+      }
+      return keys;
+    }
+
+    static Keys ofRaws(List<? extends Trackable> raws, Dictionary ruleKeys, Dictionary messages, Dictionary serverIssueKeys) {
+      Keys keys = new Keys(raws.size());
+      for (int i = 0; i < raws.size(); i++) {
+        Trackable raw = raws.get(i);
+        keys.ruleKeyIds[i] = ruleKeys.find(raw.getRuleKey());
+        keys.messageIds[i] = messages.find(raw.getMessage());
+        keys.serverIssueKeyIds[i] = serverIssueKeys.find(nullIfBlank(raw.getServerIssueKey()));
+        keys.setNumbers(i, raw);
+      }
+      return keys;
+    }
+
+    private void setNumbers(int i, Trackable trackable) {
+      lines[i] = toLong(trackable.getLine());
+      lineHashes[i] = toLong(trackable.getLineHash());
+      textRangeHashes[i] = toLong(trackable.getTextRangeHash());
+    }
+
+    private static long toLong(@Nullable Integer value) {
+      return value != null ? value : NULL_VALUE;
+    }
+
+    @Nullable
+    private static String nullIfBlank(@Nullable String s) {
+      return s == null || s.isEmpty() ? null : s;
+    }
+  }
+
+  /**
+   * Open addressing hash table from packed search keys to the list of base trackables having this key, in their original order.
+   * Lists are chained through the {@code next} array, indexed by base trackable.
+   */
+  private static class SearchIndex {
+    private static final int NONE = -1;
+    private static final int FREE = -2;
+
+    private final long[] keys;
+    private final int[] heads;
+    private final int[] next;
+    private final int mask;
+
+    SearchIndex(int size) {
+      int capacity = 2;
+      while (capacity < size * 2) {
+        capacity <<= 1;
+      }
+      keys = new long[capacity];
+      heads = new int[capacity];
+      next = new int[size];
+      mask = capacity - 1;
+    }
+
+    void clear() {
+      Arrays.fill(heads, FREE);
+    }
+
+    /**
+     * Bases must be added in reverse order, so that lists are in the original order.
+     */
+    void addFirst(long key, int base) {
+      int slot = slotOf(key);
+      if (heads[slot] == FREE) {
+        keys[slot] = key;
+        next[base] = NONE;
+      } else {
+        next[base] = heads[slot];
+      }
+      heads[slot] = base;
+    }
+
+    /**
+     * Find and unlink the first base having the same search key as the given raw.
+     *
+     * @return the index of the base, or -1 if none
+     */
+    int pollFirst(long key, Pass pass, Keys raws, int raw, Keys bases) {
+      int slot = slotOf(key);
+      int previous = NONE;
+      int current = heads[slot];
+      while (current >= 0) {
+        if (pass.sameKey(raws, raw, bases, current)) {
+          if (previous == NONE) {
+            heads[slot] = next[current];
+          } else {
+            next[previous] = next[current];
+          }
+          return current;
+        }
+        previous = current;
+        current = next[current];
+      }
+      return NONE;
+    }
+
+    /**
+     * Slots are never freed, even when their list becomes empty, so that probing sequences are not broken.
+     */
+    private int slotOf(long key) {
+      long h = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+      int slot = (int) (h ^ (h >>> 33)) & mask;
+      while (heads[slot] != FREE && keys[slot] != key) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
@@ -34,42 +35,51 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   static final int MAX_ENTRIES = 100;
 
   private final IssueStore store;
-  private final Map<String, Collection<Trackable>> cache;
+  private final int maxEntries;
+  private final long maxEstimatedBytes;
+  private final int writeBehindQueueSize;
 
-  public PersistentIssueTrackerCache(IssueStore store) {
-    this.store = store;
-    this.cache = new LimitedSizeLinkedHashMap();
-  }
+  /**
+   * Keeps the live entries, the entry accessed the longest time ago first.
+   */
+  private final LinkedHashMap<String, Collection<Trackable>> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private long cacheEstimatedBytes;
 
   /**
-   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
-   * is flushed into cache and removed from the map.
+   * Entries evicted from the cache and waiting to be written by the background writer.
    */
-  private class LimitedSizeLinkedHashMap extends LinkedHashMap<String, Collection<Trackable>> {
-    LimitedSizeLinkedHashMap() {
-      super(MAX_ENTRIES, 0.75f, true);
-    }
+  private Map<String, Collection<Trackable>> pending = new LinkedHashMap<>();
+  /**
+   * Entries being written by the background writer.
+   */
+  private Map<String, Collection<Trackable>> inFlight = Collections.emptyMap();
+  /**
+   * Last failure of the background writer, not reported yet. The entries it failed to write are back in {@link #pending}.
+   */
+  @CheckForNull
+  private Exception writeFailure;
+  @CheckForNull
+  private Thread writer;
+  private boolean shutdown;
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, Collection<Trackable>> eldest) {
-      if (size() <= MAX_ENTRIES) {
-        return false;
-      }
+  public PersistentIssueTrackerCache(IssueStore store) {
+    this(builder(store));
+  }
 
-      String key = eldest.getKey();
-      try {
-        LOGGER.debug("Persisting issues for " + key);
-        store.save(key, eldest.getValue());
-      } catch (IOException e) {
-        throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
-      }
-      return true;
-    }
+  private PersistentIssueTrackerCache(Builder builder) {
+    this.store = builder.store;
+    this.maxEntries = builder.maxEntries;
+    this.maxEstimatedBytes = builder.maxEstimatedBytes;
+    this.writeBehindQueueSize = builder.writeBehindQueueSize;
+  }
+
+  public static Builder builder(IssueStore store) {
+    return new Builder(store);
   }
 
   @Override
-  public boolean isFirstAnalysis(String file) {
-    return !cache.containsKey(file) && !store.contains(file);
+  public synchronized boolean isFirstAnalysis(String file) {
+    return !cache.containsKey(file) && !pending.containsKey(file) && !inFlight.containsKey(file) && !store.contains(file);
   }
 
   @Override
@@ -91,6 +101,10 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
     if (liveTrackables != null) {
       return liveTrackables;
     }
+    Collection<Trackable> evictedTrackables = pending.containsKey(file) ? pending.get(file) : inFlight.get(file);
+    if (evictedTrackables != null) {
+      return Collections.unmodifiableCollection(evictedTrackables);
+    }
 
     try {
       Collection<Trackable> storedTrackables = store.read(file);
@@ -105,32 +119,261 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
   @Override
   public synchronized void put(String file, Collection<Trackable> trackables) {
-    cache.put(file, trackables);
+    Collection<Trackable> previous = cache.put(file, trackables);
+    if (previous != null) {
+      cacheEstimatedBytes -= estimateSize(file, previous);
+    }
+    cacheEstimatedBytes += estimateSize(file, trackables);
+    evictIfNeeded();
+  }
+
+  /**
+   * On insertion, while a limit is passed, the entry accessed the longest time ago is flushed into the store and removed from the map.
+   * The most recent entry is always kept, even if it is bigger than the limit on its own.
+   * <p>
+   * With a background writer, all the evicted entries are queued first, and only then the caller waits for the writer to catch up.
+   */
+  private void evictIfNeeded() {
+    boolean enqueued = false;
+    while (cache.size() > 1 && (cache.size() > maxEntries || cacheEstimatedBytes > maxEstimatedBytes)) {
+      Map.Entry<String, Collection<Trackable>> eldest = cache.entrySet().iterator().next();
+      String key = eldest.getKey();
+      Collection<Trackable> trackables = eldest.getValue();
+      if (writeBehindQueueSize == 0) {
+        persist(key, trackables);
+      } else {
+        pending.put(key, trackables);
+        enqueued = true;
+      }
+      cache.remove(key);
+      cacheEstimatedBytes -= estimateSize(key, trackables);
+    }
+    if (enqueued) {
+      ensureWriterStarted();
+      notifyAll();
+      awaitQueueCapacity();
+    }
+  }
+
+  private void persist(String key, Collection<Trackable> trackables) {
+    try {
+      LOGGER.debug("Persisting issues for " + key);
+      store.save(key, trackables);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
+    }
+  }
+
+  /**
+   * Waits for the background writer if too many entries are queued. A failure of the writer is reported once to a caller, and the
+   * writer retries the entries it failed to write on the next eviction.
+   */
+  private void awaitQueueCapacity() {
+    while (true) {
+      if (writeFailure != null) {
+        Exception failure = writeFailure;
+        writeFailure = null;
+        notifyAll();
+        throw new IllegalStateException("Failed to persist issues", failure);
+      }
+      if (pending.size() <= writeBehindQueueSize) {
+        return;
+      }
+      awaitWriter();
+    }
+  }
+
+  private void ensureWriterStarted() {
+    if (writer == null) {
+      shutdown = false;
+      writer = new Thread(this::writeQueuedEntries, "sonarlint-issue-store-writer");
+      writer.setDaemon(true);
+      writer.start();
+    }
+  }
+
+  private void writeQueuedEntries() {
+    while (true) {
+      Map<String, Collection<Trackable>> batch;
+      synchronized (this) {
+        while ((pending.isEmpty() || writeFailure != null) && !shutdown) {
+          awaitWriter();
+        }
+        if (pending.isEmpty() || writeFailure != null) {
+          return;
+        }
+        batch = pending;
+        pending = new LinkedHashMap<>();
+        inFlight = batch;
+      }
+      try {
+        LOGGER.debug(String.format("Persisting issues for %d files", batch.size()));
+        store.saveAll(batch);
+      } catch (IOException | RuntimeException e) {
+        LOGGER.error("Failed to persist issues, they will be written again later", e);
+        requeue(batch, e);
+      } finally {
+        synchronized (this) {
+          inFlight = Collections.emptyMap();
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Entries evicted again while the batch was written are more recent than the ones that failed.
+   */
+  private synchronized void requeue(Map<String, Collection<Trackable>> failed, Exception failure) {
+    Map<String, Collection<Trackable>> merged = new LinkedHashMap<>(failed);
+    merged.keySet().removeAll(pending.keySet());
+    merged.putAll(pending);
+    pending = merged;
+    writeFailure = failure;
+  }
+
+  private void awaitWriter() {
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for issues to be persisted", e);
+    }
+  }
+
+  /**
+   * Waits until the background writer has written everything it has already taken.
+   */
+  private void awaitInFlight() {
+    while (!inFlight.isEmpty()) {
+      awaitWriter();
+    }
   }
 
   @Override
   public synchronized void clear() {
+    pending.clear();
+    awaitInFlight();
+    // a batch that failed meanwhile was queued again
+    pending.clear();
+    writeFailure = null;
     store.clear();
     cache.clear();
+    cacheEstimatedBytes = 0;
+    notifyAll();
   }
 
   /**
-   * Flushes all cached entries to disk.
+   * Flushes all cached and queued entries to disk.
    * It does not clear the cache.
    */
   public synchronized void flushAll() {
     LOGGER.debug("Persisting all issues");
-    cache.forEach((path, trackables) -> {
-      try {
-        store.save(path, trackables);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to flush cache", e);
-      }
-    });
+    awaitInFlight();
+    Map<String, Collection<Trackable>> toSave = new LinkedHashMap<>(pending);
+    toSave.putAll(cache);
+    try {
+      store.saveAll(toSave);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to flush cache", e);
+    }
+    pending.clear();
+    writeFailure = null;
+    notifyAll();
   }
 
+  /**
+   * The background writer is stopped even if the final flush fails.
+   */
   @Override
-  public synchronized void shutdown() {
-    flushAll();
+  public void shutdown() {
+    try {
+      flushAll();
+    } finally {
+      Thread writerToStop;
+      synchronized (this) {
+        shutdown = true;
+        notifyAll();
+        writerToStop = writer;
+        writer = null;
+      }
+      if (writerToStop != null) {
+        try {
+          writerToStop.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * Rough estimation of the memory retained by the issues of a file, good enough to bound the size of the cache.
+   */
+  static long estimateSize(String file, Collection<Trackable> trackables) {
+    long size = 64L + 2L * file.length();
+    for (Trackable trackable : trackables) {
+      size += 128L + 2L * (length(trackable.getRuleKey()) + length(trackable.getMessage()) + length(trackable.getServerIssueKey())
+        + length(trackable.getAssignee()));
+    }
+    return size;
+  }
+
+  private static int length(@CheckForNull String value) {
+    return value != null ? value.length() : 0;
+  }
+
+  public static class Builder {
+    private final IssueStore store;
+    private int maxEntries = MAX_ENTRIES;
+    private long maxEstimatedBytes = Long.MAX_VALUE;
+    private int writeBehindQueueSize = 0;
+
+    private Builder(IssueStore store) {
+      this.store = store;
+    }
+
+    /**
+     * Maximum number of files kept in memory. Defaults to {@value PersistentIssueTrackerCache#MAX_ENTRIES}.
+     * @return this
+     */
+    public Builder setMaxEntries(int maxEntries) {
+      if (maxEntries < 1) {
+        throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+      }
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Maximum estimated size in bytes of the issues kept in memory. Not limited by default.
+     * @return this
+     */
+    public Builder setMaxEstimatedBytes(long maxEstimatedBytes) {
+      if (maxEstimatedBytes < 1) {
+        throw new IllegalArgumentException("Max estimated bytes must be positive: " + maxEstimatedBytes);
+      }
+      this.maxEstimatedBytes = maxEstimatedBytes;
+      return this;
+    }
+
+    /**
+     * If set, entries evicted from memory are written to the store by a background thread, in batches, instead of during
+     * {@link PersistentIssueTrackerCache#put(String, Collection)}. At most the given number of entries wait to be written, beyond that
+     * callers are blocked until the writer catches up. Queued entries are written by {@link PersistentIssueTrackerCache#shutdown()}.
+     * By default entries are written synchronously.
+     * @return this
+     */
+    public Builder setWriteBehindQueueSize(int writeBehindQueueSize) {
+      if (writeBehindQueueSize < 1) {
+        throw new IllegalArgumentException("Write-behind queue size must be positive: " + writeBehindQueueSize);
+      }
+      this.writeBehindQueueSize = writeBehindQueueSize;
+      return this;
+    }
+
+    public PersistentIssueTrackerCache build() {
+      return new PersistentIssueTrackerCache(this);
+    }
   }
 }
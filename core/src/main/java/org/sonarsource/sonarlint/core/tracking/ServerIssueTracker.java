@@ -19,27 +19,54 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 public class ServerIssueTracker {
 
   private static final Logger LOGGER = Loggers.get(ServerIssueTracker.class);
 
+  static final int DEFAULT_PARALLELISM = 4;
+  private static final long CANCEL_CHECK_PERIOD_MS = 100;
+
   private final CachingIssueTracker issueTracker;
+  private final int parallelism;
 
   public ServerIssueTracker(CachingIssueTracker issueTracker) {
+    this(issueTracker, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * @param parallelism maximum number of files loaded and matched concurrently by the bulk update methods
+   */
+  public ServerIssueTracker(CachingIssueTracker issueTracker, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism should be at least 1");
+    }
     this.issueTracker = issueTracker;
+    this.parallelism = parallelism;
   }
 
   public void update(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine, ProjectBinding projectBinding,
@@ -51,12 +78,32 @@ public class ServerIssueTracker {
     update(fileKeys, fileKey -> engine.getServerIssues(projectBinding, fileKey));
   }
 
+  /**
+   * Same as {@link #update(EndpointParams, HttpClient, ConnectedSonarLintEngine, ProjectBinding, Collection, boolean)}, but files
+   * are downloaded and matched concurrently. Failure on one file doesn't prevent the others from being updated.
+   *
+   * @throws CanceledException if the monitor is canceled. Files already matched remain updated.
+   */
+  public void bulkUpdate(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine, ProjectBinding projectBinding,
+    Collection<String> fileKeys, boolean fetchTaintVulnerabilities, @Nullable ProgressMonitor monitor) {
+    bulkUpdate(fileKeys, fileKey -> fetchServerIssues(endpoint, client, engine, projectBinding, fileKey, fetchTaintVulnerabilities),
+      new ProgressWrapper(monitor));
+  }
+
+  /**
+   * Same as {@link #update(ConnectedSonarLintEngine, ProjectBinding, Collection)}, but files are read and matched concurrently.
+   * Failure on one file doesn't prevent the others from being updated.
+   *
+   * @throws CanceledException if the monitor is canceled. Files already matched remain updated.
+   */
+  public void bulkUpdate(ConnectedSonarLintEngine engine, ProjectBinding projectBinding, Collection<String> fileKeys, @Nullable ProgressMonitor monitor) {
+    bulkUpdate(fileKeys, fileKey -> engine.getServerIssues(projectBinding, fileKey), new ProgressWrapper(monitor));
+  }
+
   private void update(Collection<String> fileKeys, Function<String, List<ServerIssue>> issueGetter) {
     try {
       for (String fileKey : fileKeys) {
-        List<ServerIssue> serverIssues = issueGetter.apply(fileKey);
-        Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
-        issueTracker.matchAndTrackAsBase(fileKey, serverIssuesTrackable);
+        matchServerIssues(fileKey, issueGetter);
       }
     } catch (Exception e) {
       String message = "error while fetching and matching server issues";
@@ -64,6 +111,66 @@ public class ServerIssueTracker {
     }
   }
 
+  private void bulkUpdate(Collection<String> fileKeys, Function<String, List<ServerIssue>> issueGetter, ProgressWrapper progress) {
+    if (fileKeys.isEmpty()) {
+      return;
+    }
+    int total = fileKeys.size();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, total), r -> {
+      Thread thread = new Thread(r, "sonarlint-server-issue-tracker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Future<?>> futures = new ArrayList<>(total);
+    try {
+      for (String fileKey : fileKeys) {
+        futures.add(executor.submit(() -> {
+          if (progress.isCanceled()) {
+            return;
+          }
+          try {
+            matchServerIssues(fileKey, issueGetter);
+          } catch (Exception e) {
+            LOGGER.error("error while fetching and matching server issues of " + fileKey, e);
+          }
+        }));
+      }
+      // progress is only reported from the calling thread, monitors are not expected to be thread safe
+      for (int i = 0; i < total; i++) {
+        waitFor(futures.get(i), progress);
+        progress.setProgress("Matching server issues", (i + 1) / (float) total);
+      }
+    } finally {
+      // tasks that didn't start are dropped, running ones are not interrupted so that they complete their cache update
+      futures.forEach(f -> f.cancel(false));
+      executor.shutdown();
+    }
+  }
+
+  private static void waitFor(Future<?> future, ProgressWrapper progress) {
+    while (true) {
+      progress.checkCancel();
+      try {
+        future.get(CANCEL_CHECK_PERIOD_MS, TimeUnit.MILLISECONDS);
+        return;
+      } catch (TimeoutException e) {
+        // check cancellation again
+      } catch (CancellationException | ExecutionException e) {
+        // failures are logged by the task itself
+        return;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CanceledException();
+      }
+    }
+  }
+
+  private void matchServerIssues(String fileKey, Function<String, List<ServerIssue>> issueGetter) {
+    List<ServerIssue> serverIssues = issueGetter.apply(fileKey);
+    Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
+    issueTracker.matchAndTrackAsBase(fileKey, serverIssuesTrackable);
+  }
+
   private static List<ServerIssue> fetchServerIssues(EndpointParams endpoint, HttpClient client, ConnectedSonarLintEngine engine,
     ProjectBinding projectBinding, String ideFilePath, boolean fetchTaintVulnerabilities) {
     try {
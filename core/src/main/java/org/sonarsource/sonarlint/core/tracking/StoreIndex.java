@@ -21,6 +21,7 @@ package org.sonarsource.sonarlint.core.tracking;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Map;
 
 interface StoreIndex<T> {
   Collection<T> keys();
@@ -28,4 +29,12 @@ interface StoreIndex<T> {
   void save(T key, Path path);
 
   void delete(T key);
+
+  default void save(Map<T, Path> pathByKey) {
+    pathByKey.forEach(this::save);
+  }
+
+  default void delete(Collection<T> keys) {
+    keys.forEach(this::delete);
+  }
 }
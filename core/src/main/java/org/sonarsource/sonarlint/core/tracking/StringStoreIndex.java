@@ -19,21 +19,52 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.core.proto.Sonarlint;
 
+/**
+ * Index kept in memory. Changes are appended to a journal next to the index file, and the index file is only rewritten
+ * (checkpoint) once the journal has as many entries as the index itself, so that each change costs O(1) amortized.
+ */
 class StringStoreIndex implements StoreIndex<String> {
+  private static final Logger LOGGER = Loggers.get(StringStoreIndex.class);
+
   private static final String DEFAULT_INDEX_FILENAME = "index.pb";
+  private static final String JOURNAL_SUFFIX = ".wal";
+  static final int MIN_CHECKPOINT_ENTRIES = 1024;
+
+  private static final byte OP_SAVE = 1;
+  private static final byte OP_DELETE = 2;
 
   private final Path storeBasePath;
   private final Path indexFilePath;
+  private final Path journalFilePath;
+
+  @CheckForNull
+  private Map<String, String> mappedPathByKey;
+  private int journalEntries;
 
   public StringStoreIndex(Path storeBasePath) {
     this(storeBasePath, DEFAULT_INDEX_FILENAME);
@@ -42,14 +73,76 @@ class StringStoreIndex implements StoreIndex<String> {
   protected StringStoreIndex(Path storeBasePath, String indexFileName) {
     this.storeBasePath = storeBasePath;
     this.indexFilePath = storeBasePath.resolve(indexFileName);
+    this.journalFilePath = storeBasePath.resolve(indexFileName + JOURNAL_SUFFIX);
   }
 
   @Override
-  public Collection<String> keys() {
-    return load().keySet();
+  public synchronized Collection<String> keys() {
+    return new ArrayList<>(load().keySet());
+  }
+
+  @Override
+  public void save(String storageKey, Path path) {
+    save(Collections.singletonMap(storageKey, path));
+  }
+
+  @Override
+  public synchronized void save(Map<String, Path> pathByKey) {
+    Map<String, String> index = load();
+    Map<String, String> changed = new LinkedHashMap<>();
+    pathByKey.forEach((key, path) -> {
+      String relativeMappedPath = storeBasePath.relativize(path).toString();
+      if (!relativeMappedPath.equals(index.get(key))) {
+        changed.put(key, relativeMappedPath);
+      }
+    });
+    if (changed.isEmpty()) {
+      return;
+    }
+    appendToJournal(changed);
+    index.putAll(changed);
+    checkpointIfNeeded();
+  }
+
+  @Override
+  public void delete(String storageKey) {
+    delete(Collections.singleton(storageKey));
+  }
+
+  @Override
+  public synchronized void delete(Collection<String> storageKeys) {
+    Map<String, String> index = load();
+    Map<String, String> removed = new LinkedHashMap<>();
+    storageKeys.stream()
+      .filter(index::containsKey)
+      .forEach(key -> removed.put(key, null));
+    if (removed.isEmpty()) {
+      return;
+    }
+    appendToJournal(removed);
+    index.keySet().removeAll(removed.keySet());
+    checkpointIfNeeded();
+  }
+
+  /**
+   * Forgets the in-memory index, to be called when the files of the store have been deleted.
+   */
+  synchronized void reset() {
+    mappedPathByKey = null;
+    journalEntries = 0;
   }
 
   private Map<String, String> load() {
+    if (mappedPathByKey == null) {
+      Map<String, String> index = new HashMap<>(readIndexFile());
+      journalEntries = replayJournal(index);
+      mappedPathByKey = index;
+      checkpointIfNeeded();
+    }
+    return mappedPathByKey;
+  }
+
+  private Map<String, String> readIndexFile() {
     if (!indexFilePath.toFile().exists()) {
       return Collections.emptyMap();
     }
@@ -60,28 +153,113 @@ class StringStoreIndex implements StoreIndex<String> {
     }
   }
 
-  @Override
-  public void save(String storageKey, Path path) {
-    String relativeMappedPath = storeBasePath.relativize(path).toString();
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.putMappedPathByKey(storageKey, relativeMappedPath);
-    save(builder.build());
+  private int replayJournal(Map<String, String> index) {
+    if (!journalFilePath.toFile().exists()) {
+      return 0;
+    }
+    byte[] journal;
+    try {
+      journal = Files.readAllBytes(journalFilePath);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read local issue store index journal", e);
+    }
+    ByteArrayInputStream bytes = new ByteArrayInputStream(journal);
+    DataInputStream input = new DataInputStream(bytes);
+    int entries = 0;
+    int validLength = 0;
+    try {
+      while (bytes.available() > 0) {
+        byte op = input.readByte();
+        String key = input.readUTF();
+        if (op == OP_SAVE) {
+          index.put(key, input.readUTF());
+        } else if (op == OP_DELETE) {
+          index.remove(key);
+        } else {
+          break;
+        }
+        entries++;
+        validLength = journal.length - bytes.available();
+      }
+    } catch (EOFException e) {
+      // last entry was not completely written, ignore it
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read local issue store index journal", e);
+    }
+    if (validLength < journal.length) {
+      LOGGER.debug("Discarding incomplete entries of local issue store index journal");
+      truncateJournal(validLength);
+    }
+    return entries;
   }
 
-  @Override
-  public void delete(String storageKey) {
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.removeMappedPathByKey(storageKey);
-    save(builder.build());
+  private void truncateJournal(long length) {
+    try (FileChannel channel = FileChannel.open(journalFilePath, StandardOpenOption.WRITE)) {
+      channel.truncate(length);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write local issue store index journal", e);
+    }
   }
 
-  private void save(Sonarlint.StorageIndex index) {
-    try (OutputStream stream = Files.newOutputStream(indexFilePath)) {
-      index.writeTo(stream);
+  /**
+   * Appends the changes to the journal, a null mapped path meaning that the key was deleted.
+   */
+  private void appendToJournal(Map<String, String> changes) {
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+      Files.newOutputStream(journalFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+      for (Map.Entry<String, String> change : changes.entrySet()) {
+        if (change.getValue() != null) {
+          output.writeByte(OP_SAVE);
+          output.writeUTF(change.getKey());
+          output.writeUTF(change.getValue());
+        } else {
+          output.writeByte(OP_DELETE);
+          output.writeUTF(change.getKey());
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write local issue store index journal", e);
+    }
+    journalEntries += changes.size();
+  }
+
+  private void checkpointIfNeeded() {
+    if (journalEntries >= Math.max(MIN_CHECKPOINT_ENTRIES, mappedPathByKey.size())) {
+      checkpoint();
+    }
+  }
+
+  /**
+   * Writes the whole index to the index file and empties the journal. The index file is replaced atomically, and the journal
+   * is only removed afterwards, so that replaying it on top of either version of the index file gives the same result.
+   */
+  synchronized void checkpoint() {
+    Map<String, String> index = load();
+    Path tmpFilePath = indexFilePath.resolveSibling(indexFilePath.getFileName() + ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(tmpFilePath)) {
+        Sonarlint.StorageIndex.newBuilder()
+          .putAllMappedPathByKey(index)
+          .build()
+          .writeTo(stream);
+      }
+      moveAtomically(tmpFilePath, indexFilePath);
+      Files.deleteIfExists(journalFilePath);
     } catch (IOException e) {
       throw new IllegalStateException("Failed to write local issue store index", e);
     }
+    journalEntries = 0;
+  }
+
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  int journalEntries() {
+    return journalEntries;
   }
 }
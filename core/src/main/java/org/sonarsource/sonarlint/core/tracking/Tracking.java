@@ -36,8 +36,8 @@ public class Tracking<R extends Trackable, B extends Trackable> {
   /**
    * Matched issues -> a raw issue is associated to a base issue
    */
-  private final IdentityHashMap<R, B> rawToBase = new IdentityHashMap<>();
-  private final IdentityHashMap<B, R> baseToRaw = new IdentityHashMap<>();
+  private final IdentityHashMap<R, B> rawToBase;
+  private final IdentityHashMap<B, R> baseToRaw;
 
   private final Collection<R> raws;
   private final Collection<B> bases;
@@ -45,6 +45,9 @@ public class Tracking<R extends Trackable, B extends Trackable> {
   public Tracking(TrackableSupplier<R> rawTrackableSupplier, TrackableSupplier<B> baseTrackableSupplier) {
     this.raws = rawTrackableSupplier.get();
     this.bases = baseTrackableSupplier.get();
+    int expectedMatches = Math.min(raws.size(), bases.size());
+    this.rawToBase = new IdentityHashMap<>(expectedMatches);
+    this.baseToRaw = new IdentityHashMap<>(expectedMatches);
   }
 
   /**
@@ -79,6 +82,14 @@ public class Tracking<R extends Trackable, B extends Trackable> {
     return result;
   }
 
+  Collection<R> getRaws() {
+    return raws;
+  }
+
+  Collection<B> getBases() {
+    return bases;
+  }
+
   void match(R raw, B base) {
     rawToBase.put(raw, base);
     baseToRaw.put(base, raw);
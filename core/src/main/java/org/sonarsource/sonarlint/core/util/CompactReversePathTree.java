@@ -0,0 +1,262 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable version of {@link ReversePathTree}, designed to index a large number of paths once and to be persisted.
+ * Path segments are interned and referenced by their index in a sorted array. Nodes are numbered in breadth-first order,
+ * children of a node being contiguous and sorted by segment, so that the tree is only made of a few primitive arrays.
+ */
+public class CompactReversePathTree {
+
+  private static final int ROOT = 0;
+
+  private final String[] segments;
+  // parent and segment of each node, unused for the root
+  private final int[] nodeParents;
+  private final int[] nodeSegments;
+  private final BitSet terminals;
+  // children of node n are the nodes from firstChild[n] to firstChild[n + 1] (exclusive)
+  private final int[] firstChild;
+
+  /**
+   * @param segments sorted distinct path segments
+   * @param parents parent of each node but the root, in breadth-first order
+   * @param nodeSegments index of the segment of each node but the root, sorted for the children of a same node
+   * @param terminalNodes nodes ending an indexed path
+   */
+  public CompactReversePathTree(String[] segments, int[] parents, int[] nodeSegments, int[] terminalNodes) {
+    if (parents.length != nodeSegments.length) {
+      throw new IllegalArgumentException("Inconsistent tree: " + parents.length + " parents for " + nodeSegments.length + " nodes");
+    }
+    int nodeCount = parents.length + 1;
+    this.segments = segments;
+    this.nodeParents = new int[nodeCount];
+    this.nodeSegments = new int[nodeCount];
+    System.arraycopy(parents, 0, this.nodeParents, 1, parents.length);
+    System.arraycopy(nodeSegments, 0, this.nodeSegments, 1, nodeSegments.length);
+    this.terminals = new BitSet(nodeCount);
+    for (int terminal : terminalNodes) {
+      terminals.set(terminal);
+    }
+    this.firstChild = new int[nodeCount + 1];
+    int node = 1;
+    for (int n = 0; n < nodeCount; n++) {
+      firstChild[n] = node;
+      while (node < nodeCount && nodeParents[node] == n && n < node) {
+        node++;
+      }
+    }
+    firstChild[nodeCount] = nodeCount;
+    if (node != nodeCount) {
+      throw new IllegalArgumentException("Inconsistent tree: nodes are not in breadth-first order");
+    }
+  }
+
+  /**
+   * @param paths paths using '/' as separator
+   */
+  public static CompactReversePathTree build(Collection<String> paths) {
+    return new Builder(paths).build();
+  }
+
+  public String[] segments() {
+    return segments;
+  }
+
+  public int[] parents() {
+    return Arrays.copyOfRange(nodeParents, 1, nodeParents.length);
+  }
+
+  public int[] nodeSegments() {
+    return Arrays.copyOfRange(nodeSegments, 1, nodeSegments.length);
+  }
+
+  public int[] terminalNodes() {
+    return terminals.stream().toArray();
+  }
+
+  /**
+   * Same as {@link ReversePathTree#findLongestSuffixMatches(Path)}.
+   */
+  public ReversePathTree.Match findLongestSuffixMatches(Path path) {
+    int currentNode = ROOT;
+    int matchLen = 0;
+
+    while (matchLen < path.getNameCount()) {
+      int nextNode = getChild(currentNode, path.getName(path.getNameCount() - matchLen - 1).toString());
+      if (nextNode < 0) {
+        break;
+      }
+      matchLen++;
+      currentNode = nextNode;
+    }
+
+    List<Path> prefixes = new ArrayList<>();
+    if (matchLen > 0) {
+      collectPrefixes(currentNode, prefixes);
+    }
+    return new ReversePathTree.Match(prefixes, matchLen);
+  }
+
+  private int getChild(int node, String name) {
+    int segment = Arrays.binarySearch(segments, name);
+    if (segment < 0) {
+      return -1;
+    }
+    int child = Arrays.binarySearch(nodeSegments, firstChild[node], firstChild[node + 1], segment);
+    return child >= 0 ? child : -1;
+  }
+
+  private void collectPrefixes(int matchedNode, List<Path> prefixes) {
+    // children have a greater index than their parent, and are contiguous, so the subtree is covered level by level
+    int levelStart = matchedNode;
+    int levelEnd = matchedNode + 1;
+    while (levelStart < levelEnd) {
+      for (int node = levelStart; node < levelEnd; node++) {
+        if (terminals.get(node)) {
+          prefixes.add(prefix(node, matchedNode));
+        }
+      }
+      levelStart = firstChild[levelStart];
+      levelEnd = firstChild[levelEnd];
+    }
+  }
+
+  private Path prefix(int node, int matchedNode) {
+    if (node == matchedNode) {
+      return Paths.get("");
+    }
+    List<String> names = new ArrayList<>();
+    for (int n = node; n != matchedNode; n = nodeParents[n]) {
+      names.add(segments[nodeSegments[n]]);
+    }
+    return Paths.get(names.get(0), names.subList(1, names.size()).toArray(new String[0]));
+  }
+
+  private static class Builder {
+    private final Map<String, Integer> segmentIds = new HashMap<>();
+    private final Map<Long, Integer> childByParentAndSegment = new HashMap<>();
+    private final List<String> segmentNames = new ArrayList<>();
+    private int[] parents = new int[1024];
+    private int[] segmentOfNodes = new int[1024];
+    private final BitSet terminals = new BitSet();
+    private int nodeCount = 1;
+
+    Builder(Collection<String> paths) {
+      for (String path : paths) {
+        index(path);
+      }
+    }
+
+    private void index(String path) {
+      int node = ROOT;
+      int end = path.length();
+      boolean indexed = false;
+      for (int i = end - 1; i >= -1; i--) {
+        if (i == -1 || path.charAt(i) == '/') {
+          if (i + 1 < end) {
+            node = getOrCreateChild(node, intern(path.substring(i + 1, end)));
+            indexed = true;
+          }
+          end = i;
+        }
+      }
+      if (indexed) {
+        terminals.set(node);
+      }
+    }
+
+    private int intern(String segment) {
+      return segmentIds.computeIfAbsent(segment, s -> {
+        segmentNames.add(s);
+        return segmentNames.size() - 1;
+      });
+    }
+
+    private int getOrCreateChild(int parent, int segment) {
+      return childByParentAndSegment.computeIfAbsent(((long) parent << 32) | segment, k -> {
+        if (nodeCount == parents.length) {
+          parents = Arrays.copyOf(parents, nodeCount * 2);
+          segmentOfNodes = Arrays.copyOf(segmentOfNodes, nodeCount * 2);
+        }
+        parents[nodeCount] = parent;
+        segmentOfNodes[nodeCount] = segment;
+        return nodeCount++;
+      });
+    }
+
+    CompactReversePathTree build() {
+      String[] sortedSegments = segmentNames.toArray(new String[0]);
+      Arrays.sort(sortedSegments);
+      int[] sortedSegmentIds = new int[sortedSegments.length];
+      for (int i = 0; i < sortedSegments.length; i++) {
+        sortedSegmentIds[segmentIds.get(sortedSegments[i])] = i;
+      }
+
+      // children of each node, as (sorted segment, node) pairs grouped by parent
+      int[] childStart = new int[nodeCount + 1];
+      for (int n = 1; n < nodeCount; n++) {
+        childStart[parents[n] + 1]++;
+      }
+      for (int n = 0; n < nodeCount; n++) {
+        childStart[n + 1] += childStart[n];
+      }
+      long[] children = new long[nodeCount - 1];
+      int[] next = Arrays.copyOf(childStart, nodeCount);
+      for (int n = 1; n < nodeCount; n++) {
+        children[next[parents[n]]++] = ((long) sortedSegmentIds[segmentOfNodes[n]] << 32) | n;
+      }
+
+      // breadth-first numbering, children sorted by segment
+      int[] order = new int[nodeCount];
+      int[] newIndex = new int[nodeCount];
+      int count = 1;
+      for (int i = 0; i < count; i++) {
+        int node = order[i];
+        Arrays.sort(children, childStart[node], childStart[node + 1]);
+        for (int c = childStart[node]; c < childStart[node + 1]; c++) {
+          int child = (int) children[c];
+          newIndex[child] = count;
+          order[count++] = child;
+        }
+      }
+
+      int[] newParents = new int[nodeCount - 1];
+      int[] newSegments = new int[nodeCount - 1];
+      for (int i = 1; i < nodeCount; i++) {
+        newParents[i - 1] = newIndex[parents[order[i]]];
+        newSegments[i - 1] = sortedSegmentIds[segmentOfNodes[order[i]]];
+      }
+      int[] newTerminals = terminals.stream().map(n -> newIndex[n]).sorted().toArray();
+      return new CompactReversePathTree(sortedSegments, newParents, newSegments, newTerminals);
+    }
+  }
+}
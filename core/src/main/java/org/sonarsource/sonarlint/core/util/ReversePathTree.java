@@ -193,7 +193,7 @@ public class ReversePathTree {
     private List<Path> paths;
     private int matchLen;
 
-    private Match(List<Path> paths, int matchLen) {
+    Match(List<Path> paths, int matchLen) {
       this.paths = paths;
       this.matchLen = matchLen;
     }
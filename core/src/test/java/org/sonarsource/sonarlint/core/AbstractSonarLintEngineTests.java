@@ -24,26 +24,32 @@ import org.junit.jupiter.api.Test;
 import org.sonarsource.sonarlint.core.client.api.common.AbstractAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.common.LogOutput;
 import org.sonarsource.sonarlint.core.client.api.common.PluginDetails;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
 import org.sonarsource.sonarlint.core.container.module.ModuleContainer;
 import org.sonarsource.sonarlint.core.container.module.ModuleRegistry;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AbstractSonarLintEngineTests {
 
   private static final String MODULE_KEY = "moduleKey";
 
+  private final ModuleRegistry mockModuleRegistry = mock(ModuleRegistry.class);
+
   @Test
   void testThrowOnStop() {
     ModuleContainer mockedModuleContainerThatFailsOnStop = mock(ModuleContainer.class);
     IllegalStateException onStopException = new IllegalStateException("Exception during container stop");
-    when(mockedModuleContainerThatFailsOnStop.stopComponents()).thenThrow(onStopException);
 
     AbstractSonarLintEngine underTest = prepareFakeEngine(mockedModuleContainerThatFailsOnStop);
+    doThrow(onStopException).when(mockModuleRegistry).releasePooledContainer(mockedModuleContainerThatFailsOnStop);
 
     AbstractAnalysisConfiguration configuration = mock(AbstractAnalysisConfiguration.class);
     when(configuration.moduleKey()).thenReturn(MODULE_KEY);
@@ -58,9 +64,9 @@ class AbstractSonarLintEngineTests {
   void dontLoseOriginalExceptionWhenErrorDuringModuleContainerStop() {
     ModuleContainer mockedModuleContainerThatFailsOnStop = mock(ModuleContainer.class);
     IllegalStateException onStopException = new IllegalStateException("Exception during container stop");
-    when(mockedModuleContainerThatFailsOnStop.stopComponents()).thenThrow(onStopException);
 
     AbstractSonarLintEngine underTest = prepareFakeEngine(mockedModuleContainerThatFailsOnStop);
+    doThrow(onStopException).when(mockModuleRegistry).releasePooledContainer(mockedModuleContainerThatFailsOnStop);
 
     AbstractAnalysisConfiguration configuration = mock(AbstractAnalysisConfiguration.class);
     when(configuration.moduleKey()).thenReturn(MODULE_KEY);
@@ -75,9 +81,40 @@ class AbstractSonarLintEngineTests {
 
   }
 
-  private AbstractSonarLintEngine prepareFakeEngine(ModuleContainer mockedModuleContainerThatFailsOnStop) {
-    ModuleRegistry mockModuleRegistry = mock(ModuleRegistry.class);
+  @Test
+  void shouldAcquireAndReleaseDeclaredModuleContainer() {
+    ModuleContainer declaredModuleContainer = mock(ModuleContainer.class);
+    AbstractSonarLintEngine underTest = prepareFakeEngine(mock(ModuleContainer.class));
+    when(mockModuleRegistry.acquireContainerFor(MODULE_KEY)).thenReturn(declaredModuleContainer);
+
+    AbstractAnalysisConfiguration configuration = mock(AbstractAnalysisConfiguration.class);
+    when(configuration.moduleKey()).thenReturn(MODULE_KEY);
+
+    ComponentContainer usedContainer = underTest.withModule(configuration, c -> c);
+
+    assertThat(usedContainer).isSameAs(declaredModuleContainer);
+
+    verify(mockModuleRegistry).releaseContainer(declaredModuleContainer);
+    verify(mockModuleRegistry, never()).acquirePooledContainer(any());
+  }
+
+  @Test
+  void shouldReturnPooledContainerAfterAnalysisOutsideOfAnyModule() {
+    ModuleContainer pooledModuleContainer = mock(ModuleContainer.class);
+    AbstractSonarLintEngine underTest = prepareFakeEngine(pooledModuleContainer);
+
+    AbstractAnalysisConfiguration configuration = mock(AbstractAnalysisConfiguration.class);
+    when(configuration.moduleKey()).thenReturn(MODULE_KEY);
+
+    ComponentContainer usedContainer = underTest.withModule(configuration, c -> c);
+
+    assertThat(usedContainer).isSameAs(pooledModuleContainer);
+
+    verify(mockModuleRegistry).releasePooledContainer(pooledModuleContainer);
+    verify(pooledModuleContainer, never()).stopComponents();
+  }
 
+  private AbstractSonarLintEngine prepareFakeEngine(ModuleContainer pooledModuleContainer) {
     AbstractSonarLintEngine underTest = new AbstractSonarLintEngine(mock(LogOutput.class)) {
 
       @Override
@@ -90,8 +127,8 @@ class AbstractSonarLintEngineTests {
         return mockModuleRegistry;
       }
     };
-    when(mockModuleRegistry.getContainerFor(MODULE_KEY)).thenReturn(null);
-    when(mockModuleRegistry.createContainer(any())).thenReturn(mockedModuleContainerThatFailsOnStop);
+    when(mockModuleRegistry.acquireContainerFor(MODULE_KEY)).thenReturn(null);
+    when(mockModuleRegistry.acquirePooledContainer(any())).thenReturn(pooledModuleContainer);
     return underTest;
   }
 
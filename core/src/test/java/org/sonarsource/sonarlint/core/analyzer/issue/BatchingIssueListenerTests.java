@@ -0,0 +1,169 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchingIssueListenerTests {
+
+  private static final Duration LONG_LATENCY = Duration.ofMinutes(10);
+
+  private final ClientInputFile file1 = mock(ClientInputFile.class);
+  private final ClientInputFile file2 = mock(ClientInputFile.class);
+  private final List<List<Issue>> batches = new CopyOnWriteArrayList<>();
+
+  @Test
+  void deliver_batches_per_file_and_size_on_close() {
+    List<Issue> issues = new ArrayList<>();
+    BatchingIssueListener underTest = new BatchingIssueListener(batches::add, config(2, LONG_LATENCY, true));
+    for (ClientInputFile file : new ClientInputFile[] {file1, file1, file1, file2, file1}) {
+      Issue issue = issueOn(file);
+      issues.add(issue);
+      underTest.handle(issue);
+    }
+
+    underTest.close();
+
+    assertThat(batches).containsExactly(
+      List.of(issues.get(0), issues.get(1)),
+      List.of(issues.get(2)),
+      List.of(issues.get(3)),
+      List.of(issues.get(4)));
+  }
+
+  @Test
+  void mix_files_when_not_grouped_by_file() {
+    BatchingIssueListener underTest = new BatchingIssueListener(batches::add, config(10, LONG_LATENCY, false));
+    underTest.handle(issueOn(file1));
+    underTest.handle(issueOn(file2));
+    underTest.handle(issueOn(null));
+
+    underTest.close();
+
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).hasSize(3);
+  }
+
+  @Test
+  void deliver_partial_batch_after_max_latency() throws InterruptedException {
+    CountDownLatch delivered = new CountDownLatch(1);
+    BatchingIssueListener underTest = new BatchingIssueListener(batch -> {
+      batches.add(batch);
+      delivered.countDown();
+    }, config(100, Duration.ofMillis(10), true));
+    Issue issue = issueOn(file1);
+
+    underTest.handle(issue);
+
+    assertThat(delivered.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(batches).containsExactly(List.of(issue));
+    underTest.close();
+    assertThat(batches).hasSize(1);
+  }
+
+  @Test
+  void do_not_wait_on_slow_client() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    BatchingIssueListener underTest = new BatchingIssueListener(batch -> {
+      awaitQuietly(release);
+      batches.add(batch);
+    }, config(1, LONG_LATENCY, true));
+
+    for (int i = 0; i < 1000; i++) {
+      underTest.handle(issueOn(file1));
+    }
+    assertThat(batches).isEmpty();
+    release.countDown();
+    underTest.close();
+
+    assertThat(batches).hasSize(1000);
+  }
+
+  @Test
+  void rethrow_client_failure_on_close_and_drop_next_issues() {
+    RuntimeException failure = new IllegalArgumentException("client failure");
+    BatchingIssueListener underTest = new BatchingIssueListener(batch -> {
+      batches.add(batch);
+      throw failure;
+    }, config(1, LONG_LATENCY, true));
+    underTest.handle(issueOn(file1));
+
+    assertThatThrownBy(underTest::close).isSameAs(failure);
+    assertThat(batches).hasSize(1);
+  }
+
+  @Test
+  void rethrow_client_error_on_close() {
+    Error failure = new AssertionError("client error");
+    BatchingIssueListener underTest = new BatchingIssueListener(batch -> {
+      throw failure;
+    }, config(1, LONG_LATENCY, true));
+    underTest.handle(issueOn(file1));
+
+    assertThatThrownBy(underTest::close).isSameAs(failure);
+  }
+
+  @Test
+  void reject_issues_after_close() {
+    BatchingIssueListener underTest = new BatchingIssueListener(batches::add, IssueBatchConfiguration.builder().build());
+    underTest.close();
+
+    Issue issue = issueOn(file1);
+    assertThatIllegalStateException().isThrownBy(() -> underTest.handle(issue));
+    assertThat(batches).isEmpty();
+  }
+
+  private static IssueBatchConfiguration config(int maxBatchSize, Duration maxLatency, boolean groupByFile) {
+    return IssueBatchConfiguration.builder()
+      .setMaxBatchSize(maxBatchSize)
+      .setMaxLatency(maxLatency)
+      .setGroupByFile(groupByFile)
+      .build();
+  }
+
+  private static Issue issueOn(ClientInputFile file) {
+    Issue issue = mock(Issue.class);
+    when(issue.getInputFile()).thenReturn(file);
+    return issue;
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.issue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.scan.issue.filter.FilterableIssue;
+import org.sonar.api.scan.issue.filter.IssueFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class DefaultIssueFilterChainTests {
+
+  private final List<String> calls = new ArrayList<>();
+
+  @Test
+  void accept_when_no_filter() {
+    assertThat(new DefaultIssueFilterChain().accept(mock(FilterableIssue.class))).isTrue();
+    assertThat(new DefaultIssueFilterChain(new IssueFilter[0]).accept(mock(FilterableIssue.class))).isTrue();
+  }
+
+  @Test
+  void call_filters_in_order_and_stop_at_first_rejection() {
+    DefaultIssueFilterChain underTest = new DefaultIssueFilterChain(delegating("a"), delegating("b"), rejecting("c"), delegating("d"));
+
+    assertThat(underTest.accept(mock(FilterableIssue.class))).isFalse();
+    assertThat(calls).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  void chain_can_be_reused_for_several_issues() {
+    FilterableIssue rejected = mock(FilterableIssue.class);
+    IssueFilter rejectOne = (issue, chain) -> {
+      calls.add("reject");
+      return issue != rejected && chain.accept(issue);
+    };
+    DefaultIssueFilterChain underTest = new DefaultIssueFilterChain(delegating("a"), rejectOne, delegating("b"));
+
+    assertThat(underTest.accept(mock(FilterableIssue.class))).isTrue();
+    assertThat(underTest.accept(rejected)).isFalse();
+    assertThat(underTest.accept(mock(FilterableIssue.class))).isTrue();
+    assertThat(calls).containsExactly("a", "reject", "b", "a", "reject", "a", "reject", "b");
+  }
+
+  private IssueFilter delegating(String name) {
+    return (issue, chain) -> {
+      calls.add(name);
+      return chain.accept(issue);
+    };
+  }
+
+  private IssueFilter rejecting(String name) {
+    return (issue, chain) -> {
+      calls.add(name);
+      return false;
+    };
+  }
+}
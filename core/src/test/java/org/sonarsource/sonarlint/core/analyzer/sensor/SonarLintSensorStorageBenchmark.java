@@ -0,0 +1,138 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.analyzer.sensor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.scan.issue.filter.IssueFilter;
+import org.sonarsource.sonarlint.core.TestInputFileBuilder;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.container.analysis.SonarLintRules;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputProject;
+import org.sonarsource.sonarlint.core.container.global.DefaultActiveRules;
+import org.sonarsource.sonarlint.core.container.storage.StorageActiveRuleAdapter;
+import org.sonarsource.sonarlint.core.container.storage.StorageRuleAdapter;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+/**
+ * Measure the cost of {@link SonarLintSensorStorage#store(org.sonar.api.batch.sensor.issue.Issue)} for an analysis reporting 100k issues
+ * on a few rules, as happens on generated code. One issue out of ten has a flow.
+ * One rule out of four is inactive, and the issue filters, when any, accept every issue, so that the whole filter chain is run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SonarLintSensorStorageBenchmark {
+
+  private static final int ISSUE_COUNT = 100_000;
+  private static final int RULE_COUNT = 20;
+
+  @Param({"0", "4"})
+  int filterCount;
+
+  private SonarLintRules rules;
+  private DefaultActiveRules activeRules;
+  private IssueFilters filters;
+  private List<DefaultSonarLintIssue> issues;
+
+  @Setup
+  public void setUp() {
+    rules = new SonarLintRules();
+    List<ActiveRule> actives = new ArrayList<>();
+    for (int i = 0; i < RULE_COUNT; i++) {
+      Sonarlint.Rules.Rule rule = Sonarlint.Rules.Rule.newBuilder()
+        .setRepo("java")
+        .setKey("S" + i)
+        .setName("Rule " + i)
+        .setSeverity("MAJOR")
+        .setType("CODE_SMELL")
+        .build();
+      rules.add(new StorageRuleAdapter(rule));
+      // one rule out of four is not active
+      if (i % 4 != 0) {
+        actives.add(new StorageActiveRuleAdapter(Sonarlint.ActiveRules.ActiveRule.newBuilder().setRepo("java").setKey("S" + i).setSeverity("MINOR").build(), rule));
+      }
+    }
+    activeRules = new DefaultActiveRules(actives);
+
+    IssueFilter[] issueFilters = new IssueFilter[filterCount];
+    for (int i = 0; i < filterCount; i++) {
+      int excludedLine = -1 - i;
+      issueFilters[i] = (issue, chain) -> !issue.ruleKey().rule().isEmpty() && issue.line() != excludedLine && chain.accept(issue);
+    }
+    filters = new IssueFilters(issueFilters);
+
+    StringBuilder content = new StringBuilder();
+    for (int line = 0; line < 1000; line++) {
+      content.append("line").append(line).append('\n');
+    }
+    InputFile inputFile = new TestInputFileBuilder("src/Generated.java").initMetadata(content.toString()).build();
+    SonarLintInputProject project = new SonarLintInputProject();
+    issues = new ArrayList<>(ISSUE_COUNT);
+    for (int i = 0; i < ISSUE_COUNT; i++) {
+      DefaultSonarLintIssue issue = new DefaultSonarLintIssue(project, null, null)
+        .at(new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(1 + i % 1000)).message(i % 2 == 0 ? "Issue " + i : null))
+        .forRule(RuleKey.of("java", "S" + (i % RULE_COUNT)));
+      if (i % 10 == 0) {
+        issue.addFlow(Arrays.<NewIssueLocation>asList(
+          new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(1 + (i + 1) % 1000)).message("first"),
+          new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(1 + (i + 2) % 1000)).message("second")));
+      }
+      issues.add(issue);
+    }
+  }
+
+  @Benchmark
+  public int storeIssues() {
+    int[] reported = new int[1];
+    SonarLintSensorStorage storage = new SonarLintSensorStorage(activeRules, rules, filters, issue -> reported[0]++, null);
+    for (DefaultSonarLintIssue issue : issues) {
+      storage.store(issue);
+    }
+    return reported[0];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SonarLintSensorStorageBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -19,17 +19,43 @@
  */
 package org.sonarsource.sonarlint.core.analyzer.sensor;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.Rules;
 import org.sonar.api.batch.sensor.code.NewSignificantCode;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.ExternalIssue;
+import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.batch.sensor.measure.Measure;
 import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.scan.issue.filter.IssueFilter;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.TestInputFileBuilder;
+import org.sonarsource.sonarlint.core.analyzer.issue.IssueFilters;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+import org.sonarsource.sonarlint.core.container.analysis.SonarLintRule;
+import org.sonarsource.sonarlint.core.container.analysis.filesystem.SonarLintInputProject;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class SonarLintSensorStorageTest {
 
@@ -83,4 +109,101 @@ public class SonarLintSensorStorageTest {
     underTest.store(symbolTable);
     verifyZeroInteractions(symbolTable);
   }
+
+  private static final RuleKey ACTIVE_RULE_KEY = RuleKey.of("repo", "active");
+  private static final RuleKey INACTIVE_RULE_KEY = RuleKey.of("repo", "inactive");
+
+  private final InputFile inputFile = new TestInputFileBuilder("src/Foo.php")
+    .initMetadata("Foo\nBar\n")
+    .build();
+
+  @Test
+  public void store_Issue_resolves_rules_once_per_analysis() {
+    Rules rules = mock(Rules.class);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    SonarLintRule rule = mockRule(ACTIVE_RULE_KEY, "Rule name");
+    when(rules.find(ACTIVE_RULE_KEY)).thenReturn(rule);
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.ruleKey()).thenReturn(ACTIVE_RULE_KEY);
+    when(activeRule.severity()).thenReturn("MAJOR");
+    when(activeRules.find(ACTIVE_RULE_KEY)).thenReturn(activeRule);
+    List<Issue> issues = new ArrayList<>();
+    SonarLintSensorStorage storage = new SonarLintSensorStorage(activeRules, rules, new IssueFilters(), issues::add, null);
+
+    storage.store(newIssue(storage, ACTIVE_RULE_KEY, "msg"));
+    storage.store(newIssue(storage, ACTIVE_RULE_KEY, null));
+
+    assertThat(issues)
+      .extracting(Issue::getRuleKey, Issue::getSeverity, Issue::getType, Issue::getMessage, Issue::getStartLine)
+      .containsExactly(
+        tuple("repo:active", "MAJOR", "BUG", "msg", 1),
+        tuple("repo:active", "MAJOR", "BUG", "Rule name", 1));
+    verify(activeRules, times(1)).find(any());
+    verify(rules, times(2)).find(ACTIVE_RULE_KEY);
+  }
+
+  @Test
+  public void store_Issue_ignores_inactive_rules_and_fails_on_unknown_rules() {
+    Rules rules = mock(Rules.class);
+    SonarLintRule rule = mockRule(INACTIVE_RULE_KEY, "");
+    when(rules.find(INACTIVE_RULE_KEY)).thenReturn(rule);
+    List<Issue> issues = new ArrayList<>();
+    SonarLintSensorStorage storage = new SonarLintSensorStorage(mock(ActiveRules.class), rules, new IssueFilters(), issues::add, null);
+
+    storage.store(newIssue(storage, INACTIVE_RULE_KEY, "msg"));
+    DefaultSonarLintIssue noMessage = newIssue(storage, INACTIVE_RULE_KEY, null);
+    assertThatExceptionOfType(MessageException.class).isThrownBy(() -> storage.store(noMessage))
+      .withMessage("The rule 'repo:inactive' has no name and the related issue has no message.");
+    DefaultSonarLintIssue unknown = newIssue(storage, RuleKey.of("repo", "unknown"), "msg");
+    for (int i = 0; i < 2; i++) {
+      assertThatExceptionOfType(MessageException.class).isThrownBy(() -> storage.store(unknown))
+        .withMessage("The rule 'repo:unknown' does not exist.");
+    }
+
+    assertThat(issues).isEmpty();
+  }
+
+  @Test
+  public void store_Issue_skips_empty_flows_and_applies_filters() {
+    Rules rules = mock(Rules.class);
+    ActiveRules activeRules = mock(ActiveRules.class);
+    SonarLintRule rule = mockRule(ACTIVE_RULE_KEY, "Rule name");
+    when(rules.find(ACTIVE_RULE_KEY)).thenReturn(rule);
+    ActiveRule activeRule = mock(ActiveRule.class);
+    when(activeRule.ruleKey()).thenReturn(ACTIVE_RULE_KEY);
+    when(activeRules.find(ACTIVE_RULE_KEY)).thenReturn(activeRule);
+    IssueFilter keepFirstLine = (issue, chain) -> issue.ruleKey().equals(ACTIVE_RULE_KEY) && issue.line() == 1 && chain.accept(issue);
+    List<Issue> issues = new ArrayList<>();
+    SonarLintSensorStorage storage = new SonarLintSensorStorage(activeRules, rules, new IssueFilters(new IssueFilter[] {keepFirstLine}), issues::add, null);
+
+    DefaultSonarLintIssue issue = newIssue(storage, ACTIVE_RULE_KEY, "msg")
+      .addFlow(Collections.emptyList())
+      .addFlow(Arrays.<NewIssueLocation>asList(
+        new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(2)).message("second"),
+        new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(1)).message("first")));
+    storage.store(issue);
+    storage.store(new DefaultSonarLintIssue(new SonarLintInputProject(), null, storage)
+      .at(new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(2)).message("filtered"))
+      .forRule(ACTIVE_RULE_KEY));
+
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).flows()).hasSize(1);
+    assertThat(issues.get(0).flows().get(0).locations())
+      .extracting(IssueLocation::getMessage, IssueLocation::getStartLine)
+      .containsExactly(tuple("second", 2), tuple("first", 1));
+  }
+
+  private DefaultSonarLintIssue newIssue(SonarLintSensorStorage storage, RuleKey ruleKey, String message) {
+    return new DefaultSonarLintIssue(new SonarLintInputProject(), null, storage)
+      .at(new DefaultSonarLintIssueLocation().on(inputFile).at(inputFile.selectLine(1)).message(message))
+      .forRule(ruleKey);
+  }
+
+  private static SonarLintRule mockRule(RuleKey ruleKey, String name) {
+    SonarLintRule rule = mock(SonarLintRule.class);
+    when(rule.key()).thenReturn(ruleKey);
+    when(rule.name()).thenReturn(name);
+    when(rule.type()).thenReturn(RuleType.BUG);
+    return rule;
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExclusionFiltersTests {
+
+  private static final List<String> PATTERNS = Arrays.asList("**/*.js", "src/**", "**/generated/**", "**/Foo?.java", "*.xml", "**/build/",
+    "file:**/lib/*.jar", "**/test/**/*Test.java", "docs/index.html", "**/*", "a/**/b.txt");
+
+  private static final List<String> PATHS = Arrays.asList("foo.js", "src/foo.js", "src/main/java/Foo1.java", "Foo.java", "main/generated/A.java",
+    "pom.xml", "module/pom.xml", "build/classes/A.class", "build", "lib/dep.jar", "module/lib/dep.jar", "module/test/java/ATest.java",
+    "docs/index.html", "site/docs/index.html", "a/b.txt", "a/x/y/b.txt", "b.txt", "src/../other/foo.js", "./foo.js", "/abs/foo.js", "dir/", "");
+
+  @Test
+  void should_accept_everything_without_patterns() {
+    ExclusionFilters filters = filters(new MapSettings());
+
+    assertThat(filters.accept("src/Foo.java", InputFile.Type.MAIN)).isTrue();
+    assertThat(filters.accept("src/FooTest.java", InputFile.Type.TEST)).isTrue();
+  }
+
+  @Test
+  void should_apply_inclusions_and_exclusions() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.inclusions", "src/**");
+    settings.setProperty("sonar.exclusions", "**/*.js");
+    settings.setProperty("sonar.test.exclusions", "**/*Test.*");
+    ExclusionFilters filters = filters(settings);
+
+    assertThat(filters.accept("src/Foo.java", InputFile.Type.MAIN)).isTrue();
+    assertThat(filters.accept("src/foo.js", InputFile.Type.MAIN)).isFalse();
+    assertThat(filters.accept("other/Foo.java", InputFile.Type.MAIN)).isFalse();
+    assertThat(filters.accept("test/FooTest.java", InputFile.Type.TEST)).isFalse();
+    assertThat(filters.accept("test/FooIT.java", InputFile.Type.TEST)).isTrue();
+  }
+
+  @Test
+  void should_match_like_each_pattern_separately() {
+    for (String pattern : PATTERNS) {
+      MapSettings settings = new MapSettings();
+      settings.setProperty("sonar.exclusions", pattern);
+      ExclusionFilters filters = filters(settings);
+      SonarLintPathPattern reference = new SonarLintPathPattern(pattern);
+
+      for (String path : PATHS) {
+        assertThat(filters.accept(path, InputFile.Type.MAIN))
+          .as("path '%s' with exclusion '%s'", path, pattern)
+          .isEqualTo(!reference.match(path));
+      }
+    }
+  }
+
+  @Test
+  void should_match_any_of_several_patterns() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.inclusions", String.join(",", PATTERNS.subList(0, 9)));
+    ExclusionFilters filters = filters(settings);
+    SonarLintPathPattern[] references = SonarLintPathPattern.create(PATTERNS.subList(0, 9).toArray(new String[0]));
+
+    for (String path : PATHS) {
+      boolean expected = Arrays.stream(references).anyMatch(p -> p.match(path));
+      assertThat(filters.accept(path, InputFile.Type.MAIN)).as("path '%s'", path).isEqualTo(expected);
+    }
+  }
+
+  private static ExclusionFilters filters(MapSettings settings) {
+    ExclusionFilters filters = new ExclusionFilters(settings.asConfig());
+    filters.prepare();
+    return filters;
+  }
+}
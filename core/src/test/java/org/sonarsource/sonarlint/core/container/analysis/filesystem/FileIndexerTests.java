@@ -0,0 +1,141 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.InputFileFilter;
+import org.sonar.api.utils.MessageException;
+import org.sonarsource.sonarlint.core.OnDiskTestClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner.IssueExclusionsLoader;
+import org.sonarsource.sonarlint.core.container.model.DefaultAnalysisResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileIndexerTests {
+
+  @TempDir
+  Path baseDir;
+
+  private final LanguageDetection langDetection = mock(LanguageDetection.class);
+  private final IssueExclusionsLoader issueExclusionsLoader = mock(IssueExclusionsLoader.class);
+  private final InputFileCache inputFileCache = new InputFileCache();
+  private final DefaultAnalysisResult analysisResult = new DefaultAnalysisResult();
+
+  @Test
+  void should_index_files_in_parallel_keeping_order() throws IOException {
+    when(langDetection.language(any(InputFile.class))).thenReturn(Language.JAVA);
+    List<ClientInputFile> files = createFiles(200);
+
+    newIndexer(files, "4").index();
+
+    assertThat(inputFileCache.inputFiles()).extracting(InputFile::filename)
+      .containsExactlyElementsOf(files.stream().map(ClientInputFile::relativePath).collect(Collectors.toList()));
+    assertThat(analysisResult.indexedFileCount()).isEqualTo(200);
+    assertThat(analysisResult.languagePerFile()).hasSize(200).containsValue(Language.JAVA);
+    // metadata and issue exclusions are computed eagerly
+    verify(issueExclusionsLoader, times(200)).createCharHandlerFor(any());
+    verify(issueExclusionsLoader, times(200)).addMulticriteriaPatterns(any());
+    assertThat(inputFileCache.inputFiles()).allMatch(f -> f.lines() == 3);
+  }
+
+  @Test
+  void should_only_read_files_accepted_by_filters_in_parallel() throws IOException {
+    List<ClientInputFile> files = createFiles(200);
+    InputFileFilter evenFiles = f -> Integer.parseInt(f.filename().replaceAll("\\D", "")) % 2 == 0;
+
+    newIndexer(files, "4", evenFiles).index();
+
+    assertThat(analysisResult.indexedFileCount()).isEqualTo(100);
+    verify(issueExclusionsLoader, times(100)).createCharHandlerFor(any());
+  }
+
+  @Test
+  void should_index_files_sequentially_by_default() throws IOException {
+    List<ClientInputFile> files = createFiles(200);
+
+    newIndexer(files, null).index();
+
+    assertThat(analysisResult.indexedFileCount()).isEqualTo(200);
+    // metadata is only computed when needed
+    verify(issueExclusionsLoader, never()).createCharHandlerFor(any());
+  }
+
+  @Test
+  void should_fail_if_file_is_indexed_twice_in_parallel() throws IOException {
+    List<ClientInputFile> files = createFiles(200);
+    files.add(files.get(0));
+
+    FileIndexer fileIndexer = newIndexer(files, "4");
+
+    assertThatThrownBy(fileIndexer::index)
+      .isInstanceOf(MessageException.class)
+      .hasMessageContaining("can't be indexed twice");
+  }
+
+  @Test
+  void should_fail_on_invalid_parallelism() throws IOException {
+    FileIndexer fileIndexer = newIndexer(createFiles(1), "many");
+
+    assertThatThrownBy(fileIndexer::index)
+      .isInstanceOf(MessageException.class)
+      .hasMessageContaining(FileIndexer.PARALLELISM_PROPERTY);
+  }
+
+  private FileIndexer newIndexer(List<ClientInputFile> files, String parallelism, InputFileFilter... filters) {
+    StandaloneAnalysisConfiguration.Builder configuration = StandaloneAnalysisConfiguration.builder()
+      .setBaseDir(baseDir)
+      .addInputFiles(files);
+    if (parallelism != null) {
+      configuration.putExtraProperty(FileIndexer.PARALLELISM_PROPERTY, parallelism);
+    }
+    InputFileBuilder inputFileBuilder = new InputFileBuilder(langDetection, new FileMetadata(), issueExclusionsLoader);
+    return new FileIndexer(inputFileCache, inputFileBuilder, configuration.build(), analysisResult, issueExclusionsLoader, filters);
+  }
+
+  private List<ClientInputFile> createFiles(int count) throws IOException {
+    List<ClientInputFile> files = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String name = "File" + i + ".java";
+      Path path = baseDir.resolve(name);
+      Files.write(path, ("class File" + i + " {\n}\n").getBytes(StandardCharsets.UTF_8));
+      files.add(new OnDiskTestClientInputFile(path, name, false, StandardCharsets.UTF_8));
+    }
+    return files;
+  }
+}
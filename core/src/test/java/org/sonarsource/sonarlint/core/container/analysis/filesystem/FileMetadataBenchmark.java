@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.filesystem;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure {@link FileMetadata#readMetadata} on a small file, a huge file and a file with Windows line endings, with and without
+ * an additional {@link FileMetadata.CharHandler} like the one used for issue exclusions.
+ * The huge and crlf files have 200k lines, so that the per-character cost of the handlers outweighs opening the reader.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileMetadataBenchmark {
+
+  private static final String LINE = "    public void method(String param) { return foo(bar, param); }";
+  private static final URI FILE_URI = URI.create("file:///Foo.java");
+
+  @Param({"small", "huge", "crlf"})
+  String file;
+
+  private byte[] content;
+  private FileMetadata fileMetadata;
+
+  @Setup
+  public void setUp() {
+    switch (file) {
+      case "small":
+        content = lines(50, "\n");
+        break;
+      case "huge":
+        content = lines(200_000, "\n");
+        break;
+      default:
+        content = lines(200_000, "\r\n");
+        break;
+    }
+    fileMetadata = new FileMetadata();
+  }
+
+  private static byte[] lines(int count, String eol) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      sb.append(LINE).append(eol);
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public FileMetadata.Metadata readMetadata() {
+    return fileMetadata.readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, FILE_URI, null);
+  }
+
+  @Benchmark
+  public FileMetadata.Metadata readMetadataWithOtherHandler() {
+    return fileMetadata.readMetadata(new ByteArrayInputStream(content), StandardCharsets.UTF_8, FILE_URI, new FileMetadata.CharHandler() {
+      @Override
+      protected void handleIgnoreEoL(char c) {
+        // only measure the dispatch
+      }
+    });
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(FileMetadataBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -19,7 +19,9 @@
  */
 package org.sonarsource.sonarlint.core.container.analysis.filesystem;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
@@ -218,4 +220,50 @@ public class FileMetadataTest {
       "glyphicons-halflings-regular.woff' at line 1 for encoding UTF-8. Please fix file content or configure the encoding to be used using property 'sonar.sourceEncoding'.");
   }
 
+  @Test
+  public void many_lines_with_eol_split_across_reads() throws Exception {
+    File tempFile = temp.newFile();
+    StringBuilder content = new StringBuilder();
+    // 8191 chars, so that the first CRLF is split between two reads of 8192 chars
+    for (int i = 0; i < 8191; i++) {
+      content.append('a');
+    }
+    for (int i = 0; i < 10_000; i++) {
+      content.append("\r\nb");
+    }
+    FileUtils.write(tempFile, content, StandardCharsets.UTF_8, true);
+
+    FileMetadata.Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines()).isEqualTo(10_001);
+    assertThat(metadata.originalLineOffsets()).hasSize(10_001);
+    assertThat(metadata.originalLineOffsets()[1]).isEqualTo(8193);
+    assertThat(metadata.originalLineOffsets()[10_000]).isEqualTo(8191 + 3 * 9_999 + 2);
+    assertThat(metadata.lastValidOffset()).isEqualTo(8191 + 3 * 10_000);
+  }
+
+  @Test
+  public void other_handler_receives_all_chars() throws Exception {
+    StringBuilder events = new StringBuilder();
+    FileMetadata.CharHandler handler = new FileMetadata.CharHandler() {
+      @Override
+      protected void handleIgnoreEoL(char c) {
+        events.append(c);
+      }
+
+      @Override
+      protected void newLine() {
+        events.append('|');
+      }
+
+      @Override
+      protected void eof() {
+        events.append('$');
+      }
+    };
+
+    new FileMetadata().readMetadata(new ByteArrayInputStream("foo\r\nbar\rbaz\n\r".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8,
+      URI.create("file:///foo"), handler);
+
+    assertThat(events).hasToString("foo|bar|baz||$");
+  }
 }
@@ -87,6 +87,35 @@ public class LanguageDetectionTest {
       .contains("XML: xhtml");
   }
 
+  @Test
+  public void candidate_languages_should_not_fail_if_conflicting_language_suffix() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(org.sonarsource.sonarlint.core.client.api.common.Language.XML.getFileSuffixesPropKey(), "xhtml");
+    settings.setProperty(org.sonarsource.sonarlint.core.client.api.common.Language.HTML.getFileSuffixesPropKey(), "xhtml");
+    LanguageDetection detection = new LanguageDetection(settings.asConfig());
+
+    assertThat(detection.candidateLanguages("abc.XHTML")).containsOnly(org.sonarsource.sonarlint.core.client.api.common.Language.XML,
+      org.sonarsource.sonarlint.core.client.api.common.Language.HTML);
+    assertThat(detection.candidateLanguages("Foo.java")).containsOnly(org.sonarsource.sonarlint.core.client.api.common.Language.JAVA);
+    assertThat(detection.candidateLanguages("abc.truc")).isEmpty();
+  }
+
+  @Test
+  public void should_match_suffixes_containing_dots() throws Exception {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(org.sonarsource.sonarlint.core.client.api.common.Language.TS.getFileSuffixesPropKey(), "d.ts");
+    settings.setProperty(org.sonarsource.sonarlint.core.client.api.common.Language.JS.getFileSuffixesPropKey(), ".ts,.JS");
+    LanguageDetection detection = new LanguageDetection(settings.asConfig());
+
+    assertThat(detection.language(newInputFile("src/foo.js"))).isEqualTo(org.sonarsource.sonarlint.core.client.api.common.Language.JS);
+    assertThat(detection.language(newInputFile("src/foo.ts"))).isEqualTo(org.sonarsource.sonarlint.core.client.api.common.Language.JS);
+    assertThat(detection.candidateLanguages("foo.D.TS")).containsOnly(org.sonarsource.sonarlint.core.client.api.common.Language.JS,
+      org.sonarsource.sonarlint.core.client.api.common.Language.TS);
+    assertThat(detection.candidateLanguages("d.ts")).containsOnly(org.sonarsource.sonarlint.core.client.api.common.Language.JS);
+    assertThat(detection.candidateLanguages("foo.d_ts")).isEmpty();
+    assertThat(detection.candidateLanguages("\u00e9.java")).containsOnly(org.sonarsource.sonarlint.core.client.api.common.Language.JAVA);
+  }
+
   private InputFile newInputFile(String path) throws IOException {
     File basedir = temp.newFolder();
     return new TestInputFileBuilder(path).setBaseDir(basedir.toPath()).build();
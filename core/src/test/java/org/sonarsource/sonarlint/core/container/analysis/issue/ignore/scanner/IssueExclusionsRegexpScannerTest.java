@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner;
 
 import com.google.common.io.Resources;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -155,6 +156,16 @@ public class IssueExclusionsRegexpScannerTest {
     assertThat(IntStream.rangeClosed(30, 37).noneMatch(javaFile::isIgnoreAllIssuesOnLine)).isTrue();
   }
 
+  @Test
+  public void shouldStartBlockOfFirstMatchingPatternInOrder() throws Exception {
+    String content = "line 1\n// FOO-OFF // SONAR-OFF\nline 3\n// FOO-ON\nline 5\n// SONAR-ON\nline 7\n";
+    fileMetadata.readMetadata(new ByteArrayInputStream(content.getBytes(UTF_8)), UTF_8, javaFile.uri(), regexpScanner);
+
+    assertThat(javaFile.isIgnoreAllIssuesOnLine(1)).isFalse();
+    assertThat(IntStream.rangeClosed(2, 6).allMatch(javaFile::isIgnoreAllIssuesOnLine)).isTrue();
+    assertThat(javaFile.isIgnoreAllIssuesOnLine(7)).isFalse();
+  }
+
   private Path getResource(String fileName) throws URISyntaxException {
     return Paths.get(Resources.getResource("IssueExclusionsRegexpScannerTest/" + fileName).toURI());
   }
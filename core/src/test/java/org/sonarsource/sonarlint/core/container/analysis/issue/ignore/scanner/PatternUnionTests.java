@@ -0,0 +1,81 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.analysis.issue.ignore.scanner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatternUnionTests {
+
+  private static final List<String> LINES = Arrays.asList("", "// SONAR-OFF", "int a = 1; // NOSONAR", "@Generated", "aa", "abab", "ABC", "foo bar",
+    "x = \"a|b\"", "name: value");
+
+  @Test
+  void should_find_nothing_without_patterns() {
+    PatternUnion union = new PatternUnion(Collections.emptyList());
+
+    assertThat(union.isEmpty()).isTrue();
+    assertThat(union.newFinder().find("anything")).isFalse();
+  }
+
+  @Test
+  void should_find_like_patterns_taken_separately() {
+    List<Pattern> patterns = compile("// SONAR-OFF", "NOSONAR$", "^@Gen", "a|b\"", "(a)\\1", "(?i)abc", "\\Qa|b\\E", "(?<key>\\w+): \\k<key>", "(?x) foo \\s bar",
+      "(ab)+$");
+    PatternUnion.Finder finder = new PatternUnion(patterns).newFinder();
+
+    for (String line : LINES) {
+      boolean expected = patterns.stream().anyMatch(p -> p.matcher(line).find());
+      assertThat(finder.find(line)).as(line).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void should_keep_patterns_with_flags_apart() {
+    PatternUnion.Finder finder = new PatternUnion(Arrays.asList(Pattern.compile("abc", Pattern.CASE_INSENSITIVE), Pattern.compile("zzz"))).newFinder();
+
+    assertThat(finder.find("ABC")).isTrue();
+    assertThat(finder.find("ZZZ")).isFalse();
+  }
+
+  @Test
+  void should_reuse_finder_on_a_mutable_line() {
+    PatternUnion.Finder finder = new PatternUnion(compile("foo", "bar")).newFinder();
+    StringBuilder line = new StringBuilder("foo");
+
+    assertThat(finder.find(line)).isTrue();
+    line.setLength(0);
+    line.append("baz");
+    assertThat(finder.find(line)).isFalse();
+    line.setLength(0);
+    line.append("a bar");
+    assertThat(finder.find(line)).isTrue();
+  }
+
+  private static List<Pattern> compile(String... regexps) {
+    return Arrays.stream(regexps).map(Pattern::compile).collect(Collectors.toList());
+  }
+}
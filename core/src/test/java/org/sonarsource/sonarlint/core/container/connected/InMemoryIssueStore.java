@@ -20,17 +20,20 @@
 package org.sonarsource.sonarlint.core.container.connected;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
 
 public class InMemoryIssueStore implements IssueStore {
-  private Map<String, List<ServerIssue>> issuesMap;
+  private final Map<String, List<ServerIssue>> issuesMap = new HashMap<>();
 
   @Override
   public void save(List<ServerIssue> issues) {
-    issuesMap = issues.stream().collect(Collectors.groupingBy(issue -> issue.getPrimaryLocation().getPath()));
+    issuesMap.putAll(issues.stream().collect(Collectors.groupingBy(issue -> issue.getPrimaryLocation().getPath())));
   }
 
   @Override
@@ -39,6 +42,15 @@ public class InMemoryIssueStore implements IssueStore {
     return list == null ? Collections.emptyList() : list;
   }
 
+  @Override
+  public Optional<Map<String, String>> findFiles(Set<String> issueKeys) {
+    Map<String, String> files = new HashMap<>();
+    issuesMap.forEach((path, issues) -> issues.stream()
+      .filter(issue -> issueKeys.contains(issue.getKey()))
+      .forEach(issue -> files.put(issue.getKey(), path)));
+    return Optional.of(files);
+  }
+
   @Override
   public void delete(String sqFilePath) {
     issuesMap.remove(sqFilePath);
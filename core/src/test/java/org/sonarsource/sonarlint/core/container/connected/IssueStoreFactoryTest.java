@@ -21,9 +21,13 @@ package org.sonarsource.sonarlint.core.container.connected;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
 public class IssueStoreFactoryTest {
   @Rule
@@ -36,4 +40,75 @@ public class IssueStoreFactoryTest {
 
     assertThat(store).isInstanceOf(IssueStore.class);
   }
+
+  @Test
+  public void should_use_segmented_store_for_new_directories() {
+    IssueStoreFactory factory = new IssueStoreFactory();
+    Path path = temp.getRoot().toPath().resolve("server_issues");
+
+    IssueStore store = factory.apply(path);
+
+    assertThat(store).isInstanceOf(LogServerIssueStore.class);
+    assertThat(factory.apply(path)).isSameAs(store);
+    assertThat(new IssueStoreFactory().apply(path)).isNotSameAs(store);
+  }
+
+  @Test
+  public void should_keep_using_one_file_per_source_file_layout() throws IOException {
+    Path path = temp.newFolder().toPath();
+    Files.createDirectories(path.resolve("0").resolve("7"));
+
+    assertThat(new IssueStoreFactory().apply(path)).isInstanceOf(ServerIssueStore.class);
+  }
+
+  @Test
+  public void should_open_store_again_when_directory_is_replaced() throws IOException {
+    IssueStoreFactory factory = new IssueStoreFactory();
+    Path path = temp.newFolder().toPath().resolve("server_issues");
+    IssueStore store = factory.apply(path);
+
+    Path work = temp.newFolder().toPath();
+    factory.replaceDir(p -> {
+    }, path.getParent(), work);
+
+    assertThat(factory.apply(path)).isNotSameAs(store);
+  }
+
+  @Test
+  public void should_not_check_directory_again_before_revalidation() throws IOException {
+    IssueStoreFactory factory = new IssueStoreFactory();
+    Path path = temp.newFolder().toPath();
+    IssueStore store = factory.apply(path);
+
+    FileUtils.replaceDir(p -> {
+    }, path, temp.newFolder().toPath());
+
+    assertThat(factory.apply(path)).isSameAs(store);
+  }
+
+  @Test
+  public void should_open_store_again_when_directory_is_replaced_by_someone_else() throws IOException {
+    IssueStoreFactory factory = new IssueStoreFactory(0);
+    Path path = temp.newFolder().toPath();
+    IssueStore store = factory.apply(path);
+    assertThat(factory.apply(path)).isSameAs(store);
+
+    Path work = temp.newFolder().toPath();
+    Files.createDirectories(work.resolve("0").resolve("7"));
+    FileUtils.replaceDir(p -> {
+    }, path, work);
+
+    assertThat(factory.apply(path)).isInstanceOf(ServerIssueStore.class);
+  }
+
+  @Test
+  public void should_discard_stores_of_deleted_directories() throws IOException {
+    IssueStoreFactory factory = new IssueStoreFactory();
+    Path path = temp.newFolder().toPath();
+    IssueStore store = factory.apply(path.resolve("project1"));
+
+    factory.invalidate(path);
+
+    assertThat(factory.apply(path.resolve("project1"))).isNotSameAs(store);
+  }
 }
@@ -0,0 +1,98 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IssueStoreWriterTests {
+
+  private final IssueStore store = spy(new InMemoryIssueStore());
+
+  @Test
+  void should_buffer_issues_until_flush() {
+    IssueStoreWriter underTest = new IssueStoreWriter(store);
+
+    underTest.accept(issue("key1", "path1"));
+    underTest.accept(issue("key2", "path2"));
+    verify(store, never()).save(anyList());
+
+    underTest.flush();
+
+    assertThat(store.load("path1")).extracting(ServerIssue::getKey).containsExactly("key1");
+    assertThat(store.load("path2")).extracting(ServerIssue::getKey).containsExactly("key2");
+  }
+
+  @Test
+  void should_append_issues_of_files_already_saved_by_the_writer() {
+    IssueStoreWriter underTest = new IssueStoreWriter(store, 2);
+
+    underTest.accept(issue("key1", "path1"));
+    underTest.accept(issue("key2", "path2"));
+    underTest.accept(issue("key3", "path1"));
+    underTest.accept(issue("key4", "path3"));
+    underTest.accept(issue("key5", "path1"));
+    underTest.flush();
+
+    assertThat(store.load("path1")).extracting(ServerIssue::getKey).containsExactly("key1", "key3", "key5");
+    assertThat(store.load("path2")).extracting(ServerIssue::getKey).containsExactly("key2");
+    assertThat(store.load("path3")).extracting(ServerIssue::getKey).containsExactly("key4");
+    verify(store, times(2)).append(anyList());
+  }
+
+  @Test
+  void should_replace_issues_stored_before_the_writer_was_created() {
+    store.save(Arrays.asList(issue("old1", "path1"), issue("old2", "path2")));
+    IssueStoreWriter underTest = new IssueStoreWriter(store);
+
+    underTest.accept(issue("key1", "path1"));
+    underTest.flush();
+
+    assertThat(store.load("path1")).extracting(ServerIssue::getKey).containsExactly("key1");
+    assertThat(store.load("path2")).extracting(ServerIssue::getKey).containsExactly("old2");
+  }
+
+  @Test
+  void should_not_save_anything_when_no_issue() {
+    IssueStoreWriter underTest = new IssueStoreWriter(store);
+
+    underTest.flush();
+
+    verify(store, never()).save(anyList());
+    assertThat(store.load("path1")).isEqualTo(Collections.emptyList());
+  }
+
+  private static ServerIssue issue(String key, String path) {
+    return ServerIssue.newBuilder()
+      .setKey(key)
+      .setPrimaryLocation(Location.newBuilder().setPath(path))
+      .build();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue.Location;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class LogServerIssueStoreTests {
+
+  @TempDir
+  Path root;
+
+  @Test
+  void should_load_issues_saved_per_file() {
+    LogServerIssueStore store = new LogServerIssueStore(root, Runnable::run);
+    ServerIssue issue1 = issue("path1", "rule1");
+    ServerIssue issue2 = issue("path1", "rule2");
+    ServerIssue issue3 = issue("path2", "rule1");
+
+    store.save(Arrays.asList(issue1, issue2, issue3));
+
+    assertThat(store.load("path1")).containsExactly(issue1, issue2);
+    assertThat(store.load("path2")).containsExactly(issue3);
+    assertThat(store.load("nonexistent")).isEmpty();
+    assertThat(new LogServerIssueStore(root, Runnable::run).load("path1")).containsExactly(issue1, issue2);
+  }
+
+  @Test
+  void should_replace_issues_of_saved_files_only() {
+    LogServerIssueStore store = new LogServerIssueStore(root, Runnable::run);
+    ServerIssue issue1 = issue("path1", "rule1");
+    ServerIssue issue2 = issue("path2", "rule1");
+    ServerIssue issue3 = issue("path1", "rule3");
+    store.save(Arrays.asList(issue1, issue2));
+
+    store.save(Collections.singletonList(issue3));
+
+    assertThat(store.load("path1")).containsExactly(issue3);
+    assertThat(store.load("path2")).containsExactly(issue2);
+  }
+
+  @Test
+  void should_append_issues_to_stored_ones() {
+    LogServerIssueStore store = new LogServerIssueStore(root, Runnable::run);
+    ServerIssue issue1 = issue("path1", "rule1");
+    ServerIssue issue2 = issue("path1", "rule2");
+    ServerIssue issue3 = issue("path2", "rule1");
+    store.save(Collections.singletonList(issue1));
+
+    store.append(Arrays.asList(issue2, issue3));
+
+    assertThat(store.load("path1")).containsExactly(issue1, issue2);
+    assertThat(store.load("path2")).containsExactly(issue3);
+    assertThat(new LogServerIssueStore(root, Runnable::run).load("path1")).containsExactly(issue1, issue2);
+  }
+
+  @Test
+  void should_delete_entries() {
+    LogServerIssueStore store = new LogServerIssueStore(root, Runnable::run);
+    store.save(Arrays.asList(issue("path1", "rule1"), issue("path2", "rule1")));
+
+    store.delete("path1");
+    store.delete("non_existing");
+
+    assertThat(store.load("path1")).isEmpty();
+    assertThat(new LogServerIssueStore(root, Runnable::run).load("path1")).isEmpty();
+    assertThat(store.load("path2")).hasSize(1);
+  }
+
+  @Test
+  void should_find_files_of_issues() {
+    LogServerIssueStore store = new LogServerIssueStore(root, Runnable::run);
+    store.save(Arrays.asList(issue("path1", "rule1").toBuilder().setKey("issue1").build(), issue("path2", "rule1").toBuilder().setKey("issue2").build()));
+    Set<String> keys = new HashSet<>(Arrays.asList("issue1", "issue2", "issue3"));
+    assertThat(new LogServerIssueStore(root, Runnable::run).findFiles(keys).get()).containsOnly(entry("issue1", "path1"), entry("issue2", "path2"));
+
+    store.findFiles(keys);
+    store.save(Collections.singletonList(issue("path3", "rule1").toBuilder().setKey("issue1").build()));
+    store.append(Collections.singletonList(issue("path3", "rule1").toBuilder().setKey("issue3").build()));
+    store.delete("path2");
+
+    assertThat(store.findFiles(keys).get()).containsOnly(entry("issue1", "path3"), entry("issue3", "path3"));
+  }
+
+  private static ServerIssue issue(String path, String ruleKey) {
+    return ServerIssue.newBuilder().setPrimaryLocation(Location.newBuilder().setPath(path)).setRuleKey(ruleKey).build();
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.objectstore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogObjectStoreTests {
+
+  private static final Reader<String> READER = input -> {
+    try {
+      byte[] bytes = new byte[input.available()];
+      int read = input.read(bytes);
+      return new String(bytes, 0, Math.max(read, 0), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  };
+
+  private static final Writer<String> WRITER = (output, value) -> {
+    try {
+      output.write(value.getBytes(UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  };
+
+  @TempDir
+  Path base;
+
+  @Test
+  void should_read_values_written() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+
+    store.write("key1", "value1");
+    store.write("key2", "value2");
+    store.write("key1", "value1 updated");
+
+    assertThat(store.read("key1")).contains("value1 updated");
+    assertThat(store.read("key2")).contains("value2");
+    assertThat(store.read("unknown")).isEmpty();
+    assertThat(store.contains("key2")).isTrue();
+  }
+
+  @Test
+  void should_not_read_deleted_values() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key", "value");
+
+    store.delete("key");
+    store.delete("unknown");
+
+    assertThat(store.read("key")).isEmpty();
+    assertThat(newStore(1024, Long.MAX_VALUE).read("key")).isEmpty();
+  }
+
+  @Test
+  void should_reload_values_from_segments() throws IOException {
+    LogObjectStore<String> store = newStore(64, Long.MAX_VALUE);
+    for (int i = 0; i < 20; i++) {
+      store.write("key" + i, "value" + i);
+    }
+
+    LogObjectStore<String> reopened = newStore(64, Long.MAX_VALUE);
+
+    assertThat(Files.list(base).count()).isGreaterThan(1);
+    for (int i = 0; i < 20; i++) {
+      assertThat(reopened.read("key" + i)).contains("value" + i);
+    }
+  }
+
+  @Test
+  void should_append_to_stored_values() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key1", "value1");
+
+    store.append(Collections.singletonMap("key1", " appended"));
+    store.append(Collections.singletonMap("key2", "value2"));
+
+    assertThat(store.read("key1")).contains("value1 appended");
+    assertThat(store.read("key2")).contains("value2");
+    assertThat(newStore(1024, Long.MAX_VALUE).read("key1")).contains("value1 appended");
+  }
+
+  @Test
+  void should_keep_values_appended_during_compaction() throws IOException {
+    List<Runnable> compactions = new ArrayList<>();
+    LogObjectStore<String> store = new LogObjectStore<>(base, READER, WRITER, 1024, 64, compactions::add);
+    for (int i = 0; compactions.isEmpty(); i++) {
+      store.write("key", "value" + i);
+    }
+    String compacted = store.read("key").get();
+
+    store.append(Collections.singletonMap("key", " appended"));
+    compactions.forEach(Runnable::run);
+
+    assertThat(store.read("key")).contains(compacted + " appended");
+    assertThat(newStore(1024, Long.MAX_VALUE).read("key")).contains(compacted + " appended");
+  }
+
+  @Test
+  void should_compact_superseded_records() throws IOException {
+    LogObjectStore<String> store = newStore(128, 512);
+    Map<String, String> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      String key = "key" + random.nextInt(10);
+      if (random.nextInt(4) == 0) {
+        store.delete(key);
+        expected.remove(key);
+      } else {
+        store.write(key, "value" + i);
+        expected.put(key, "value" + i);
+      }
+    }
+
+    long size = Files.list(base).mapToLong(path -> path.toFile().length()).sum();
+    assertThat(size).isLessThan(2048);
+    LogObjectStore<String> reopened = newStore(128, 512);
+    for (int i = 0; i < 10; i++) {
+      assertThat(store.read("key" + i)).isEqualTo(Optional.ofNullable(expected.get("key" + i)));
+      assertThat(reopened.read("key" + i)).isEqualTo(Optional.ofNullable(expected.get("key" + i)));
+    }
+  }
+
+  @Test
+  void should_truncate_incomplete_record() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key", "value");
+    Path segment = base.resolve("segment-0.log");
+    long size = Files.size(segment);
+    Files.write(segment, new byte[] {0, 0, 0, 10, 'k'}, StandardOpenOption.APPEND);
+
+    LogObjectStore<String> reopened = newStore(1024, Long.MAX_VALUE);
+
+    assertThat(reopened.read("key")).contains("value");
+    assertThat(Files.size(segment)).isEqualTo(size);
+  }
+
+  @Test
+  void should_bound_compacted_segments() throws IOException {
+    LogObjectStore<String> store = newStore(128, 512);
+    for (int i = 0; i < 2000; i++) {
+      store.write("key" + (i % 40), "value" + i);
+    }
+
+    assertThat(Files.list(base).filter(path -> path.toString().endsWith(".log")).count()).isGreaterThan(1);
+    Files.list(base).forEach(path -> assertThat(path.toFile().length()).isLessThanOrEqualTo(128));
+    LogObjectStore<String> reopened = newStore(128, 512);
+    for (int i = 0; i < 40; i++) {
+      assertThat(store.read("key" + i)).contains("value" + (1960 + i));
+      assertThat(reopened.read("key" + i)).contains("value" + (1960 + i));
+    }
+  }
+
+  @Test
+  void should_complete_committed_compaction() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key", "value");
+    Files.copy(base.resolve("segment-0.log"), base.resolve("segment-1.log"));
+    Files.move(base.resolve("segment-0.log"), base.resolve("segment-0.tmp"));
+    Files.write(base.resolve("segment-2.log"), new byte[0]);
+    Files.write(base.resolve("compaction.commit"), "1\n0\n".getBytes(UTF_8));
+
+    LogObjectStore<String> reopened = newStore(1024, Long.MAX_VALUE);
+
+    assertThat(reopened.read("key")).contains("value");
+    assertThat(base.resolve("segment-0.log")).exists();
+    assertThat(base.resolve("segment-0.tmp")).doesNotExist();
+    assertThat(base.resolve("segment-1.log")).doesNotExist();
+    assertThat(base.resolve("segment-2.log")).exists();
+    assertThat(base.resolve("compaction.commit")).doesNotExist();
+  }
+
+  @Test
+  void should_drop_uncommitted_compaction() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key", "value");
+    Files.write(base.resolve("segment-0.tmp"), new byte[] {1, 2, 3});
+    Files.write(base.resolve("compaction.commit.tmp"), "0\n".getBytes(UTF_8));
+
+    LogObjectStore<String> reopened = newStore(1024, Long.MAX_VALUE);
+
+    assertThat(reopened.read("key")).contains("value");
+    assertThat(base.resolve("segment-0.tmp")).doesNotExist();
+    assertThat(base.resolve("compaction.commit.tmp")).doesNotExist();
+  }
+
+  @Test
+  void should_be_stale_when_segments_are_modified_by_another_store() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key", "value");
+    assertThat(store.isStale()).isFalse();
+
+    newStore(1024, Long.MAX_VALUE).write("key", "other value");
+
+    assertThat(store.isStale()).isTrue();
+    assertThat(newStore(1024, Long.MAX_VALUE).read("key")).contains("other value");
+  }
+
+  @Test
+  void should_be_stale_when_directory_is_replaced() throws IOException {
+    Path dir = base.resolve("store");
+    LogObjectStore<String> store = new LogObjectStore<>(dir, READER, WRITER, 1024, Long.MAX_VALUE, Runnable::run);
+    store.write("key", "value");
+    assertThat(store.isStale()).isFalse();
+
+    Files.move(dir, base.resolve("old"));
+    Files.createDirectory(dir);
+
+    assertThat(store.isStale()).isTrue();
+  }
+
+  @Test
+  void should_reload_segments_written_by_another_store_before_writing() throws IOException {
+    LogObjectStore<String> store = newStore(1024, Long.MAX_VALUE);
+    store.write("key1", "value1");
+
+    newStore(1024, Long.MAX_VALUE).write("key2", "value2");
+    store.write("key3", "value3");
+
+    assertThat(store.read("key2")).contains("value2");
+    LogObjectStore<String> reopened = newStore(1024, Long.MAX_VALUE);
+    assertThat(reopened.read("key1")).contains("value1");
+    assertThat(reopened.read("key2")).contains("value2");
+    assertThat(reopened.read("key3")).contains("value3");
+  }
+
+  @Test
+  void should_not_compact_while_files_are_locked_by_someone_else() throws IOException {
+    List<Runnable> compactions = new ArrayList<>();
+    LogObjectStore<String> store = new LogObjectStore<>(base, READER, WRITER, 1024, 64, compactions::add);
+    for (int i = 0; compactions.isEmpty(); i++) {
+      store.write("key", "value" + i);
+    }
+    long size = Files.size(base.resolve("segment-0.log"));
+
+    try (FileChannel channel = FileChannel.open(base.resolve("store.lock"), StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+      compactions.forEach(Runnable::run);
+    }
+
+    assertThat(Files.size(base.resolve("segment-0.log"))).isEqualTo(size);
+    compactions.clear();
+    store.write("key", "last value");
+    compactions.forEach(Runnable::run);
+    assertThat(Files.size(base.resolve("segment-0.log"))).isLessThan(size);
+    assertThat(newStore(1024, Long.MAX_VALUE).read("key")).contains("last value");
+  }
+
+  private LogObjectStore<String> newStore(int maxSegmentSize, long minCompactionSize) {
+    return new LogObjectStore<>(base, READER, WRITER, maxSegmentSize, minCompactionSize, Runnable::run);
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonarsource.sonarlint.core.container.connected.update;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import okhttp3.mockwebserver.MockResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +41,7 @@ import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import org.sonarsource.sonarlint.core.util.StringUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class IssueDownloaderTests {
@@ -296,4 +298,64 @@ class IssueDownloaderTests {
     List<ServerIssue> issues = underTest.download(DUMMY_KEY, projectConfiguration, true, PROGRESS);
     assertThat(issues).isEmpty();
   }
+
+  @Test
+  void test_stream_issues_to_consumer_in_response_order() {
+    ScannerInput.ServerIssue.Builder builder = ScannerInput.ServerIssue.newBuilder()
+      .setRuleRepository("sonarjava")
+      .setRuleKey("S123")
+      .setModuleKey("project");
+    mockServer.addProtobufResponseDelimited("/batch/issues?key=" + DUMMY_KEY,
+      builder.setKey("key1").setPath("foo/bar/Hello.java").build(),
+      builder.setKey("key2").setPath("foo/bar/Hello2.java").build(),
+      builder.setKey("key3").setPath("foo/bar/Hello.java").build());
+
+    List<ServerIssue> issues = new ArrayList<>();
+    underTest.download(DUMMY_KEY, projectConfiguration, false, PROGRESS, issues::add);
+
+    assertThat(issues).extracting(ServerIssue::getKey, i -> i.getPrimaryLocation().getPath()).containsExactly(
+      tuple("key1", "foo/bar/Hello.java"),
+      tuple("key2", "foo/bar/Hello2.java"),
+      tuple("key3", "foo/bar/Hello.java"));
+  }
+
+  @Test
+  void test_fetch_source_of_each_file_once_for_all_taint_vulnerabilities() {
+    ScannerInput.ServerIssue taint = ScannerInput.ServerIssue.newBuilder()
+      .setRuleRepository("javasecurity")
+      .setRuleKey("S789")
+      .setStatus("OPEN")
+      .setPath("foo/bar/Hello.java")
+      .setModuleKey("project")
+      .build();
+    Issues.SearchWsResponse.Builder response = Issues.SearchWsResponse.newBuilder()
+      .addComponents(Issues.Component.newBuilder().setKey(FILE_1_KEY).setPath("foo/bar/Hello.java"))
+      .addComponents(Issues.Component.newBuilder().setKey(FILE_2_KEY).setPath("foo/bar/Hello2.java"))
+      .setPaging(Paging.newBuilder().setPageIndex(1).setPageSize(500).setTotal(10));
+    for (int i = 1; i <= 10; i++) {
+      response.addIssues(Issues.Issue.newBuilder()
+        .setKey("taint" + i)
+        .setRule("javasecurity:S789")
+        .setTextRange(TextRange.newBuilder().setStartLine(1).setStartOffset(0).setEndLine(1).setEndOffset(4))
+        .setCreationDate("2021-01-11T18:17:31+0000")
+        .setComponent(i % 2 == 0 ? FILE_1_KEY : FILE_2_KEY)
+        .addFlows(Flow.newBuilder()
+          .addLocations(Common.Location.newBuilder().setComponent(FILE_1_KEY)
+            .setTextRange(TextRange.newBuilder().setStartLine(2).setStartOffset(0).setEndLine(2).setEndOffset(6)))));
+    }
+    mockServer.addProtobufResponseDelimited("/batch/issues?key=" + DUMMY_KEY, taint);
+    mockServer.addProtobufResponse(
+      "/api/issues/search.protobuf?statuses=OPEN,CONFIRMED,REOPENED&types=VULNERABILITY&componentKeys=" + DUMMY_KEY + "&rules=javasecurity%3AS789&ps=500&p=1",
+      response.build());
+    mockServer.addStringResponse("/api/sources/raw?key=" + StringUtils.urlEncode(FILE_1_KEY), "File 1\r\nSource");
+    mockServer.addStringResponse("/api/sources/raw?key=" + StringUtils.urlEncode(FILE_2_KEY), "File 2\nSource");
+
+    List<ServerIssue> issues = underTest.download(DUMMY_KEY, projectConfiguration, true, PROGRESS);
+
+    assertThat(issues).hasSize(10);
+    assertThat(issues).extracting(i -> i.getPrimaryLocation().getCodeSnippet()).containsOnly("File");
+    assertThat(issues).extracting(i -> i.getFlow(0).getLocation(0).getCodeSnippet()).containsOnly("Source");
+    // batch issues, taint vulnerabilities and one request per source file
+    assertThat(mockServer.getRequestCount()).isEqualTo(4);
+  }
 }
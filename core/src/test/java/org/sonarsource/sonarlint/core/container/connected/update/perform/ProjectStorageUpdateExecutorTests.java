@@ -68,7 +68,9 @@ import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -87,7 +89,7 @@ class ProjectStorageUpdateExecutorTests {
   private final TempFolder tempFolder = mock(TempFolder.class);
   private final ModuleHierarchyDownloader moduleHierarchy = mock(ModuleHierarchyDownloader.class);
   private final IssueStore issueStore = new InMemoryIssueStore();
-  private final IssueStoreFactory issueStoreFactory = mock(IssueStoreFactory.class);
+  private final IssueStoreFactory issueStoreFactory = spy(new IssueStoreFactory());
   private final ServerIssueUpdater serverIssueUpdater = mock(ServerIssueUpdater.class);
   private ProjectConfigurationDownloader projectConfigurationDownloader;
   private final ProjectFileListDownloader projectFileListDownloader = mock(ProjectFileListDownloader.class);
@@ -124,13 +126,13 @@ class ProjectStorageUpdateExecutorTests {
     when(moduleHierarchy.fetchModuleHierarchy(eq(MODULE_KEY_WITH_BRANCH), any(ProgressWrapper.class)))
       .thenReturn(modulesPath);
 
-    when(issueStoreFactory.apply(any(Path.class))).thenReturn(issueStore);
+    doReturn(issueStore).when(issueStoreFactory).apply(any(Path.class));
 
     ServerApiHelper serverApiHelper = mockServer.serverApiHelper(organizationKey);
     projectConfigurationDownloader = new ProjectConfigurationDownloader(moduleHierarchy, new ProjectQualityProfilesDownloader(serverApiHelper), serverApiHelper);
 
     qualityProfileStore = new QualityProfileStore(new StorageFolder.Default(tempDir));
-    underTest = new ProjectStorageUpdateExecutor(projectStoragePaths, tempFolder, projectConfigurationDownloader, projectFileListDownloader,  serverIssueUpdater, qualityProfileStore);
+    underTest = new ProjectStorageUpdateExecutor(projectStoragePaths, tempFolder, projectConfigurationDownloader, projectFileListDownloader,  serverIssueUpdater, qualityProfileStore, issueStoreFactory);
   }
 
   @ParameterizedTest(name = "organizationKey=[{0}]")
@@ -243,7 +245,7 @@ class ProjectStorageUpdateExecutorTests {
       .thenReturn(Arrays.asList(fileIssue1, fileIssue2, anotherFileIssue));
 
     underTest = new ProjectStorageUpdateExecutor(projectStoragePaths, tempFolder, projectConfigurationDownloader,
-      projectFileListDownloader, serverIssueUpdater, qualityProfileStore);
+      projectFileListDownloader, serverIssueUpdater, qualityProfileStore, issueStoreFactory);
     underTest.update(MODULE_KEY_WITH_BRANCH, false, PROGRESS);
 
     verify(serverIssueUpdater).updateServerIssues(eq(MODULE_KEY_WITH_BRANCH), any(ProjectConfiguration.class), any(Path.class), eq(false), any(ProgressWrapper.class));
@@ -257,7 +259,7 @@ class ProjectStorageUpdateExecutorTests {
 
     Path temp = tempFolder.newDir().toPath();
     underTest = new ProjectStorageUpdateExecutor(projectStoragePaths, tempFolder, projectConfigurationDownloader,
-      projectFileListDownloader, serverIssueUpdater, qualityProfileStore);
+      projectFileListDownloader, serverIssueUpdater, qualityProfileStore, issueStoreFactory);
     ProjectConfiguration.Builder projectConfigurationBuilder = ProjectConfiguration.newBuilder();
     projectConfigurationBuilder.putModulePathByKey("rootModule", "");
     projectConfigurationBuilder.putModulePathByKey("moduleA", "A");
@@ -275,6 +277,10 @@ class ProjectStorageUpdateExecutorTests {
     Sonarlint.ProjectComponents components = ProtobufUtil.readFile(temp.resolve(ProjectStoragePaths.COMPONENT_LIST_PB), Sonarlint.ProjectComponents.parser());
     assertThat(components.getComponentList()).containsOnly(
       "pom.xml", "unknownFile", "A/a.java", "B/b.java");
+
+    Sonarlint.ProjectComponentTree tree = ProtobufUtil.readFile(temp.resolve(ProjectStoragePaths.COMPONENT_TREE_PB), Sonarlint.ProjectComponentTree.parser());
+    assertThat(tree.getSegmentList()).containsExactly("A", "B", "a.java", "b.java", "pom.xml", "unknownFile");
+    assertThat(tree.getTerminalCount()).isEqualTo(4);
   }
 
   private String getQualityProfileUrl(@Nullable String organizationKey) {
@@ -0,0 +1,256 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.connected.update.perform;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.scanner.protocol.input.ScannerInput;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Common.Paging;
+import org.sonarqube.ws.Issues;
+import org.sonarsource.sonarlint.core.MockWebServerExtension;
+import org.sonarsource.sonarlint.core.container.connected.InMemoryIssueStore;
+import org.sonarsource.sonarlint.core.container.connected.IssueStore;
+import org.sonarsource.sonarlint.core.container.connected.IssueStoreFactory;
+import org.sonarsource.sonarlint.core.container.connected.update.IssueDownloader;
+import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
+import org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssue;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ServerIssuesSyncStatus;
+import org.sonarsource.sonarlint.core.serverapi.ServerApi;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ServerIssueUpdaterTests {
+
+  private static final String PROJECT_KEY = "projectKey";
+  private static final ProgressWrapper PROGRESS = new ProgressWrapper(null);
+  private static final String SEARCH_BY_UPDATE_DATE_URL = "/api/issues/search.protobuf?statuses=OPEN,CONFIRMED,REOPENED,RESOLVED,CLOSED&s=UPDATE_DATE&asc=false&componentKeys="
+    + PROJECT_KEY;
+  private static final String LATEST_UPDATE_URL = SEARCH_BY_UPDATE_DATE_URL + "&ps=1&p=1";
+  private static final String CHANGES_URL = SEARCH_BY_UPDATE_DATE_URL + "&ps=500&p=1";
+  private static final String BATCH_ISSUES_URL = "/batch/issues?key=" + PROJECT_KEY;
+
+  private static final String FIRST_SYNC_DATE = "2021-03-01T10:00:00+0000";
+  private static final String SECOND_SYNC_DATE = "2021-03-02T10:00:00+0000";
+  private static final String OLD_DATE = "2021-02-01T10:00:00+0000";
+
+  @RegisterExtension
+  static MockWebServerExtension mockServer = new MockWebServerExtension();
+
+  private final Sonarlint.ProjectConfiguration projectConfiguration = Sonarlint.ProjectConfiguration.newBuilder().build();
+  private final ProjectStoragePaths projectStoragePaths = mock(ProjectStoragePaths.class);
+  private final IssueStoreFactory issueStoreFactory = spy(new IssueStoreFactory());
+  private final IssueStore issueStore = spy(new InMemoryIssueStore());
+  private final TempFolder tempFolder = mock(TempFolder.class);
+  private Path syncStatusPath;
+  private ServerIssueUpdater underTest;
+
+  @BeforeEach
+  void prepare(@TempDir Path tempDir) throws Exception {
+    Path projectRoot = tempDir.resolve("project");
+    Files.createDirectories(projectRoot);
+    syncStatusPath = projectRoot.resolve(ProjectStoragePaths.SERVER_ISSUES_SYNC_STATUS_PB);
+    when(projectStoragePaths.getServerIssuesPath(PROJECT_KEY)).thenReturn(projectRoot.resolve(ProjectStoragePaths.SERVER_ISSUES_DIR));
+    when(projectStoragePaths.getServerIssuesSyncStatusPath(PROJECT_KEY)).thenReturn(syncStatusPath);
+    when(tempFolder.newDir()).thenAnswer(invocation -> Files.createTempDirectory(tempDir, "work").toFile());
+    doReturn(issueStore).when(issueStoreFactory).apply(any(Path.class));
+
+    ServerApi serverApi = new ServerApi(mockServer.serverApiHelper());
+    IssueDownloader issueDownloader = new IssueDownloader(serverApi.issue(), serverApi.source(), new IssueStorePaths());
+    underTest = new ServerIssueUpdater(projectStoragePaths, issueDownloader, issueStoreFactory, tempFolder);
+  }
+
+  @Test
+  void should_download_all_issues_and_store_watermark_when_no_previous_sync() {
+    mockFirstSync();
+
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    assertThat(issueStore.load("A.java")).extracting(ServerIssue::getKey).containsExactly("issue1", "issue2");
+    assertThat(issueStore.load("B.java")).extracting(ServerIssue::getKey).containsExactly("issue3");
+    ServerIssuesSyncStatus syncStatus = ProtobufUtil.readFile(syncStatusPath, ServerIssuesSyncStatus.parser());
+    assertThat(syncStatus.getLastIssueUpdateDate()).isEqualTo(timestamp(FIRST_SYNC_DATE));
+    assertThat(syncStatus.getTaintVulnerabilitiesIncluded()).isFalse();
+  }
+
+  @Test
+  void should_only_fetch_and_rewrite_changed_issues_on_next_sync() {
+    mockFirstSync();
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+    int requestsOfFirstSync = mockServer.getRequestCount();
+    clearInvocations(issueStore);
+
+    mockServer.addResponse(BATCH_ISSUES_URL, new MockResponse().setResponseCode(500));
+    mockServer.addProtobufResponse(CHANGES_URL, Issues.SearchWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setTotal(4))
+      .addComponents(Issues.Component.newBuilder().setKey(PROJECT_KEY + ":A.java").setPath("A.java"))
+      .addComponents(Issues.Component.newBuilder().setKey(PROJECT_KEY + ":B.java").setPath("B.java"))
+      .addIssues(searchIssue("issue2", "A.java", "CONFIRMED", SECOND_SYNC_DATE))
+      .addIssues(searchIssue("issue3", "B.java", "CLOSED", SECOND_SYNC_DATE))
+      .addIssues(searchIssue("issue4", "A.java", "OPEN", SECOND_SYNC_DATE))
+      // older than the watermark, ignored as well as the following ones
+      .addIssues(searchIssue("issue1", "A.java", "REOPENED", OLD_DATE))
+      .build());
+
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    assertThat(mockServer.getRequestCount()).isEqualTo(requestsOfFirstSync + 1);
+    for (int i = 0; i < requestsOfFirstSync; i++) {
+      mockServer.takeRequest();
+    }
+    assertThat(mockServer.takeRequest().getPath()).isEqualTo(CHANGES_URL);
+
+    verify(issueStore).save(anyList());
+    verify(issueStore).delete("B.java");
+    assertThat(issueStore.load("A.java")).extracting(ServerIssue::getKey, ServerIssue::getStatus).containsExactly(
+      tuple("issue1", "OPEN"),
+      tuple("issue2", "CONFIRMED"),
+      tuple("issue4", "OPEN"));
+    assertThat(issueStore.load("B.java")).isEmpty();
+    assertThat(ProtobufUtil.readFile(syncStatusPath, ServerIssuesSyncStatus.parser()).getLastIssueUpdateDate()).isEqualTo(timestamp(SECOND_SYNC_DATE));
+  }
+
+  @Test
+  void should_remove_moved_issues_from_their_previous_file() {
+    mockFirstSync();
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    mockServer.addProtobufResponse(CHANGES_URL, Issues.SearchWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setTotal(1))
+      .addComponents(Issues.Component.newBuilder().setKey(PROJECT_KEY + ":C.java").setPath("C.java"))
+      .addIssues(searchIssue("issue2", "C.java", "OPEN", SECOND_SYNC_DATE))
+      .build());
+
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    assertThat(issueStore.load("A.java")).extracting(ServerIssue::getKey).containsExactly("issue1");
+    assertThat(issueStore.load("C.java")).extracting(ServerIssue::getKey).containsExactly("issue2");
+    assertThat(issueStore.load("B.java")).extracting(ServerIssue::getKey).containsExactly("issue3");
+  }
+
+  @Test
+  void should_fall_back_to_full_sync_when_store_cannot_find_issues() {
+    mockFirstSync();
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+    int requestsOfFirstSync = mockServer.getRequestCount();
+    doReturn(Optional.empty()).when(issueStore).findFiles(anySet());
+
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    assertThat(mockServer.getRequestCount()).isEqualTo(requestsOfFirstSync + 3);
+    for (int i = 0; i < requestsOfFirstSync + 2; i++) {
+      mockServer.takeRequest();
+    }
+    assertThat(mockServer.takeRequest().getPath()).isEqualTo(BATCH_ISSUES_URL);
+    assertThat(issueStore.load("A.java")).extracting(ServerIssue::getKey).containsExactly("issue1", "issue2");
+  }
+
+  @Test
+  void should_fall_back_to_full_sync_when_watermark_is_too_old() {
+    mockFirstSync();
+    ProtobufUtil.writeToFile(ServerIssuesSyncStatus.newBuilder()
+      .setLastIssueUpdateDate(timestamp(OLD_DATE))
+      .setSyncTimestamp(System.currentTimeMillis() - ServerIssueUpdater.MAX_INCREMENTAL_SYNC_AGE_MS - 1000)
+      .build(), syncStatusPath);
+
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+
+    assertThat(issueStore.load("B.java")).extracting(ServerIssue::getKey).containsExactly("issue3");
+    assertThat(ProtobufUtil.readFile(syncStatusPath, ServerIssuesSyncStatus.parser()).getLastIssueUpdateDate()).isEqualTo(timestamp(FIRST_SYNC_DATE));
+  }
+
+  @Test
+  void should_fall_back_to_full_sync_when_taint_vulnerabilities_were_not_synced() {
+    mockFirstSync();
+    underTest.update(PROJECT_KEY, projectConfiguration, false, PROGRESS);
+    clearInvocations(issueStore);
+
+    underTest.update(PROJECT_KEY, projectConfiguration, true, PROGRESS);
+
+    verify(issueStore, never()).delete(any());
+    assertThat(ProtobufUtil.readFile(syncStatusPath, ServerIssuesSyncStatus.parser()).getTaintVulnerabilitiesIncluded()).isTrue();
+  }
+
+  private static void mockFirstSync() {
+    mockServer.addProtobufResponse(LATEST_UPDATE_URL, Issues.SearchWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setTotal(3))
+      .addIssues(searchIssue("issue1", "A.java", "OPEN", FIRST_SYNC_DATE))
+      .build());
+    mockServer.addProtobufResponseDelimited(BATCH_ISSUES_URL,
+      batchIssue("issue1", "A.java"),
+      batchIssue("issue2", "A.java"),
+      batchIssue("issue3", "B.java"));
+    mockServer.addProtobufResponse(CHANGES_URL, Issues.SearchWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setTotal(0))
+      .build());
+  }
+
+  private static ScannerInput.ServerIssue batchIssue(String key, String path) {
+    return ScannerInput.ServerIssue.newBuilder()
+      .setKey(key)
+      .setRuleRepository("java")
+      .setRuleKey("S123")
+      .setStatus("OPEN")
+      .setModuleKey(PROJECT_KEY)
+      .setPath(path)
+      .setLine(1)
+      .build();
+  }
+
+  private static Issues.Issue searchIssue(String key, String path, String status, String updateDate) {
+    return Issues.Issue.newBuilder()
+      .setKey(key)
+      .setRule("java:S123")
+      .setComponent(PROJECT_KEY + ":" + path)
+      .setStatus(status)
+      .setSeverity(Common.Severity.MAJOR)
+      .setType(Common.RuleType.CODE_SMELL)
+      .setLine(1)
+      .setCreationDate(OLD_DATE)
+      .setUpdateDate(updateDate)
+      .build();
+  }
+
+  private static long timestamp(String date) {
+    return org.sonar.api.utils.DateUtils.parseDateTime(date).getTime();
+  }
+}
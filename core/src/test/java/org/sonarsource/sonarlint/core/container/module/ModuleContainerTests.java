@@ -0,0 +1,69 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.module;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class ModuleContainerTests {
+
+  private ModuleContainer underTest;
+
+  @BeforeEach
+  void prepare() {
+    underTest = spy(new ModuleContainer(new ComponentContainer()));
+    doReturn(underTest).when(underTest).stopComponents();
+  }
+
+  @Test
+  void should_stop_immediately_when_not_used() {
+    underTest.stopWhenIdle();
+
+    verify(underTest).stopComponents();
+  }
+
+  @Test
+  void should_defer_stop_until_last_analysis_releases_the_container() {
+    assertThat(underTest.acquire()).isTrue();
+    assertThat(underTest.acquire()).isTrue();
+
+    underTest.stopWhenIdle();
+    underTest.release();
+    verify(underTest, never()).stopComponents();
+
+    underTest.release();
+    verify(underTest).stopComponents();
+  }
+
+  @Test
+  void should_not_be_acquired_once_stop_requested() {
+    assertThat(underTest.acquire()).isTrue();
+    underTest.stopWhenIdle();
+
+    assertThat(underTest.acquire()).isFalse();
+  }
+}
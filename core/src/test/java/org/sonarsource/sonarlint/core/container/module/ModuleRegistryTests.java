@@ -0,0 +1,115 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.module;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.client.api.common.ClientFileSystem;
+import org.sonarsource.sonarlint.core.client.api.common.ModuleInfo;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.container.ComponentContainer;
+import org.sonarsource.sonarlint.core.container.ContainerLifespan;
+import org.sonarsource.sonarlint.core.container.global.ExtensionInstaller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ModuleRegistryTests {
+
+  private final ExtensionInstaller extensionInstaller = mock(ExtensionInstaller.class);
+  private final ComponentContainer parent = new ComponentContainer();
+  private ModuleRegistry underTest;
+
+  @BeforeEach
+  void prepare() {
+    parent.add(extensionInstaller);
+    parent.startComponents();
+    underTest = new ModuleRegistry(parent, null, 2);
+  }
+
+  @AfterEach
+  void stop() {
+    underTest.stopAll();
+    parent.stopComponents();
+  }
+
+  @Test
+  void should_ignore_null_module_key() {
+    assertThat(underTest.getContainerFor(null)).isNull();
+    assertThat(underTest.acquireContainerFor(null)).isNull();
+    underTest.unregisterModule(null);
+  }
+
+  @Test
+  void should_register_a_module_only_once() {
+    ModuleContainer first = underTest.registerModule(new ModuleInfo("key", emptyFileSystem()));
+    ModuleContainer second = underTest.registerModule(new ModuleInfo("key", emptyFileSystem()));
+
+    assertThat(second).isSameAs(first);
+    assertThat(underTest.getContainerFor("key")).isSameAs(first);
+  }
+
+  @Test
+  void should_reuse_pooled_container_without_plugin_extensions() {
+    ComponentContainer container = underTest.acquirePooledContainer(emptyFileSystem());
+    underTest.releasePooledContainer(container);
+
+    assertThat(underTest.idlePooledContainerCount()).isEqualTo(1);
+    assertThat(underTest.acquirePooledContainer(emptyFileSystem())).isSameAs(container);
+  }
+
+  @Test
+  void should_not_reuse_pooled_container_with_module_extensions() {
+    doAnswer(invocation -> {
+      ComponentContainer container = invocation.getArgument(0);
+      container.addExtension(null, ModuleScopedExtension.class);
+      return extensionInstaller;
+    }).when(extensionInstaller).install(any(), eq(ContainerLifespan.MODULE));
+
+    ComponentContainer container = underTest.acquirePooledContainer(emptyFileSystem());
+    underTest.releasePooledContainer(container);
+
+    assertThat(underTest.idlePooledContainerCount()).isZero();
+    assertThat(underTest.acquirePooledContainer(emptyFileSystem())).isNotSameAs(container);
+  }
+
+  private static ClientFileSystem emptyFileSystem() {
+    return new ClientFileSystem() {
+      @Override
+      public Stream<ClientInputFile> files(String suffix, InputFile.Type type) {
+        return Stream.empty();
+      }
+
+      @Override
+      public Stream<ClientInputFile> files() {
+        return Stream.empty();
+      }
+    };
+  }
+
+  public static class ModuleScopedExtension {
+  }
+}
@@ -38,9 +38,9 @@ import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 public class StandalonePluginIndexTest {
   private StandalonePluginIndex index;
@@ -58,8 +58,7 @@ public class StandalonePluginIndexTest {
     FileUtils.write(file, "string", StandardCharsets.UTF_8);
     URL plugin = file.toURI().toURL();
     StandalonePluginUrls urls = new StandalonePluginUrls(Collections.singletonList(plugin));
-    cache = mock(PluginCache.class);
-    when(cache.getFromCacheOrCopy(any())).thenCallRealMethod();
+    cache = spy(PluginCache.create(temp.newFolder().toPath()));
     index = new StandalonePluginIndex(urls, cache);
   }
 
@@ -73,7 +72,7 @@ public class StandalonePluginIndexTest {
 
   @Test
   public void testCacheStorageError() {
-    when(cache.get(eq("filename"), eq("b45cffe084dd3d20d928bee85e7b0f21"), any(PluginCache.Copier.class))).thenThrow(new StorageException("msg", true));
+    doThrow(new StorageException("msg", true)).when(cache).get(eq("filename"), eq("b45cffe084dd3d20d928bee85e7b0f21"), any(PluginCache.Copier.class));
     exception.expect(StorageException.class);
     exception.expectMessage("msg");
     index.references();
@@ -81,7 +80,7 @@ public class StandalonePluginIndexTest {
 
   @Test
   public void testCacheOtherError() {
-    when(cache.get(eq("filename"), eq("b45cffe084dd3d20d928bee85e7b0f21"), any(PluginCache.Copier.class))).thenThrow(new IllegalArgumentException("msg"));
+    doThrow(new IllegalArgumentException("msg")).when(cache).get(eq("filename"), eq("b45cffe084dd3d20d928bee85e7b0f21"), any(PluginCache.Copier.class));
     exception.expect(IllegalStateException.class);
     exception.expectMessage("Fail to copy plugin");
     index.references();
@@ -0,0 +1,78 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActiveRulesStoreTests {
+
+  @TempDir
+  Path tempDir;
+
+  private ServerStorage serverStorage;
+  private ActiveRulesStore activeRulesStore;
+
+  @BeforeEach
+  void prepare() throws IOException {
+    serverStorage = new ServerStorage(Files.createDirectories(tempDir.resolve("global")));
+    activeRulesStore = new ActiveRulesStore(serverStorage);
+    serverStorage.addReplaceListener(activeRulesStore::invalidate);
+  }
+
+  @Test
+  void should_keep_active_rules_in_memory_until_storage_is_replaced() throws Exception {
+    activeRulesStore.store(Collections.singletonMap("qp", activeRules("java:S1")));
+    assertThat(activeRulesStore.getActiveRules("qp").getActiveRulesByKeyMap()).containsOnlyKeys("java:S1");
+
+    Files.delete(activeRulesStore.getActiveRulesPath(tempDir.resolve("global"), "qp"));
+    assertThat(activeRulesStore.getActiveRules("qp").getActiveRulesByKeyMap()).containsOnlyKeys("java:S1");
+
+    Path temp = Files.createDirectories(tempDir.resolve("temp"));
+    new ActiveRulesStore(new StorageFolder.Default(temp)).store(Collections.singletonMap("qp", activeRules("java:S2")));
+    serverStorage.replaceStorageWith(temp);
+
+    assertThat(activeRulesStore.getActiveRules("qp").getActiveRulesByKeyMap()).containsOnlyKeys("java:S2");
+  }
+
+  @Test
+  void should_see_active_rules_stored_after_first_read() {
+    assertThat(activeRulesStore.getActiveRules("qp").getActiveRulesByKeyMap()).isEmpty();
+
+    activeRulesStore.store(Collections.singletonMap("qp", activeRules("java:S1")));
+
+    assertThat(activeRulesStore.getActiveRules("qp").getActiveRulesByKeyMap()).containsOnlyKeys("java:S1");
+  }
+
+  private static Sonarlint.ActiveRules activeRules(String ruleKey) {
+    String[] parts = ruleKey.split(":");
+    return Sonarlint.ActiveRules.newBuilder()
+      .putActiveRulesByKey(ruleKey, Sonarlint.ActiveRules.ActiveRule.newBuilder().setRepo(parts[0]).setKey(parts[1]).setSeverity("MAJOR").build())
+      .build();
+  }
+}
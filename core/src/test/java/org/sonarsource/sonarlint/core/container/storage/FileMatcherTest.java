@@ -30,6 +30,7 @@ import java.util.List;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.jupiter.api.Disabled;
+import org.sonarsource.sonarlint.core.util.CompactReversePathTree;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -53,6 +54,15 @@ public class FileMatcherTest {
     assertThat(match.sqPrefix()).isEqualTo(Paths.get("sq"));
   }
 
+  @Test
+  public void simple_case_with_prefixes_using_compact_tree() {
+    List<Path> idePaths = Collections.singletonList(Paths.get("local/src/main/java/File.java"));
+    CompactReversePathTree sqTree = CompactReversePathTree.build(Arrays.asList("sq/src/main/java/File.java", "sq/src/main/java/Other.java"));
+    FileMatcher.Result match = fileMatcher.match(sqTree, idePaths);
+    assertThat(match.idePrefix()).isEqualTo(Paths.get("local"));
+    assertThat(match.sqPrefix()).isEqualTo(Paths.get("sq"));
+  }
+
   @Test
   public void no_match() {
     List<Path> idePaths = Collections.singletonList(Paths.get("local/src/main/java/File1.java"));
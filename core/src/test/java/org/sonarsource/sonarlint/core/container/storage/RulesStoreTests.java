@@ -0,0 +1,102 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.proto.Sonarlint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RulesStoreTests {
+
+  @TempDir
+  Path tempDir;
+
+  private ServerStorage serverStorage;
+  private RulesStore rulesStore;
+
+  @BeforeEach
+  void prepare() throws IOException {
+    serverStorage = new ServerStorage(Files.createDirectories(tempDir.resolve("global")));
+    rulesStore = new RulesStore(serverStorage);
+    serverStorage.addReplaceListener(rulesStore::invalidate);
+  }
+
+  @Test
+  void should_read_rules_with_descriptions_by_key() {
+    Sonarlint.Rules.Rule rule1 = rule("java", "S1", "<p>Description 1</p>");
+    Sonarlint.Rules.Rule rule2 = rule("js", "S2", "<p>Description 2</p>");
+    rulesStore.store(Sonarlint.Rules.newBuilder()
+      .putRulesByKey("java:S1", rule1)
+      .putRulesByKey("js:S2", rule2)
+      .build());
+
+    assertThat(rulesStore.getRuleWithKey("java:S1")).contains(rule1);
+    assertThat(rulesStore.getRuleWithKey("js:S2")).contains(rule2);
+    assertThat(rulesStore.getRuleWithKey("js:S3")).isEmpty();
+    assertThat(rulesStore.getAll().getRulesByKeyMap()).containsOnlyKeys("java:S1", "js:S2");
+  }
+
+  @Test
+  void should_return_no_rule_if_storage_is_empty() {
+    assertThat(rulesStore.getRuleWithKey("java:S1")).isEmpty();
+  }
+
+  @Test
+  void should_see_rules_stored_after_first_read() {
+    rulesStore.store(Sonarlint.Rules.newBuilder().putRulesByKey("java:S1", rule("java", "S1", "old")).build());
+    assertThat(rulesStore.getRuleWithKey("java:S1").get().getHtmlDesc()).isEqualTo("old");
+
+    rulesStore.store(Sonarlint.Rules.newBuilder().putRulesByKey("java:S1", rule("java", "S1", "a new and longer description")).build());
+
+    assertThat(rulesStore.getRuleWithKey("java:S1").get().getHtmlDesc()).isEqualTo("a new and longer description");
+  }
+
+  @Test
+  void should_reload_rules_when_storage_is_replaced() throws Exception {
+    rulesStore.store(Sonarlint.Rules.newBuilder().putRulesByKey("java:S1", rule("java", "S1", "old")).build());
+    assertThat(rulesStore.getRuleWithKey("java:S1")).isPresent();
+
+    Path temp = Files.createDirectories(tempDir.resolve("temp"));
+    new RulesStore(new StorageFolder.Default(temp))
+      .store(Sonarlint.Rules.newBuilder().putRulesByKey("java:S2", rule("java", "S2", "new")).build());
+    serverStorage.replaceStorageWith(temp);
+
+    assertThat(rulesStore.getRuleWithKey("java:S1")).isEmpty();
+    assertThat(rulesStore.getRuleWithKey("java:S2").get().getHtmlDesc()).isEqualTo("new");
+  }
+
+  private static Sonarlint.Rules.Rule rule(String repo, String key, String htmlDesc) {
+    return Sonarlint.Rules.Rule.newBuilder()
+      .setRepo(repo)
+      .setKey(key)
+      .setName("Name of " + key)
+      .setSeverity("MAJOR")
+      .setLang(repo)
+      .setHtmlDesc(htmlDesc)
+      .setType("CODE_SMELL")
+      .build();
+  }
+}
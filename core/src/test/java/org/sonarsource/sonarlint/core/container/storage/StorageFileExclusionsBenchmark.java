@@ -0,0 +1,137 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.sonarlint.core.container.analysis.ExclusionFilters;
+import org.sonarsource.sonarlint.core.container.analysis.SonarLintPathPattern;
+import org.sonarsource.sonarlint.core.container.global.MapSettings;
+
+/**
+ * Compare the previous way of matching file exclusions, compiling the patterns at each call and matching them one by one,
+ * with the cached and indexed {@link ExclusionFilters} used by {@link StorageFileExclusions}.
+ * The 40 exclusions mix the pattern shapes found in real projects: directory wildcards, extensions, module paths and file names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageFileExclusionsBenchmark {
+
+  private static final String[] EXTENSIONS = {"java", "js", "ts", "xml", "html", "css", "py", "json"};
+
+  @Param({"1000", "50000"})
+  int fileCount;
+
+  private String[] exclusions;
+  private MapSettings settings;
+  private List<String> files;
+  private ExclusionFilters cachedFilters;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    exclusions = new String[40];
+    for (int i = 0; i < exclusions.length; i++) {
+      switch (i % 4) {
+        case 0:
+          exclusions[i] = "**/generated" + i + "/**";
+          break;
+        case 1:
+          exclusions[i] = "**/*." + EXTENSIONS[i % EXTENSIONS.length] + "_" + i;
+          break;
+        case 2:
+          exclusions[i] = "module" + i + "/src/**/*Dto.java";
+          break;
+        default:
+          exclusions[i] = "**/vendor" + i + "/*.min.js";
+      }
+    }
+    settings = new MapSettings();
+    settings.setProperty("sonar.exclusions", String.join(",", exclusions));
+    cachedFilters = prepare();
+
+    files = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      files.add("module" + random.nextInt(50) + "/src/main/pkg" + random.nextInt(200) + "/File" + i + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+    }
+  }
+
+  private ExclusionFilters prepare() {
+    ExclusionFilters filters = new ExclusionFilters(settings.asConfig());
+    filters.prepare();
+    return filters;
+  }
+
+  @Benchmark
+  public int compiledAtEachCallLinearMatch() {
+    SonarLintPathPattern[] patterns = SonarLintPathPattern.create(exclusions);
+    int excluded = 0;
+    for (String file : files) {
+      for (SonarLintPathPattern pattern : patterns) {
+        if (pattern.match(file)) {
+          excluded++;
+          break;
+        }
+      }
+    }
+    return excluded;
+  }
+
+  @Benchmark
+  public int cachedIndexedMatch() {
+    int excluded = 0;
+    for (String file : files) {
+      if (!cachedFilters.accept(file, InputFile.Type.MAIN)) {
+        excluded++;
+      }
+    }
+    return excluded;
+  }
+
+  @Benchmark
+  public int cachedIndexedParallelMatch() {
+    return StorageFileExclusions.filterIndexes(files.size(), i -> !cachedFilters.accept(files.get(i), InputFile.Type.MAIN)).length;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(StorageFileExclusionsBenchmark.class.getSimpleName()).build()).run();
+  }
+}
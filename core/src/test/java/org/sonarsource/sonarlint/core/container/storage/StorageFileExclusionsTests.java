@@ -0,0 +1,110 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.container.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
+import org.sonarsource.sonarlint.core.container.connected.update.IssueStorePaths;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.GlobalProperties;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.ProjectConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageFileExclusionsTests {
+
+  private static final ProjectBinding BINDING = new ProjectBinding("projectKey", "", "");
+
+  private final StorageReader storageReader = mock(StorageReader.class);
+  private final ProjectStoragePaths projectStoragePaths = mock(ProjectStoragePaths.class);
+  private final GlobalSettingsStore globalSettingsStore = mock(GlobalSettingsStore.class);
+  private StorageFileExclusions underTest;
+  private Path projectConfigPath;
+
+  @BeforeEach
+  void prepare(@TempDir Path tempDir) throws IOException {
+    projectConfigPath = tempDir.resolve("configuration.pb");
+    Files.write(projectConfigPath, new byte[] {1});
+    when(projectStoragePaths.getProjectConfigurationPath("projectKey")).thenReturn(projectConfigPath);
+    when(globalSettingsStore.getAll()).thenReturn(GlobalProperties.newBuilder().build());
+    when(globalSettingsStore.getStamp()).thenReturn(StorageFileStamp.of(tempDir.resolve("properties.pb")));
+    underTest = new StorageFileExclusions(storageReader, projectStoragePaths, new IssueStorePaths());
+  }
+
+  @Test
+  void should_exclude_files() {
+    mockExclusions("**/*.js");
+
+    List<String> excluded = underTest.getExcludedFiles(globalSettingsStore, BINDING, Arrays.asList("src/a.js", "src/A.java", "src/b.js"),
+      Function.identity(), f -> false);
+
+    assertThat(excluded).containsExactly("src/a.js", "src/b.js");
+  }
+
+  @Test
+  void should_reuse_exclusions_until_project_configuration_changes() throws IOException {
+    mockExclusions("**/*.js");
+    List<String> files = Arrays.asList("src/a.js", "src/A.java");
+
+    assertThat(underTest.getExcludedFiles(globalSettingsStore, BINDING, files, Function.identity(), f -> false)).containsExactly("src/a.js");
+    assertThat(underTest.getExcludedFiles(globalSettingsStore, BINDING, files, Function.identity(), f -> false)).containsExactly("src/a.js");
+    verify(storageReader, times(1)).readProjectConfig("projectKey");
+
+    mockExclusions("**/*.java");
+    Files.write(projectConfigPath, new byte[] {1, 2});
+
+    assertThat(underTest.getExcludedFiles(globalSettingsStore, BINDING, files, Function.identity(), f -> false)).containsExactly("src/A.java");
+    verify(storageReader, times(2)).readProjectConfig("projectKey");
+  }
+
+  @Test
+  void should_keep_order_when_matching_in_parallel() {
+    mockExclusions("**/*.js");
+    List<String> files = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      String file = i % 3 == 0 ? ("src/file" + i + ".js") : ("src/File" + i + ".java");
+      files.add(file);
+      if (file.endsWith(".js")) {
+        expected.add(file);
+      }
+    }
+
+    List<String> excluded = underTest.getExcludedFiles(globalSettingsStore, BINDING, files, Function.identity(), f -> false);
+
+    assertThat(excluded).containsExactlyElementsOf(expected);
+  }
+
+  private void mockExclusions(String exclusions) {
+    when(storageReader.readProjectConfig("projectKey")).thenReturn(ProjectConfiguration.newBuilder().putProperties("sonar.exclusions", exclusions).build());
+  }
+}
@@ -20,9 +20,9 @@
 package org.sonarsource.sonarlint.core.container.storage.partialupdate;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -42,7 +42,11 @@ import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -54,7 +58,7 @@ public class PartialUpdaterTest {
   @Rule
   public JUnitTempFolder tempFolder = new JUnitTempFolder();
 
-  private final IssueStoreFactory issueStoreFactory = mock(IssueStoreFactory.class);
+  private final IssueStoreFactory issueStoreFactory = spy(new IssueStoreFactory());
   private final IssueDownloader downloader = mock(IssueDownloader.class);
   private final ProjectStoragePaths projectStoragePaths = mock(ProjectStoragePaths.class);
   private final IssueStore issueStore = mock(IssueStore.class);
@@ -67,7 +71,7 @@ public class PartialUpdaterTest {
   @Before
   public void setUp() {
     updater = new PartialUpdater(issueStoreFactory, downloader, projectStoragePaths, issueStorePaths, tempFolder);
-    when(issueStoreFactory.apply(any(Path.class))).thenReturn(issueStore);
+    doReturn(issueStore).when(issueStoreFactory).apply(any());
   }
 
   @Test
@@ -106,10 +110,15 @@ public class PartialUpdaterTest {
     List<ServerIssue> issues = Collections.singletonList(issue);
 
     when(projectStoragePaths.getServerIssuesPath(projectBinding.projectKey())).thenReturn(temp.newFolder().toPath());
-    when(downloader.download(projectBinding.projectKey(), projectConfiguration, false, PROGRESS)).thenReturn(issues);
+    when(projectStoragePaths.getServerIssuesSyncStatusPath(projectBinding.projectKey())).thenReturn(temp.getRoot().toPath().resolve("server_issues_sync.pb"));
+    doAnswer(invocation -> {
+      Consumer<ServerIssue> consumer = invocation.getArgument(4);
+      issues.forEach(consumer);
+      return null;
+    }).when(downloader).download(eq(projectBinding.projectKey()), eq(projectConfiguration), eq(false), eq(PROGRESS), any());
 
     updater.updateFileIssues(projectBinding.projectKey(), projectConfiguration, false, PROGRESS);
 
-    verify(issueStore).save(anyList());
+    verify(issueStore).save(issues);
   }
 }
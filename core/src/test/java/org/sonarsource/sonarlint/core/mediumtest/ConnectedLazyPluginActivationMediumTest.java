@@ -0,0 +1,180 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.mediumtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarlint.core.ConnectedSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.ClientFileSystem;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.ModuleInfo;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
+import org.sonarsource.sonarlint.core.container.storage.PluginReferenceStore;
+import org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths;
+import org.sonarsource.sonarlint.core.container.storage.ProtobufUtil;
+import org.sonarsource.sonarlint.core.container.storage.StorageFolder;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.PluginReferences.PluginReference;
+import org.sonarsource.sonarlint.core.proto.Sonarlint.StorageStatus;
+import org.sonarsource.sonarlint.core.util.PluginLocator;
+import org.sonarsource.sonarlint.core.util.VersionUtils;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.sonarsource.sonarlint.core.TestUtils.createNoOpLogOutput;
+import static org.sonarsource.sonarlint.core.container.storage.ProjectStoragePaths.encodeForFs;
+
+public class ConnectedLazyPluginActivationMediumTest {
+
+  private static final String SERVER_ID = "local";
+  private static final String MODULE_KEY = "key";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  private ConnectedSonarLintEngineImpl sonarlint;
+  private PluginRepository pluginRepository;
+  private File baseDir;
+
+  @Before
+  public void prepare() throws Exception {
+    Path slHome = temp.newFolder().toPath();
+    Path storage = Paths.get(ConnectedLazyPluginActivationMediumTest.class.getResource("/sample-storage").toURI());
+    Path tmpStorage = slHome.resolve("storage");
+    FileUtils.copyDirectory(storage.toFile(), tmpStorage.toFile());
+
+    // plugins downloaded from the server are not embedded, so they are only activated by the analyses of their language
+    PluginCache cache = PluginCache.create(slHome.resolve("plugins"));
+    PluginReferences.Builder builder = PluginReferences.newBuilder();
+    builder.addReference(PluginReference.newBuilder()
+      .setFilename(PluginLocator.SONAR_PYTHON_PLUGIN_JAR)
+      .setHash(PluginLocator.SONAR_PYTHON_PLUGIN_JAR_HASH)
+      .setKey("python")
+      .build());
+    cache.get(PluginLocator.SONAR_PYTHON_PLUGIN_JAR, PluginLocator.SONAR_PYTHON_PLUGIN_JAR_HASH,
+      (filename, toFile) -> FileUtils.copyURLToFile(PluginLocator.getPythonPluginUrl(), toFile.toFile()));
+    builder.addReference(PluginReference.newBuilder()
+      .setFilename(PluginLocator.SONAR_JAVA_PLUGIN_JAR)
+      .setHash(PluginLocator.SONAR_JAVA_PLUGIN_JAR_HASH)
+      .setKey("java")
+      .build());
+    cache.get(PluginLocator.SONAR_JAVA_PLUGIN_JAR, PluginLocator.SONAR_JAVA_PLUGIN_JAR_HASH,
+      (filename, toFile) -> FileUtils.copyURLToFile(PluginLocator.getJavaPluginUrl(), toFile.toFile()));
+
+    Path globalFolderPath = tmpStorage.resolve(encodeForFs(SERVER_ID)).resolve("global");
+    new PluginReferenceStore(new StorageFolder.Default(globalFolderPath)).store(builder.build());
+    writeStatus(globalFolderPath);
+
+    sonarlint = new ConnectedSonarLintEngineImpl(ConnectedGlobalConfiguration.builder()
+      .setConnectionId(SERVER_ID)
+      .setSonarLintUserHome(slHome)
+      .setStorageRoot(tmpStorage)
+      .setLogOutput(createNoOpLogOutput())
+      .addEnabledLanguages(Language.JAVA, Language.PYTHON)
+      .setModulesProvider(() -> singletonList(new ModuleInfo(MODULE_KEY, mock(ClientFileSystem.class))))
+      .setLazyPluginActivation(true)
+      .build());
+    pluginRepository = sonarlint.getGlobalContainer().getComponentByType(PluginRepository.class);
+    baseDir = temp.newFolder();
+  }
+
+  private static void writeStatus(Path globalFolderPath) throws IOException {
+    StorageStatus storageStatus = StorageStatus.newBuilder()
+      .setStorageVersion(ProjectStoragePaths.STORAGE_VERSION)
+      .setSonarlintCoreVersion(VersionUtils.getLibraryVersion())
+      .setUpdateTimestamp(new Date().getTime())
+      .build();
+    Files.createDirectories(globalFolderPath);
+    ProtobufUtil.writeToFile(storageStatus, globalFolderPath.resolve(ProjectStoragePaths.STORAGE_STATUS_PB));
+  }
+
+  @After
+  public void stop() {
+    sonarlint.stop(false);
+  }
+
+  @Test
+  public void should_only_activate_plugins_of_analyzed_languages() throws IOException {
+    assertThat(pluginRepository.needsActivation(Language.JAVA)).isTrue();
+    assertThat(pluginRepository.needsActivation(Language.PYTHON)).isTrue();
+
+    // the module container was started before the plugin was activated
+    List<Issue> issues = analyzeJavaFile(MODULE_KEY);
+
+    assertThat(issues).extracting(Issue::getRuleKey, Issue::getStartLine).containsOnly(
+      tuple("java:S106", 4),
+      tuple("java:S1220", null),
+      tuple("java:S1481", 3));
+    assertThat(pluginRepository.needsActivation(Language.JAVA)).isFalse();
+    assertThat(pluginRepository.needsActivation(Language.PYTHON)).isTrue();
+  }
+
+  @Test
+  public void should_analyze_with_plugins_activated_by_previous_analyses() throws IOException {
+    analyzeJavaFile(MODULE_KEY);
+
+    List<Issue> issues = analyzeJavaFile(null);
+
+    assertThat(issues).extracting(Issue::getRuleKey, Issue::getStartLine).containsOnly(
+      tuple("java:S106", 4),
+      tuple("java:S1220", null),
+      tuple("java:S1481", 3));
+    assertThat(pluginRepository.needsActivation(Language.PYTHON)).isTrue();
+  }
+
+  private List<Issue> analyzeJavaFile(@Nullable String moduleKey) throws IOException {
+    File file = new File(baseDir, "Foo.java");
+    FileUtils.write(file, "public class Foo {\n"
+      + "  public void foo() {\n"
+      + "    int x;\n"
+      + "    System.out.println(\"Foo\");\n"
+      + "  }\n"
+      + "}", StandardCharsets.UTF_8);
+    ClientInputFile inputFile = TestUtils.createInputFile(file.toPath(), "Foo.java", false);
+    List<Issue> issues = new ArrayList<>();
+    sonarlint.analyze(ConnectedAnalysisConfiguration.builder()
+      .setBaseDir(baseDir.toPath())
+      .addInputFile(inputFile)
+      .setModuleKey(moduleKey)
+      .build(), issues::add, null, null);
+    return issues;
+  }
+}
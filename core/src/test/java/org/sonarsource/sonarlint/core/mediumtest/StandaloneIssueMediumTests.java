@@ -26,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -58,6 +59,7 @@ import org.sonarsource.sonarlint.core.client.api.common.RuleKey;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.AnalysisResults;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueBatchConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
 import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
@@ -282,6 +284,31 @@ class StandaloneIssueMediumTests {
       tuple("xoo:HasTag", 2, 12, "foo.xoo"));
   }
 
+  @Test
+  void simpleXooWithBatches() throws Exception {
+    ClientInputFile inputFile = prepareInputFile("foo.xoo", "function xoo() {\n"
+      + "  var xoo1, xoo2;\n"
+      + "  var xoo; //NOSONAR\n"
+      + "}", false);
+
+    final List<List<Issue>> batches = new CopyOnWriteArrayList<>();
+    sonarlint.analyze(
+      StandaloneAnalysisConfiguration.builder()
+        .setBaseDir(baseDir.toPath())
+        .addInputFile(inputFile)
+        .build(),
+      batches::add,
+      IssueBatchConfiguration.builder().setMaxBatchSize(2).setMaxLatency(Duration.ofMinutes(10)).build(),
+      null, null);
+    // the last batch is not full, and is only delivered because the analysis ended
+    assertThat(batches).extracting(List::size).containsExactly(2, 1);
+    assertThat(batches).flatExtracting(batch -> batch)
+      .extracting(Issue::getRuleKey, Issue::getStartLine, Issue::getStartLineOffset, i -> i.getInputFile().relativePath()).containsOnly(
+        tuple("xoo:HasTag", 1, 9, "foo.xoo"),
+        tuple("xoo:HasTag", 2, 6, "foo.xoo"),
+        tuple("xoo:HasTag", 2, 12, "foo.xoo"));
+  }
+
   @Test
   void simpleC() throws Exception {
     assumeTrue(COMMERCIAL_ENABLED);
@@ -819,6 +846,65 @@ class StandaloneIssueMediumTests {
     }
   }
 
+  @Test
+  void concurrent_analyses_should_not_share_logs_nor_block_on_module_events() throws Throwable {
+    int parallelExecutions = 16;
+    List<ClientInputFile> inputFiles = new ArrayList<>();
+    for (int i = 0; i < parallelExecutions; i++) {
+      inputFiles.add(prepareInputFile("foo" + i + ".xoo", "function xoo() {\n"
+        + "  var xoo1, xoo2;\n"
+        + "  var xoo; //NOSONAR\n"
+        + "}", false));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelExecutions + 1);
+    List<Future<?>> results = new ArrayList<>();
+    Map<Integer, List<String>> logsPerAnalysis = new HashMap<>();
+    Map<Integer, List<Issue>> issuesPerAnalysis = new HashMap<>();
+    for (int i = 0; i < parallelExecutions; i++) {
+      ClientInputFile inputFile = inputFiles.get(i);
+      List<String> logs = new CopyOnWriteArrayList<>();
+      List<Issue> issues = new CopyOnWriteArrayList<>();
+      logsPerAnalysis.put(i, logs);
+      issuesPerAnalysis.put(i, issues);
+      results.add(executor.submit(() -> sonarlint.analyze(
+        StandaloneAnalysisConfiguration.builder()
+          .setBaseDir(baseDir.toPath())
+          .addInputFile(inputFile)
+          .build(),
+        issues::add, (m, l) -> logs.add(m), null)));
+    }
+    results.add(executor.submit(() -> {
+      for (int i = 0; i < 20; i++) {
+        sonarlint.declareModule(new ModuleInfo("concurrent" + i, aClientFileSystemWith(inputFiles.get(0))));
+        sonarlint.stopModule("concurrent" + i);
+      }
+    }));
+    executor.shutdown();
+
+    for (Future<?> future : results) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw e.getCause();
+      }
+    }
+
+    for (int i = 0; i < parallelExecutions; i++) {
+      String relativePath = inputFiles.get(i).relativePath();
+      assertThat(issuesPerAnalysis.get(i)).extracting(Issue::getRuleKey, Issue::getStartLine, issue -> issue.getInputFile().relativePath()).containsOnly(
+        tuple("xoo:HasTag", 1, relativePath),
+        tuple("xoo:HasTag", 2, relativePath));
+      assertThat(logsPerAnalysis.get(i)).contains("Initializing metadata of file " + inputFiles.get(i).uri());
+      for (int j = 0; j < parallelExecutions; j++) {
+        if (j != i) {
+          assertThat(logsPerAnalysis.get(i)).doesNotContain("Initializing metadata of file " + inputFiles.get(j).uri());
+        }
+      }
+    }
+    assertThat(sonarlint.getGlobalContainer().getModuleRegistry().getContainerFor("concurrent0")).isNull();
+  }
+
   @Test
   void lazy_init_file_metadata() throws Exception {
     final ClientInputFile inputFile1 = prepareInputFile(A_JAVA_FILE_PATH,
@@ -0,0 +1,142 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.mediumtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.Plugin;
+import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.TestUtils;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneAnalysisConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneRuleDetails;
+import org.sonarsource.sonarlint.core.plugin.PluginRepository;
+import org.sonarsource.sonarlint.core.util.PluginLocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class StandaloneSharedPluginsMediumTests {
+
+  private static final String XOO_RULE_KEY = "xoo:HasTag";
+
+  @TempDir
+  Path temp;
+  private final List<StandaloneSonarLintEngineImpl> engines = new ArrayList<>();
+  private File baseDir;
+
+  @BeforeEach
+  void prepare() throws IOException {
+    baseDir = Files.createTempDirectory(temp, "baseDir").toFile();
+  }
+
+  @AfterEach
+  void stop() {
+    engines.forEach(StandaloneSonarLintEngineImpl::stop);
+  }
+
+  @Test
+  void engines_on_same_plugin_files_should_share_plugins_and_rules() {
+    StandaloneSonarLintEngineImpl engine1 = startEngine();
+    StandaloneSonarLintEngineImpl engine2 = startEngine();
+
+    assertThat(xooPlugin(engine2)).isSameAs(xooPlugin(engine1));
+    assertThat(xooPlugin(engine2).getClass().getClassLoader()).isSameAs(xooPlugin(engine1).getClass().getClassLoader());
+    assertThat(xooRule(engine2)).isSameAs(xooRule(engine1));
+  }
+
+  @Test
+  void engine_should_keep_analyzing_when_another_engine_sharing_plugins_stops() throws IOException {
+    StandaloneSonarLintEngineImpl engine1 = startEngine();
+    StandaloneSonarLintEngineImpl engine2 = startEngine();
+
+    stopEngine(engine1);
+
+    assertThat(analyzeXooFile(engine2)).extracting(Issue::getRuleKey, Issue::getStartLine, Issue::getStartLineOffset).containsOnly(
+      tuple(XOO_RULE_KEY, 1, 9),
+      tuple(XOO_RULE_KEY, 2, 6));
+  }
+
+  @Test
+  void plugins_and_rules_should_be_released_when_all_engines_sharing_them_stop() throws IOException {
+    StandaloneSonarLintEngineImpl engine1 = startEngine();
+    StandaloneSonarLintEngineImpl engine2 = startEngine();
+    Plugin sharedPlugin = xooPlugin(engine1);
+    StandaloneRuleDetails sharedRule = xooRule(engine1);
+
+    stopEngine(engine1);
+    stopEngine(engine2);
+    StandaloneSonarLintEngineImpl engine3 = startEngine();
+
+    // the registries no longer know the released plugins and rules, so they are loaded again
+    assertThat(xooPlugin(engine3)).isNotSameAs(sharedPlugin);
+    assertThat(xooPlugin(engine3).getClass().getClassLoader()).isNotSameAs(sharedPlugin.getClass().getClassLoader());
+    assertThat(xooRule(engine3)).isNotSameAs(sharedRule);
+    assertThat(analyzeXooFile(engine3)).hasSize(2);
+  }
+
+  private StandaloneSonarLintEngineImpl startEngine() {
+    StandaloneSonarLintEngineImpl engine = new StandaloneSonarLintEngineImpl(StandaloneGlobalConfiguration.builder()
+      .addPlugin(PluginLocator.getXooPluginUrl())
+      .addEnabledLanguages(Language.XOO)
+      .setSonarLintUserHome(temp.resolve("home"))
+      .build());
+    engines.add(engine);
+    return engine;
+  }
+
+  private void stopEngine(StandaloneSonarLintEngineImpl engine) {
+    engine.stop();
+    engines.remove(engine);
+  }
+
+  private static Plugin xooPlugin(StandaloneSonarLintEngineImpl engine) {
+    return engine.getGlobalContainer().getComponentByType(PluginRepository.class).getPluginInstance("xoo");
+  }
+
+  private static StandaloneRuleDetails xooRule(StandaloneSonarLintEngineImpl engine) {
+    return engine.getRuleDetails(XOO_RULE_KEY).get();
+  }
+
+  private List<Issue> analyzeXooFile(StandaloneSonarLintEngineImpl engine) throws IOException {
+    File file = new File(baseDir, "foo.xoo");
+    FileUtils.write(file, "function xoo() {\n  var xoo;\n}", StandardCharsets.UTF_8);
+    ClientInputFile inputFile = TestUtils.createInputFile(file.toPath(), "foo.xoo", false);
+    List<Issue> issues = new ArrayList<>();
+    engine.analyze(StandaloneAnalysisConfiguration.builder()
+      .setBaseDir(baseDir.toPath())
+      .addInputFile(inputFile)
+      .build(), issues::add, null, null);
+    return issues;
+  }
+}
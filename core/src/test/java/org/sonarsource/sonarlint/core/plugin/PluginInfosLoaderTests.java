@@ -49,6 +49,7 @@ import org.sonarsource.sonarlint.core.client.api.exceptions.StorageException;
 import org.sonarsource.sonarlint.core.container.connected.validate.PluginVersionChecker;
 import org.sonarsource.sonarlint.core.plugin.PluginIndex.PluginReference;
 import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginMetadataCache;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
@@ -83,6 +84,7 @@ class PluginInfosLoaderTests {
   public void prepare() {
     pluginIndex = mock(PluginIndex.class);
     pluginCache = mock(PluginCache.class);
+    when(pluginCache.getMetadataCache()).thenReturn(PluginMetadataCache.inMemory());
     system2 = mock(System2.class);
     pluginVersionChecker = spy(new PluginVersionChecker());
     globalConfig = mock(AbstractGlobalConfiguration.class);
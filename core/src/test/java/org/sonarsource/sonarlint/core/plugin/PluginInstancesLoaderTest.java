@@ -31,8 +31,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.Plugin;
 import org.sonar.api.SonarPlugin;
-import org.sonarsource.sonarlint.core.JUnitTempFolder;
 import org.sonarsource.sonarlint.core.client.api.common.Version;
+import org.sonarsource.sonarlint.core.plugin.cache.PluginCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -44,11 +44,8 @@ public class PluginInstancesLoaderTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
-  @Rule
-  public JUnitTempFolder tempFolder = new JUnitTempFolder();
-
   PluginClassloaderFactory classloaderFactory = mock(PluginClassloaderFactory.class);
-  PluginInstancesLoader loader = new PluginInstancesLoader(new FakePluginExploder(), classloaderFactory, tempFolder);
+  PluginInstancesLoader loader = new PluginInstancesLoader(new FakePluginExploder(), classloaderFactory, mock(PluginCache.class));
 
   @Test
   public void instantiate_plugin_entry_point() {
@@ -20,15 +20,21 @@
 package org.sonarsource.sonarlint.core.plugin;
 
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.Plugin;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
 import org.sonarsource.sonarlint.core.client.api.common.Version;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class PluginRepositoryTest {
@@ -56,6 +62,53 @@ public class PluginRepositoryTest {
     test(info);
   }
 
+  @Test
+  public void lazy_activation_only_loads_plugins_of_languages_without_plugin_eagerly() {
+    pluginRepository = new PluginRepository(cacheLoader, loader, true);
+    PluginInfo javaInfo = new PluginInfo("java");
+    PluginInfo otherInfo = new PluginInfo("other");
+    Map<String, PluginInfo> infos = new HashMap<>();
+    infos.put("java", javaInfo);
+    infos.put("other", otherInfo);
+    Plugin javaPlugin = mock(Plugin.class);
+    when(cacheLoader.load()).thenReturn(infos);
+    when(loader.load(Collections.singletonMap("other", otherInfo))).thenReturn(Collections.singletonMap("other", mock(Plugin.class)));
+    when(loader.load(Collections.singletonMap("java", javaInfo))).thenReturn(Collections.singletonMap("java", javaPlugin));
+    pluginRepository.start();
+
+    verify(loader).load(Collections.singletonMap("other", otherInfo));
+    verifyNoMoreInteractions(loader);
+    assertThat(pluginRepository.getPluginDetails()).hasSize(2);
+    assertThat(pluginRepository.getActivePluginInfos()).containsExactly(otherInfo);
+    assertThat(pluginRepository.needsActivation(Language.JAVA)).isTrue();
+    assertThat(pluginRepository.needsActivation(Language.PHP)).isFalse();
+
+    assertThat(pluginRepository.activatePluginsFor(EnumSet.of(Language.JAVA, Language.PHP))).containsExactly(javaInfo);
+    assertThat(pluginRepository.activatePluginsFor(EnumSet.of(Language.JAVA))).isEmpty();
+
+    verify(loader).load(Collections.singletonMap("java", javaInfo));
+    assertThat(pluginRepository.needsActivation(Language.JAVA)).isFalse();
+    assertThat(pluginRepository.getActivePluginInfos()).containsOnly(javaInfo, otherInfo);
+    assertThat(pluginRepository.getPluginInstance("java")).isEqualTo(javaPlugin);
+  }
+
+  @Test
+  public void lazy_activation_loads_plugin_on_first_access_to_instance() {
+    pluginRepository = new PluginRepository(cacheLoader, loader, true);
+    PluginInfo javaInfo = new PluginInfo("java");
+    Plugin javaPlugin = mock(Plugin.class);
+    Map<String, PluginInfo> infos = Collections.singletonMap("java", javaInfo);
+    when(cacheLoader.load()).thenReturn(infos);
+    when(loader.load(infos)).thenReturn(Collections.singletonMap("java", javaPlugin));
+    pluginRepository.start();
+    verifyNoInteractions(loader);
+
+    assertThat(pluginRepository.getPluginInstance("java")).isEqualTo(javaPlugin);
+    assertThat(pluginRepository.getPluginInstance("java")).isEqualTo(javaPlugin);
+
+    verify(loader, times(1)).load(infos);
+  }
+
   private void test(PluginInfo info) {
     Plugin plugin = mock(Plugin.class);
     Map<String, PluginInfo> infos = Collections.singletonMap("key", info);
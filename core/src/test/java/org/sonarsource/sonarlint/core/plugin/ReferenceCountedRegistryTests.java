@@ -0,0 +1,88 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReferenceCountedRegistryTests {
+
+  private final ReferenceCountedRegistry<String, Object> underTest = new ReferenceCountedRegistry<>();
+  private final AtomicInteger loadCount = new AtomicInteger();
+  private final List<Object> disposed = new ArrayList<>();
+
+  @Test
+  void should_load_value_once_and_dispose_it_when_last_reference_is_released() {
+    Object first = underTest.acquire("key", this::load);
+    Object second = underTest.acquire("key", this::load);
+
+    assertThat(second).isSameAs(first);
+    assertThat(loadCount).hasValue(1);
+
+    underTest.release("key", disposed::add);
+    assertThat(disposed).isEmpty();
+    assertThat(underTest.size()).isEqualTo(1);
+
+    underTest.release("key", disposed::add);
+    assertThat(disposed).containsExactly(first);
+    assertThat(underTest.size()).isZero();
+  }
+
+  @Test
+  void should_load_again_after_value_was_disposed() {
+    Object first = underTest.acquire("key", this::load);
+    underTest.release("key", disposed::add);
+
+    assertThat(underTest.acquire("key", this::load)).isNotSameAs(first);
+    assertThat(loadCount).hasValue(2);
+  }
+
+  @Test
+  void should_load_distinct_values_for_distinct_keys() {
+    assertThat(underTest.acquire("key1", this::load)).isNotSameAs(underTest.acquire("key2", this::load));
+  }
+
+  @Test
+  void should_not_keep_reference_when_loading_fails() {
+    assertThrows(IllegalStateException.class, () -> underTest.acquire("key", () -> {
+      throw new IllegalStateException("boom");
+    }));
+
+    assertThat(underTest.size()).isZero();
+    assertThat(underTest.acquire("key", this::load)).isNotNull();
+  }
+
+  @Test
+  void should_ignore_release_of_unknown_key() {
+    underTest.release("unknown", disposed::add);
+
+    assertThat(disposed).isEmpty();
+  }
+
+  private Object load() {
+    loadCount.incrementAndGet();
+    return new Object();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sonarsource.sonarlint.core.StandaloneSonarLintEngineImpl;
+import org.sonarsource.sonarlint.core.client.api.common.Language;
+import org.sonarsource.sonarlint.core.client.api.standalone.StandaloneGlobalConfiguration;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+import org.sonarsource.sonarlint.core.util.PluginLocator;
+
+/**
+ * Measure the construction of a standalone engine with the plugins used by medium tests, when the plugin metadata cache is missing
+ * (every jar is hashed and its manifest read) and when it is up to date.
+ * The plugins are copied into the plugin cache during setup, so that the cold case only pays for the hashes and manifests.
+ * The plugin jars must be in target/plugins, copied by a previous Maven build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PluginMetadataCacheBenchmark {
+
+  @Param({"cold", "warm"})
+  String cache;
+
+  private Path sonarlintUserHome;
+  private StandaloneGlobalConfiguration config;
+
+  @Setup
+  public void setUp() throws IOException {
+    sonarlintUserHome = Files.createTempDirectory("sonarlint-home");
+    config = StandaloneGlobalConfiguration.builder()
+      .addPlugin(PluginLocator.getJavaScriptPluginUrl())
+      .addPlugin(PluginLocator.getJavaPluginUrl())
+      .addPlugin(PluginLocator.getPhpPluginUrl())
+      .addPlugin(PluginLocator.getPythonPluginUrl())
+      .addPlugin(PluginLocator.getXooPluginUrl())
+      .addEnabledLanguages(Language.JS, Language.JAVA, Language.PHP, Language.PYTHON, Language.XOO)
+      .setSonarLintUserHome(sonarlintUserHome)
+      .build();
+    // plugins are copied to the plugin cache once for all, only hashes and manifests are measured
+    new StandaloneSonarLintEngineImpl(config).stop();
+  }
+
+  @Setup(Level.Iteration)
+  public void prepareCache() throws IOException {
+    if ("cold".equals(cache)) {
+      Files.deleteIfExists(sonarlintUserHome.resolve("plugins").resolve(PluginMetadataCache.FILENAME));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteRecursively(sonarlintUserHome);
+  }
+
+  @Benchmark
+  public void startEngine() {
+    new StandaloneSonarLintEngineImpl(config).stop();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PluginMetadataCacheBenchmark.class.getSimpleName()).build()).run();
+  }
+}
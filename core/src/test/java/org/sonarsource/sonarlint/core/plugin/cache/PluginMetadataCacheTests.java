@@ -0,0 +1,126 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.plugin.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarlint.core.plugin.PluginManifest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PluginMetadataCacheTests {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void should_reuse_persisted_hashes_of_unchanged_files() throws IOException {
+    Path cacheFile = tempDir.resolve(PluginMetadataCache.FILENAME);
+    Path plugin1 = writeFile("plugin1.jar", "content1");
+    Path plugin2 = writeFile("plugin2.jar", "content2");
+    AtomicInteger hashCount = new AtomicInteger();
+    Function<Path, String> hasher = path -> {
+      hashCount.incrementAndGet();
+      return "hash-" + path.getFileName();
+    };
+
+    List<String> hashes = new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin1, plugin2), hasher);
+    assertThat(hashes).containsExactly("hash-plugin1.jar", "hash-plugin2.jar");
+    assertThat(hashCount).hasValue(2);
+    assertThat(cacheFile).exists();
+
+    hashes = new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin2, plugin1), hasher);
+    assertThat(hashes).containsExactly("hash-plugin2.jar", "hash-plugin1.jar");
+    assertThat(hashCount).hasValue(2);
+  }
+
+  @Test
+  void should_compute_hash_again_when_file_changed() throws IOException {
+    Path cacheFile = tempDir.resolve(PluginMetadataCache.FILENAME);
+    Path plugin = writeFile("plugin.jar", "content");
+    AtomicInteger hashCount = new AtomicInteger();
+    Function<Path, String> hasher = path -> "hash" + hashCount.incrementAndGet();
+
+    assertThat(new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin), hasher)).containsExactly("hash1");
+    Files.write(plugin, "new content".getBytes());
+    assertThat(new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin), hasher)).containsExactly("hash2");
+    Files.setLastModifiedTime(plugin, FileTime.fromMillis(Files.getLastModifiedTime(plugin).toMillis() - 10_000));
+    assertThat(new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin), hasher)).containsExactly("hash3");
+  }
+
+  @Test
+  void should_persist_manifests() throws IOException {
+    Path cacheFile = tempDir.resolve(PluginMetadataCache.FILENAME);
+    Path jar = tempDir.resolve("plugin.jar");
+    Manifest manifest = new Manifest();
+    Attributes attributes = manifest.getMainAttributes();
+    attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    attributes.putValue(PluginManifest.KEY_ATTRIBUTE, "java");
+    attributes.putValue(PluginManifest.VERSION_ATTRIBUTE, "6.0");
+    attributes.putValue(PluginManifest.NAME_ATTRIBUTE, "Java Code Quality and Security");
+    attributes.putValue(PluginManifest.REQUIRE_PLUGINS_ATTRIBUTE, "license:1.0,other:2.0");
+    attributes.putValue(PluginManifest.SONARLINT_SUPPORTED, "true");
+    attributes.putValue(PluginManifest.USE_CHILD_FIRST_CLASSLOADER, "true");
+    try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out, manifest)) {
+      // only the manifest
+    }
+
+    PluginManifest loaded = new PluginMetadataCache(cacheFile, 2).getOrLoadManifests(Arrays.asList(jar)).get(0);
+    PluginManifest cached = new PluginMetadataCache(cacheFile, 2).getOrLoadManifests(Arrays.asList(jar)).get(0);
+
+    assertThat(cached).isNotSameAs(loaded);
+    assertThat(cached.getKey()).isEqualTo("java");
+    assertThat(cached.getVersion()).isEqualTo("6.0");
+    assertThat(cached.getName()).isEqualTo("Java Code Quality and Security");
+    assertThat(cached.getRequirePlugins()).containsExactly("license:1.0", "other:2.0");
+    assertThat(cached.isSonarLintSupported()).isTrue();
+    assertThat(cached.isUseChildFirstClassLoader()).isTrue();
+    assertThat(cached.getSonarVersion()).isNull();
+    assertThat(cached.getBasePlugin()).isNull();
+    assertThat(cached.getJreMinVersion()).isNull();
+    assertThat(cached).usingRecursiveComparison().isEqualTo(loaded);
+  }
+
+  @Test
+  void should_ignore_corrupted_cache_file() throws IOException {
+    Path cacheFile = writeFile(PluginMetadataCache.FILENAME, "not a protobuf message");
+    Path plugin = writeFile("plugin.jar", "content");
+
+    List<String> hashes = new PluginMetadataCache(cacheFile, 2).getOrComputeHashes(Arrays.asList(plugin), path -> "hash");
+
+    assertThat(hashes).containsExactly("hash");
+  }
+
+  private Path writeFile(String filename, String content) throws IOException {
+    return Files.write(tempDir.resolve(filename), content.getBytes());
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonarqube.ws.Common.Paging;
+import org.sonarqube.ws.Components;
+import org.sonarqube.ws.Components.Component;
+import org.sonarsource.sonarlint.core.MockWebServerExtension;
+import org.sonarsource.sonarlint.core.container.connected.exceptions.NotFoundException;
+import org.sonarsource.sonarlint.core.util.ProgressWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServerApiHelperTests {
+
+  private static final String TREE_URL = "/api/components/tree.protobuf?component=myProject";
+
+  @RegisterExtension
+  static MockWebServerExtension mockServer = new MockWebServerExtension();
+
+  private ServerApiHelper underTest;
+
+  @BeforeEach
+  void prepare() {
+    underTest = mockServer.serverApiHelper();
+  }
+
+  @Test
+  void should_deliver_prefetched_pages_in_order() {
+    int total = 5 * ServerApiHelper.PAGE_SIZE - 10;
+    for (int page = 1; page <= 5; page++) {
+      mockTreePage(page, total);
+    }
+
+    List<String> keys = getAllKeys(false, 3);
+
+    assertThat(keys)
+      .hasSize(total)
+      .containsExactlyElementsOf(expectedKeys(5, total));
+    assertThat(mockServer.getRequestCount()).isEqualTo(5);
+  }
+
+  @Test
+  void should_not_prefetch_more_than_twenty_pages_when_limited() {
+    int total = 21 * ServerApiHelper.PAGE_SIZE;
+    for (int page = 1; page <= 21; page++) {
+      mockTreePage(page, total);
+    }
+
+    List<String> keys = getAllKeys(true, ServerApiHelper.PREFETCHED_PAGES);
+
+    assertThat(keys).containsExactlyElementsOf(expectedKeys(ServerApiHelper.MAX_PAGES, total));
+    assertThat(mockServer.getRequestCount()).isEqualTo(ServerApiHelper.MAX_PAGES);
+  }
+
+  @Test
+  void should_propagate_error_of_prefetched_page_after_consuming_previous_pages() {
+    int total = 4 * ServerApiHelper.PAGE_SIZE;
+    mockTreePage(1, total);
+    mockTreePage(2, total);
+    mockTreePage(4, total);
+    List<String> keys = new ArrayList<>();
+
+    assertThatThrownBy(() -> underTest.getPaginated(TREE_URL,
+      Components.TreeWsResponse::parseFrom,
+      Components.TreeWsResponse::getPaging,
+      Components.TreeWsResponse::getComponentsList,
+      c -> keys.add(c.getKey()),
+      false,
+      new ProgressWrapper(null),
+      ServerApiHelper.PREFETCHED_PAGES))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessageContaining("p=3");
+    assertThat(keys).containsExactlyElementsOf(expectedKeys(2, total));
+  }
+
+  private List<String> getAllKeys(boolean limitToTwentyPages, int maxInFlightPages) {
+    List<String> keys = new ArrayList<>();
+    underTest.getPaginated(TREE_URL,
+      Components.TreeWsResponse::parseFrom,
+      Components.TreeWsResponse::getPaging,
+      Components.TreeWsResponse::getComponentsList,
+      c -> keys.add(c.getKey()),
+      limitToTwentyPages,
+      new ProgressWrapper(null),
+      maxInFlightPages);
+    return keys;
+  }
+
+  private static List<String> expectedKeys(int pages, int total) {
+    return IntStream.rangeClosed(1, pages)
+      .boxed()
+      .flatMap(page -> pageKeys(page, total).stream())
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> pageKeys(int page, int total) {
+    int first = (page - 1) * ServerApiHelper.PAGE_SIZE;
+    int last = Math.min(total, page * ServerApiHelper.PAGE_SIZE);
+    return IntStream.range(first, last)
+      .mapToObj(i -> "file" + i)
+      .collect(Collectors.toList());
+  }
+
+  private static void mockTreePage(int page, int total) {
+    Components.TreeWsResponse response = Components.TreeWsResponse.newBuilder()
+      .setPaging(Paging.newBuilder().setPageIndex(page).setPageSize(ServerApiHelper.PAGE_SIZE).setTotal(total))
+      .addAllComponents(pageKeys(page, total).stream().map(key -> Component.newBuilder().setKey(key).build()).collect(Collectors.toList()))
+      .build();
+    mockServer.addProtobufResponse(TREE_URL + "&ps=" + ServerApiHelper.PAGE_SIZE + "&p=" + page, response);
+  }
+
+}
@@ -20,9 +20,14 @@
 package org.sonarsource.sonarlint.core.serverapi.rules;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.sonar.api.batch.rule.Severity;
 import org.sonarqube.ws.Rules;
 import org.sonarsource.sonarlint.core.MockWebServerExtension;
@@ -32,8 +37,12 @@ import org.sonarsource.sonarlint.core.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.util.ProgressWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.sonarsource.sonarlint.core.serverapi.rules.RulesApi.RULES_SEARCH_URL;
 
@@ -73,25 +82,27 @@ class RulesApiTest {
     Sonarlint.Rules rules = serverRules.getAll();
     assertThat(rules.getRulesByKeyMap()).hasSize(939 + 34);
 
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=INFO&languages=js&p=1&ps=500");
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=MINOR&languages=js&p=1&ps=500");
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=1&ps=500");
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=2&ps=500");
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=CRITICAL&languages=js&p=1&ps=500");
-    assertThat(mockServer.takeRequest().getPath()).isEqualTo(RULES_SEARCH_URL + "&severities=BLOCKER&languages=js&p=1&ps=500");
-
-    verify(monitor).setMessage("Loading severity 'info'");
-    verify(monitor).setFraction(0.0f);
-    verify(monitor).setMessage("Loading severity 'major'");
-    verify(monitor).setFraction(0.2f);
-    verify(monitor).setMessage("Loading severity 'minor'");
-    verify(monitor).setFraction(0.4f);
-    verify(monitor).setMessage("Loading severity 'blocker'");
-    verify(monitor).setFraction(0.6f);
-    verify(monitor).setMessage("Loading severity 'critical'");
-    verify(monitor).setFraction(0.8f);
-
-    verify(monitor).setMessage("major - Loading page 1");
+    // severities are loaded concurrently
+    List<String> requestedPaths = IntStream.range(0, 6).mapToObj(i -> mockServer.takeRequest().getPath()).collect(Collectors.toList());
+    assertThat(requestedPaths).containsExactlyInAnyOrder(
+      RULES_SEARCH_URL + "&severities=INFO&languages=js&p=1&ps=500",
+      RULES_SEARCH_URL + "&severities=MINOR&languages=js&p=1&ps=500",
+      RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=1&ps=500",
+      RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=2&ps=500",
+      RULES_SEARCH_URL + "&severities=CRITICAL&languages=js&p=1&ps=500",
+      RULES_SEARCH_URL + "&severities=BLOCKER&languages=js&p=1&ps=500");
+    assertThat(requestedPaths.indexOf(RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=1&ps=500"))
+      .isLessThan(requestedPaths.indexOf(RULES_SEARCH_URL + "&severities=MAJOR&languages=js&p=2&ps=500"));
+
+    InOrder inOrder = inOrder(monitor);
+    inOrder.verify(monitor).setMessage("Loading severities 'info', 'minor', 'major', 'critical', 'blocker'");
+    inOrder.verify(monitor).setFraction(0.0f);
+    inOrder.verify(monitor).setMessage("Loading severity 'major', page 1");
+    ArgumentCaptor<Float> fraction = ArgumentCaptor.forClass(Float.class);
+    inOrder.verify(monitor).setFraction(fraction.capture());
+    // 500 of the 939 major rules are loaded, the other severities were loaded in a single page that was not reported
+    assertThat(fraction.getValue()).isCloseTo(500f / 939 / 5, offset(0.0001f));
+    verify(monitor, times(2)).setFraction(anyFloat());
   }
 
   @Test
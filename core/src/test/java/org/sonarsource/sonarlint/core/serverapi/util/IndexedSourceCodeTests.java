@@ -0,0 +1,67 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.serverapi.util;
+
+import org.junit.jupiter.api.Test;
+import org.sonarqube.ws.Common.TextRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexedSourceCodeTests {
+
+  private static final IndexedSourceCode SOURCE = new IndexedSourceCode("Even\r\nBefore My\n\tCode\r\n  Snippet And\n After");
+
+  @Test
+  void should_extract_snippet_on_single_line() {
+    assertThat(SOURCE.extractCodeSnippet(range(2, 7, 2, 9))).isEqualTo("My");
+    assertThat(SOURCE.extractCodeSnippet(range(5, 1, 5, 6))).isEqualTo("After");
+  }
+
+  @Test
+  void should_normalize_line_terminators_of_multiline_snippet() {
+    assertThat(SOURCE.extractCodeSnippet(range(1, 2, 4, 9))).isEqualTo("en\nBefore My\n\tCode\n  Snippet");
+  }
+
+  @Test
+  void should_reject_text_range_out_of_source() {
+    assertThat(SOURCE.getLineCount()).isEqualTo(5);
+    assertThatThrownBy(() -> SOURCE.extractCodeSnippet(range(5, 1, 7, 6))).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> SOURCE.extractCodeSnippet(range(1, 0, 1, 5))).isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> SOURCE.extractCodeSnippet(range(3, 2, 2, 1))).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  void should_index_many_lines() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      source.append("line").append(i).append('\n');
+    }
+    IndexedSourceCode underTest = new IndexedSourceCode(source.toString());
+
+    assertThat(underTest.getLineCount()).isEqualTo(1001);
+    assertThat(underTest.extractCodeSnippet(range(999, 4, 1000, 4))).isEqualTo("999\nline");
+  }
+
+  private static TextRange range(int startLine, int startOffset, int endLine, int endOffset) {
+    return TextRange.newBuilder().setStartLine(startLine).setStartOffset(startOffset).setEndLine(endLine).setEndOffset(endOffset).build();
+  }
+
+}
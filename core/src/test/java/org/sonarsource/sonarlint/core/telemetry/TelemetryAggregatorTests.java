@@ -0,0 +1,123 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.telemetry;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryAggregatorTests {
+
+  private final TelemetryAggregator underTest = new TelemetryAggregator();
+
+  @Test
+  void should_report_first_pending_event_only() {
+    assertThat(underTest.hasPendingEvents()).isFalse();
+
+    assertThat(underTest.analysisDone()).isTrue();
+    assertThat(underTest.analysisDone("java", 10)).isFalse();
+    assertThat(underTest.addReportedRules(new HashSet<>(Arrays.asList("rule1")))).isFalse();
+    assertThat(underTest.hasPendingEvents()).isTrue();
+
+    underTest.drainTo(new TelemetryLocalStorage());
+
+    assertThat(underTest.hasPendingEvents()).isFalse();
+    assertThat(underTest.analysisDone()).isTrue();
+  }
+
+  @Test
+  void should_merge_analyses_into_existing_histograms() {
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+    data.setUsedAnalysis("java", 100);
+
+    underTest.analysisDone("java", 100);
+    underTest.analysisDone("java", 5000);
+    underTest.analysisDone("js", 400);
+    underTest.drainTo(data);
+
+    assertThat(data.analyzers().get("java").analysisCount()).isEqualTo(3);
+    assertThat(data.analyzers().get("java").frequencies()).containsEntry("0-300", 2).containsEntry("4000+", 1);
+    assertThat(data.analyzers().get("js").frequencies()).containsEntry("300-500", 1);
+  }
+
+  @Test
+  void should_count_use_day_once() {
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+
+    underTest.analysisDone();
+    underTest.analysisDone("java", 100);
+    underTest.drainTo(data);
+
+    assertThat(data.numUseDays()).isEqualTo(1);
+    assertThat(data.lastUseDate()).isEqualTo(LocalDate.now());
+
+    underTest.analysisDone();
+    underTest.drainTo(data);
+
+    assertThat(data.numUseDays()).isEqualTo(1);
+  }
+
+  @Test
+  void should_not_count_use_day_already_saved_by_another_process() {
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+    data.setLastUseDate(LocalDate.now());
+    data.setNumUseDays(3);
+
+    underTest.analysisDone();
+    underTest.drainTo(data);
+
+    assertThat(data.numUseDays()).isEqualTo(3);
+  }
+
+  @Test
+  void should_restore_drained_events() {
+    underTest.analysisDone("java", 100);
+    underTest.addReportedRules(new HashSet<>(Arrays.asList("rule1")));
+    TelemetryAggregator drained = underTest.drainTo(new TelemetryLocalStorage());
+    underTest.analysisDone("java", 100);
+
+    assertThat(underTest.restore(drained)).isFalse();
+
+    TelemetryLocalStorage data = new TelemetryLocalStorage();
+    underTest.drainTo(data);
+    assertThat(data.analyzers().get("java").analysisCount()).isEqualTo(2);
+    assertThat(data.getRaisedIssuesRules()).containsOnly("rule1");
+    assertThat(data.numUseDays()).isEqualTo(1);
+  }
+
+  @Test
+  void should_forget_drained_events() {
+    underTest.analysisDone("java", 100);
+    underTest.addReportedRules(new HashSet<>(Arrays.asList("rule1", "rule2")));
+    TelemetryLocalStorage first = new TelemetryLocalStorage();
+    underTest.drainTo(first);
+
+    TelemetryLocalStorage second = new TelemetryLocalStorage();
+    underTest.drainTo(second);
+
+    assertThat(first.getRaisedIssuesRules()).containsOnly("rule1", "rule2");
+    assertThat(second.getRaisedIssuesRules()).isEmpty();
+    assertThat(second.analyzers()).isEmpty();
+    assertThat(second.numUseDays()).isZero();
+  }
+}
@@ -45,6 +45,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -130,9 +131,34 @@ public class TelemetryManagerTest {
     TelemetryLocalStorageManager storage = mockTelemetryStorage();
     TelemetryManager manager = stubbedTelemetryManager(storage);
     manager.analysisDoneOnMultipleFiles();
+    verify(storage, never()).tryUpdateAtomically(any(Consumer.class));
+
+    manager.flush();
     verify(storage).tryUpdateAtomically(any(Consumer.class));
   }
 
+  @Test
+  public void should_keep_events_when_flush_fails() throws IOException {
+    TelemetryLocalStorageManager storage = mock(TelemetryLocalStorageManager.class);
+    TelemetryLocalStorage notSaved = new TelemetryLocalStorage();
+    TelemetryLocalStorage saved = new TelemetryLocalStorage();
+    doAnswer(invocation -> {
+      ((Consumer<TelemetryLocalStorage>) invocation.getArgument(0)).accept(notSaved);
+      return false;
+    }).doAnswer(invocation -> {
+      ((Consumer<TelemetryLocalStorage>) invocation.getArgument(0)).accept(saved);
+      return true;
+    }).when(storage).tryUpdateAtomically(any(Consumer.class));
+    TelemetryManager manager = stubbedTelemetryManager(storage);
+    manager.analysisDoneOnSingleLanguage(Language.JAVA, 100);
+
+    manager.flush();
+    manager.flush();
+
+    assertThat(saved.analyzers().get("java").analysisCount()).isEqualTo(1);
+    assertThat(saved.numUseDays()).isEqualTo(1);
+  }
+
   @Test
   public void should_increment_numDays_on_analysis_once_per_day() throws IOException {
     createAndSaveSampleData(storage);
@@ -142,12 +168,14 @@ public class TelemetryManagerTest {
 
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnMultipleFiles();
+    manager.flush();
 
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.numUseDays()).isEqualTo(6);
 
     manager.analysisDoneOnMultipleFiles();
-    assertThat(reloaded.numUseDays()).isEqualTo(6);
+    manager.flush();
+    assertThat(storage.tryRead().numUseDays()).isEqualTo(6);
   }
 
   @Test
@@ -269,6 +297,7 @@ public class TelemetryManagerTest {
 
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnMultipleFiles();
+    manager.flush();
 
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.enabled()).isEqualTo(data.enabled());
@@ -288,6 +317,7 @@ public class TelemetryManagerTest {
 
     // note: the manager hasn't seen the saved data
     manager.analysisDoneOnSingleLanguage(Language.JAVA, 1000);
+    manager.flush();
 
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.enabled()).isEqualTo(data.enabled());
@@ -395,6 +425,7 @@ public class TelemetryManagerTest {
     createAndSaveSampleData(storage);
 
     manager.addReportedRules(new HashSet<>(Arrays.asList("ruleKey1", "ruleKey1", "ruleKey2")));
+    manager.flush();
 
     TelemetryLocalStorage reloaded = storage.tryRead();
     assertThat(reloaded.getRaisedIssuesRules()).hasSize(2);
@@ -427,12 +458,12 @@ public class TelemetryManagerTest {
   private TelemetryLocalStorageManager mockTelemetryStorage() {
     TelemetryLocalStorageManager storage = mock(TelemetryLocalStorageManager.class);
     when(storage.tryRead()).thenReturn(new TelemetryLocalStorage());
-    doAnswer(new Answer<Void>() {
+    doAnswer(new Answer<Boolean>() {
       @Override
-      public Void answer(InvocationOnMock invocation) throws Throwable {
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
         Object[] args = invocation.getArguments();
         ((Consumer) args[0]).accept(mock(TelemetryLocalStorage.class));
-        return null;
+        return true;
       }
     }).when(storage).tryUpdateAtomically(any(Consumer.class));
     return storage;
@@ -19,8 +19,15 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -40,4 +47,28 @@ public class CachingIssueTrackerImplTest {
     tracker.shutdown();
     verify(cache).shutdown();
   }
+
+  @Test
+  public void should_track_different_files_concurrently() throws Exception {
+    InMemoryIssueTrackerCache inMemoryCache = new InMemoryIssueTrackerCache();
+    CachingIssueTrackerImpl concurrentTracker = new CachingIssueTrackerImpl(inMemoryCache);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        String file = "file" + (i % 10);
+        Trackable trackable = new TestTrackable("rule", "message", i % 10, 1, 1, null);
+        futures.add(executor.submit(() -> concurrentTracker.matchAndTrackAsNew(file, Collections.singletonList(trackable))));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(inMemoryCache.getLiveOrFail("file" + i)).hasSize(1);
+    }
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compare the regexp based line hashing with {@link DigestUtils#digestHashCode(CharSequence)} and {@link LineHashes},
+ * when computing the line hashes of the issues of a file.
+ * The issue counts cover a file with few issues, where only the lines of the issues need a hash, and a file with more issues than
+ * lines, where hashing every line once should pay off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DigestUtilsBenchmark {
+
+  @Param({"1000"})
+  int lineCount;
+
+  @Param({"100", "2000"})
+  int issueCount;
+
+  private String fileContent;
+  private List<String> lines;
+  private int[] issueLines;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    lines = new ArrayList<>(lineCount);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < lineCount; i++) {
+      String line = "    if (value" + i + " != null && value" + i + ".length() > " + random.nextInt(100) + ") { return; }";
+      lines.add(line);
+      sb.append(line).append('\n');
+    }
+    fileContent = sb.toString();
+    issueLines = new int[issueCount];
+    for (int i = 0; i < issueCount; i++) {
+      issueLines[i] = 1 + random.nextInt(lineCount);
+    }
+  }
+
+  @Benchmark
+  public void regexp(Blackhole blackhole) throws NoSuchAlgorithmException {
+    MessageDigest md5 = MessageDigest.getInstance("MD5");
+    for (int line : issueLines) {
+      String content = lines.get(line - 1);
+      blackhole.consume(DigestUtils.encodeHexString(md5.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8))).hashCode());
+    }
+  }
+
+  @Benchmark
+  public void digestHashCodePerIssue(Blackhole blackhole) {
+    for (int line : issueLines) {
+      blackhole.consume(DigestUtils.digestHashCode(lines.get(line - 1)));
+    }
+  }
+
+  @Benchmark
+  public void lineHashesPerFile(Blackhole blackhole) {
+    LineHashes lineHashes = new LineHashes(fileContent);
+    for (int line : issueLines) {
+      blackhole.consume(lineHashes.getLineHash(line));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DigestUtilsBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DigestUtilsTests {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "   ", "line content", "  int\ta = 1;\r\n", "\u000B\f", "\u00e9\u00e0\u00e7 \u20ac", "emoji \uD83D\uDE00 here", "unpaired \uD83D surrogate", "\uDE00",
+    "trailing high \uD83D", "split \uD83D \t\uDE00 pair"})
+  void should_compute_same_hash_as_previous_implementation(String content) throws Exception {
+    String expected = legacyDigest(content);
+
+    assertThat(DigestUtils.digest(content)).isEqualTo(expected);
+    assertThat(DigestUtils.digestHashCode(content)).isEqualTo(expected.hashCode());
+  }
+
+  @Test
+  void should_hash_sub_sequence() throws Exception {
+    String content = "foo\nbar baz\nqux";
+
+    assertThat(DigestUtils.digestHashCode(content, 4, 11)).isEqualTo(legacyDigest("bar baz").hashCode());
+  }
+
+  @Test
+  void should_hash_content_larger_than_buffer() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      sb.append("\u00e9 ").append(i);
+    }
+    String content = sb.toString();
+
+    assertThat(DigestUtils.digest(content)).isEqualTo(legacyDigest(content));
+    assertThat(DigestUtils.digest("small")).isEqualTo(legacyDigest("small"));
+  }
+
+  @Test
+  void should_be_thread_safe() throws Exception {
+    List<String> contents = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      contents.add("content of line " + i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(executor.submit(() -> {
+          for (String content : contents) {
+            if (DigestUtils.digestHashCode(content) != legacyDigest(content).hashCode()) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String legacyDigest(String content) throws Exception {
+    return DigestUtils.encodeHexString(MessageDigest.getInstance("MD5").digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+  }
+}
@@ -56,6 +56,25 @@ public class IssueTrackableTest {
     assertThat(trackable.getLineHash()).isEqualTo(hash(lineContent));
   }
 
+  @Test
+  public void should_reuse_line_hashes_of_the_file() {
+    when(issue.getStartLine()).thenReturn(2);
+    LineHashes lineHashes = new LineHashes("first line\nline content\nlast line");
+
+    IssueTrackable trackable = IssueTrackable.withLineHashes(issue, null, "text range content", lineHashes);
+
+    assertThat(trackable.getTextRangeHash()).isEqualTo(hash("text range content"));
+    assertThat(trackable.getLineHash()).isEqualTo(hash("line content"));
+  }
+
+  @Test
+  public void should_have_null_line_hash_when_issue_has_no_line() {
+    IssueTrackable trackable = IssueTrackable.withLineHashes(issue, null, null, new LineHashes("line content"));
+
+    assertThat(trackable.getTextRangeHash()).isNull();
+    assertThat(trackable.getLineHash()).isNull();
+  }
+
   private int hash(String content) {
     return digest(content).hashCode();
   }
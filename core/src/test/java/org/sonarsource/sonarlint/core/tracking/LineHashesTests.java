@@ -0,0 +1,67 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineHashesTests {
+
+  @Test
+  void should_hash_each_line() {
+    LineHashes lineHashes = new LineHashes("first line\nsecond  line\r\n\rlast");
+
+    assertThat(lineHashes.lineCount()).isEqualTo(4);
+    assertThat(lineHashes.getLineHash(1)).isEqualTo(DigestUtils.digest("first line").hashCode());
+    assertThat(lineHashes.getLineHash(2)).isEqualTo(DigestUtils.digest("second  line").hashCode());
+    assertThat(lineHashes.getLineHash(3)).isEqualTo(DigestUtils.digest("").hashCode());
+    assertThat(lineHashes.getLineHash(4)).isEqualTo(DigestUtils.digest("last").hashCode());
+  }
+
+  @Test
+  void should_count_empty_last_line() {
+    LineHashes lineHashes = new LineHashes("line\n");
+
+    assertThat(lineHashes.lineCount()).isEqualTo(2);
+    assertThat(lineHashes.getLineHash(2)).isEqualTo(DigestUtils.digest("").hashCode());
+  }
+
+  @Test
+  void should_return_null_for_lines_out_of_file() {
+    LineHashes lineHashes = new LineHashes("line");
+
+    assertThat(lineHashes.getLineHash(0)).isNull();
+    assertThat(lineHashes.getLineHash(2)).isNull();
+  }
+
+  @Test
+  void should_grow_for_large_files() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      sb.append("line ").append(i).append('\n');
+    }
+
+    LineHashes lineHashes = new LineHashes(sb);
+
+    assertThat(lineHashes.lineCount()).isEqualTo(1001);
+    assertThat(lineHashes.getLineHash(500)).isEqualTo(DigestUtils.digest("line 500").hashCode());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedKeyTrackerTests {
+
+  private final PackedKeyTracker<Trackable, Trackable> underTest = new PackedKeyTracker<>();
+
+  @Test
+  void should_match_same_trackables_as_tracker() {
+    for (int seed = 0; seed < 500; seed++) {
+      Random random = new Random(seed);
+      List<Trackable> raws = randomTrackables(random, random.nextInt(50));
+      List<Trackable> bases = randomTrackables(random, random.nextInt(50));
+
+      Map<Trackable, Trackable> expected = new Tracker<>().track(() -> raws, () -> bases).getMatchedRaws();
+      Map<Trackable, Trackable> actual = underTest.track(() -> raws, () -> bases).getMatchedRaws();
+
+      assertThat(actual).as("seed %d", seed).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void should_match_server_issue_key_first() {
+    Trackable raw = new TestTrackable("rule", "message", 1, 11, 111, "key");
+    Trackable sameLine = new TestTrackable("rule", "message", 1, 11, 111, null);
+    Trackable sameServerIssueKey = new TestTrackable("other", "other message", 2, 22, 222, "key");
+
+    Tracking<Trackable, Trackable> tracking = underTest.track(() -> Collections.singletonList(raw), () -> Arrays.asList(sameLine, sameServerIssueKey));
+
+    assertThat(tracking.getMatchedRaws()).containsEntry(raw, sameServerIssueKey);
+    assertThat(tracking.getUnmatchedBases()).containsExactly(sameLine);
+  }
+
+  @Test
+  void should_not_match_blank_server_issue_keys() {
+    Trackable raw = new TestTrackable("rule", "message", 1, 11, 111, "");
+    Trackable base = new TestTrackable("other", "other message", 2, 22, 222, "");
+
+    Tracking<Trackable, Trackable> tracking = underTest.track(() -> Collections.singletonList(raw), () -> Collections.singletonList(base));
+
+    assertThat(tracking.getMatchedRaws()).isEmpty();
+  }
+
+  @Test
+  void should_match_first_base_when_several_have_same_key() {
+    Trackable raw1 = new TestTrackable("rule", "message", 1, 11, 111, null);
+    Trackable raw2 = new TestTrackable("rule", "message", 1, 11, 111, null);
+    Trackable base1 = new TestTrackable("rule", "message", 1, 11, 111, null);
+    Trackable base2 = new TestTrackable("rule", "message", 1, 11, 111, null);
+
+    Tracking<Trackable, Trackable> tracking = underTest.track(() -> Arrays.asList(raw1, raw2), () -> Arrays.asList(base1, base2));
+
+    assertThat(tracking.getMatchedRaws()).containsEntry(raw1, base1).containsEntry(raw2, base2);
+  }
+
+  @Test
+  void should_ignore_trackables_without_message_in_message_passes() {
+    Trackable raw = new TestTrackable("rule", null, 1, 11, 111, null);
+    Trackable base = new TestTrackable("rule", null, 1, 22, 222, null);
+
+    Tracking<Trackable, Trackable> tracking = underTest.track(() -> Collections.singletonList(raw), () -> Collections.singletonList(base));
+
+    assertThat(tracking.getMatchedRaws()).isEmpty();
+  }
+
+  @Test
+  void should_handle_empty_collections() {
+    Trackable trackable = new TestTrackable("rule", "message", 1, 11, 111, null);
+
+    assertThat(underTest.track(Collections::emptyList, () -> Collections.singletonList(trackable)).getUnmatchedBases()).containsExactly(trackable);
+    assertThat(underTest.track(() -> Collections.singletonList(trackable), Collections::emptyList).getUnmatchedRaws()).containsExactly(trackable);
+  }
+
+  private static List<Trackable> randomTrackables(Random random, int count) {
+    List<Trackable> trackables = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String serverIssueKey;
+      int kind = random.nextInt(3);
+      if (kind == 0) {
+        serverIssueKey = "key" + random.nextInt(20);
+      } else {
+        serverIssueKey = kind == 1 ? null : "";
+      }
+      trackables.add(new TestTrackable("rule" + random.nextInt(3), "message" + random.nextInt(4), randomOrNull(random, 6), randomOrNull(random, 5),
+        randomOrNull(random, 5), serverIssueKey));
+    }
+    return trackables;
+  }
+
+  private static Integer randomOrNull(Random random, int bound) {
+    return random.nextInt(10) == 0 ? null : random.nextInt(bound);
+  }
+}
@@ -25,12 +25,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
@@ -58,6 +62,11 @@ public class PersistentIssueTrackerCacheTest {
       cache.put(key, issues);
     }
 
+    @Override
+    public void saveAll(Map<String, Collection<Trackable>> issuesByKey) throws IOException {
+      cache.putAll(issuesByKey);
+    }
+
     @Override
     public Collection<Trackable> read(String key) throws IOException {
       return cache.get(key);
@@ -78,6 +87,26 @@ public class PersistentIssueTrackerCacheTest {
     }
   }
 
+  class BlockingIssueStore extends StubIssueStore {
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch canWrite = new CountDownLatch(1);
+
+    BlockingIssueStore() throws IOException {
+      super();
+    }
+
+    @Override
+    public void saveAll(Map<String, Collection<Trackable>> issuesByKey) throws IOException {
+      writing.countDown();
+      try {
+        canWrite.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.saveAll(issuesByKey);
+    }
+  }
+
   @Before
   public void setUp() throws IOException {
     stubIssueStore = new StubIssueStore();
@@ -177,12 +206,12 @@ public class PersistentIssueTrackerCacheTest {
     Collection<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
 
     IssueStore store = mock(IssueStore.class);
-    doThrow(new IOException("failed to write to store")).when(store).save(file, trackables);
+    doThrow(new IOException("failed to write to store")).when(store).saveAll(Collections.singletonMap(file, trackables));
 
     PersistentIssueTrackerCache cache = new PersistentIssueTrackerCache(store);
     cache.put(file, trackables);
     cache.flushAll();
-    verify(store).save(file, trackables);
+    verify(store).saveAll(Collections.singletonMap(file, trackables));
   }
 
   @Test(expected = IllegalStateException.class)
@@ -194,4 +223,105 @@ public class PersistentIssueTrackerCacheTest {
       cache.put("dummy" + i, Collections.emptyList());
     }
   }
+
+  @Test
+  public void should_persist_issues_when_estimated_bytes_limit_reached() {
+    List<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+    long limit = PersistentIssueTrackerCache.estimateSize("file0", trackables) + PersistentIssueTrackerCache.estimateSize("file1", trackables);
+    PersistentIssueTrackerCache cache = PersistentIssueTrackerCache.builder(stubIssueStore).setMaxEstimatedBytes(limit).build();
+
+    cache.put("file0", trackables);
+    cache.put("file1", trackables);
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+
+    cache.put("file2", trackables);
+    assertThat(stubIssueStore.size()).isEqualTo(1);
+    assertThat(cache.getCurrentTrackables("file0")).hasSize(1);
+  }
+
+  @Test
+  public void should_persist_evicted_issues_in_background() throws Exception {
+    BlockingIssueStore store = new BlockingIssueStore();
+    PersistentIssueTrackerCache cache = PersistentIssueTrackerCache.builder(store).setMaxEntries(1).setWriteBehindQueueSize(10).build();
+    List<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+
+    cache.put("file0", trackables);
+    cache.put("file1", trackables);
+    assertThat(store.writing.await(10, TimeUnit.SECONDS)).isTrue();
+    cache.put("file2", Collections.emptyList());
+
+    assertThat(store.size()).isEqualTo(0);
+    assertThat(cache.isFirstAnalysis("file0")).isFalse();
+    assertThat(cache.getCurrentTrackables("file0")).containsExactlyElementsOf(trackables);
+    assertThat(cache.getCurrentTrackables("file1")).containsExactlyElementsOf(trackables);
+
+    store.canWrite.countDown();
+    cache.shutdown();
+    assertThat(store.size()).isEqualTo(3);
+    assertThat(store.read("file1")).containsExactlyElementsOf(trackables);
+  }
+
+  @Test
+  public void should_report_and_retry_failed_background_writes() throws Exception {
+    CountDownLatch failed = new CountDownLatch(1);
+    StubIssueStore store = new StubIssueStore() {
+      @Override
+      public void saveAll(Map<String, Collection<Trackable>> issuesByKey) throws IOException {
+        if (failed.getCount() > 0) {
+          failed.countDown();
+          throw new IOException("failed to write to store");
+        }
+        super.saveAll(issuesByKey);
+      }
+    };
+    PersistentIssueTrackerCache cache = PersistentIssueTrackerCache.builder(store).setMaxEntries(1).setWriteBehindQueueSize(10).build();
+    List<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+
+    cache.put("file0", trackables);
+    cache.put("file1", trackables);
+    assertThat(failed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThatThrownBy(() -> {
+      // the failure is reported by the next eviction
+      for (int i = 2; i < 100; i++) {
+        cache.put("file" + i, trackables);
+        Thread.sleep(10);
+      }
+    }).isInstanceOf(IllegalStateException.class).hasRootCauseInstanceOf(IOException.class);
+    assertThat(cache.getCurrentTrackables("file0")).containsExactlyElementsOf(trackables);
+
+    cache.shutdown();
+    assertThat(store.read("file0")).containsExactlyElementsOf(trackables);
+  }
+
+  @Test
+  public void should_stop_background_writer_when_final_flush_fails() throws Exception {
+    CountDownLatch failed = new CountDownLatch(1);
+    AtomicReference<Thread> writer = new AtomicReference<>();
+    StubIssueStore store = new StubIssueStore() {
+      @Override
+      public void saveAll(Map<String, Collection<Trackable>> issuesByKey) throws IOException {
+        writer.compareAndSet(null, Thread.currentThread());
+        failed.countDown();
+        throw new IOException("failed to write to store");
+      }
+    };
+    PersistentIssueTrackerCache cache = PersistentIssueTrackerCache.builder(store).setMaxEntries(1).setWriteBehindQueueSize(10).build();
+    List<Trackable> trackables = Collections.singletonList(mock(Trackable.class));
+    cache.put("file0", trackables);
+    cache.put("file1", trackables);
+    assertThat(failed.await(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(cache::shutdown).isInstanceOf(IllegalStateException.class).hasRootCauseInstanceOf(IOException.class);
+
+    assertThat(writer.get().getName()).isEqualTo("sonarlint-issue-store-writer");
+    assertThat(writer.get().isAlive()).isFalse();
+  }
+
+  @Test
+  public void should_reject_invalid_limits() {
+    PersistentIssueTrackerCache.Builder builder = PersistentIssueTrackerCache.builder(stubIssueStore);
+    assertThatThrownBy(() -> builder.setMaxEntries(0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> builder.setMaxEstimatedBytes(0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> builder.setWriteBehindQueueSize(0)).isInstanceOf(IllegalArgumentException.class);
+  }
 }
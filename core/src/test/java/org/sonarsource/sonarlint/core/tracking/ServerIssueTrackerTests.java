@@ -19,17 +19,27 @@
  */
 package org.sonarsource.sonarlint.core.tracking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.sonarsource.sonarlint.core.MockWebServerExtension;
+import org.sonarsource.sonarlint.core.client.api.common.ProgressMonitor;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ProjectBinding;
+import org.sonarsource.sonarlint.core.client.api.exceptions.CanceledException;
 import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 import org.sonarsource.sonarlint.core.serverapi.EndpointParams;
 import org.sonarsource.sonarlint.core.serverapi.HttpClient;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -66,4 +76,66 @@ class ServerIssueTrackerTests {
     verify(engine).getServerIssues(projectBinding, filePath);
     verifyNoMoreInteractions(engine);
   }
+
+  @Test
+  void should_match_all_files_in_bulk() {
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+    ServerIssueTracker tracker = new ServerIssueTracker(issueTracker, 3);
+    List<String> files = Arrays.asList("file1", "file2", "file3", "file4", "file5");
+    List<Float> fractions = Collections.synchronizedList(new ArrayList<>());
+
+    tracker.bulkUpdate(engine, projectBinding, files, new ProgressMonitor() {
+      @Override
+      public void setFraction(float fraction) {
+        fractions.add(fraction);
+      }
+    });
+
+    for (String file : files) {
+      verify(engine).getServerIssues(projectBinding, file);
+      verify(issueTracker).matchAndTrackAsBase(eq(file), anyCollection());
+    }
+    assertThat(fractions).hasSize(5).isSorted().endsWith(1.0f);
+  }
+
+  @Test
+  void should_continue_bulk_update_when_a_file_fails() {
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+    when(issueTracker.matchAndTrackAsBase(eq("file1"), anyCollection())).thenThrow(new IllegalStateException("No issues in cache"));
+    ServerIssueTracker tracker = new ServerIssueTracker(issueTracker, 2);
+
+    tracker.bulkUpdate(engine, projectBinding, Arrays.asList("file1", "file2"), null);
+
+    verify(issueTracker).matchAndTrackAsBase(eq("file2"), anyCollection());
+  }
+
+  @Test
+  void should_stop_bulk_update_when_canceled() {
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+    ServerIssueTracker tracker = new ServerIssueTracker(issueTracker, 2);
+    ProgressMonitor canceled = new ProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return true;
+      }
+    };
+
+    assertThrows(CanceledException.class, () -> tracker.bulkUpdate(engine, projectBinding, Arrays.asList("file1", "file2"), canceled));
+
+    verifyNoInteractions(issueTracker);
+  }
+
+  @Test
+  void should_download_issues_in_bulk() {
+    HttpClient client = MockWebServerExtension.httpClient();
+    tracker.bulkUpdate(endpoint, client, engine, projectBinding, Collections.singleton(filePath), true, null);
+    verify(engine).downloadServerIssues(endpoint, client, projectBinding, filePath, true, null);
+    verifyNoMoreInteractions(engine);
+  }
+
+  @Test
+  void should_reject_invalid_parallelism() {
+    CachingIssueTracker issueTracker = mock(CachingIssueTracker.class);
+    assertThrows(IllegalArgumentException.class, () -> new ServerIssueTracker(issueTracker, 0));
+  }
 }
@@ -22,10 +22,16 @@ package org.sonarsource.sonarlint.core.tracking;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 // note: most methods of the subject are already tested by higher level uses
 public class StringStoreIndexTest {
   @Rule
@@ -42,4 +48,66 @@ public class StringStoreIndexTest {
 
     index.keys();
   }
+
+  @Test
+  public void should_reload_changes_from_journal() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("key1", storeBasePath.resolve("path1"));
+    index.save("key2", storeBasePath.resolve("path2"));
+    index.save("key3", storeBasePath.resolve("path3"));
+    index.delete(Arrays.asList("key2", "unknown"));
+
+    assertThat(index.keys()).containsOnly("key1", "key3");
+    assertThat(storeBasePath.resolve("index.pb")).doesNotExist();
+    assertThat(new StringStoreIndex(storeBasePath).keys()).containsOnly("key1", "key3");
+  }
+
+  @Test
+  public void should_not_journal_unchanged_entries() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("key", storeBasePath.resolve("path"));
+    index.save("key", storeBasePath.resolve("path"));
+    index.delete("unknown");
+
+    assertThat(index.journalEntries()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_checkpoint_when_journal_grows() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    Map<String, Path> pathByKey = new LinkedHashMap<>();
+    for (int i = 0; i <= StringStoreIndex.MIN_CHECKPOINT_ENTRIES; i++) {
+      pathByKey.put("key" + i, storeBasePath.resolve("path" + i));
+    }
+    index.save(pathByKey);
+
+    assertThat(index.journalEntries()).isZero();
+    assertThat(storeBasePath.resolve("index.pb")).exists();
+    assertThat(storeBasePath.resolve("index.pb.wal")).doesNotExist();
+
+    index.delete("key0");
+    StringStoreIndex reloaded = new StringStoreIndex(storeBasePath);
+    assertThat(reloaded.keys()).hasSize(StringStoreIndex.MIN_CHECKPOINT_ENTRIES).doesNotContain("key0");
+  }
+
+  @Test
+  public void should_ignore_incomplete_journal_entry() throws IOException {
+    Path storeBasePath = temporaryFolder.newFolder().toPath();
+    StringStoreIndex index = new StringStoreIndex(storeBasePath);
+    index.save("key1", storeBasePath.resolve("path1"));
+    index.checkpoint();
+    index.save("key2", storeBasePath.resolve("path2"));
+    Path journal = storeBasePath.resolve("index.pb.wal");
+    Files.write(journal, new byte[] {1, 0, 10, 'k'}, StandardOpenOption.APPEND);
+
+    StringStoreIndex reloaded = new StringStoreIndex(storeBasePath);
+    assertThat(reloaded.keys()).containsOnly("key1", "key2");
+    assertThat(reloaded.journalEntries()).isEqualTo(1);
+
+    reloaded.save("key3", storeBasePath.resolve("path3"));
+    assertThat(new StringStoreIndex(storeBasePath).keys()).containsOnly("key1", "key2", "key3");
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+
+/**
+ * Plain {@link Trackable} holding only the fields used for matching, cheaper than mocks when many instances are needed.
+ */
+class TestTrackable implements Trackable {
+  private final String ruleKey;
+  private final String message;
+  private final Integer line;
+  private final Integer lineHash;
+  private final Integer textRangeHash;
+  private final String serverIssueKey;
+
+  TestTrackable(String ruleKey, String message, @Nullable Integer line, @Nullable Integer lineHash, @Nullable Integer textRangeHash,
+    @Nullable String serverIssueKey) {
+    this.ruleKey = ruleKey;
+    this.message = message;
+    this.line = line;
+    this.lineHash = lineHash;
+    this.textRangeHash = textRangeHash;
+    this.serverIssueKey = serverIssueKey;
+  }
+
+  @Override
+  public Issue getIssue() {
+    return null;
+  }
+
+  @Override
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  @Override
+  public String getRuleName() {
+    return ruleKey;
+  }
+
+  @Override
+  public String getSeverity() {
+    return "MAJOR";
+  }
+
+  @Override
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String getType() {
+    return "CODE_SMELL";
+  }
+
+  @Override
+  public Integer getLine() {
+    return line;
+  }
+
+  @Override
+  public Integer getLineHash() {
+    return lineHash;
+  }
+
+  @Override
+  public TextRange getTextRange() {
+    return null;
+  }
+
+  @Override
+  public Integer getTextRangeHash() {
+    return textRangeHash;
+  }
+
+  @Override
+  public Long getCreationDate() {
+    return null;
+  }
+
+  @Override
+  public String getServerIssueKey() {
+    return serverIssueKey;
+  }
+
+  @Override
+  public boolean isResolved() {
+    return false;
+  }
+
+  @Override
+  public String getAssignee() {
+    return "";
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare {@link Tracker} and {@link PackedKeyTracker} when matching local issues against server issues.
+ * Server issues are random with a fixed seed, and each local issue is a copy of one of them with its message, line, line hash or
+ * text range hash changed at random, so that all the matching passes of the trackers get work to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrackerBenchmark {
+
+  @Param({"10000", "100000"})
+  int issueCount;
+
+  private List<Trackable> raws;
+  private List<Trackable> bases;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    raws = new ArrayList<>(issueCount);
+    bases = new ArrayList<>(issueCount);
+    for (int i = 0; i < issueCount; i++) {
+      String ruleKey = "rule" + random.nextInt(50);
+      String message = "message" + random.nextInt(1000);
+      int line = random.nextInt(issueCount / 5);
+      int lineHash = random.nextInt();
+      int textRangeHash = random.nextInt();
+      // server issues always have a key, local issues never have one
+      bases.add(new TestTrackable(ruleKey, message, line, lineHash, textRangeHash, "AX" + i));
+      // simulate some edition: moved lines, modified messages and modified code
+      raws.add(new TestTrackable(ruleKey,
+        random.nextInt(3) == 0 ? "modified" : message,
+        random.nextInt(4) == 0 ? (line + 1) : line,
+        random.nextInt(5) == 0 ? random.nextInt() : lineHash,
+        random.nextInt(3) == 0 ? random.nextInt() : textRangeHash,
+        null));
+    }
+  }
+
+  @Benchmark
+  public Tracking<Trackable, Trackable> tracker() {
+    return new Tracker<Trackable, Trackable>().track(() -> raws, () -> bases);
+  }
+
+  @Benchmark
+  public Tracking<Trackable, Trackable> packedKeyTracker() {
+    return new PackedKeyTracker<Trackable, Trackable>().track(() -> raws, () -> bases);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(TrackerBenchmark.class.getSimpleName()).build()).run();
+  }
+}
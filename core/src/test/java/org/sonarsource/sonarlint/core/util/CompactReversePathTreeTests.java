@@ -0,0 +1,105 @@
+/*
+ * SonarLint Core - Implementation
+ * Copyright (C) 2016-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarlint.core.util;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactReversePathTreeTests {
+
+  private static final CompactReversePathTree TREE = CompactReversePathTree.build(Arrays.asList(
+    "project1/src/main/java/File.java",
+    "project2/src/main/java/File.java",
+    "project2/src/test/java/File.java",
+    "project1/A/pom.xml",
+    "project1/pom.xml",
+    "pom.xml"));
+
+  @Test
+  void should_return_matching_prefixes() {
+    ReversePathTree.Match match = TREE.findLongestSuffixMatches(Paths.get("src/main/java/File.java"));
+
+    assertThat(match.matchLen()).isEqualTo(4);
+    assertThat(match.matchPrefixes()).containsExactlyInAnyOrder(Paths.get("project1"), Paths.get("project2"));
+  }
+
+  @Test
+  void should_return_empty_prefix_if_full_match() {
+    ReversePathTree.Match match = TREE.findLongestSuffixMatches(Paths.get("project2/src/main/java/File.java"));
+
+    assertThat(match.matchLen()).isEqualTo(5);
+    assertThat(match.matchPrefixes()).containsExactly(Paths.get(""));
+  }
+
+  @Test
+  void should_return_empty_if_no_match() {
+    ReversePathTree.Match match = TREE.findLongestSuffixMatches(Paths.get("File2.java"));
+
+    assertThat(match.matchLen()).isZero();
+    assertThat(match.matchPrefixes()).isEmpty();
+  }
+
+  @Test
+  void should_return_matches_that_are_part_of_other_matches() {
+    ReversePathTree.Match match = TREE.findLongestSuffixMatches(Paths.get("pom.xml"));
+
+    assertThat(match.matchLen()).isEqualTo(1);
+    assertThat(match.matchPrefixes()).containsOnly(Paths.get(""), Paths.get("project1"), Paths.get("project1/A"));
+  }
+
+  @Test
+  void should_keep_path_ending_on_a_node_having_several_children() {
+    CompactReversePathTree tree = CompactReversePathTree.build(Arrays.asList("a", "a/x/b", "a/y/b", "b"));
+
+    ReversePathTree.Match match = tree.findLongestSuffixMatches(Paths.get("z/b"));
+
+    assertThat(match.matchLen()).isEqualTo(1);
+    assertThat(match.matchPrefixes()).containsOnly(Paths.get(""), Paths.get("a/x"), Paths.get("a/y"));
+    assertThat(tree.findLongestSuffixMatches(Paths.get("a")).matchPrefixes()).containsOnly(Paths.get(""));
+  }
+
+  @Test
+  void should_be_rebuilt_from_its_arrays() {
+    CompactReversePathTree copy = new CompactReversePathTree(TREE.segments(), TREE.parents(), TREE.nodeSegments(), TREE.terminalNodes());
+
+    assertThat(copy.segments()).containsExactly("A", "File.java", "java", "main", "pom.xml", "project1", "project2", "src", "test");
+    ReversePathTree.Match match = copy.findLongestSuffixMatches(Paths.get("other/src/test/java/File.java"));
+    assertThat(match.matchLen()).isEqualTo(4);
+    assertThat(match.matchPrefixes()).containsExactly(Paths.get("project2"));
+  }
+
+  @Test
+  void should_ignore_empty_segments() {
+    CompactReversePathTree tree = CompactReversePathTree.build(Arrays.asList("/a//b/", ""));
+
+    assertThat(tree.segments()).containsExactly("a", "b");
+    assertThat(tree.terminalNodes()).hasSize(1);
+  }
+
+  @Test
+  void should_reject_nodes_not_in_breadth_first_order() {
+    assertThatThrownBy(() -> new CompactReversePathTree(new String[] {"a", "b"}, new int[] {0, 1, 0}, new int[] {0, 1, 1}, new int[0]))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -35,6 +35,7 @@ public class PluginLocator {
   public static final String SONAR_XOO_PLUGIN_NAME = "sonar-xoo-plugin";
   public static final String SONAR_PHP_PLUGIN_JAR = "sonar-php-plugin-3.2.0.4868.jar";
   public static final String SONAR_PYTHON_PLUGIN_JAR = "sonar-python-plugin-1.14.0.3086.jar";
+  public static final String SONAR_PYTHON_PLUGIN_JAR_HASH = "396c47dd09aa729505a058d64e17bb35";
 
   public static URL getJavaPluginUrl() {
     return getPluginUrl(SONAR_JAVA_PLUGIN_JAR);